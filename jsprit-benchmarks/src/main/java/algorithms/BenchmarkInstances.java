@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import readers.ChristofidesReader;
+import readers.CordeauReader;
+import readers.SolomonReader;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblem.FleetSize;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+/**
+ * Reads the benchmark instances the scenarios are parameterised on.
+ * 
+ * <p>An instance is named by its folder and file within jsprit-instances/instances, such as solomon/R101, cordeau/p01,
+ * christofides/vrpnc1 or taillard/R_19. The instance folder can be set with the system property 'jsprit.instances'. 
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class BenchmarkInstances {
+	
+	static final String INSTANCE_FOLDER = System.getProperty("jsprit.instances", "../jsprit-instances/instances");
+	
+	/**
+	 * Taillard's files only define the heterogeneous fleet, the customers are taken from this christofides instance.
+	 */
+	static final String TAILLARD_CUSTOMERS = "christofides/vrpnc3.txt";
+	
+	private BenchmarkInstances(){
+		
+	}
+
+	static VehicleRoutingProblem read(String instance){
+		VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+		if(instance.startsWith("solomon/")){
+			new SolomonReader(builder).read(file(instance + ".txt"));
+		}
+		else if(instance.startsWith("cordeau/")){
+			new CordeauReader(builder).read(file(instance));
+		}
+		else if(instance.startsWith("christofides/")){
+			new ChristofidesReader(builder).read(file(instance + ".txt"));
+		}
+		else if(instance.startsWith("taillard/")){
+			readTaillard(builder, instance);
+		}
+		else{
+			throw new IllegalStateException("cannot read instance " + instance + ". it must be located in either solomon, cordeau, christofides or taillard.");
+		}
+		return builder.build();
+	}
+
+	private static void readTaillard(VehicleRoutingProblem.Builder builder, String instance) {
+		VehicleRoutingProblem.Builder customerBuilder = VehicleRoutingProblem.Builder.newInstance();
+		new ChristofidesReader(customerBuilder).read(file(TAILLARD_CUSTOMERS));
+		Vehicle depot = customerBuilder.getAddedVehicles().iterator().next();
+		builder.addAllJobs(customerBuilder.build().getJobs().values());
+		builder.setFleetSize(FleetSize.FINITE);
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(new File(file(instance + ".txt"))));
+			String line = reader.readLine();
+			while((line = reader.readLine()) != null){
+				line = line.replace("\r", "").trim();
+				if(line.isEmpty()) continue;
+				//Vehicle;Capacity;Fix;Var;#Veh
+				String[] tokens = line.split(";");
+				VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance(tokens[0], Integer.parseInt(tokens[1])).setFixedCost(Double.parseDouble(tokens[2]))
+						.setCostPerDistance(Double.parseDouble(tokens[3])).build();
+				int nuOfVehicles = Integer.parseInt(tokens[4]);
+				for(int i=0;i<nuOfVehicles;i++){
+					builder.addVehicle(VehicleImpl.Builder.newInstance(tokens[0] + "_" + (i+1)).setType(type).setLocationId(depot.getLocationId())
+							.setLocationCoord(depot.getCoord()).setLatestArrival(depot.getLatestArrival()).build());
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		finally{
+			close(reader);
+		}
+	}
+
+	private static void close(BufferedReader reader) {
+		if(reader == null) return;
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String file(String name) {
+		return INSTANCE_FOLDER + "/" + name;
+	}
+
+}
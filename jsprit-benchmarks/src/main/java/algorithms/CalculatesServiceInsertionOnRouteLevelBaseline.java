@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Stefan Schroeder.
+ * eMail: stefan.schroeder@kit.edu
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.log4j.Logger;
+
+import util.Neighborhood;
+
+import algorithms.RouteStates.ActivityState;
+import basics.Job;
+import basics.Service;
+import basics.costs.VehicleRoutingActivityCosts;
+import basics.costs.VehicleRoutingTransportCosts;
+import basics.route.Driver;
+import basics.route.End;
+import basics.route.ServiceActivity;
+import basics.route.Start;
+import basics.route.TourActivities;
+import basics.route.TourActivity;
+import basics.route.Vehicle;
+import basics.route.VehicleRoute;
+import basics.route.VehicleImpl.NoVehicle;
+
+
+
+/**
+ * Copy of {@link CalculatesServiceInsertionOnRouteLevel} as it was before it calculated insertions without temporary collections, i.e. it 
+ * builds a cost map, a priority queue, a path per insertion position and a copy of the whole tour per candidate.
+ * 
+ * <p>It is the baseline {@link InsertionBenchmark} compares the current calculator with, thus it must not be optimised.
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class CalculatesServiceInsertionOnRouteLevelBaseline implements JobInsertionCalculator{
+	
+	private static final Logger logger = Logger.getLogger(CalculatesServiceInsertionOnRouteLevelBaseline.class);
+	
+	private final VehicleRoutingTransportCosts transportCosts;
+	
+	private final VehicleRoutingActivityCosts activityCosts;
+
+	private AuxilliaryCostCalculator auxilliaryPathCostCalculator;
+	
+	private RouteStates routeStates;
+	
+	private int nuOfActsForwardLooking = 0;
+	
+	private int memorySize = 2;
+	
+	private Neighborhood neighborhood = new Neighborhood() {
+		
+		@Override
+		public boolean areNeighbors(String location1, String location2) {
+			return true;
+		}
+		
+	};
+	
+	
+	
+	public void setNeighborhood(Neighborhood neighborhood) {
+		this.neighborhood = neighborhood;
+		logger.info("initialise neighborhood " + neighborhood);
+	}
+	
+	public void setMemorySize(int memorySize) {
+		this.memorySize = memorySize;
+		logger.info("set [solutionMemory="+memorySize+"]");
+	}
+
+	public CalculatesServiceInsertionOnRouteLevelBaseline(VehicleRoutingTransportCosts vehicleRoutingCosts, VehicleRoutingActivityCosts costFunc) {
+			super();
+			this.transportCosts = vehicleRoutingCosts;
+			this.activityCosts = costFunc;
+			auxilliaryPathCostCalculator = new AuxilliaryCostCalculator(transportCosts, activityCosts);
+			logger.info("initialise " + this);
+		}
+
+	public void setActivityStates(RouteStates actStates){
+		this.routeStates = actStates;
+	}
+
+	public ActivityState state(TourActivity act){
+		return routeStates.getState(act);
+	}
+
+	
+	void setNuOfActsForwardLooking(int nOfActsForwardLooking) {
+		this.nuOfActsForwardLooking = nOfActsForwardLooking;
+		logger.info("set [forwardLooking="+nOfActsForwardLooking+"]");
+	}
+
+	@Override
+	public String toString() {
+		return "[name=calculatesServiceInsertionOnRouteLevelBaseline][solutionMemory="+memorySize+"][forwardLooking="+nuOfActsForwardLooking+"]";
+	}
+	
+	/**
+	 * Calculates the insertion costs of job i on route level (which is based on the assumption that inserting job i does not only
+	 * have local effects but affects the entire route).
+	 * Calculation is conducted by two steps. In the first step, promising insertion positions are identified by appromiximating their 
+	 * marginal insertion cost. In the second step, marginal cost of the best M positions are calculated exactly.
+	 * 
+	 * 
+	 */
+	@Override
+	public InsertionData calculate(final VehicleRoute currentRoute, final Job jobToInsert, final Vehicle newVehicle, double newVehicleDepartureTime, final Driver newDriver, final double best_known_insertion_costs) {
+		if(jobToInsert == null) throw new IllegalStateException("job is null. cannot calculate the insertion of a null-job.");
+		if(newVehicle == null || newVehicle instanceof NoVehicle) throw new IllegalStateException("no vehicle given. set para vehicle!");
+		
+		/**
+		 * map that memorizes the costs with newVehicle, which is a cost-snapshot at tour-activities. 
+		 */
+		Map<TourActivity,Double> activity2costWithNewVehicle = new HashMap<TourActivity,Double>();
+		
+		/**
+		 * priority queue that stores insertion-data by insertion-costs in ascending order.
+		 */
+		PriorityQueue<InsertionData> bestInsertionsQueue = new PriorityQueue<InsertionData>(Math.max(2, currentRoute.getTourActivities().getActivities().size()), getComparator());
+		
+		TourActivities tour = currentRoute.getTourActivities();
+		double best_insertion_costs = best_known_insertion_costs;
+		Service service = (Service)jobToInsert;
+		
+		/**
+		 * pre-check whether vehicle-capacity of new vehicle is sufficient to load service.
+		 */
+		if(routeStates.getRouteState(currentRoute).getLoad() + service.getCapacityDemand() > newVehicle.getCapacity()){
+			return InsertionData.noInsertionFound();
+		}
+		
+		/**
+		 * some inis
+		 */
+		TourActivity serviceAct2Insert = ServiceActivity.newInstance(service);
+		int best_insertion_index = InsertionData.NO_INDEX;
+		
+		Start start = newStart(newVehicle, newVehicleDepartureTime);
+		End end = newEnd(newVehicle, newVehicleDepartureTime);
+		
+		TourActivity prevAct = start;
+		int actIndex = 0;
+		double sumOf_prevCosts_newVehicle = 0.0;
+		double prevActDepTime_newVehicle = start.getEndTime();
+
+		/**
+		 * inserting serviceAct2Insert in route r={0,1,...,i-1,i,j,j+1,...,n(r),n(r)+1}
+		 * i=prevAct
+		 * j=nextAct
+		 * k=serviceAct2Insert
+		 */
+		for(TourActivity nextAct : tour.getActivities()){
+			if(neighborhood.areNeighbors(serviceAct2Insert.getLocationId(), prevAct.getLocationId()) && neighborhood.areNeighbors(serviceAct2Insert.getLocationId(), nextAct.getLocationId())){
+				/**
+				 * builds a path on this route forwardPath={i,k,j,j+1,j+2,...,j+nuOfActsForwardLooking}
+				 */
+				List<TourActivity> path = new ArrayList<TourActivity>();
+				path.add(prevAct); path.add(serviceAct2Insert); path.add(nextAct);
+				if(nuOfActsForwardLooking > 0){ path.addAll(getForwardLookingPath(currentRoute,actIndex)); }
+
+				/**
+				 * calculates the path costs with new vehicle, c(forwardPath,newVehicle).
+				 */
+				double forwardPathCost_newVehicle = auxilliaryPathCostCalculator.costOfPath(path, prevActDepTime_newVehicle, newDriver, newVehicle); 
+
+				/**
+				 * insertion_cost_approximation = c({0,1,...,i},newVehicle) + c({i,k,j,j+1,j+2,...,j+nuOfActsForwardLooking},newVehicle) - c({0,1,...,i,j,j+1,...,j+nuOfActsForwardLooking},oldVehicle)
+				 */
+				double insertion_cost_approximation = sumOf_prevCosts_newVehicle + forwardPathCost_newVehicle - pathCost_oldVehicle(currentRoute,path); 
+
+				/**
+				 * memorize it in insertion-queue
+				 */
+				if(insertion_cost_approximation < best_known_insertion_costs){
+					bestInsertionsQueue.add(new InsertionData(insertion_cost_approximation, InsertionData.NO_INDEX, actIndex, newVehicle, newDriver));
+				}
+				
+			}
+
+			/**
+			 * calculate transport and activity costs with new vehicle (without inserting k)
+			 */
+			double transportCost_prevAct_nextAct_newVehicle = transportCosts.getTransportCost(prevAct.getLocationId(), nextAct.getLocationId(), prevActDepTime_newVehicle, newDriver, newVehicle);
+			double transportTime_prevAct_nextAct_newVehicle = transportCosts.getTransportTime(prevAct.getLocationId(), nextAct.getLocationId(), prevActDepTime_newVehicle, newDriver, newVehicle);
+			double arrTime_nextAct_newVehicle = prevActDepTime_newVehicle + transportTime_prevAct_nextAct_newVehicle;
+			double activityCost_nextAct = activityCosts.getActivityCost(nextAct, arrTime_nextAct_newVehicle, newDriver, newVehicle);
+
+			/**
+			 * memorize transport and activity costs with new vehicle without inserting k
+			 */
+			sumOf_prevCosts_newVehicle += transportCost_prevAct_nextAct_newVehicle + activityCost_nextAct;
+			activity2costWithNewVehicle.put(nextAct, sumOf_prevCosts_newVehicle);
+
+			/**
+			 * departure time at nextAct with new vehicle
+			 */
+			double depTime_nextAct_newVehicle = Math.max(arrTime_nextAct_newVehicle, nextAct.getTheoreticalEarliestOperationStartTime()) + nextAct.getOperationTime();
+
+			/**
+			 * set previous to next
+			 */
+			prevAct = nextAct;
+			prevActDepTime_newVehicle = depTime_nextAct_newVehicle;
+
+			actIndex++;
+		}
+		End nextAct = end;
+		if(neighborhood.areNeighbors(serviceAct2Insert.getLocationId(), prevAct.getLocationId()) && neighborhood.areNeighbors(serviceAct2Insert.getLocationId(), nextAct.getLocationId())){
+
+			/**
+			 * calculates the path costs with new vehicle, c(forwardPath,newVehicle).
+			 */
+			List<TourActivity> path = Arrays.asList(prevAct,serviceAct2Insert,end);
+			double forwardPathCost_newVehicle = auxilliaryPathCostCalculator.costOfPath(path, prevActDepTime_newVehicle, newDriver, newVehicle);
+
+			/**
+			 * insertion_cost_approximation = c({0,1,...,i},newVehicle) + c({i,k,j,j+1,j+2,...,j+nuOfActsForwardLooking},newVehicle) - c({0,1,...,i,j,j+1,...,j+nuOfActsForwardLooking},oldVehicle)
+			 */
+			double insertion_cost_approximation = sumOf_prevCosts_newVehicle + forwardPathCost_newVehicle - pathCost_oldVehicle(currentRoute,path);
+
+			/**
+			 * memorize it in insertion-queue
+			 */
+			if(insertion_cost_approximation < best_known_insertion_costs){
+				bestInsertionsQueue.add(new InsertionData(insertion_cost_approximation,InsertionData.NO_INDEX, actIndex, newVehicle, newDriver));
+			}
+		}
+
+		
+		/**
+		 * the above calculations approximate insertion costs. now calculate the exact insertion costs for the most promising (according to the approximation)
+		 * insertion positions.
+		 *  
+		 */
+		
+		for(int i=0;i<memorySize;i++){
+			InsertionData data = bestInsertionsQueue.poll();
+			if(data == null){
+				continue;
+			}
+			/**
+			 * build tour with new activity.
+			 */
+			List<TourActivity> wholeTour = new ArrayList<TourActivity>();
+			wholeTour.add(start);
+			wholeTour.addAll(currentRoute.getTourActivities().getActivities());
+			wholeTour.add(end);
+			wholeTour.add(data.getDeliveryInsertionIndex()+1, serviceAct2Insert);
+			
+			/**
+			 * compute cost-diff of tour with and without new activity --> insertion_costs
+			 */
+			double insertion_costs = auxilliaryPathCostCalculator.costOfPath(wholeTour, start.getEndTime(), newDriver, newVehicle) - routeStates.getRouteState(currentRoute).getCosts();
+			
+			/**
+			 * if better than best known, make it the best known
+			 */
+			if(insertion_costs < best_insertion_costs){
+				best_insertion_index = data.getDeliveryInsertionIndex();
+				best_insertion_costs = insertion_costs;
+			}
+		}
+		if(best_insertion_index == InsertionData.NO_INDEX) return InsertionData.noInsertionFound();
+		return new InsertionData(best_insertion_costs, InsertionData.NO_INDEX, best_insertion_index, newVehicle, newDriver);
+	}
+	
+	/**
+	 * Start and end are created for each calculation, thus calculations can be run concurrently.
+	 */
+	private Start newStart(final Vehicle newVehicle, double newVehicleDepartureTime) {
+		Start start = Start.newInstance(newVehicle.getLocationId(), newVehicle.getEarliestDeparture(), newVehicle.getLatestArrival());
+		start.setEndTime(newVehicleDepartureTime);
+		return start;
+	}
+	
+	private End newEnd(final Vehicle newVehicle, double newVehicleDepartureTime) {
+		return End.newInstance(newVehicle.getLocationId(), newVehicleDepartureTime, newVehicle.getLatestArrival());
+	}
+
+	private double pathCost_oldVehicle(VehicleRoute vehicleRoute, List<TourActivity> path) {
+		TourActivity act = path.get(path.size()-1);
+		if(act instanceof End){
+			return routeStates.getRouteState(vehicleRoute).getCosts();
+		}
+		return state(act).getCurrentCost();
+	}
+
+	/**
+	 * returns the path or the partial route r_partial = {j+1,j+2,...,j+nuOfActsForwardLooking}
+	 * 
+	 * @param route
+	 * @param actIndex
+	 * @return
+	 */
+	private List<TourActivity> getForwardLookingPath(VehicleRoute route, int actIndex) {
+		List<TourActivity> forwardLookingPath = new ArrayList<TourActivity>();
+		int nuOfActsInPath = 0;
+		int index = actIndex + 1;
+		while(index < route.getTourActivities().getActivities().size() && nuOfActsInPath < nuOfActsForwardLooking){
+			forwardLookingPath.add(route.getTourActivities().getActivities().get(index));
+			index++;
+			nuOfActsInPath++;
+		}
+		if(nuOfActsInPath < nuOfActsForwardLooking){
+			forwardLookingPath.add(route.getEnd());
+		}
+		return forwardLookingPath;
+	}
+
+	/**
+	 * creates a comparator to sort insertion-data in insertionQueue in ascending order according insertion costs.
+	 * @return
+	 */
+	private Comparator<InsertionData> getComparator() {
+		return new Comparator<InsertionData>() {
+
+			@Override
+			public int compare(InsertionData o1, InsertionData o2) {
+				if(o1.getInsertionCost() < o2.getInsertionCost()){
+					return -1;
+				}
+				else {
+					return 1;
+				}
+
+			}
+		};
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import basics.Job;
+import basics.VehicleRoutingProblemSolution;
+import basics.route.VehicleRoute;
+
+/**
+ * Measures the insertion of a single job into the longest route of the initial solution, 
+ * once calculated by {@link CalculatesServiceInsertion}, once by {@link CalculatesServiceInsertionOnRouteLevel} and once by its 
+ * baseline {@link CalculatesServiceInsertionOnRouteLevelBaseline}. Both route-level calculators work on the same route and jobs, and 
+ * they are checked to calculate the same insertion costs before measuring.
+ * 
+ * <p>Every second job is removed from this route beforehand, such that the removed jobs can be re-inserted without violating 
+ * the capacity. They are cycled through one job per invocation.
+ * 
+ * @author stefan schroeder
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertionBenchmark {
+	
+	@Param({"solomon/R101", "cordeau/p01", "christofides/vrpnc1", "taillard/R_19"})
+	public String instance;
+	
+	@Param({"3"})
+	public int forwardLooking;
+	
+	@Param({"2"})
+	public int memory;
+	
+	private CalculatesServiceInsertion localCalculator;
+	
+	private CalculatesServiceInsertionOnRouteLevel routeLevelCalculator;
+	
+	private CalculatesServiceInsertionOnRouteLevelBaseline baselineRouteLevelCalculator;
+	
+	private VehicleRoute route;
+	
+	private Job[] jobs;
+	
+	private int nextJob = 0;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		VrpFixture fixture = VrpFixture.newInstance(instance);
+		VehicleRoutingProblemSolution solution = fixture.copyOfInitialSolution();
+		route = longestRoute(solution);
+		
+		localCalculator = new CalculatesServiceInsertion(fixture.vrp.getTransportCosts(), fixture.vrp.getActivityCosts());
+		localCalculator.setActivityStates(fixture.routeStates);
+		
+		routeLevelCalculator = new CalculatesServiceInsertionOnRouteLevel(fixture.vrp.getTransportCosts(), fixture.vrp.getActivityCosts());
+		routeLevelCalculator.setActivityStates(fixture.routeStates);
+		routeLevelCalculator.setNuOfActsForwardLooking(forwardLooking);
+		routeLevelCalculator.setMemorySize(memory);
+		
+		baselineRouteLevelCalculator = new CalculatesServiceInsertionOnRouteLevelBaseline(fixture.vrp.getTransportCosts(), fixture.vrp.getActivityCosts());
+		baselineRouteLevelCalculator.setActivityStates(fixture.routeStates);
+		baselineRouteLevelCalculator.setNuOfActsForwardLooking(forwardLooking);
+		baselineRouteLevelCalculator.setMemorySize(memory);
+		
+		List<Job> removed = new ArrayList<Job>();
+		List<Job> jobsInRoute = new ArrayList<Job>(route.getTourActivities().getJobs());
+		for(int i=0;i<jobsInRoute.size();i+=2){
+			route.getTourActivities().removeJob(jobsInRoute.get(i));
+			removed.add(jobsInRoute.get(i));
+		}
+		fixture.tourStateUpdater.updateRoute(route);
+		jobs = removed.toArray(new Job[removed.size()]);
+		verifyRouteLevelCalculators();
+	}
+	
+	private void verifyRouteLevelCalculators() {
+		for(Job job : jobs){
+			double cost = calculate(routeLevelCalculator, job);
+			double baselineCost = calculate(baselineRouteLevelCalculator, job);
+			if(Math.abs(cost - baselineCost) > 1.0e-6){
+				throw new IllegalStateException("route-level calculators differ for job " + job.getId() + ": " + cost + " vs. baseline " + baselineCost);
+			}
+		}
+	}
+	
+	private double calculate(JobInsertionCalculator calculator, Job job){
+		return calculator.calculate(route, job, route.getVehicle(), route.getStart().getEndTime(), route.getDriver(), Double.MAX_VALUE).getInsertionCost();
+	}
+	
+	private static VehicleRoute longestRoute(VehicleRoutingProblemSolution solution) {
+		VehicleRoute longest = null;
+		for(VehicleRoute route : solution.getRoutes()){
+			if(longest == null || route.getTourActivities().getActivities().size() > longest.getTourActivities().getActivities().size()){
+				longest = route;
+			}
+		}
+		return longest;
+	}
+
+	private Job nextJob(){
+		Job job = jobs[nextJob];
+		nextJob = (nextJob + 1) % jobs.length;
+		return job;
+	}
+
+	@Benchmark
+	public double serviceInsertion(){
+		return calculate(localCalculator, nextJob());
+	}
+	
+	@Benchmark
+	public double serviceInsertionOnRouteLevel(){
+		return calculate(routeLevelCalculator, nextJob());
+	}
+	
+	@Benchmark
+	public double serviceInsertionOnRouteLevelBaseline(){
+		return calculate(baselineRouteLevelCalculator, nextJob());
+	}
+
+}
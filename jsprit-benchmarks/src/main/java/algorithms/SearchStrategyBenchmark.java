@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import algorithms.acceptors.AcceptNewIfBetterThanWorst;
+import algorithms.selectors.SelectBest;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.SearchStrategy;
+import basics.algo.SearchStrategy.DiscoveredSolution;
+import basics.algo.SearchStrategyModule;
+import basics.algo.SearchStrategyModuleListener;
+
+/**
+ * Measures one run of a {@link SearchStrategy}, i.e. one iteration of the ruin-and-recreate search, which selects the best solution, 
+ * copies it, ruins it radially, recreates it with best insertion and decides whether to accept it.
+ * 
+ * <p>The solution memory is reset to the initial solution before each invocation.
+ * 
+ * @author stefan schroeder
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchStrategyBenchmark {
+	
+	@Param({"solomon/R101", "cordeau/p01", "christofides/vrpnc1", "taillard/R_19"})
+	public String instance;
+	
+	@Param({"0.3"})
+	public double fraction;
+	
+	private VrpFixture fixture;
+	
+	private SearchStrategy strategy;
+	
+	private Collection<VehicleRoutingProblemSolution> solutions;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		fixture = VrpFixture.newInstance(instance);
+		final RuinStrategy ruin = RuinRadial.newInstance(fixture.vrp, fraction, new JobDistanceAvgCosts(fixture.vrp.getTransportCosts()), new JobRemoverImpl(), fixture.tourStateUpdater);
+		strategy = new SearchStrategy(SelectBest.getInstance(), new AcceptNewIfBetterThanWorst(1));
+		strategy.addModule(new SearchStrategyModule() {
+			
+			@Override
+			public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution vrpSolution) {
+				fixture.ruinAndRecreate(ruin, vrpSolution);
+				return vrpSolution;
+			}
+			
+			@Override
+			public String getName() {
+				return "radialRuinAndBestInsertion";
+			}
+			
+			@Override
+			public void addModuleListener(SearchStrategyModuleListener moduleListener) {
+				
+			}
+		});
+	}
+	
+	@Setup(Level.Invocation)
+	public void resetSolutions(){
+		solutions = new ArrayList<VehicleRoutingProblemSolution>();
+		solutions.add(fixture.copyOfInitialSolution());
+	}
+	
+	@Benchmark
+	public DiscoveredSolution run(){
+		return strategy.run(fixture.vrp, solutions);
+	}
+
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import basics.VehicleRoutingProblemSolution;
+
+/**
+ * Measures {@link VehicleRoutingProblemSolution#copyOf(VehicleRoutingProblemSolution)} of the initial solution. 
+ * 
+ * <p>A search strategy copies the selected solution once per iteration.
+ * 
+ * @author stefan schroeder
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolutionCopyBenchmark {
+	
+	@Param({"solomon/R101", "cordeau/p01", "christofides/vrpnc1", "taillard/R_19"})
+	public String instance;
+	
+	private VehicleRoutingProblemSolution solution;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		solution = VrpFixture.newInstance(instance).copyOfInitialSolution();
+	}
+	
+	@Benchmark
+	public VehicleRoutingProblemSolution copyOf(){
+		return VehicleRoutingProblemSolution.copyOf(solution);
+	}
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import basics.VehicleRoutingProblemSolution;
+import basics.route.VehicleRoute;
+
+/**
+ * Measures {@link UpdateTourStatesForwardInTime} updating all routes of the initial solution.
+ * 
+ * @author stefan schroeder
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateTourStatesBenchmark {
+	
+	@Param({"solomon/R101", "cordeau/p01", "christofides/vrpnc1", "taillard/R_19"})
+	public String instance;
+	
+	private UpdateTourStatesForwardInTime forwardUpdate;
+	
+	private VehicleRoutingProblemSolution solution;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		VrpFixture fixture = VrpFixture.newInstance(instance);
+		solution = fixture.copyOfInitialSolution();
+		forwardUpdate = new UpdateTourStatesForwardInTime(fixture.vrp.getTransportCosts(), fixture.vrp.getActivityCosts());
+		forwardUpdate.setActivityStates(fixture.routeStates);
+	}
+	
+	@Benchmark
+	public void updateForwardInTime(Blackhole blackhole){
+		for(VehicleRoute route : solution.getRoutes()){
+			blackhole.consume(forwardUpdate.updateRoute(route));
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import util.RouteUtils;
+import basics.Job;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblem.FleetSize;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.InsertionListener;
+import basics.algo.VehicleRoutingAlgorithmListeners.PrioritizedVRAListener;
+import basics.route.VehicleRoute;
+
+/**
+ * Wires the components of a standard ruin-and-recreate search for a benchmark instance, 
+ * and creates an initial solution benchmarks can start from.
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class VrpFixture {
+	
+	static VrpFixture newInstance(String instance){
+		return new VrpFixture(BenchmarkInstances.read(instance));
+	}
+	
+	final VehicleRoutingProblem vrp;
+	
+	final VehicleFleetManager fleetManager;
+	
+	final RouteStates routeStates;
+	
+	final TourStateUpdater tourStateUpdater;
+	
+	final RouteAlgorithmImpl routeAlgorithm;
+	
+	final BestInsertion insertion;
+	
+	final VehicleRoutingProblemSolution initialSolution;
+	
+	private VrpFixture(VehicleRoutingProblem vrp){
+		this.vrp = vrp;
+		if(vrp.getFleetSize().equals(FleetSize.INFINITE)){
+			fleetManager = new InfiniteVehicles(vrp.getVehicles());
+		}
+		else{
+			fleetManager = new VehicleFleetManagerImpl(vrp.getVehicles());
+		}
+		routeStates = new RouteStates();
+		routeStates.initialiseStateOfJobs(vrp.getJobs().values());
+		
+		CalculatorBuilder calcBuilder = new CalculatorBuilder(new ArrayList<InsertionListener>(), new ArrayList<PrioritizedVRAListener>());
+		calcBuilder.setActivityStates(routeStates);
+		calcBuilder.setVehicleRoutingProblem(vrp);
+		calcBuilder.setVehicleFleetManager(fleetManager);
+		calcBuilder.setLocalLevel();
+		JobInsertionCalculator calculator = calcBuilder.build();
+		
+		tourStateUpdater = new TourStateUpdater(routeStates, vrp.getTransportCosts(), vrp.getActivityCosts());
+		routeAlgorithm = RouteAlgorithmImpl.newInstance(calculator, tourStateUpdater);
+		routeAlgorithm.setActivityStates(routeStates);
+		routeAlgorithm.getListeners().add(new VehicleSwitched(fleetManager));
+		
+		insertion = new BestInsertion(routeAlgorithm);
+		insertion.addListener(new ResetAndIniFleetManager(fleetManager));
+		
+		initialSolution = new CreateInitialSolution(insertion).createInitialSolution(vrp);
+	}
+	
+	/**
+	 * Returns a copy of the initial solution whose route and activity states are up-to-date.
+	 * 
+	 * @return solution
+	 */
+	VehicleRoutingProblemSolution copyOfInitialSolution(){
+		VehicleRoutingProblemSolution solution = VehicleRoutingProblemSolution.copyOf(initialSolution);
+		updateStates(solution.getRoutes());
+		return solution;
+	}
+
+	void updateStates(Collection<VehicleRoute> routes) {
+		routeStates.resetRouteStates();
+		for(VehicleRoute route : routes){
+			tourStateUpdater.updateRoute(route);
+		}
+	}
+	
+	/**
+	 * Runs ruin and recreate on solution.
+	 */
+	void ruinAndRecreate(RuinStrategy ruin, VehicleRoutingProblemSolution solution){
+		Collection<VehicleRoute> routes = solution.getRoutes();
+		List<Job> unassignedJobs = new ArrayList<Job>(ruin.ruin(routes));
+		insertion.run(routes, unassignedJobs, Double.MAX_VALUE);
+		solution.setCost(RouteUtils.getTotalCost(routes));
+	}
+
+}
@@ -27,7 +27,13 @@ import java.util.List;
 
 import org.apache.log4j.Logger;
 
+import algorithms.InsertionData.NoInsertionFound;
 import basics.Job;
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.AlgorithmStartsListener;
+import basics.algo.Deadline;
 import basics.algo.InsertionEndsListener;
 import basics.algo.InsertionListener;
 import basics.algo.InsertionStartsListener;
@@ -37,14 +43,63 @@ import basics.route.VehicleRoute;
 
 
 
-abstract class AbstractInsertionStrategy implements InsertionStrategy{
+abstract class AbstractInsertionStrategy implements InsertionStrategy, AlgorithmStartsListener{
 	
 	private static Logger log = Logger.getLogger(AbstractInsertionStrategy.class);
 	
 	private Collection<InsertionListener> listener = new ArrayList<InsertionListener>();
 	
+	private Deadline deadline = new Deadline();
+	
 	public abstract RouteAlgorithm getRouteAlgorithm();
 	
+	/**
+	 * Sets the deadline that is checked while jobs are inserted. Once it is exceeded, the remaining jobs are inserted with less effort. 
+	 * 
+	 * <p>By default, there is no deadline. If this is registered as {@link AlgorithmStartsListener}, it takes the deadline of the algorithm.
+	 * 
+	 * @param deadline
+	 */
+	public void setDeadline(Deadline deadline){
+		this.deadline = deadline;
+	}
+	
+	public Deadline getDeadline(){
+		return deadline;
+	}
+	
+	@Override
+	public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+		setDeadline(algorithm.getDeadline());
+	}
+	
+	/**
+	 * Inserts job with little effort, i.e. into the first route it fits in, or into a new route which is then added to vehicleRoutes. 
+	 * This is the fallback of strategies that calculate many insertions per job once the deadline is exceeded.
+	 * 
+	 * @return the route job has been inserted in
+	 * @throws IllegalStateException if job fits neither in one of the routes nor in a new route
+	 */
+	VehicleRoute insertIntoFirstFeasibleRoute(Collection<VehicleRoute> vehicleRoutes, Job job){
+		for(VehicleRoute vehicleRoute : vehicleRoutes){
+			InsertionData iData = getRouteAlgorithm().calculateBestInsertion(vehicleRoute, job, Double.MAX_VALUE);
+			if(iData instanceof NoInsertionFound) continue;
+			informBeforeJobInsertion(job, iData, vehicleRoute);
+			getRouteAlgorithm().insertJob(job, iData, vehicleRoute);
+			return vehicleRoute;
+		}
+		VehicleRoute newRoute = VehicleRoute.emptyRoute();
+		InsertionData iData = getRouteAlgorithm().calculateBestInsertion(newRoute, job, Double.MAX_VALUE);
+		if(iData instanceof NoInsertionFound){
+			throw new IllegalStateException("given the vehicles, could not create a valid solution.\n\tthe reason might be" +
+					" inappropriate vehicle capacity.\n\tthe job that does not fit in any vehicle anymore is \n\t" + job);
+		}
+		informBeforeJobInsertion(job, iData, newRoute);
+		getRouteAlgorithm().insertJob(job, iData, newRoute);
+		vehicleRoutes.add(newRoute);
+		return newRoute;
+	}
+	
 	public void informJobInserted(int nOfJobs2Recreate, Job insertedJob, VehicleRoute insertedIn){
 		for(InsertionListener l : listener){
 			if(l instanceof JobInsertedListener){
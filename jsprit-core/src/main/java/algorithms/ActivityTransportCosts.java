@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import basics.LocationIndex;
+import basics.costs.IndexedTransportCosts;
+import basics.costs.TransportLeg;
+import basics.costs.TransportLegCosts;
+import basics.costs.TransportLegCostsAdapter;
+import basics.costs.VehicleRoutingTransportCosts;
+import basics.route.Driver;
+import basics.route.End;
+import basics.route.ServiceActivity;
+import basics.route.Start;
+import basics.route.TourActivity;
+import basics.route.Vehicle;
+
+/**
+ * Queries transport between activities by their location indices if transport costs are {@link IndexedTransportCosts} and both 
+ * locations are in the costs' {@link LocationIndex}, and by their location ids otherwise (e.g. for jobs that are not part of the problem).
+ * 
+ * <p>Indices are resolved per problem: services through the problem's job index, start and end through the index they cache (which is 
+ * checked, and re-cached if it does not belong to this problem). Services and vehicles are never changed.
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class ActivityTransportCosts {
+	
+	private final TransportLegCosts transportCosts;
+	
+	private final IndexedTransportCosts indexedCosts;
+	
+	private final LocationIndex locationIndex;
+	
+	ActivityTransportCosts(VehicleRoutingTransportCosts transportCosts) {
+		super();
+		this.transportCosts = TransportLegCostsAdapter.adapt(transportCosts);
+		if(transportCosts instanceof IndexedTransportCosts){
+			indexedCosts = (IndexedTransportCosts) transportCosts;
+			locationIndex = indexedCosts.getLocationIndex();
+		}
+		else{
+			indexedCosts = null;
+			locationIndex = null;
+		}
+	}
+	
+	void getTransportLeg(TourActivity from, TourActivity to, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg){
+		if(indexedCosts != null){
+			int fromIndex = getLocationIndex(from);
+			int toIndex = getLocationIndex(to);
+			if(fromIndex != LocationIndex.NO_INDEX && toIndex != LocationIndex.NO_INDEX){
+				indexedCosts.getTransportLeg(fromIndex, toIndex, departureTime, driver, vehicle, leg);
+				return;
+			}
+		}
+		transportCosts.getTransportLeg(from.getLocationId(), to.getLocationId(), departureTime, driver, vehicle, leg);
+	}
+	
+	double getBackwardTransportTime(TourActivity from, TourActivity to, double arrivalTime, Driver driver, Vehicle vehicle){
+		if(indexedCosts != null){
+			int fromIndex = getLocationIndex(from);
+			int toIndex = getLocationIndex(to);
+			if(fromIndex != LocationIndex.NO_INDEX && toIndex != LocationIndex.NO_INDEX){
+				return indexedCosts.getBackwardTransportTime(fromIndex, toIndex, arrivalTime, driver, vehicle);
+			}
+		}
+		return transportCosts.getBackwardTransportTime(from.getLocationId(), to.getLocationId(), arrivalTime, driver, vehicle);
+	}
+	
+	private int getLocationIndex(TourActivity act){
+		if(act instanceof ServiceActivity){
+			return locationIndex.getIndex(((ServiceActivity) act).getJob());
+		}
+		if(act instanceof Start){
+			Start start = (Start) act;
+			int index = start.getLocationIndex();
+			if(!locationIndex.isIndexOf(index, start.getLocationId())){
+				index = locationIndex.getIndex(start.getLocationId());
+				start.setLocationIndex(index);
+			}
+			return index;
+		}
+		if(act instanceof End){
+			End end = (End) act;
+			int index = end.getLocationIndex();
+			if(!locationIndex.isIndexOf(index, end.getLocationId())){
+				index = locationIndex.getIndex(end.getLocationId());
+				end.setLocationIndex(index);
+			}
+			return index;
+		}
+		return locationIndex.getIndex(act.getLocationId());
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=activityTransportCosts][transportCosts="+transportCosts+"]";
+	}
+
+}
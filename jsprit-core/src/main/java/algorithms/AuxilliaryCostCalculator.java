@@ -23,6 +23,9 @@ package algorithms;
 import java.util.Iterator;
 import java.util.List;
 
+import basics.costs.TransportLeg;
+import basics.costs.TransportLegCosts;
+import basics.costs.TransportLegCostsAdapter;
 import basics.costs.VehicleRoutingActivityCosts;
 import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.Driver;
@@ -32,13 +35,16 @@ import basics.route.Vehicle;
 
 final class AuxilliaryCostCalculator {
 	
-	private final VehicleRoutingTransportCosts routingCosts;
+	private final ActivityTransportCosts routingCosts;
+	
+	private final TransportLegCosts legCosts;
 	
 	private final VehicleRoutingActivityCosts activityCosts;
 
 	public AuxilliaryCostCalculator(final VehicleRoutingTransportCosts routingCosts, final VehicleRoutingActivityCosts costFunction) {
 		super();
-		this.routingCosts = routingCosts;
+		this.routingCosts = new ActivityTransportCosts(routingCosts);
+		this.legCosts = TransportLegCostsAdapter.adapt(routingCosts);
 		this.activityCosts = costFunction;
 	}
 	
@@ -60,12 +66,12 @@ final class AuxilliaryCostCalculator {
 		double startCost = 0.0;
 		cost += startCost;
 		double departureTimePrevAct = depTime;
+		TransportLeg leg = new TransportLeg();
 		while(actIter.hasNext()){
 			TourActivity act = actIter.next();
-			double transportCost = routingCosts.getTransportCost(prevAct.getLocationId(), act.getLocationId(), departureTimePrevAct, driver, vehicle);
-			double transportTime = routingCosts.getTransportTime(prevAct.getLocationId(), act.getLocationId(), departureTimePrevAct, driver, vehicle);
-			cost += transportCost;
-			double actStartTime = departureTimePrevAct + transportTime;
+			routingCosts.getTransportLeg(prevAct, act, departureTimePrevAct, driver, vehicle, leg);
+			cost += leg.getCost();
+			double actStartTime = departureTimePrevAct + leg.getTime();
 			double earliestOperationStartTime = Math.max(actStartTime, act.getTheoreticalEarliestOperationStartTime());
 			double actEndTime = earliestOperationStartTime + act.getOperationTime();
 			departureTimePrevAct = actEndTime;
@@ -86,12 +92,12 @@ final class AuxilliaryCostCalculator {
 		double startCost = 0.0;
 		cost += startCost;
 		double departureTimePrevAct = startTime;
+		TransportLeg leg = new TransportLeg();
 		for(TourActivity act : path){
 //			TourActivity act = actIter.next();
-			double transportCost = routingCosts.getTransportCost(prevActLocation, act.getLocationId(), departureTimePrevAct, driver, vehicle);
-			double transportTime = routingCosts.getTransportTime(prevActLocation, act.getLocationId(), departureTimePrevAct, driver, vehicle);
-			cost += transportCost;
-			double actStartTime = departureTimePrevAct + transportTime;
+			legCosts.getTransportLeg(prevActLocation, act.getLocationId(), departureTimePrevAct, driver, vehicle, leg);
+			cost += leg.getCost();
+			double actStartTime = departureTimePrevAct + leg.getTime();
 			double earliestOperationStartTime = Math.max(actStartTime, act.getTheoreticalEarliestOperationStartTime());
 			double actEndTime = earliestOperationStartTime + act.getOperationTime();
 			departureTimePrevAct = actEndTime;
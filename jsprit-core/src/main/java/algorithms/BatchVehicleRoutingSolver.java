@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import util.RandomNumberGeneration;
+import util.metrics.MetricsRegistry;
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+
+/**
+ * Solves many vehicle routing problems concurrently with algorithms that are created from one {@link ValidatedAlgorithmConfig}.
+ * 
+ * <p>Problems are solved by a fixed number of threads. At most queueCapacity submitted problems wait for a thread, if more are 
+ * submitted, submit blocks until a thread becomes available (back-pressure). Each problem can be given a time budget in seconds, 
+ * which is counted from the start of solving it and imposed on the algorithm's {@link basics.algo.Deadline}.
+ * 
+ * <p>The algorithm of the n-th submitted problem derives its random-number generators from the master seed and n 
+ * (see {@link RandomNumberGeneration#setThreadSeed(long)}), thus the solutions do not depend on the thread that solves the problem.
+ * 
+ * <p>The algorithms of all problems record their metrics to the registry of the solver, which is the default one unless another one is specified, 
+ * thus the metrics of a batch can be kept apart from those of other batches or algorithms. 
+ * 
+ * <p>Note that an algorithm with islands runs its islands in threads of its own.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class BatchVehicleRoutingSolver {
+	
+	private static Logger log = Logger.getLogger(BatchVehicleRoutingSolver.class);
+	
+	public static final double NO_TIME_BUDGET = Double.MAX_VALUE;
+	
+	private final ValidatedAlgorithmConfig config;
+	
+	private final ExecutorService executor;
+	
+	private final Semaphore permits;
+	
+	private final int nuOfThreads;
+	
+	private final int queueCapacity;
+	
+	private final long masterSeed;
+	
+	private final MetricsRegistry metricsRegistry;
+	
+	private final AtomicLong nuOfSubmittedProblems = new AtomicLong(0);
+	
+	/**
+	 * Constructs a solver that solves problems with nuOfThreads threads, and lets at most queueCapacity problems wait for a thread.
+	 * 
+	 * @param config
+	 * @param nuOfThreads
+	 * @param queueCapacity
+	 */
+	public BatchVehicleRoutingSolver(ValidatedAlgorithmConfig config, int nuOfThreads, int queueCapacity) {
+		this(config, nuOfThreads, queueCapacity, MetricsRegistry.getDefault());
+	}
+	
+	/**
+	 * Constructs a solver that solves problems with nuOfThreads threads, lets at most queueCapacity problems wait for a thread, and 
+	 * whose algorithms record their metrics to metricsRegistry.
+	 * 
+	 * @param config
+	 * @param nuOfThreads
+	 * @param queueCapacity
+	 * @param metricsRegistry
+	 */
+	public BatchVehicleRoutingSolver(ValidatedAlgorithmConfig config, int nuOfThreads, int queueCapacity, MetricsRegistry metricsRegistry) {
+		super();
+		if(nuOfThreads < 1) throw new IllegalStateException("nuOfThreads must be at least 1");
+		if(queueCapacity < 0) throw new IllegalStateException("queueCapacity must not be negative");
+		this.config = config;
+		this.nuOfThreads = nuOfThreads;
+		this.queueCapacity = queueCapacity;
+		this.executor = Executors.newFixedThreadPool(nuOfThreads);
+		this.permits = new Semaphore(nuOfThreads + queueCapacity);
+		this.masterSeed = RandomNumberGeneration.getSeed();
+		this.metricsRegistry = metricsRegistry;
+		log.info("initialise " + this);
+	}
+	
+	/**
+	 * Submits vrp to be solved without a time budget.
+	 * 
+	 * @see #submit(VehicleRoutingProblem, double)
+	 */
+	public Future<Collection<VehicleRoutingProblemSolution>> submit(VehicleRoutingProblem vrp) throws InterruptedException {
+		return submit(vrp, NO_TIME_BUDGET);
+	}
+	
+	/**
+	 * Submits vrp to be solved within timeBudget seconds. 
+	 * 
+	 * <p>Blocks while queueCapacity problems wait for a thread.
+	 * 
+	 * @param vrp
+	 * @param timeBudget in seconds
+	 * @return future of the solutions the algorithm found
+	 * @throws InterruptedException if the thread has been interrupted while waiting
+	 */
+	public Future<Collection<VehicleRoutingProblemSolution>> submit(final VehicleRoutingProblem vrp, final double timeBudget) throws InterruptedException {
+		if(timeBudget <= 0.0) throw new IllegalStateException("timeBudget must be positive");
+		permits.acquire();
+		final long seed = RandomNumberGeneration.deriveSeed(masterSeed, nuOfSubmittedProblems.getAndIncrement());
+		FutureTask<Collection<VehicleRoutingProblemSolution>> task = new FutureTask<Collection<VehicleRoutingProblemSolution>>(new Callable<Collection<VehicleRoutingProblemSolution>>() {
+
+			@Override
+			public Collection<VehicleRoutingProblemSolution> call() throws Exception {
+				return solve(vrp, timeBudget, seed);
+			}
+
+		}){
+			
+			@Override
+			protected void done() {
+				permits.release();
+			}
+			
+		};
+		try{
+			executor.execute(task);
+		}
+		catch(RuntimeException e){
+			permits.release();
+			throw e;
+		}
+		return task;
+	}
+	
+	private Collection<VehicleRoutingProblemSolution> solve(VehicleRoutingProblem vrp, double timeBudget, long seed) {
+		long start = System.nanoTime();
+		VehicleRoutingAlgorithm algorithm;
+		RandomNumberGeneration.setThreadSeed(seed);
+		try{
+			algorithm = config.createAlgorithm(vrp, metricsRegistry);
+		}
+		finally{
+			RandomNumberGeneration.removeThreadSeed();
+		}
+		if(timeBudget != NO_TIME_BUDGET){
+			algorithm.getDeadline().restrict(start + (long)(timeBudget * 1.0e9));
+		}
+		return algorithm.searchSolutions();
+	}
+	
+	/**
+	 * Returns the registry the algorithms of this solver record their metrics to.
+	 * 
+	 * @return metricsRegistry
+	 */
+	public MetricsRegistry getMetricsRegistry(){
+		return metricsRegistry;
+	}
+	
+	/**
+	 * Solves the problems that have been submitted, and then stops the threads.
+	 */
+	public void shutdown(){
+		executor.shutdown();
+	}
+	
+	/**
+	 * Blocks until all submitted problems have been solved after a shutdown, or the timeout occurs.
+	 * 
+	 * @return true if all problems have been solved
+	 * @throws InterruptedException
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+
+	@Override
+	public String toString() {
+		return "[name=batchVehicleRoutingSolver][config="+config+"][#threads="+nuOfThreads+"][queueCapacity="+queueCapacity+"]";
+	}
+
+}
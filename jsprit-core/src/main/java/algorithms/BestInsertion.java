@@ -43,7 +43,7 @@ final class BestInsertion extends AbstractInsertionStrategy{
 	
 	private static Logger logger = Logger.getLogger(BestInsertion.class);
 
-	private Random random = RandomNumberGeneration.getRandom();
+	private Random random = RandomNumberGeneration.newRandom(BestInsertion.class);
 	
 	private RouteAlgorithm routeAlgorithm;
 	
@@ -92,6 +92,10 @@ final class BestInsertion extends AbstractInsertionStrategy{
 			Insertion bestInsertion = null;
 			double bestInsertionCost = Double.MAX_VALUE;
 			for(VehicleRoute vehicleRoute : vehicleRoutes){
+				if(bestInsertion != null && getDeadline().isExceeded()){
+					//take the first feasible insertion, which is still a valid one
+					break;
+				}
 				InsertionData iData = routeAlgorithm.calculateBestInsertion(vehicleRoute, unassignedJob, bestInsertionCost);
 				if(iData instanceof NoInsertionFound) {
 					continue;
@@ -49,11 +49,32 @@ final class BestInsertionConcurrent extends AbstractInsertionStrategy{
 	static class Batch {
 		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
 		
+		List<Integer> routeIndices = new ArrayList<Integer>();
+		
+	}
+	
+	/**
+	 * Insertion that memorizes the index of its route, such that ties between batches can be broken deterministically.
+	 *
+	 */
+	static class IndexedInsertion extends Insertion {
+		
+		private final int routeIndex;
+
+		IndexedInsertion(VehicleRoute vehicleRoute, InsertionData insertionData, int routeIndex) {
+			super(vehicleRoute, insertionData);
+			this.routeIndex = routeIndex;
+		}
+		
+		int getRouteIndex() {
+			return routeIndex;
+		}
+		
 	}
 	
 	private static Logger logger = Logger.getLogger(BestInsertionConcurrent.class);
 
-	private Random random = RandomNumberGeneration.getRandom();
+	private Random random = RandomNumberGeneration.newRandom(BestInsertionConcurrent.class);
 	
 	private RouteAlgorithm routeAlgorithm;
 	
@@ -61,7 +82,7 @@ final class BestInsertionConcurrent extends AbstractInsertionStrategy{
 	
 	private int nuOfBatches;
 
-	private ExecutorCompletionService<Insertion> completionService;
+	private ExecutorCompletionService<IndexedInsertion> completionService;
 
 	public void setRandom(Random random) {
 		this.random = random;
@@ -73,7 +94,7 @@ final class BestInsertionConcurrent extends AbstractInsertionStrategy{
 //		this.executor = executor;
 		logger.info("initialise " + this);
 		this.nuOfBatches = nuOfThreads;
-		completionService = new ExecutorCompletionService<Insertion>(executor);
+		completionService = new ExecutorCompletionService<IndexedInsertion>(executor);
 	}
 
 	@Override
@@ -89,16 +110,16 @@ final class BestInsertionConcurrent extends AbstractInsertionStrategy{
 		int inserted = 0;
 		for(final Job unassignedJob : unassignedJobList){
 			VehicleRoute insertIn = null;
-			Insertion bestInsertion = null;
-			double bestInsertionCost = Double.MAX_VALUE;
+			IndexedInsertion bestInsertion = null;
 			
-			List<Batch> batches = distributeRoutes(vehicleRoutes,nuOfBatches);
+			VehicleRoute newRoute = VehicleRoute.emptyRoute();
+			List<Batch> batches = distributeRoutes(vehicleRoutes,newRoute,nuOfBatches);
 			
 			for(final Batch batch : batches){
-				completionService.submit(new Callable<Insertion>() {
+				completionService.submit(new Callable<IndexedInsertion>() {
 					
 					@Override
-					public Insertion call() throws Exception {
+					public IndexedInsertion call() throws Exception {
 						return getBestInsertion(batch,unassignedJob);
 					}
 					
@@ -108,12 +129,11 @@ final class BestInsertionConcurrent extends AbstractInsertionStrategy{
 			
 			try{
 				for(int i=0;i<batches.size();i++){
-					Future<Insertion> futureIData = completionService.take();
-					Insertion insertion = futureIData.get();
+					Future<IndexedInsertion> futureIData = completionService.take();
+					IndexedInsertion insertion = futureIData.get();
 					if(insertion == null) continue;
-					if(insertion.getInsertionData().getInsertionCost() < bestInsertionCost){
+					if(isBetter(insertion, bestInsertion)){
 						bestInsertion = insertion;
-						bestInsertionCost = insertion.getInsertionData().getInsertionCost();
 					}
 				}
 			}
@@ -127,21 +147,17 @@ final class BestInsertionConcurrent extends AbstractInsertionStrategy{
 			}	
 			
 			if(bestInsertion != null){
+				if(bestInsertion.getRoute() == newRoute){
+					vehicleRoutes.add(newRoute);
+				}
 				informBeforeJobInsertion(unassignedJob, bestInsertion.getInsertionData(), bestInsertion.getRoute());
 				insertIn = bestInsertion.getRoute();
 //				logger.debug("insert job="+unassignedJob+" at index=" + bestInsertion.getInsertionData().getInsertionIndex() + " delta cost=" + bestInsertion.getInsertionData().getInsertionCost());
 				routeAlgorithm.insertJob(unassignedJob, bestInsertion.getInsertionData(), bestInsertion.getRoute());
 			} 
 			else {
-//				VehicleRoute newRoute = VehicleRoute.emptyRoute();
-//				InsertionData bestI = routeAlgorithm.calculateBestInsertion(newRoute, unassignedJob, Double.MAX_VALUE);
-//				if(bestI instanceof InsertionData.NoInsertionFound) 
 				throw new IllegalStateException("given the vehicles, could not create a valid solution.\n\tthe reason might be" +
 							" inappropriate vehicle capacity.\n\tthe job that does not fit in any vehicle anymore is \n\t" + unassignedJob);
-//				insertIn = newRoute;
-//				informBeforeJobInsertion(unassignedJob,bestI,newRoute);
-//				routeAlgorithm.insertJob(unassignedJob,bestI,newRoute);
-//				vehicleRoutes.add(newRoute);
 			}
 			inserted++;
 			informJobInserted((unassignedJobList.size()-inserted), unassignedJob, insertIn);
@@ -149,45 +165,55 @@ final class BestInsertionConcurrent extends AbstractInsertionStrategy{
 		informInsertionEndsListeners(vehicleRoutes);
 	}
 	
-	private Insertion getBestInsertion(Batch batch, Job unassignedJob) {
-		Insertion bestInsertion = null;
+	/**
+	 * Returns true if insertion is cheaper than bestInsertion. If both are equally expensive, the insertion into the route with the lower index wins. 
+	 * Thus, the result does neither depend on the number of batches nor on the order in which they are completed, and it equals the result of {@link BestInsertion}.
+	 */
+	private boolean isBetter(IndexedInsertion insertion, IndexedInsertion bestInsertion) {
+		if(bestInsertion == null) return true;
+		double cost = insertion.getInsertionData().getInsertionCost();
+		double bestCost = bestInsertion.getInsertionData().getInsertionCost();
+		if(cost < bestCost) return true;
+		return cost == bestCost && insertion.getRouteIndex() < bestInsertion.getRouteIndex();
+	}
+	
+	private IndexedInsertion getBestInsertion(Batch batch, Job unassignedJob) {
+		IndexedInsertion bestInsertion = null;
 		double bestInsertionCost = Double.MAX_VALUE;
-		for(VehicleRoute vehicleRoute : batch.routes){
+		for(int i=0;i<batch.routes.size();i++){
+			if(bestInsertion != null && getDeadline().isExceeded()){
+				//take the first feasible insertion of this batch, which is still a valid one
+				break;
+			}
+			VehicleRoute vehicleRoute = batch.routes.get(i);
 			InsertionData iData = routeAlgorithm.calculateBestInsertion(vehicleRoute, unassignedJob, bestInsertionCost);
 			if(iData instanceof NoInsertionFound) continue;
 			if(iData.getInsertionCost() < bestInsertionCost){
-				bestInsertion = new Insertion(vehicleRoute,iData);
+				bestInsertion = new IndexedInsertion(vehicleRoute,iData,batch.routeIndices.get(i));
 				bestInsertionCost = iData.getInsertionCost();
 			}
 		}
 		return bestInsertion;
 	}
 
-	private List<Batch> distributeRoutes(Collection<VehicleRoute> vehicleRoutes, int nuOfBatches) {
+	/**
+	 * Distributes the routes and newRoute (as last route) equally to nuOfBatches. newRoute is only added to vehicleRoutes if the job is inserted into it.
+	 */
+	private List<Batch> distributeRoutes(Collection<VehicleRoute> vehicleRoutes, VehicleRoute newRoute, int nuOfBatches) {
 		List<Batch> batches = new ArrayList<Batch>();
 		for(int i=0;i<nuOfBatches;i++) batches.add(new Batch()); 
-		/*
-		 * if route.size < nuOfBatches add as much routes as empty batches are available
-		 * else add one empty route anyway
-		 */
-//		if(vehicleRoutes.size()<nuOfBatches){
-//			int nOfNewRoutes = nuOfBatches-vehicleRoutes.size();
-//			for(int i=0;i<nOfNewRoutes;i++){
-//				vehicleRoutes.add(VehicleRoute.emptyRoute());
-//			}
-//		}
-//		else{
-			vehicleRoutes.add(VehicleRoute.emptyRoute());
-//		}
-		/*
-		 * distribute routes to batches equally
-		 */
 		int count = 0;
+		int routeIndex = 0;
 		for(VehicleRoute route : vehicleRoutes){
 			if(count == nuOfBatches) count=0;
 			batches.get(count).routes.add(route);
+			batches.get(count).routeIndices.add(routeIndex);
 			count++;
+			routeIndex++;
 		}
+		if(count == nuOfBatches) count=0;
+		batches.get(count).routes.add(newRoute);
+		batches.get(count).routeIndices.add(routeIndex);
 		return batches;
 	}
 
@@ -14,7 +14,6 @@ package algorithms;
 
 import org.apache.log4j.Logger;
 
-import algorithms.RouteStates.ActivityState;
 import basics.costs.VehicleRoutingActivityCosts;
 import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.Driver;
@@ -79,22 +78,19 @@ final class CalculatesActivityInsertionWithHardTimeWindows {
 		else{
 			double oldCostOfPrevAct;
 			if(prevIsStart) oldCostOfPrevAct = 0.0;
-			else oldCostOfPrevAct = state(prevAct).getCurrentCost();
+			else oldCostOfPrevAct = routeStates.getCurrentCost(routeStates.getActivityIndex(prevAct));
 			double oldCostOfNextAct;
-			if(nextAct instanceof End) oldCostOfNextAct = routeStates.getRouteState(vehicleRoute).getCosts();
-			else oldCostOfNextAct = state(nextAct).getCurrentCost();
+			if(nextAct instanceof End) oldCostOfNextAct = routeStates.getRouteCosts(routeStates.getRouteIndex(vehicleRoute));
+			else oldCostOfNextAct = routeStates.getCurrentCost(routeStates.getActivityIndex(nextAct));
 			activityInsertionCosts = (totalCosts) - (oldCostOfNextAct-oldCostOfPrevAct);
 		} 
 		return activityInsertionCosts;
 	}
 	
-	private ActivityState state(TourActivity act) {
-		return routeStates.getState(act);
-	}
-
 	private double getLatestOperationStart(TourActivity act) {
-		if(state(act) != null){
-			return state(act).getLatestOperationStart();
+		int actIndex = routeStates.getActivityIndex(act);
+		if(actIndex != RouteStates.NO_INDEX){
+			return routeStates.getLatestOperationStart(actIndex);
 		}
 		return act.getTheoreticalLatestOperationStartTime();
 	}
@@ -19,6 +19,7 @@ import util.Neighborhood;
 import algorithms.RouteStates.ActivityState;
 import basics.Job;
 import basics.Service;
+import basics.costs.TransportLeg;
 import basics.costs.VehicleRoutingActivityCosts;
 import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.Driver;
@@ -39,14 +40,10 @@ final class CalculatesServiceInsertion implements JobInsertionCalculator{
 	
 	private RouteStates routeStates;
 	
-	private VehicleRoutingTransportCosts routingCosts;
+	private ActivityTransportCosts routingCosts;
 	
 	private VehicleRoutingActivityCosts activityCosts;
 	
-	private Start start;
-	
-	private End end;
-	
 	private Neighborhood neighborhood = new Neighborhood() {
 		
 		@Override
@@ -72,7 +69,7 @@ final class CalculatesServiceInsertion implements JobInsertionCalculator{
 	
 	public CalculatesServiceInsertion(VehicleRoutingTransportCosts vehicleRoutingTransportCosts, VehicleRoutingActivityCosts vehicleRoutingActivityCosts) {
 		super();
-		this.routingCosts = vehicleRoutingTransportCosts;
+		this.routingCosts = new ActivityTransportCosts(vehicleRoutingTransportCosts);
 		this.activityCosts = vehicleRoutingActivityCosts;
 		logger.info("initialise " + this);
 	}
@@ -96,23 +93,26 @@ final class CalculatesServiceInsertion implements JobInsertionCalculator{
 		double bestCost = bestKnownCosts;
 		Service service = (Service)jobToInsert;
 		
-		if(routeStates.getRouteState(currentRoute).getLoad() + service.getCapacityDemand() > newVehicle.getCapacity()){
+		int routeIndex = routeStates.getRouteIndex(currentRoute);
+		if(routeStates.getRouteLoad(routeIndex) + service.getCapacityDemand() > newVehicle.getCapacity()){
 			return InsertionData.noInsertionFound();
 		}
 		int insertionIndex = InsertionData.NO_INDEX;
 		
 		TourActivity deliveryAct2Insert = ServiceActivity.newInstance(service);
+		TransportLeg leg = new TransportLeg();
 //		TourActivity deliveryAct2Insert = actStates.getActivity(service, true);
 		
-		initialiseStartAndEnd(newVehicle, newVehicleDepartureTime);
+		Start start = newStart(newVehicle, newVehicleDepartureTime);
+		End end = newEnd(newVehicle, newVehicleDepartureTime);
 		
 		TourActivity prevAct = start;
 		double prevCostInOriginalTour = 0.0;
 		int actIndex = 0;
 		for(TourActivity nextAct : tour.getActivities()){
-			double nextCostInOriginalTour = state(nextAct).getCurrentCost();
+			double nextCostInOriginalTour = routeStates.getCurrentCost(routeStates.getActivityIndex(nextAct));
 			if(neighborhood.areNeighbors(deliveryAct2Insert.getLocationId(), prevAct.getLocationId()) && neighborhood.areNeighbors(deliveryAct2Insert.getLocationId(), nextAct.getLocationId())){
-				double mc = calculate(tour, prevAct, nextAct, deliveryAct2Insert, newDriver, newVehicle, bestCost, nextCostInOriginalTour - prevCostInOriginalTour);
+				double mc = calculate(tour, prevAct, nextAct, deliveryAct2Insert, newDriver, newVehicle, bestCost, nextCostInOriginalTour - prevCostInOriginalTour, leg);
 				if(mc < bestCost){
 					bestCost = mc;
 					insertionIndex = actIndex;
@@ -124,7 +124,7 @@ final class CalculatesServiceInsertion implements JobInsertionCalculator{
 		}
 		End nextAct = end;
 		if(neighborhood.areNeighbors(deliveryAct2Insert.getLocationId(), prevAct.getLocationId()) && neighborhood.areNeighbors(deliveryAct2Insert.getLocationId(), nextAct.getLocationId())){
-			double mc = calculate(tour, prevAct, nextAct, deliveryAct2Insert, newDriver, newVehicle, bestCost, routeStates.getRouteState(currentRoute).getCosts() - prevCostInOriginalTour);
+			double mc = calculate(tour, prevAct, nextAct, deliveryAct2Insert, newDriver, newVehicle, bestCost, routeStates.getRouteCosts(routeIndex) - prevCostInOriginalTour, leg);
 			if(mc < bestCost){
 				bestCost = mc;
 				insertionIndex = actIndex;
@@ -139,33 +139,32 @@ final class CalculatesServiceInsertion implements JobInsertionCalculator{
 		return insertionData;
 	}
 
-	private void initialiseStartAndEnd(final Vehicle newVehicle,
-			double newVehicleDepartureTime) {
-		if(start == null){
-			start = Start.newInstance(newVehicle.getLocationId(), newVehicle.getEarliestDeparture(), newVehicle.getLatestArrival());
-			start.setEndTime(newVehicleDepartureTime);
-		}
-		else{
-			start.setLocationId(newVehicle.getLocationId());
-			start.setTheoreticalEarliestOperationStartTime(newVehicle.getEarliestDeparture());
-			start.setTheoreticalLatestOperationStartTime(newVehicle.getLatestArrival());
-			start.setEndTime(newVehicleDepartureTime);
-		}
-		
-		if(end == null){
-			end = End.newInstance(newVehicle.getLocationId(), 0.0, newVehicle.getLatestArrival());
-		}
-		else{
-			end.setLocationId(newVehicle.getLocationId());
-			end.setTheoreticalEarliestOperationStartTime(newVehicleDepartureTime);
-			end.setTheoreticalLatestOperationStartTime(newVehicle.getLatestArrival());
-		}
+	/**
+	 * Start and end are created for each calculation, thus calculations can be run concurrently.
+	 */
+	private Start newStart(final Vehicle newVehicle, double newVehicleDepartureTime) {
+		Start start = Start.newInstance(newVehicle.getLocationId(), newVehicle.getEarliestDeparture(), newVehicle.getLatestArrival());
+		start.setEndTime(newVehicleDepartureTime);
+		return start;
+	}
+	
+	private End newEnd(final Vehicle newVehicle, double newVehicleDepartureTime) {
+		End end = End.newInstance(newVehicle.getLocationId(), newVehicleDepartureTime, newVehicle.getLatestArrival());
+		return end;
 	}
 
 	public double calculate(TourActivities tour, TourActivity prevAct, TourActivity nextAct, TourActivity newAct, Driver driver, Vehicle vehicle, double bestKnownCosts, double costWithoutNewJob) {	
+		return calculate(tour, prevAct, nextAct, newAct, driver, vehicle, bestKnownCosts, costWithoutNewJob, new TransportLeg());
+	}
+	
+	/**
+	 * The leg is provided by the caller, thus one leg serves all insertion positions of a calculation and calculations can still be run concurrently.
+	 */
+	private double calculate(TourActivities tour, TourActivity prevAct, TourActivity nextAct, TourActivity newAct, Driver driver, Vehicle vehicle, double bestKnownCosts, double costWithoutNewJob, TransportLeg leg) {	
 		
-		double tp_costs_prevAct_newAct = routingCosts.getTransportCost(prevAct.getLocationId(), newAct.getLocationId(), prevAct.getEndTime(), driver, vehicle);
-		double tp_time_prevAct_newAct = routingCosts.getTransportTime(prevAct.getLocationId(), newAct.getLocationId(), prevAct.getEndTime(), driver, vehicle);
+		routingCosts.getTransportLeg(prevAct, newAct, prevAct.getEndTime(), driver, vehicle, leg);
+		double tp_costs_prevAct_newAct = leg.getCost();
+		double tp_time_prevAct_newAct = leg.getTime();
 		
 		double newAct_arrTime = prevAct.getEndTime() + tp_time_prevAct_newAct;
 		double newAct_operationStartTime = Math.max(newAct_arrTime, newAct.getTheoreticalEarliestOperationStartTime());
@@ -178,8 +177,9 @@ final class CalculatesServiceInsertion implements JobInsertionCalculator{
 			return Double.MAX_VALUE;
 		}
 		
-		double tp_costs_newAct_nextAct = routingCosts.getTransportCost(newAct.getLocationId(), nextAct.getLocationId(), newAct_endTime, driver, vehicle);
-		double tp_time_newAct_nextAct = routingCosts.getTransportTime(newAct.getLocationId(), nextAct.getLocationId(), newAct_endTime, driver, vehicle);
+		routingCosts.getTransportLeg(newAct, nextAct, newAct_endTime, driver, vehicle, leg);
+		double tp_costs_newAct_nextAct = leg.getCost();
+		double tp_time_newAct_nextAct = leg.getTime();
 		
 		double nextAct_arrTime = newAct_endTime + tp_time_newAct_nextAct;
 		double act_costs_nextAct = activityCosts.getActivityCost(nextAct, nextAct_arrTime, driver, vehicle);
@@ -201,8 +201,9 @@ final class CalculatesServiceInsertion implements JobInsertionCalculator{
 	}
 	
 	private double getLatestOperationStart(TourActivity act) {
-		if(state(act) != null){
-			return state(act).getLatestOperationStart();
+		int actIndex = routeStates.getActivityIndex(act);
+		if(actIndex != RouteStates.NO_INDEX){
+			return routeStates.getLatestOperationStart(actIndex);
 		}
 		return act.getTheoreticalLatestOperationStartTime();
 	}
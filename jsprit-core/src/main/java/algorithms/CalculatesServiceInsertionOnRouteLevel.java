@@ -12,13 +12,7 @@
  ******************************************************************************/
 package algorithms;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
 
 import org.apache.log4j.Logger;
 
@@ -27,12 +21,13 @@ import util.Neighborhood;
 import algorithms.RouteStates.ActivityState;
 import basics.Job;
 import basics.Service;
+import basics.costs.TransportLeg;
 import basics.costs.VehicleRoutingActivityCosts;
 import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.Driver;
 import basics.route.End;
+import basics.route.ServiceActivity;
 import basics.route.Start;
-import basics.route.TourActivities;
 import basics.route.TourActivity;
 import basics.route.Vehicle;
 import basics.route.VehicleRoute;
@@ -42,23 +37,100 @@ import basics.route.VehicleImpl.NoVehicle;
 
 final class CalculatesServiceInsertionOnRouteLevel implements JobInsertionCalculator{
 	
+	/**
+	 * Scratch buffers that are reused by all calculations of one thread, thus calculating insertion costs does not allocate memory
+	 * (apart from the activity to be inserted).
+	 * 
+	 * <p>Arrays are indexed by insertion position i, where i means inserting the job between act i-1 (or start) and act i (or end).
+	 * 
+	 */
+	static final class Scratch {
+		
+		/**
+		 * costs with new vehicle from start to act i-1
+		 */
+		double[] prevCosts = new double[0];
+		
+		/**
+		 * departure time with new vehicle at act i-1 (or start)
+		 */
+		double[] prevDepTimes = new double[0];
+		
+		/**
+		 * approximated insertion costs of the best positions in ascending order
+		 */
+		double[] bestCosts = new double[0];
+		
+		int[] bestPositions = new int[0];
+		
+		int nuOfBest = 0;
+		
+		/**
+		 * departure time at the last activity of the path that is currently being calculated
+		 */
+		double depTime;
+		
+		final Start start = Start.newInstance(null, 0.0, Double.MAX_VALUE);
+		
+		final End end = End.newInstance(null, 0.0, Double.MAX_VALUE);
+		
+		final TransportLeg leg = new TransportLeg();
+		
+		void ensureCapacity(int nuOfPositions, int memorySize){
+			if(prevCosts.length < nuOfPositions){
+				int capacity = Math.max(nuOfPositions, 2*prevCosts.length);
+				prevCosts = new double[capacity];
+				prevDepTimes = new double[capacity];
+			}
+			if(bestCosts.length < memorySize){
+				bestCosts = new double[memorySize];
+				bestPositions = new int[memorySize];
+			}
+			nuOfBest = 0;
+		}
+		
+		/**
+		 * Memorizes position if its cost is among the memorySize lowest. Of equally expensive positions, the one offered first is kept.
+		 */
+		void offer(double cost, int position, int memorySize){
+			if(memorySize == 0) return;
+			if(nuOfBest == memorySize){
+				if(!(cost < bestCosts[nuOfBest-1])) return;
+				nuOfBest--;
+			}
+			int i = nuOfBest;
+			while(i > 0 && cost < bestCosts[i-1]){
+				bestCosts[i] = bestCosts[i-1];
+				bestPositions[i] = bestPositions[i-1];
+				i--;
+			}
+			bestCosts[i] = cost;
+			bestPositions[i] = position;
+			nuOfBest++;
+		}
+		
+	}
+	
 	private static final Logger logger = Logger.getLogger(CalculatesServiceInsertionOnRouteLevel.class);
 	
-	private final VehicleRoutingTransportCosts transportCosts;
+	private final ActivityTransportCosts transportCosts;
 	
 	private final VehicleRoutingActivityCosts activityCosts;
 
-	private AuxilliaryCostCalculator auxilliaryPathCostCalculator;
-	
 	private RouteStates routeStates;
 	
 	private int nuOfActsForwardLooking = 0;
 	
 	private int memorySize = 2;
 	
-	private Start start;
-	
-	private End end;
+	private final ThreadLocal<Scratch> scratches = new ThreadLocal<Scratch>(){
+		
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+		
+	};
 	
 	private Neighborhood neighborhood = new Neighborhood() {
 		
@@ -83,9 +155,8 @@ final class CalculatesServiceInsertionOnRouteLevel implements JobInsertionCalcul
 
 	public CalculatesServiceInsertionOnRouteLevel(VehicleRoutingTransportCosts vehicleRoutingCosts, VehicleRoutingActivityCosts costFunc) {
 			super();
-			this.transportCosts = vehicleRoutingCosts;
+			this.transportCosts = new ActivityTransportCosts(vehicleRoutingCosts);
 			this.activityCosts = costFunc;
-			auxilliaryPathCostCalculator = new AuxilliaryCostCalculator(transportCosts, activityCosts);
 			logger.info("initialise " + this);
 		}
 
@@ -114,6 +185,7 @@ final class CalculatesServiceInsertionOnRouteLevel implements JobInsertionCalcul
 	 * Calculation is conducted by two steps. In the first step, promising insertion positions are identified by appromiximating their 
 	 * marginal insertion cost. In the second step, marginal cost of the best M positions are calculated exactly.
 	 * 
+	 * <p>Intermediate results are memorized in primitive scratch buffers of the calling thread, see this.Scratch.
 	 * 
 	 */
 	@Override
@@ -121,39 +193,41 @@ final class CalculatesServiceInsertionOnRouteLevel implements JobInsertionCalcul
 		if(jobToInsert == null) throw new IllegalStateException("job is null. cannot calculate the insertion of a null-job.");
 		if(newVehicle == null || newVehicle instanceof NoVehicle) throw new IllegalStateException("no vehicle given. set para vehicle!");
 		
-		/**
-		 * map that memorizes the costs with newVehicle, which is a cost-snapshot at tour-activities. 
-		 */
-		Map<TourActivity,Double> activity2costWithNewVehicle = new HashMap<TourActivity,Double>();
-		
-		/**
-		 * priority queue that stores insertion-data by insertion-costs in ascending order.
-		 */
-		PriorityQueue<InsertionData> bestInsertionsQueue = new PriorityQueue<InsertionData>(Math.max(2, currentRoute.getTourActivities().getActivities().size()), getComparator());
-		
-		TourActivities tour = currentRoute.getTourActivities();
 		double best_insertion_costs = best_known_insertion_costs;
 		Service service = (Service)jobToInsert;
 		
 		/**
 		 * pre-check whether vehicle-capacity of new vehicle is sufficient to load service.
 		 */
-		if(routeStates.getRouteState(currentRoute).getLoad() + service.getCapacityDemand() > newVehicle.getCapacity()){
+		int routeIndex = routeStates.getRouteIndex(currentRoute);
+		if(routeStates.getRouteLoad(routeIndex) + service.getCapacityDemand() > newVehicle.getCapacity()){
 			return InsertionData.noInsertionFound();
 		}
 		
 		/**
 		 * some inis
 		 */
-		TourActivity serviceAct2Insert = routeStates.getActivity(service, true);
+		List<TourActivity> acts = currentRoute.getTourActivities().getActivities();
+		int nuOfActs = acts.size();
+		Scratch scratch = scratches.get();
+		scratch.ensureCapacity(nuOfActs+1, memorySize);
+		
+		TourActivity serviceAct2Insert = ServiceActivity.newInstance(service);
+		String serviceLocation = serviceAct2Insert.getLocationId();
 		int best_insertion_index = InsertionData.NO_INDEX;
 		
-		initialiseStartAndEnd(newVehicle, newVehicleDepartureTime);
+		Start start = scratch.start;
+		start.setLocationId(newVehicle.getLocationId());
+		
+		End end = scratch.end;
+		end.setLocationId(newVehicle.getLocationId());
+		end.setTheoreticalEarliestOperationStartTime(newVehicleDepartureTime);
+		end.setTheoreticalLatestOperationStartTime(newVehicle.getLatestArrival());
+		double routeCosts = routeStates.getRouteCosts(routeIndex);
 		
 		TourActivity prevAct = start;
-		int actIndex = 0;
 		double sumOf_prevCosts_newVehicle = 0.0;
-		double prevActDepTime_newVehicle = start.getEndTime();
+		double prevActDepTime_newVehicle = newVehicleDepartureTime;
 
 		/**
 		 * inserting serviceAct2Insert in route r={0,1,...,i-1,i,j,j+1,...,n(r),n(r)+1}
@@ -161,114 +235,94 @@ final class CalculatesServiceInsertionOnRouteLevel implements JobInsertionCalcul
 		 * j=nextAct
 		 * k=serviceAct2Insert
 		 */
-		for(TourActivity nextAct : tour.getActivities()){
-			if(neighborhood.areNeighbors(serviceAct2Insert.getLocationId(), prevAct.getLocationId()) && neighborhood.areNeighbors(serviceAct2Insert.getLocationId(), nextAct.getLocationId())){
-				/**
-				 * builds a path on this route forwardPath={i,k,j,j+1,j+2,...,j+nuOfActsForwardLooking}
-				 */
-				List<TourActivity> path = new ArrayList<TourActivity>();
-				path.add(prevAct); path.add(serviceAct2Insert); path.add(nextAct);
-				if(nuOfActsForwardLooking > 0){ path.addAll(getForwardLookingPath(currentRoute,actIndex)); }
-
+		for(int actIndex=0;actIndex<=nuOfActs;actIndex++){
+			TourActivity nextAct;
+			if(actIndex < nuOfActs) nextAct = acts.get(actIndex);
+			else nextAct = end;
+			scratch.prevCosts[actIndex] = sumOf_prevCosts_newVehicle;
+			scratch.prevDepTimes[actIndex] = prevActDepTime_newVehicle;
+			
+			if(neighborhood.areNeighbors(serviceLocation, prevAct.getLocationId()) && neighborhood.areNeighbors(serviceLocation, nextAct.getLocationId())){
 				/**
-				 * calculates the path costs with new vehicle, c(forwardPath,newVehicle).
+				 * calculates the path costs with new vehicle, c(forwardPath,newVehicle), where forwardPath={i,k,j,j+1,j+2,...,j+nuOfActsForwardLooking}.
+				 * if the route ends before j+nuOfActsForwardLooking, forwardPath ends at the end of currentRoute.
 				 */
-				double forwardPathCost_newVehicle = auxilliaryPathCostCalculator.costOfPath(path, prevActDepTime_newVehicle, newDriver, newVehicle); 
+				scratch.depTime = prevActDepTime_newVehicle;
+				double forwardPathCost_newVehicle = cost(prevAct, serviceAct2Insert, scratch, newDriver, newVehicle);
+				forwardPathCost_newVehicle += cost(serviceAct2Insert, nextAct, scratch, newDriver, newVehicle);
+				double pathCost_oldVehicle = routeCosts;
+				if(actIndex < nuOfActs){
+					int lastIndex = Math.min(actIndex + nuOfActsForwardLooking, nuOfActs - 1);
+					for(int index=actIndex+1;index<=lastIndex;index++){
+						forwardPathCost_newVehicle += cost(acts.get(index-1), acts.get(index), scratch, newDriver, newVehicle);
+					}
+					if(lastIndex - actIndex < nuOfActsForwardLooking){
+						forwardPathCost_newVehicle += cost(acts.get(lastIndex), currentRoute.getEnd(), scratch, newDriver, newVehicle);
+					}
+					else{
+						pathCost_oldVehicle = routeStates.getCurrentCost(routeStates.getActivityIndex(acts.get(lastIndex)));
+					}
+				}
 
 				/**
 				 * insertion_cost_approximation = c({0,1,...,i},newVehicle) + c({i,k,j,j+1,j+2,...,j+nuOfActsForwardLooking},newVehicle) - c({0,1,...,i,j,j+1,...,j+nuOfActsForwardLooking},oldVehicle)
 				 */
-				double insertion_cost_approximation = sumOf_prevCosts_newVehicle + forwardPathCost_newVehicle - pathCost_oldVehicle(currentRoute,path); 
+				double insertion_cost_approximation = sumOf_prevCosts_newVehicle + forwardPathCost_newVehicle - pathCost_oldVehicle; 
 
 				/**
-				 * memorize it in insertion-queue
+				 * memorize it if it is among the best memorySize positions
 				 */
 				if(insertion_cost_approximation < best_known_insertion_costs){
-					bestInsertionsQueue.add(new InsertionData(insertion_cost_approximation, InsertionData.NO_INDEX, actIndex, newVehicle, newDriver));
+					scratch.offer(insertion_cost_approximation, actIndex, memorySize);
 				}
 				
 			}
+			
+			if(actIndex == nuOfActs) break;
 
 			/**
-			 * calculate transport and activity costs with new vehicle (without inserting k)
-			 */
-			double transportCost_prevAct_nextAct_newVehicle = transportCosts.getTransportCost(prevAct.getLocationId(), nextAct.getLocationId(), prevActDepTime_newVehicle, newDriver, newVehicle);
-			double transportTime_prevAct_nextAct_newVehicle = transportCosts.getTransportTime(prevAct.getLocationId(), nextAct.getLocationId(), prevActDepTime_newVehicle, newDriver, newVehicle);
-			double arrTime_nextAct_newVehicle = prevActDepTime_newVehicle + transportTime_prevAct_nextAct_newVehicle;
-			double activityCost_nextAct = activityCosts.getActivityCost(nextAct, arrTime_nextAct_newVehicle, newDriver, newVehicle);
-
-			/**
-			 * memorize transport and activity costs with new vehicle without inserting k
-			 */
-			sumOf_prevCosts_newVehicle += transportCost_prevAct_nextAct_newVehicle + activityCost_nextAct;
-			activity2costWithNewVehicle.put(nextAct, sumOf_prevCosts_newVehicle);
-
-			/**
-			 * departure time at nextAct with new vehicle
+			 * calculate and memorize transport and activity costs with new vehicle without inserting k
 			 */
-			double depTime_nextAct_newVehicle = Math.max(arrTime_nextAct_newVehicle, nextAct.getTheoreticalEarliestOperationStartTime()) + nextAct.getOperationTime();
+			scratch.depTime = prevActDepTime_newVehicle;
+			sumOf_prevCosts_newVehicle += cost(prevAct, nextAct, scratch, newDriver, newVehicle);
 
 			/**
 			 * set previous to next
 			 */
 			prevAct = nextAct;
-			prevActDepTime_newVehicle = depTime_nextAct_newVehicle;
-
-			actIndex++;
-		}
-		End nextAct = end;
-		if(neighborhood.areNeighbors(serviceAct2Insert.getLocationId(), prevAct.getLocationId()) && neighborhood.areNeighbors(serviceAct2Insert.getLocationId(), nextAct.getLocationId())){
-
-			/**
-			 * calculates the path costs with new vehicle, c(forwardPath,newVehicle).
-			 */
-			List<TourActivity> path = Arrays.asList(prevAct,serviceAct2Insert,end);
-			double forwardPathCost_newVehicle = auxilliaryPathCostCalculator.costOfPath(path, prevActDepTime_newVehicle, newDriver, newVehicle);
-
-			/**
-			 * insertion_cost_approximation = c({0,1,...,i},newVehicle) + c({i,k,j,j+1,j+2,...,j+nuOfActsForwardLooking},newVehicle) - c({0,1,...,i,j,j+1,...,j+nuOfActsForwardLooking},oldVehicle)
-			 */
-			double insertion_cost_approximation = sumOf_prevCosts_newVehicle + forwardPathCost_newVehicle - pathCost_oldVehicle(currentRoute,path);
-
-			/**
-			 * memorize it in insertion-queue
-			 */
-			if(insertion_cost_approximation < best_known_insertion_costs){
-				bestInsertionsQueue.add(new InsertionData(insertion_cost_approximation,InsertionData.NO_INDEX, actIndex, newVehicle, newDriver));
-			}
+			prevActDepTime_newVehicle = scratch.depTime;
 		}
-
 		
 		/**
 		 * the above calculations approximate insertion costs. now calculate the exact insertion costs for the most promising (according to the approximation)
 		 * insertion positions.
 		 *  
 		 */
-		
-		for(int i=0;i<memorySize;i++){
-			InsertionData data = bestInsertionsQueue.poll();
-			if(data == null){
-				continue;
-			}
-			/**
-			 * build tour with new activity.
-			 */
-			List<TourActivity> wholeTour = new ArrayList<TourActivity>();
-			wholeTour.add(start);
-			wholeTour.addAll(currentRoute.getTourActivities().getActivities());
-			wholeTour.add(end);
-			wholeTour.add(data.getDeliveryInsertionIndex()+1, serviceAct2Insert);
+		for(int i=0;i<scratch.nuOfBest;i++){
+			int insertionIndex = scratch.bestPositions[i];
 			
 			/**
-			 * compute cost-diff of tour with and without new activity --> insertion_costs
+			 * compute cost-diff of tour with and without new activity --> insertion_costs. 
+			 * costs with new vehicle up to act i-1 are already known.
 			 */
-			double insertion_costs = auxilliaryPathCostCalculator.costOfPath(wholeTour, start.getEndTime(), newDriver, newVehicle) - routeStates.getRouteState(currentRoute).getCosts();
+			scratch.depTime = scratch.prevDepTimes[insertionIndex];
+			TourActivity prevActOfPath = start;
+			if(insertionIndex > 0) prevActOfPath = acts.get(insertionIndex-1);
+			double tourCosts = scratch.prevCosts[insertionIndex] + cost(prevActOfPath, serviceAct2Insert, scratch, newDriver, newVehicle);
+			prevActOfPath = serviceAct2Insert;
+			for(int index=insertionIndex;index<nuOfActs;index++){
+				TourActivity act = acts.get(index);
+				tourCosts += cost(prevActOfPath, act, scratch, newDriver, newVehicle);
+				prevActOfPath = act;
+			}
+			tourCosts += cost(prevActOfPath, end, scratch, newDriver, newVehicle);
+			double insertion_costs = tourCosts - routeCosts;
 			
 			/**
 			 * if better than best known, make it the best known
 			 */
 			if(insertion_costs < best_insertion_costs){
-				best_insertion_index = data.getDeliveryInsertionIndex();
+				best_insertion_index = insertionIndex;
 				best_insertion_costs = insertion_costs;
 			}
 		}
@@ -277,80 +331,14 @@ final class CalculatesServiceInsertionOnRouteLevel implements JobInsertionCalcul
 	}
 	
 	/**
-	 * initialize start and end of tour.
-	 * 
-	 * @param newVehicle
-	 * @param newVehicleDepartureTime
+	 * Returns transport costs from prevAct to act (departing at scratch.depTime) plus activity costs at act, and sets scratch.depTime 
+	 * to the departure time at act.
 	 */
-	private void initialiseStartAndEnd(final Vehicle newVehicle, double newVehicleDepartureTime) {
-		if(start == null){
-			start = Start.newInstance(newVehicle.getLocationId(), newVehicle.getEarliestDeparture(), newVehicle.getLatestArrival());
-			start.setEndTime(newVehicleDepartureTime);
-		}
-		else{
-			start.setLocationId(newVehicle.getLocationId());
-			start.setTheoreticalEarliestOperationStartTime(newVehicle.getEarliestDeparture());
-			start.setTheoreticalLatestOperationStartTime(newVehicle.getLatestArrival());
-			start.setEndTime(newVehicleDepartureTime);
-		}
-		
-		if(end == null){
-			end = End.newInstance(newVehicle.getLocationId(), 0.0, newVehicle.getLatestArrival());
-		}
-		else{
-			end.setLocationId(newVehicle.getLocationId());
-			end.setTheoreticalEarliestOperationStartTime(newVehicleDepartureTime);
-			end.setTheoreticalLatestOperationStartTime(newVehicle.getLatestArrival());
-		}
+	private double cost(TourActivity prevAct, TourActivity act, Scratch scratch, Driver driver, Vehicle vehicle){
+		transportCosts.getTransportLeg(prevAct, act, scratch.depTime, driver, vehicle, scratch.leg);
+		double arrTime = scratch.depTime + scratch.leg.getTime();
+		scratch.depTime = Math.max(arrTime, act.getTheoreticalEarliestOperationStartTime()) + act.getOperationTime();
+		return scratch.leg.getCost() + activityCosts.getActivityCost(act, arrTime, driver, vehicle);
 	}
 
-	private double pathCost_oldVehicle(VehicleRoute vehicleRoute, List<TourActivity> path) {
-		TourActivity act = path.get(path.size()-1);
-		if(act instanceof End){
-			return routeStates.getRouteState(vehicleRoute).getCosts();
-		}
-		return state(act).getCurrentCost();
-	}
-
-	/**
-	 * returns the path or the partial route r_partial = {j+1,j+2,...,j+nuOfActsForwardLooking}
-	 * 
-	 * @param route
-	 * @param actIndex
-	 * @return
-	 */
-	private List<TourActivity> getForwardLookingPath(VehicleRoute route, int actIndex) {
-		List<TourActivity> forwardLookingPath = new ArrayList<TourActivity>();
-		int nuOfActsInPath = 0;
-		int index = actIndex + 1;
-		while(index < route.getTourActivities().getActivities().size() && nuOfActsInPath < nuOfActsForwardLooking){
-			forwardLookingPath.add(route.getTourActivities().getActivities().get(index));
-			index++;
-			nuOfActsInPath++;
-		}
-		if(nuOfActsInPath < nuOfActsForwardLooking){
-			forwardLookingPath.add(route.getEnd());
-		}
-		return forwardLookingPath;
-	}
-
-	/**
-	 * creates a comparator to sort insertion-data in insertionQueue in ascending order according insertion costs.
-	 * @return
-	 */
-	private Comparator<InsertionData> getComparator() {
-		return new Comparator<InsertionData>() {
-
-			@Override
-			public int compare(InsertionData o1, InsertionData o2) {
-				if(o1.getInsertionCost() < o2.getInsertionCost()){
-					return -1;
-				}
-				else {
-					return 1;
-				}
-
-			}
-		};
-	}
 }
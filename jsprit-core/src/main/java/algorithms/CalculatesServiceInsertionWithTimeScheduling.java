@@ -22,7 +22,6 @@ package algorithms;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import org.apache.log4j.Logger;
 
@@ -37,12 +36,12 @@ class CalculatesServiceInsertionWithTimeScheduling implements JobInsertionCalcul
 	
 	private JobInsertionCalculator jic;
 	
-	private Random random = new Random();
-	
 	private int nOfDepartureTimes = 3;
 	
 	private double timeSlice = 900.0;
 	
+	private double[] breakpoints = new double[0];
+	
 	public CalculatesServiceInsertionWithTimeScheduling(JobInsertionCalculator jic, double timeSlice, int neighbors) {
 		super();
 		this.jic = jic;
@@ -51,6 +50,17 @@ class CalculatesServiceInsertionWithTimeScheduling implements JobInsertionCalcul
 		log.info("initialise " + this);
 	}
 	
+	/**
+	 * Sets the times at which transport times change (e.g. {@link util.TimeDependentTransportCosts#getBreakpoints()}). Departures at 
+	 * breakpoints within the scheduling window (i.e. within #timeSlice timeSlices around the current departure) are evaluated too.
+	 * 
+	 * @param breakpoints
+	 */
+	public void setBreakpoints(double[] breakpoints) {
+		this.breakpoints = breakpoints;
+		log.info("set [#breakpoints="+breakpoints.length+"]");
+	}
+	
 	@Override
 	public String toString() {
 		return "[name=calculatesServiceInsertionWithTimeScheduling][timeSlice="+timeSlice+"][#timeSlice="+nOfDepartureTimes+"]";
@@ -75,13 +85,19 @@ class CalculatesServiceInsertionWithTimeScheduling implements JobInsertionCalcul
 			double neighborStartTime_later = currentStart + (i+1)*timeSlice;
 			if(neighborStartTime_later < latestEnd) vehicleDepartureTimes.add(neighborStartTime_later);
 		}
+		double windowStart = currentStart - nOfDepartureTimes*timeSlice;
+		double windowEnd = currentStart + nOfDepartureTimes*timeSlice;
+		for(double breakpoint : breakpoints){
+			if(breakpoint > earliestDeparture && breakpoint < latestEnd && breakpoint >= windowStart && breakpoint <= windowEnd && breakpoint != currentStart){
+				vehicleDepartureTimes.add(breakpoint);
+			}
+		}
 	
 		InsertionData bestIData = null;
 		for(Double departureTime : vehicleDepartureTimes){
 			InsertionData iData = jic.calculate(currentRoute, jobToInsert, newVehicle, departureTime, newDriver, bestKnownScore);
-			if(bestIData == null) bestIData = iData;
-			else if(iData.getInsertionCost() < bestIData.getInsertionCost()){
-				iData.setVehicleDepartureTime(departureTime);
+			if(bestIData == null || iData.getInsertionCost() < bestIData.getInsertionCost()){
+				if(!(iData instanceof InsertionData.NoInsertionFound)) iData.setVehicleDepartureTime(departureTime);
 				bestIData = iData;
 			}
 		}
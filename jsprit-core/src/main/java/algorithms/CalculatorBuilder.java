@@ -27,6 +27,8 @@ import java.util.Set;
 import org.apache.commons.configuration.XMLConfiguration;
 
 import util.NeighborhoodImpl;
+import util.TimeDependentTransportCosts;
+import util.metrics.MetricsRegistry;
 
 import basics.VehicleRoutingProblem;
 import basics.VehicleRoutingProblem.FleetComposition;
@@ -89,6 +91,8 @@ class CalculatorBuilder {
 	private double timeSlice;
 
 	private int neighbors;
+	
+	private MetricsRegistry metrics = MetricsRegistry.getDefault();
 
 	/**
 	 * Constructs the builder.
@@ -138,6 +142,17 @@ class CalculatorBuilder {
 		return this;
 	}
 
+	/**
+	 * Sets the registry the calculator records its latencies to. By default, it is {@link MetricsRegistry#getDefault()}.
+	 * 
+	 * @param metrics
+	 * @return
+	 */
+	public CalculatorBuilder setMetricsRegistry(MetricsRegistry metrics){
+		this.metrics = metrics;
+		return this;
+	}
+
 	/**
 	 * Sets a flag to build a calculator based on local calculations.
 	 * 
@@ -204,7 +219,11 @@ class CalculatorBuilder {
 			addInsertionListeners(withFixed.getInsertionListener());
 		}
 		if(timeScheduling){
-			baseCalculator = new CalculatesServiceInsertionWithTimeScheduling(baseCalculator,timeSlice,neighbors);
+			CalculatesServiceInsertionWithTimeScheduling withTimeScheduling = new CalculatesServiceInsertionWithTimeScheduling(baseCalculator,timeSlice,neighbors);
+			if(vrp.getTransportCosts() instanceof TimeDependentTransportCosts){
+				withTimeScheduling.setBreakpoints(((TimeDependentTransportCosts) vrp.getTransportCosts()).getBreakpoints());
+			}
+			baseCalculator = withTimeScheduling;
 		}
 		return createFinalInsertion(fleetManager, baseCalculator, activityStates);
 	}
@@ -222,7 +241,7 @@ class CalculatorBuilder {
 	}
 
 	private CalculatorPlusListeners createStandardLocal(VehicleRoutingProblem vrp, RouteStates activityStates){
-		JobInsertionCalculator standardServiceInsertion = new CalculatesServiceInsertion(vrp.getTransportCosts(), vrp.getActivityCosts());
+		JobInsertionCalculator standardServiceInsertion = new CalculatesServiceInsertion(vrp.getIndexedTransportCosts(), vrp.getActivityCosts());
 		((CalculatesServiceInsertion) standardServiceInsertion).setActivityStates(activityStates);
 		((CalculatesServiceInsertion) standardServiceInsertion).setNeighborhood(vrp.getNeighborhood());
 		CalculatorPlusListeners calcPlusListeners = new CalculatorPlusListeners(standardServiceInsertion);
@@ -240,7 +259,7 @@ class CalculatorBuilder {
 
 	private CalculatorPlusListeners createStandardRoute(VehicleRoutingProblem vrp, RouteStates activityStates, int forwardLooking, int solutionMemory){
 		int after = forwardLooking;
-		JobInsertionCalculator jobInsertionCalculator = new CalculatesServiceInsertionOnRouteLevel(vrp.getTransportCosts(), vrp.getActivityCosts());
+		JobInsertionCalculator jobInsertionCalculator = new CalculatesServiceInsertionOnRouteLevel(vrp.getIndexedTransportCosts(), vrp.getActivityCosts());
 		((CalculatesServiceInsertionOnRouteLevel)jobInsertionCalculator).setNuOfActsForwardLooking(after);
 		((CalculatesServiceInsertionOnRouteLevel)jobInsertionCalculator).setMemorySize(solutionMemory);
 		((CalculatesServiceInsertionOnRouteLevel)jobInsertionCalculator).setNeighborhood(vrp.getNeighborhood());
@@ -250,7 +269,7 @@ class CalculatorBuilder {
 	}
 
 	private JobInsertionCalculator createFinalInsertion(VehicleFleetManager fleetManager, JobInsertionCalculator baseCalc, RouteStates routeStates){
-		return new CalculatesVehTypeDepServiceInsertion(fleetManager, baseCalc);
+		return new MeasuredInsertionCalculator(new CalculatesVehTypeDepServiceInsertion(fleetManager, baseCalc), metrics);
 	}
 
 }
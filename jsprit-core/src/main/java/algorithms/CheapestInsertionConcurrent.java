@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+import util.RandomNumberGeneration;
+import algorithms.InsertionData.NoInsertionFound;
+import basics.Job;
+import basics.route.VehicleRoute;
+
+
+
+/**
+ * Insertion that inserts in each step the cheapest (job,route)-pair of all unassigned jobs and all routes.
+ * 
+ * <p>Insertion costs are memorized in a job x route matrix. The first step calculates the entire matrix in one parallel sweep over the jobs, 
+ * i.e. the unassigned jobs are distributed to nuOfThreads tasks. Subsequent steps only recalculate the column of the route the 
+ * last job has been inserted in. Only if the vehicle of a route changes (which is also the case when a new route is opened), the entire matrix
+ * is recalculated, since the vehicles available to all other routes might have changed as well.
+ * 
+ * <p>Each task determines the cheapest pair of its jobs, and the tasks reduce their results without locks to the overall cheapest pair. 
+ * If two pairs are equally expensive, the one with the lower job index and then the one with the lower route index wins, thus the result does 
+ * not depend on the number of threads.
+ * 
+ * <p>Once the deadline is exceeded, sweeps are cut short and the remaining jobs are inserted one by one into the first route they fit in.
+ * 
+ * @author stefan schroeder
+ * 
+ */
+final class CheapestInsertionConcurrent extends AbstractInsertionStrategy{
+	
+	public static CheapestInsertionConcurrent newInstance(RouteAlgorithm routeAlgorithm, ExecutorService executor, int nuOfThreads){
+		return new CheapestInsertionConcurrent(routeAlgorithm, executor, nuOfThreads);
+	}
+	
+	/**
+	 * Insertion of the job with jobIndex into the route with routeIndex.
+	 *
+	 */
+	static class Candidate {
+		
+		final int jobIndex;
+		
+		final int routeIndex;
+		
+		final InsertionData insertionData;
+
+		Candidate(int jobIndex, int routeIndex, InsertionData insertionData) {
+			super();
+			this.jobIndex = jobIndex;
+			this.routeIndex = routeIndex;
+			this.insertionData = insertionData;
+		}
+		
+	}
+	
+	private static final int ALL_ROUTES = -1;
+	
+	private static Logger logger = Logger.getLogger(CheapestInsertionConcurrent.class);
+
+	private Random random = RandomNumberGeneration.newRandom(CheapestInsertionConcurrent.class);
+	
+	private RouteAlgorithm routeAlgorithm;
+	
+	private ExecutorService executor;
+	
+	private int nuOfThreads;
+
+	public void setRandom(Random random) {
+		this.random = random;
+	}
+	
+	private CheapestInsertionConcurrent(RouteAlgorithm routeAlgorithm, ExecutorService executor, int nuOfThreads) {
+		super();
+		this.routeAlgorithm = routeAlgorithm;
+		this.executor = executor;
+		this.nuOfThreads = nuOfThreads;
+		logger.info("initialise " + this);
+	}
+
+	@Override
+	public String toString() {
+		return "[name=concurrentCheapestInsertion][threads="+nuOfThreads+"]";
+	}
+
+	@Override
+	public void run(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs, double result2beat) {
+		List<Job> jobs = new ArrayList<Job>(unassignedJobs);
+		Collections.shuffle(jobs, random);
+		informInsertionStarts(vehicleRoutes,unassignedJobs.size());
+		
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>(vehicleRoutes);
+		VehicleRoute newRoute = VehicleRoute.emptyRoute();
+		routes.add(newRoute);
+		List<InsertionData[]> columns = new ArrayList<InsertionData[]>();
+		for(int i=0;i<routes.size();i++) columns.add(new InsertionData[jobs.size()]);
+		boolean[] inserted = new boolean[jobs.size()];
+		
+		int nOfJobs2Recreate = jobs.size();
+		int changedRoute = ALL_ROUTES;
+		while(nOfJobs2Recreate > 0){
+			if(getDeadline().isExceeded()){
+				insertRemainingJobs(vehicleRoutes, jobs, inserted, nOfJobs2Recreate);
+				break;
+			}
+			Candidate bestInsertion = sweep(jobs, inserted, routes, columns, changedRoute);
+			if(bestInsertion == null){
+				throw new IllegalStateException("given the vehicles, could not create a valid solution.\n\tthe reason might be" +
+						" inappropriate vehicle capacity.\n\tthe job that does not fit in any vehicle anymore is \n\t" + getFirstUnassignedJob(jobs, inserted));
+			}
+			Job job = jobs.get(bestInsertion.jobIndex);
+			VehicleRoute insertIn = routes.get(bestInsertion.routeIndex);
+			boolean vehicleSwitched = !insertIn.getVehicle().getId().equals(bestInsertion.insertionData.getSelectedVehicle().getId());
+			
+			informBeforeJobInsertion(job, bestInsertion.insertionData, insertIn);
+			routeAlgorithm.insertJob(job, bestInsertion.insertionData, insertIn);
+			inserted[bestInsertion.jobIndex] = true;
+			nOfJobs2Recreate--;
+			
+			if(insertIn == newRoute){
+				vehicleRoutes.add(newRoute);
+				newRoute = VehicleRoute.emptyRoute();
+				routes.add(newRoute);
+				columns.add(new InsertionData[jobs.size()]);
+				vehicleSwitched = true;
+			}
+			if(vehicleSwitched) changedRoute = ALL_ROUTES;
+			else changedRoute = bestInsertion.routeIndex;
+			informJobInserted(nOfJobs2Recreate, job, insertIn);
+		}
+		informInsertionEndsListeners(vehicleRoutes);
+	}
+
+	private void insertRemainingJobs(Collection<VehicleRoute> vehicleRoutes, List<Job> jobs, boolean[] inserted, int nOfJobs2Recreate) {
+		for(int jobIndex=0;jobIndex<jobs.size();jobIndex++){
+			if(inserted[jobIndex]) continue;
+			Job job = jobs.get(jobIndex);
+			VehicleRoute insertIn = insertIntoFirstFeasibleRoute(vehicleRoutes, job);
+			inserted[jobIndex] = true;
+			nOfJobs2Recreate--;
+			informJobInserted(nOfJobs2Recreate, job, insertIn);
+		}
+	}
+
+	private Job getFirstUnassignedJob(List<Job> jobs, boolean[] inserted) {
+		for(int i=0;i<jobs.size();i++){
+			if(!inserted[i]) return jobs.get(i);
+		}
+		return null;
+	}
+
+	/**
+	 * Recalculates the column of changedRoute (or all columns if changedRoute is ALL_ROUTES) and returns the cheapest candidate.
+	 */
+	private Candidate sweep(final List<Job> jobs, final boolean[] inserted, final List<VehicleRoute> routes, final List<InsertionData[]> columns, final int changedRoute) {
+		final AtomicReference<Candidate> bestCandidate = new AtomicReference<Candidate>();
+		int nuOfTasks = Math.max(1, Math.min(nuOfThreads, jobs.size()));
+		int chunkSize = (jobs.size() + nuOfTasks - 1) / nuOfTasks;
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for(int from=0;from<jobs.size();from+=chunkSize){
+			final int fromJob = from;
+			final int toJob = Math.min(from + chunkSize, jobs.size());
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					Candidate candidate = calculate(jobs, inserted, routes, columns, changedRoute, fromJob, toJob);
+					if(candidate != null) reduce(bestCandidate, candidate);
+					return null;
+				}
+				
+			});
+		}
+		try {
+			List<Future<Void>> futures = executor.invokeAll(tasks);
+			for(Future<Void> future : futures) future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			logger.error(e.getCause().toString());
+			throw new IllegalStateException(e.getCause());
+		}
+		return bestCandidate.get();
+	}
+	
+	private Candidate calculate(List<Job> jobs, boolean[] inserted, List<VehicleRoute> routes, List<InsertionData[]> columns, int changedRoute, int fromJob, int toJob){
+		Candidate bestCandidate = null;
+		for(int jobIndex=fromJob;jobIndex<toJob;jobIndex++){
+			if(bestCandidate != null && getDeadline().isExceeded()){
+				//columns of the remaining jobs are not needed anymore, since the next step inserts with less effort
+				break;
+			}
+			if(inserted[jobIndex]) continue;
+			Job job = jobs.get(jobIndex);
+			for(int routeIndex=0;routeIndex<routes.size();routeIndex++){
+				InsertionData[] column = columns.get(routeIndex);
+				if(changedRoute == ALL_ROUTES || changedRoute == routeIndex){
+					column[jobIndex] = routeAlgorithm.calculateBestInsertion(routes.get(routeIndex), job, Double.MAX_VALUE);
+				}
+				InsertionData iData = column[jobIndex];
+				if(iData instanceof NoInsertionFound) continue;
+				if(bestCandidate == null || iData.getInsertionCost() < bestCandidate.insertionData.getInsertionCost()){
+					bestCandidate = new Candidate(jobIndex, routeIndex, iData);
+				}
+			}
+		}
+		return bestCandidate;
+	}
+	
+	private static void reduce(AtomicReference<Candidate> bestCandidate, Candidate candidate){
+		while(true){
+			Candidate currentBest = bestCandidate.get();
+			if(currentBest != null && !isBetter(candidate, currentBest)) return;
+			if(bestCandidate.compareAndSet(currentBest, candidate)) return;
+		}
+	}
+	
+	/**
+	 * Returns true if candidate is cheaper than bestCandidate. Ties are broken by job index and then by route index.
+	 */
+	static boolean isBetter(Candidate candidate, Candidate bestCandidate){
+		double cost = candidate.insertionData.getInsertionCost();
+		double bestCost = bestCandidate.insertionData.getInsertionCost();
+		if(cost < bestCost) return true;
+		if(cost > bestCost) return false;
+		if(candidate.jobIndex != bestCandidate.jobIndex) return candidate.jobIndex < bestCandidate.jobIndex;
+		return candidate.routeIndex < bestCandidate.routeIndex;
+	}
+
+	@Override
+	public RouteAlgorithm getRouteAlgorithm() {
+		return routeAlgorithm;
+	}
+
+}
@@ -31,8 +31,11 @@ import java.util.Set;
 import org.apache.log4j.Logger;
 
 import basics.Job;
+import basics.VehicleRoutingAlgorithm;
 import basics.VehicleRoutingProblem;
 import basics.VehicleRoutingProblemSolution;
+import basics.algo.AlgorithmStartsListener;
+import basics.algo.Deadline;
 import basics.algo.SearchStrategyModule;
 import basics.algo.SearchStrategyModuleListener;
 import basics.route.TourActivity;
@@ -41,7 +44,7 @@ import basics.route.TourActivity.JobActivity;
 
 import util.RandomNumberGeneration;
 
-final class GendreauPostOpt implements SearchStrategyModule{
+final class GendreauPostOpt implements SearchStrategyModule, AlgorithmStartsListener{
 
 	private final static Logger log = Logger.getLogger(GendreauPostOpt.class);
 	
@@ -57,11 +60,13 @@ final class GendreauPostOpt implements SearchStrategyModule{
 	
 	private VehicleFleetManager fleetManager;
 
-	private Random random = RandomNumberGeneration.getRandom();
+	private Random random = RandomNumberGeneration.newRandom(GendreauPostOpt.class);
 	
 	private int nOfIterations = 10;
 
 	private double shareOfJobsToRuin = 0.15;
+	
+	private Deadline deadline = new Deadline();
 
 	public void setShareOfJobsToRuin(double shareOfJobsToRuin) {
 		this.shareOfJobsToRuin = shareOfJobsToRuin;
@@ -93,6 +98,20 @@ final class GendreauPostOpt implements SearchStrategyModule{
 		this.fleetManager = vehicleFleetManager;
 		
 	}
+	
+	/**
+	 * Sets the deadline that is checked before each iteration of the post-optimisation. By default, there is no deadline.
+	 * 
+	 * @param deadline
+	 */
+	public void setDeadline(Deadline deadline) {
+		this.deadline = deadline;
+	}
+	
+	@Override
+	public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+		setDeadline(algorithm.getDeadline());
+	}
 
 	@Override
 	public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution vrpSolution) {
@@ -101,6 +120,9 @@ final class GendreauPostOpt implements SearchStrategyModule{
 		int itersWithoutImprovement = 0;
 		
 		for(int i=0;i<nOfIterations;i++){
+			if(deadline.isExceeded()){
+				break;
+			}
 			List<VehicleRoute> copiedRoutes = copyRoutes(bestSolution.getRoutes());
 			iniFleet(copiedRoutes);
 				
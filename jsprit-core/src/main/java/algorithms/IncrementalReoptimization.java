@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import util.CrowFlyCosts;
+import util.metrics.MetricsRegistry;
+import basics.Job;
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.costs.VehicleRoutingTransportCosts;
+import basics.io.AlgorithmConfig;
+import basics.route.TourActivity;
+import basics.route.TourActivity.JobActivity;
+import basics.route.Vehicle;
+import basics.route.VehicleRoute;
+import basics.route.VehicleType;
+
+/**
+ * Re-optimises the solution of a problem after a few of its jobs have been added, changed or cancelled, instead of solving 
+ * the changed problem from scratch.
+ * 
+ * <p>It builds the changed problem with the vehicles and costs of the previous problem. Its algorithm starts with the previous 
+ * solution without the cancelled and changed jobs, and inserts the added and changed jobs (as well as jobs the previous solution 
+ * has not served) with the construction insertion of the algorithm config. Afterwards it runs a short ruin-and-recreate search 
+ * that only ruins the neighborhoods of the jobs around which the solution has changed, i.e. of the inserted jobs and of the 
+ * former route-neighbors of cancelled and changed jobs.
+ * 
+ * <pre>
+ * IncrementalReoptimization reoptimization = IncrementalReoptimization.Builder.newInstance(vrp, solution)
+ * 	.addJob(newService).cancelJob("12").build();
+ * VehicleRoutingAlgorithm algorithm = reoptimization.createAlgorithm(algorithmConfig);
+ * Collection&lt;VehicleRoutingProblemSolution&gt; solutions = algorithm.searchSolutions();
+ * </pre>
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class IncrementalReoptimization {
+	
+	public static class Builder {
+		
+		/**
+		 * Returns a new builder that changes previousProblem whose solution is previousSolution.
+		 * 
+		 * @param previousProblem
+		 * @param previousSolution
+		 * @return builder
+		 */
+		public static Builder newInstance(VehicleRoutingProblem previousProblem, VehicleRoutingProblemSolution previousSolution){
+			return new Builder(previousProblem, previousSolution);
+		}
+		
+		private final VehicleRoutingProblem previousProblem;
+		
+		private final VehicleRoutingProblemSolution previousSolution;
+		
+		private final Map<String,Job> jobs;
+		
+		private final Set<String> changedJobIds = new HashSet<String>();
+		
+		private final Set<String> addedJobIds = new HashSet<String>();
+		
+		private int nuOfIterations = 100;
+		
+		private double shareOfJobsToRuin = 0.1;
+		
+		private VehicleRoutingTransportCosts transportCosts = null;
+		
+		private Builder(VehicleRoutingProblem previousProblem, VehicleRoutingProblemSolution previousSolution) {
+			super();
+			this.previousProblem = previousProblem;
+			this.previousSolution = previousSolution;
+			this.jobs = new LinkedHashMap<String, Job>(previousProblem.getJobs());
+		}
+		
+		/**
+		 * Adds a job. If the previous problem has a job with the same id, it is replaced, and thus re-inserted.
+		 * 
+		 * @param job
+		 * @return builder
+		 */
+		public Builder addJob(Job job){
+			if(jobs.get(job.getId()) == job) return this;
+			if(jobs.containsKey(job.getId())) changedJobIds.add(job.getId());
+			jobs.put(job.getId(), job);
+			addedJobIds.add(job.getId());
+			return this;
+		}
+		
+		/**
+		 * Cancels the job with the specified id, i.e. it is removed from the problem and its route.
+		 * 
+		 * @param jobId
+		 * @return builder
+		 * @throws IllegalStateException if there is no job with this id
+		 */
+		public Builder cancelJob(String jobId){
+			if(!jobs.containsKey(jobId)) throw new IllegalStateException("cannot cancel job " + jobId + " since there is no job with this id");
+			jobs.remove(jobId);
+			if(previousProblem.getJobs().containsKey(jobId)) changedJobIds.add(jobId);
+			addedJobIds.remove(jobId);
+			return this;
+		}
+		
+		/**
+		 * Sets the transport costs of the changed problem, which is required if the transport costs of the previous problem do 
+		 * not know the locations of added jobs. By default, the changed problem has the transport costs of the previous problem, 
+		 * or crow-fly costs of its own locations if the previous problem has crow-fly costs.
+		 * 
+		 * @param transportCosts
+		 * @return builder
+		 */
+		public Builder setRoutingCost(VehicleRoutingTransportCosts transportCosts){
+			this.transportCosts = transportCosts;
+			return this;
+		}
+		
+		/**
+		 * Sets the number of ruin-and-recreate iterations after the changed jobs have been inserted. By default, it is 100.
+		 * 
+		 * @param nuOfIterations
+		 * @return builder
+		 */
+		public Builder setNuOfIterations(int nuOfIterations){
+			this.nuOfIterations = nuOfIterations;
+			return this;
+		}
+		
+		/**
+		 * Sets the share of all jobs that is ruined around a changed job in each iteration. By default, it is 0.1.
+		 * 
+		 * @param shareOfJobsToRuin
+		 * @return builder
+		 */
+		public Builder setShareOfJobsToRuin(double shareOfJobsToRuin){
+			if(shareOfJobsToRuin <= 0.0 || shareOfJobsToRuin > 1.0) throw new IllegalStateException("shareOfJobsToRuin must be in (0,1], but is " + shareOfJobsToRuin);
+			this.shareOfJobsToRuin = shareOfJobsToRuin;
+			return this;
+		}
+		
+		public IncrementalReoptimization build(){
+			return new IncrementalReoptimization(this);
+		}
+		
+	}
+	
+	private static Logger logger = Logger.getLogger(IncrementalReoptimization.class);
+	
+	private final VehicleRoutingProblem problem;
+	
+	private final VehicleRoutingProblemSolution previousSolution;
+	
+	private final Collection<Job> targetJobs;
+	
+	private final int nuOfIterations;
+	
+	private final double shareOfJobsToRuin;
+	
+	private IncrementalReoptimization(Builder builder){
+		this.problem = buildProblem(builder);
+		this.previousSolution = builder.previousSolution;
+		this.targetJobs = Collections.unmodifiableCollection(determineTargetJobs(builder));
+		this.nuOfIterations = builder.nuOfIterations;
+		this.shareOfJobsToRuin = builder.shareOfJobsToRuin;
+		logger.info("initialise " + this);
+	}
+
+	private VehicleRoutingProblem buildProblem(Builder builder) {
+		VehicleRoutingProblem previousProblem = builder.previousProblem;
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		vrpBuilder.setRoutingCost(getTransportCosts(builder, vrpBuilder));
+		vrpBuilder.setActivityCosts(previousProblem.getActivityCosts());
+		vrpBuilder.setFleetSize(previousProblem.getFleetSize());
+		vrpBuilder.setFleetComposition(previousProblem.getFleetComposition());
+		vrpBuilder.setNeighborhood(previousProblem.getNeighborhood());
+		vrpBuilder.addAllVehicles(previousProblem.getVehicles());
+		List<VehicleType> typesOfVehicles = new ArrayList<VehicleType>();
+		for(Vehicle vehicle : previousProblem.getVehicles()) typesOfVehicles.add(vehicle.getType());
+		for(VehicleType type : previousProblem.getTypes()){
+			if(!typesOfVehicles.contains(type)) vrpBuilder.addVehicleType(type);
+		}
+		vrpBuilder.addAllJobs(builder.jobs.values());
+		return vrpBuilder.build();
+	}
+
+	private VehicleRoutingTransportCosts getTransportCosts(Builder builder, VehicleRoutingProblem.Builder vrpBuilder) {
+		if(builder.transportCosts != null) return builder.transportCosts;
+		VehicleRoutingTransportCosts previousCosts = builder.previousProblem.getTransportCosts();
+		if(previousCosts instanceof CrowFlyCosts){
+			//crow-fly costs only know the locations of the previous problem
+			CrowFlyCosts crowFlyCosts = new CrowFlyCosts(vrpBuilder.getLocations());
+			crowFlyCosts.speed = ((CrowFlyCosts) previousCosts).speed;
+			crowFlyCosts.detourFactor = ((CrowFlyCosts) previousCosts).detourFactor;
+			return crowFlyCosts;
+		}
+		return previousCosts;
+	}
+
+	/**
+	 * Returns the jobs of the changed problem around which the solution changes, i.e. the jobs to be inserted and the 
+	 * unchanged route-neighbors of cancelled or changed jobs.
+	 */
+	private Collection<Job> determineTargetJobs(Builder builder) {
+		Set<Job> targetJobs = new LinkedHashSet<Job>();
+		Set<Job> servedJobs = new HashSet<Job>();
+		for(VehicleRoute route : builder.previousSolution.getRoutes()){
+			List<TourActivity> activities = route.getTourActivities().getActivities();
+			for(int i=0;i<activities.size();i++){
+				Job job = getJob(activities.get(i));
+				if(job == null) continue;
+				servedJobs.add(job);
+				if(!builder.changedJobIds.contains(job.getId())) continue;
+				addIfUnchanged(targetJobs, builder, i > 0 ? getJob(activities.get(i-1)) : null);
+				addIfUnchanged(targetJobs, builder, i < activities.size()-1 ? getJob(activities.get(i+1)) : null);
+			}
+		}
+		for(Job job : problem.getJobs().values()){
+			if(builder.addedJobIds.contains(job.getId()) || !servedJobs.contains(job)){
+				targetJobs.add(job);
+			}
+		}
+		return targetJobs;
+	}
+
+	private void addIfUnchanged(Set<Job> targetJobs, Builder builder, Job neighbor) {
+		if(neighbor == null) return;
+		if(builder.changedJobIds.contains(neighbor.getId())) return;
+		Job job = problem.getJobs().get(neighbor.getId());
+		if(job != null) targetJobs.add(job);
+	}
+
+	private Job getJob(TourActivity act) {
+		if(act instanceof JobActivity) return ((JobActivity<?>) act).getJob();
+		return null;
+	}
+	
+	/**
+	 * Returns the changed problem.
+	 * 
+	 * @return problem
+	 */
+	public VehicleRoutingProblem getProblem() {
+		return problem;
+	}
+	
+	/**
+	 * Returns the jobs whose neighborhoods are ruined and recreated.
+	 * 
+	 * @return unmodifiable collection of target jobs
+	 */
+	public Collection<Job> getTargetJobs() {
+		return targetJobs;
+	}
+	
+	/**
+	 * Creates the algorithm that re-optimises the previous solution for the changed problem.
+	 * 
+	 * <p>It uses the construction insertion, the solution memory and the premature break of algorithmConfig. Its 
+	 * search strategies and islands are not used.
+	 * 
+	 * @param algorithmConfig
+	 * @return algorithm
+	 */
+	public VehicleRoutingAlgorithm createAlgorithm(AlgorithmConfig algorithmConfig){
+		return createAlgorithm(algorithmConfig, MetricsRegistry.getDefault());
+	}
+	
+	/**
+	 * Creates the algorithm that re-optimises the previous solution for the changed problem, and whose components record their metrics to metricsRegistry.
+	 * 
+	 * @param algorithmConfig
+	 * @param metricsRegistry
+	 * @return algorithm
+	 */
+	public VehicleRoutingAlgorithm createAlgorithm(AlgorithmConfig algorithmConfig, MetricsRegistry metricsRegistry){
+		return VehicleRoutingAlgorithms.createReoptimizationAlgo(problem, algorithmConfig.getXMLConfiguration(), previousSolution, targetJobs, nuOfIterations, shareOfJobsToRuin, metricsRegistry);
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=incrementalReoptimization][#jobs="+problem.getJobs().size()+"][#targetJobs="+targetJobs.size()+"][iterations="+nuOfIterations+"][shareOfJobsToRuin="+shareOfJobsToRuin+"]";
+	}
+
+}
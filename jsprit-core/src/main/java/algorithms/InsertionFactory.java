@@ -28,17 +28,20 @@ import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.commons.configuration.XMLConfiguration;
 import org.apache.log4j.Logger;
 
+import util.metrics.MetricsRegistry;
+
 import basics.VehicleRoutingProblem;
 import basics.VehicleRoutingProblem.FleetComposition;
 import basics.algo.InsertionListener;
 import basics.algo.VehicleRoutingAlgorithmListeners.PrioritizedVRAListener;
+import basics.algo.VehicleRoutingAlgorithmListeners.Priority;
 
 class InsertionFactory {
 	
 	private static Logger log = Logger.getLogger(InsertionFactory.class);
 	
 	public static AbstractInsertionStrategy createInsertion(VehicleRoutingProblem vrp, HierarchicalConfiguration config, 
-			VehicleFleetManager vehicleFleetManager, RouteStates activityStates, List<PrioritizedVRAListener> algorithmListeners, ExecutorService executorService, int nuOfThreads){
+			VehicleFleetManager vehicleFleetManager, RouteStates activityStates, List<PrioritizedVRAListener> algorithmListeners, ExecutorService executorService, int nuOfThreads, MetricsRegistry metrics){
 		boolean concurrentInsertion = false;
 		if(executorService != null) concurrentInsertion = true;
 		if(config.containsKey("[@name]")){
@@ -54,6 +57,7 @@ class InsertionFactory {
 			calcBuilder.setActivityStates(activityStates);
 			calcBuilder.setVehicleRoutingProblem(vrp);
 			calcBuilder.setVehicleFleetManager(vehicleFleetManager);
+			calcBuilder.setMetricsRegistry(metrics);
 			
 			if(config.containsKey("level")){
 				String level = config.getString("level");
@@ -94,21 +98,31 @@ class InsertionFactory {
 			}
 			
 			JobInsertionCalculator jic = calcBuilder.build();
-			TourStateUpdater tourStateCalculator = new TourStateUpdater(activityStates, vrp.getTransportCosts(), vrp.getActivityCosts());
+			TourStateUpdater tourStateCalculator = new TourStateUpdater(activityStates, vrp.getIndexedTransportCosts(), vrp.getActivityCosts(), metrics);
 			RouteAlgorithm routeAlgorithm = RouteAlgorithmImpl.newInstance(jic, tourStateCalculator);
 			routeAlgorithm.getListeners().add(new VehicleSwitched(vehicleFleetManager));
 			((RouteAlgorithmImpl) routeAlgorithm).setActivityStates(activityStates);
 	
 			if(insertionName.equals("bestInsertion")){		
 				if(concurrentInsertion){
-					insertionStrategy = BestInsertionConcurrent.newInstance(routeAlgorithm,executorService,nuOfThreads);
+					String parallelization = config.getString("[@parallelization]");
+					if(parallelization == null || parallelization.equals("routes")){
+						insertionStrategy = BestInsertionConcurrent.newInstance(routeAlgorithm,executorService,nuOfThreads);
+					}
+					else if(parallelization.equals("jobs")){
+						insertionStrategy = CheapestInsertionConcurrent.newInstance(routeAlgorithm,executorService,nuOfThreads);
+					}
+					else throw new IllegalStateException("parallelization " + parallelization + " is not known. use either \"routes\" or \"jobs\"");
 				}
 				else{
 					insertionStrategy = BestInsertion.newInstance(routeAlgorithm);
 				}
 			}
 			else if(insertionName.equals("regretInsertion")){
-				insertionStrategy = RegretInsertion.newInstance(routeAlgorithm);
+				RegretInsertion regretInsertion = RegretInsertion.newInstance(routeAlgorithm);
+				String k = config.getString("[@k]");
+				if(k != null) regretInsertion.setK(Integer.parseInt(k));
+				insertionStrategy = regretInsertion;
 			}
 //			else if(insertionName.equals("concurrentBestInsertion")){
 //				String processorsString = config.getString("[@processors]");
@@ -125,6 +139,7 @@ class InsertionFactory {
 //			insertionStrategy.addListener(new FindCheaperVehicle(
 //					new FindCheaperVehicleAlgoNew(vehicleFleetManager, tourStateCalculator, auxCalculator)));
 			
+			algoListeners.add(new PrioritizedVRAListener(Priority.HIGH, insertionStrategy));
 			algorithmListeners.addAll(algoListeners);
 			
 			return insertionStrategy;
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import util.Solutions;
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.IterationEndsListener;
+import basics.algo.PrematureAlgorithmBreaker;
+import basics.algo.SearchStrategy.DiscoveredSolution;
+
+/**
+ * Algorithm that runs several independent copies (islands) of a {@link VehicleRoutingAlgorithm} in parallel, each in its own thread.
+ * 
+ * <p>Each island has its own search-strategies, random-number generators (see {@link util.RandomNumberGeneration}), route-states and fleet-manager. Every migrationInterval iterations, 
+ * an island publishes its best solution to a shared pool, and if the pool contains a better solution, it replaces its worst solution 
+ * by a copy of it. 
+ * 
+ * <p>searchSolutions() returns the solutions of all islands, thus the global best can be determined with {@link Solutions#getBest(Collection)}.
+ * 
+ * <p>The deadline of the island-algorithm (as it is when its algorithm-listeners have been informed about the start) is imposed on each island.
+ * 
+ * <p>A premature breaker set with {@link #setPrematureAlgorithmBreaker(PrematureAlgorithmBreaker)} is checked around the islands, i.e. it is informed 
+ * about the discovered solutions of all islands (e.g. it counts the iterations of all islands together), and once it breaks, all islands 
+ * break after their current iteration. Islands keep their own breakers (see {@link #getIslands()}). Breakers that measure the cpu-time 
+ * of the thread that informs them, such as {@link basics.algo.CpuTimeBreaker}, should be set on each island instead.
+ * 
+ * <p>Use &lt;islands&gt; and &lt;migrationInterval&gt; in the algorithm-config to create it with {@link VehicleRoutingAlgorithms}.
+ * 
+ * @author schroeder
+ *
+ */
+public class IslandVehicleRoutingAlgorithm extends VehicleRoutingAlgorithm {
+	
+	/**
+	 * Pool that memorizes the best solution found so far by all islands.
+	 *
+	 */
+	static class MigrationPool {
+		
+		private VehicleRoutingProblemSolution bestSolution;
+		
+		/**
+		 * Offers solution to the pool. Returns a copy of the pool's best solution if it is better than solution, otherwise null.
+		 * 
+		 * <p>If solution is better than the pool's best solution, a copy of solution becomes the pool's best solution. Since solutions are 
+		 * handed over to other islands, copies have their own activities (see {@link VehicleRoutingProblemSolution#deepCopyOf(VehicleRoutingProblemSolution)}).
+		 * 
+		 * @param solution
+		 * @return copy of better solution or null
+		 */
+		synchronized VehicleRoutingProblemSolution exchange(VehicleRoutingProblemSolution solution){
+			if(bestSolution == null || solution.getCost() < bestSolution.getCost()){
+				bestSolution = VehicleRoutingProblemSolution.deepCopyOf(solution);
+				return null;
+			}
+			if(bestSolution.getCost() < solution.getCost()){
+				return VehicleRoutingProblemSolution.deepCopyOf(bestSolution);
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * Listener that exchanges the island's best solution with the migration-pool every migrationInterval iterations.
+	 *
+	 */
+	static class Migration implements IterationEndsListener {
+
+		private final MigrationPool pool;
+		
+		private final int migrationInterval;
+		
+		Migration(MigrationPool pool, int migrationInterval) {
+			super();
+			this.pool = pool;
+			this.migrationInterval = migrationInterval;
+		}
+
+		@Override
+		public void informIterationEnds(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+			if(i % migrationInterval != 0) return;
+			VehicleRoutingProblemSolution best = Solutions.getBest(solutions);
+			if(best == null) return;
+			VehicleRoutingProblemSolution immigrant = pool.exchange(best);
+			if(immigrant == null) return;
+			solutions.remove(getWorst(solutions));
+			solutions.add(immigrant);
+		}
+
+		private VehicleRoutingProblemSolution getWorst(Collection<VehicleRoutingProblemSolution> solutions) {
+			VehicleRoutingProblemSolution worst = null;
+			for(VehicleRoutingProblemSolution s : solutions){
+				if(worst == null || s.getCost() > worst.getCost()) worst = s;
+			}
+			return worst;
+		}
+		
+		@Override
+		public String toString() {
+			return "[name=migration][interval="+migrationInterval+"]";
+		}
+	}
+
+	/**
+	 * Breaker of an island that breaks if either its own breaker breaks or the breaker of the island-algorithm. The latter is shared 
+	 * by all islands, thus it is informed under the lock of the island-algorithm.
+	 *
+	 */
+	static class IslandBreaker implements PrematureAlgorithmBreaker {
+		
+		private final PrematureAlgorithmBreaker breakerOfIsland;
+		
+		private final IslandVehicleRoutingAlgorithm islandAlgorithm;
+
+		IslandBreaker(PrematureAlgorithmBreaker breakerOfIsland, IslandVehicleRoutingAlgorithm islandAlgorithm) {
+			super();
+			this.breakerOfIsland = breakerOfIsland;
+			this.islandAlgorithm = islandAlgorithm;
+		}
+
+		@Override
+		public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+			boolean islandBreaks = breakerOfIsland.isPrematureBreak(discoveredSolution);
+			return islandAlgorithm.isPrematureBreak(discoveredSolution) || islandBreaks;
+		}
+		
+	}
+
+	private static Logger logger = Logger.getLogger(IslandVehicleRoutingAlgorithm.class);
+	
+	private final VehicleRoutingProblem problem;
+	
+	private final List<VehicleRoutingAlgorithm> islands;
+	
+	private final int migrationInterval;
+	
+	private final MigrationPool migrationPool = new MigrationPool();
+	
+	private boolean prematureBreak = false;
+	
+	/**
+	 * Creates the island-algorithm. If migrationInterval is 0, islands do not exchange solutions at all.
+	 * 
+	 * @param problem
+	 * @param islands
+	 * @param migrationInterval
+	 */
+	public IslandVehicleRoutingAlgorithm(VehicleRoutingProblem problem, List<VehicleRoutingAlgorithm> islands, int migrationInterval) {
+		super(problem, islands.get(0).getSearchStrategyManager());
+		this.problem = problem;
+		this.islands = new ArrayList<VehicleRoutingAlgorithm>(islands);
+		this.migrationInterval = migrationInterval;
+		if(migrationInterval > 0){
+			for(VehicleRoutingAlgorithm island : islands){
+				island.getAlgorithmListeners().addListener(new Migration(migrationPool, migrationInterval));
+			}
+		}
+		logger.info("initialise " + this);
+	}
+	
+	/**
+	 * Returns the islands.
+	 * 
+	 * @return islands
+	 */
+	public List<VehicleRoutingAlgorithm> getIslands(){
+		return islands;
+	}
+	
+	@Override
+	public void addInitialSolution(VehicleRoutingProblemSolution solution) {
+		for(VehicleRoutingAlgorithm island : islands){
+			island.addInitialSolution(VehicleRoutingProblemSolution.deepCopyOf(solution));
+		}
+	}
+	
+	@Override
+	public void setNuOfIterations(int nOfIterations) {
+		for(VehicleRoutingAlgorithm island : islands){
+			island.setNuOfIterations(nOfIterations);
+		}
+	}
+	
+	/**
+	 * Sets a premature break after nuIterationsWithoutImprovement on each island, i.e. each island gets its own breaker.
+	 */
+	@Override
+	public void setPrematureBreak(int nuIterationsWithoutImprovement) {
+		for(VehicleRoutingAlgorithm island : islands){
+			island.setPrematureBreak(nuIterationsWithoutImprovement);
+		}
+	}
+	
+	/**
+	 * Informs the breaker of the island-algorithm about a solution discovered by an island, and returns true if it has ever broken.
+	 */
+	synchronized boolean isPrematureBreak(DiscoveredSolution discoveredSolution){
+		if(!prematureBreak && getPrematureAlgorithmBreaker().isPrematureBreak(discoveredSolution)){
+			logger.info("premature break of all islands");
+			prematureBreak = true;
+		}
+		return prematureBreak;
+	}
+	
+	@Override
+	public int getNuOfIterations() {
+		return islands.get(0).getNuOfIterations();
+	}
+
+	/**
+	 * Runs all islands in parallel and returns the solutions of all islands.
+	 * 
+	 * <p>Note that algorithm-listeners registered here are only informed about the start and the end of the algorithm. To observe iterations, 
+	 * register them at the islands.
+	 * 
+	 * @return solutions of all islands
+	 */
+	@Override
+	public Collection<VehicleRoutingProblemSolution> searchSolutions() {
+		logger.info("------------------------------------------------");
+		logger.info("island algorithm starts with " + islands.size() + " islands");
+		double now = System.currentTimeMillis();
+		Collection<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+		getAlgorithmListeners().algorithmStarts(problem, this, solutions);
+		synchronized(this){
+			prematureBreak = false;
+		}
+		List<PrematureAlgorithmBreaker> breakersOfIslands = new ArrayList<PrematureAlgorithmBreaker>();
+		for(VehicleRoutingAlgorithm island : islands){
+			island.getDeadline().restrict(getDeadline());
+			breakersOfIslands.add(island.getPrematureAlgorithmBreaker());
+			island.setPrematureAlgorithmBreaker(new IslandBreaker(island.getPrematureAlgorithmBreaker(), this));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+		try{
+			List<Future<Collection<VehicleRoutingProblemSolution>>> futures = new ArrayList<Future<Collection<VehicleRoutingProblemSolution>>>();
+			for(final VehicleRoutingAlgorithm island : islands){
+				futures.add(executor.submit(new Callable<Collection<VehicleRoutingProblemSolution>>() {
+
+					@Override
+					public Collection<VehicleRoutingProblemSolution> call() throws Exception {
+						return island.searchSolutions();
+					}
+				}));
+			}
+			for(Future<Collection<VehicleRoutingProblemSolution>> f : futures){
+				solutions.addAll(f.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("island algorithm has been interrupted", e);
+		} catch (ExecutionException e) {
+			logger.error(e.getCause());
+			throw new IllegalStateException("island failed", e.getCause());
+		}
+		finally{
+			executor.shutdown();
+			for(int i=0;i<islands.size();i++){
+				islands.get(i).setPrematureAlgorithmBreaker(breakersOfIslands.get(i));
+			}
+		}
+		getAlgorithmListeners().algorithmEnds(problem, solutions);
+		VehicleRoutingProblemSolution best = Solutions.getBest(solutions);
+		if(best != null) logger.info("best solution of all islands: " + best.getCost());
+		logger.info("total time: " + ((System.currentTimeMillis()-now)/1000.0) + "s");
+		logger.info("------------------------------------------------");
+		return solutions;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=islandAlgorithm][#islands="+islands.size()+"][migrationInterval="+migrationInterval+"]";
+	}
+
+}
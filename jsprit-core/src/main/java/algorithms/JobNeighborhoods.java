@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import util.StopWatch;
+import basics.Job;
+
+/**
+ * Index of the k nearest neighbors of each job.
+ * 
+ * <p>Neighbors are stored in flat primitive arrays, i.e. row i contains the indices of the k nearest jobs of job i in ascending order
+ * of their distance (the job itself is its own first neighbor). Thus it requires n*k*12 bytes instead of the n*n referenced jobs a
+ * sorted set per job requires. The rows are calculated in parallel.
+ * 
+ * <p>If more than k neighbors are requested, the neighbors of this particular job are calculated on the fly.
+ * 
+ * <p>The index is immutable once it is built, thus it can be shared among several threads and strategies.
+ * 
+ * @author schroeder
+ *
+ */
+final class JobNeighborhoods {
+	
+	/**
+	 * Bounded max-heap of (distance,jobIndex)-pairs whose top is the farthest neighbor found so far.
+	 * 
+	 * <p>Ties are broken by the job index, i.e. of two equally distant jobs the one with the higher index is nearer. This corresponds to
+	 * the order radialRuin had when it was based on TreeSets.
+	 *
+	 */
+	static class NeighborHeap {
+		
+		private final double[] distances;
+		
+		private final int[] indices;
+		
+		private int size = 0;
+		
+		NeighborHeap(int capacity){
+			distances = new double[capacity];
+			indices = new int[capacity];
+		}
+		
+		void clear(){
+			size = 0;
+		}
+		
+		void offer(int jobIndex, double distance){
+			if(distances.length == 0) return;
+			if(size < distances.length){
+				distances[size] = distance;
+				indices[size] = jobIndex;
+				siftUp(size);
+				size++;
+			}
+			else if(isNearer(distance, jobIndex, distances[0], indices[0])){
+				distances[0] = distance;
+				indices[0] = jobIndex;
+				siftDown(0);
+			}
+		}
+		
+		/**
+		 * Empties the heap into neighbors and neighborDistances, starting at offset, nearest first. Returns the number of neighbors written.
+		 */
+		int drainTo(int[] neighbors, double[] neighborDistances, int offset){
+			int n = size;
+			for(int i=n-1;i>=0;i--){
+				neighbors[offset+i] = indices[0];
+				neighborDistances[offset+i] = distances[0];
+				size--;
+				distances[0] = distances[size];
+				indices[0] = indices[size];
+				siftDown(0);
+			}
+			return n;
+		}
+		
+		private static boolean isNearer(double distance, int index, double otherDistance, int otherIndex){
+			if(distance < otherDistance) return true;
+			return distance == otherDistance && index > otherIndex;
+		}
+		
+		private void siftUp(int i){
+			while(i > 0){
+				int parent = (i-1) >>> 1;
+				if(!isNearer(distances[parent], indices[parent], distances[i], indices[i])) break;
+				swap(i, parent);
+				i = parent;
+			}
+		}
+		
+		private void siftDown(int i){
+			while(true){
+				int left = 2*i+1;
+				if(left >= size) break;
+				int farthest = left;
+				int right = left+1;
+				if(right < size && isNearer(distances[left], indices[left], distances[right], indices[right])) farthest = right;
+				if(!isNearer(distances[i], indices[i], distances[farthest], indices[farthest])) break;
+				swap(i, farthest);
+				i = farthest;
+			}
+		}
+		
+		private void swap(int i, int j){
+			double d = distances[i];
+			distances[i] = distances[j];
+			distances[j] = d;
+			int index = indices[i];
+			indices[i] = indices[j];
+			indices[j] = index;
+		}
+	}
+	
+	private static Logger log = Logger.getLogger(JobNeighborhoods.class);
+	
+	/**
+	 * Returns a new neighborhood-index storing the k nearest neighbors of each job. It is built with as many threads as processors are available.
+	 * 
+	 * @param jobs
+	 * @param jobDistance
+	 * @param k
+	 * @return
+	 */
+	static JobNeighborhoods newInstance(Collection<Job> jobs, JobDistance jobDistance, int k){
+		return new JobNeighborhoods(jobs, jobDistance, k, Runtime.getRuntime().availableProcessors());
+	}
+	
+	static JobNeighborhoods newInstance(Collection<Job> jobs, JobDistance jobDistance, int k, int nuOfThreads){
+		return new JobNeighborhoods(jobs, jobDistance, k, nuOfThreads);
+	}
+	
+	private final Job[] jobs;
+	
+	private final Map<String,Integer> jobIndices;
+	
+	private final JobDistance jobDistance;
+	
+	private final int k;
+	
+	private final int[] neighbors;
+	
+	private final double[] neighborDistances;
+	
+	private JobNeighborhoods(Collection<Job> jobs, JobDistance jobDistance, int k, int nuOfThreads){
+		this.jobs = jobs.toArray(new Job[jobs.size()]);
+		this.jobDistance = jobDistance;
+		this.k = Math.max(0, Math.min(k, this.jobs.length));
+		jobIndices = new HashMap<String, Integer>(this.jobs.length*2);
+		for(int i=0;i<this.jobs.length;i++){
+			jobIndices.put(this.jobs[i].getId(), i);
+		}
+		neighbors = new int[this.jobs.length*this.k];
+		neighborDistances = new double[this.jobs.length*this.k];
+		calculateNeighbors(Math.max(1, nuOfThreads));
+		log.info("initialise " + this);
+	}
+	
+	private void calculateNeighbors(int nuOfThreads) {
+		log.info("preprocess nearest neighbors of jobs ...");
+		StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		if(nuOfThreads == 1 || jobs.length < 2*nuOfThreads){
+			calculateRows(0, jobs.length);
+		}
+		else{
+			ExecutorService executor = Executors.newFixedThreadPool(nuOfThreads);
+			try{
+				List<Future<Void>> futures = new ArrayList<Future<Void>>();
+				int chunkSize = (jobs.length + nuOfThreads - 1) / nuOfThreads;
+				for(int from=0;from<jobs.length;from+=chunkSize){
+					final int fromRow = from;
+					final int toRow = Math.min(jobs.length, from+chunkSize);
+					futures.add(executor.submit(new Callable<Void>() {
+
+						@Override
+						public Void call() throws Exception {
+							calculateRows(fromRow, toRow);
+							return null;
+						}
+					}));
+				}
+				for(Future<Void> f : futures){
+					f.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("calculation of nearest neighbors has been interrupted", e);
+			} catch (ExecutionException e) {
+				log.error(e.getCause());
+				throw new IllegalStateException("cannot calculate nearest neighbors", e.getCause());
+			}
+			finally{
+				executor.shutdown();
+			}
+		}
+		stopWatch.stop();
+		log.info("preprocessing comp-time: " + stopWatch + "; nuOfNeighbors stored: " + neighbors.length + "; estimated memory: " + 
+				(neighbors.length*12) + " bytes");
+	}
+
+	private void calculateRows(int fromRow, int toRow) {
+		NeighborHeap heap = new NeighborHeap(k);
+		for(int i=fromRow;i<toRow;i++){
+			fillHeap(heap, i);
+			heap.drainTo(neighbors, neighborDistances, i*k);
+		}
+	}
+
+	private void fillHeap(NeighborHeap heap, int jobIndex) {
+		heap.clear();
+		Job job = jobs[jobIndex];
+		for(int j=0;j<jobs.length;j++){
+			heap.offer(j, jobDistance.calculateDistance(job, jobs[j]));
+		}
+	}
+	
+	/**
+	 * Returns the number of neighbors that are stored per job.
+	 * 
+	 * @return k
+	 */
+	int getK(){
+		return k;
+	}
+	
+	/**
+	 * Returns an iterator over the nNeighbors nearest jobs of job, starting with the nearest (which is job itself).
+	 * 
+	 * <p>If nNeighbors exceeds k, the neighbors of job are calculated on the fly.
+	 * 
+	 * @param nNeighbors
+	 * @param job
+	 * @return iterator
+	 * @throws IllegalStateException if job is unknown
+	 */
+	Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job job){
+		final int n = Math.max(0, Math.min(nNeighbors, jobs.length));
+		final int[] row;
+		final int offset;
+		if(n <= k){
+			row = neighbors;
+			offset = getIndex(job)*k;
+		}
+		else{
+			log.debug(n + " neighbors requested, but only " + k + " are stored. calculate neighbors of " + job.getId() + " on the fly.");
+			row = new int[jobs.length];
+			NeighborHeap heap = new NeighborHeap(jobs.length);
+			fillHeap(heap, getIndex(job));
+			heap.drainTo(row, new double[jobs.length], 0);
+			offset = 0;
+		}
+		return new Iterator<Job>() {
+			
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < n;
+			}
+
+			@Override
+			public Job next() {
+				if(!hasNext()) throw new NoSuchElementException();
+				Job next = jobs[row[offset+i]];
+				i++;
+				return next;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	/**
+	 * Returns true if neighbor is one of the k nearest jobs of job.
+	 * 
+	 * @param job
+	 * @param neighbor
+	 * @return
+	 */
+	boolean isNeighbor(Job job, Job neighbor){
+		int offset = getIndex(job)*k;
+		int neighborIndex = getIndex(neighbor);
+		for(int i=offset;i<offset+k;i++){
+			if(neighbors[i] == neighborIndex) return true;
+		}
+		return false;
+	}
+	
+	private int getIndex(Job job){
+		Integer index = jobIndices.get(job.getId());
+		if(index == null) throw new IllegalStateException("job " + job.getId() + " is not known by neighborhood-index.");
+		return index;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=jobNeighborhoods][#jobs="+jobs.length+"][k="+k+"]";
+	}
+
+}
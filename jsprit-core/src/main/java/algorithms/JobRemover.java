@@ -20,6 +20,8 @@
  ******************************************************************************/
 package algorithms;
 
+import java.util.Collection;
+
 import basics.Job;
 import basics.route.VehicleRoute;
 
@@ -32,5 +34,12 @@ interface JobRemover {
 	 */
 	public boolean removeJobWithoutTourUpdate(Job job, VehicleRoute vehicleRoute);
 	
+	/**
+	 * Removes job from the route in vehicleRoutes that serves it, and returns this route. 
+	 * 
+	 * @return the route job has been removed from, or null if no route in vehicleRoutes serves job
+	 */
+	public VehicleRoute removeJobWithoutTourUpdate(Job job, Collection<VehicleRoute> vehicleRoutes);
+	
 
 }
@@ -21,6 +21,7 @@
 package algorithms;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import basics.Job;
@@ -34,12 +35,39 @@ class JobRemoverImpl implements JobRemover{
 	
 	private List<RemoverListener> remListeners = new ArrayList<RemoverListener>();
 	
+	private final JobRouteIndex jobRouteIndex;
+	
+	public JobRemoverImpl() {
+		this(new JobRouteIndex());
+	}
+	
+	/**
+	 * Constructs a remover that looks up the routes of jobs with jobRouteIndex, and keeps the index up-to-date.
+	 * 
+	 * @param jobRouteIndex
+	 */
+	public JobRemoverImpl(JobRouteIndex jobRouteIndex) {
+		super();
+		this.jobRouteIndex = jobRouteIndex;
+	}
+
 	@Override
 	public boolean removeJobWithoutTourUpdate(Job job, VehicleRoute vehicleRoute) {
 		boolean jobRemoved = vehicleRoute.getTourActivities().removeJob(job);
-		if(jobRemoved) informRemovedJob(job,vehicleRoute);
+		if(jobRemoved){
+			jobRouteIndex.informJobRemoved(job);
+			informRemovedJob(job,vehicleRoute);
+		}
 		return jobRemoved;
 	}
+	
+	@Override
+	public VehicleRoute removeJobWithoutTourUpdate(Job job, Collection<VehicleRoute> vehicleRoutes) {
+		VehicleRoute route = jobRouteIndex.getRoute(job, vehicleRoutes);
+		if(route == null) return null;
+		if(removeJobWithoutTourUpdate(job, route)) return route;
+		return null;
+	}
 
 	private void informRemovedJob(Job job, VehicleRoute vehicleRoute) {
 		for(RemoverListener l : remListeners) l.informRemovedJob(job, vehicleRoute);
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import basics.Job;
+import basics.route.VehicleRoute;
+
+/**
+ * Maps jobs to the routes serving them, such that the route of a job can be looked up in constant time instead of asking every route 
+ * whether it serves the job.
+ * 
+ * <p>Jobs are mapped to the key of the activities of their route (see {@link basics.route.TourActivities#getActivitiesKey()}), and keys 
+ * to the routes of the collection that is currently ruined and recreated. Since a copy of a route has the key of its original until one of 
+ * both is modified, the mapping of jobs is carried over to copies of the solution, and only keys are mapped again to the routes of 
+ * another collection, i.e. in proportion to the number of routes. 
+ * 
+ * <p>The index is kept up-to-date by {@link RouteAlgorithmImpl} when jobs are inserted and by {@link JobRemoverImpl} when jobs are removed. 
+ * Each route the index returns is checked to still serve the job. If it does not, since the job is mapped to a key the collection does not 
+ * know (e.g. its route has been modified in a solution that has not been accepted) or it has been moved by other means, the routes are 
+ * searched and the jobs of the route found are mapped again. Thus the index can never return a wrong route, at worst it is as slow as a search.
+ * 
+ * <p>This is not thread-safe. Jobs are removed and inserted by the thread running the search.
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class JobRouteIndex {
+	
+	private final Map<Job,Object> activitiesKeyOfJob = new HashMap<Job, Object>();
+	
+	private final Map<Object,VehicleRoute> routeOfActivitiesKey = new HashMap<Object, VehicleRoute>();
+	
+	private Collection<VehicleRoute> indexedCollection = null;
+	
+	/**
+	 * Returns the route in vehicleRoutes that serves job, or null if no route serves job.
+	 */
+	VehicleRoute getRoute(Job job, Collection<VehicleRoute> vehicleRoutes){
+		if(indexedCollection != vehicleRoutes){
+			routeOfActivitiesKey.clear();
+			indexedCollection = vehicleRoutes;
+		}
+		Object activitiesKey = activitiesKeyOfJob.get(job);
+		if(activitiesKey != null){
+			VehicleRoute route = routeOfActivitiesKey.get(activitiesKey);
+			if(route != null && route.getTourActivities().servesJob(job)){
+				return route;
+			}
+		}
+		VehicleRoute servingRoute = null;
+		for(VehicleRoute r : vehicleRoutes){
+			routeOfActivitiesKey.put(r.getTourActivities().getActivitiesKey(), r);
+			if(servingRoute == null && r.getTourActivities().servesJob(job)){
+				servingRoute = r;
+			}
+		}
+		if(servingRoute == null){
+			activitiesKeyOfJob.remove(job);
+			return null;
+		}
+		Object keyOfServingRoute = servingRoute.getTourActivities().getActivitiesKey();
+		for(Job j : servingRoute.getTourActivities().getJobs()){
+			activitiesKeyOfJob.put(j, keyOfServingRoute);
+		}
+		return servingRoute;
+	}
+	
+	void informJobInserted(Job job, VehicleRoute route){
+		activitiesKeyOfJob.put(job, route.getTourActivities().getActivitiesKey());
+	}
+	
+	void informJobRemoved(Job job){
+		activitiesKeyOfJob.remove(job);
+	}
+
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import basics.Job;
+
+/**
+ * Draws jobs randomly without replacement in constant time per draw.
+ * 
+ * <p>Jobs are stored once in an array and drawn with a partial Fisher-Yates shuffle over an index array, i.e. the i-th draw swaps 
+ * a random one of the not yet drawn indices to position i. Starting a new sample with {@link #reset()} does not need to 
+ * restore the original order, since a Fisher-Yates shuffle is uniform regardless of the order it starts with. 
+ * Thus drawing k jobs costs O(k), independent of the total number of jobs.
+ * 
+ * <p>This is not thread-safe.
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class JobSampler {
+	
+	static JobSampler newInstance(Collection<Job> jobs){
+		return new JobSampler(jobs);
+	}
+	
+	private final Job[] jobs;
+	
+	/*
+	 * permutation of job indices. indices in front of nOfDrawnJobs have been drawn.
+	 */
+	private final int[] permutation;
+	
+	/*
+	 * position of each job index in permutation
+	 */
+	private final int[] positions;
+	
+	private final Map<Job,Integer> indices;
+	
+	private int nOfDrawnJobs = 0;
+	
+	private JobSampler(Collection<Job> jobs){
+		this.jobs = jobs.toArray(new Job[jobs.size()]);
+		this.permutation = new int[this.jobs.length];
+		this.positions = new int[this.jobs.length];
+		this.indices = new HashMap<Job, Integer>(2*this.jobs.length);
+		for(int i=0;i<this.jobs.length;i++){
+			permutation[i] = i;
+			positions[i] = i;
+			indices.put(this.jobs[i], i);
+		}
+	}
+	
+	/**
+	 * Starts a new sample, i.e. all jobs can be drawn again.
+	 */
+	void reset(){
+		nOfDrawnJobs = 0;
+	}
+	
+	/**
+	 * Returns the number of jobs that have not been drawn since the last reset.
+	 */
+	int getNuOfAvailableJobs(){
+		return jobs.length - nOfDrawnJobs;
+	}
+	
+	/**
+	 * Draws a random job that has not been drawn since the last reset.
+	 * 
+	 * @throws IllegalStateException if all jobs have been drawn
+	 */
+	Job drawJob(Random random){
+		if(nOfDrawnJobs == jobs.length) throw new IllegalStateException("all " + jobs.length + " jobs have already been drawn. reset sampler first.");
+		int position = nOfDrawnJobs + random.nextInt(jobs.length - nOfDrawnJobs);
+		return draw(position);
+	}
+	
+	/**
+	 * Marks job as drawn, such that it cannot be drawn anymore until the next reset.
+	 * 
+	 * @return true if job could have been drawn, false if it has already been drawn or is unknown
+	 */
+	boolean drawJob(Job job){
+		Integer index = indices.get(job);
+		if(index == null) return false;
+		int position = positions[index];
+		if(position < nOfDrawnJobs) return false;
+		draw(position);
+		return true;
+	}
+	
+	/**
+	 * Returns a random job, independent of the jobs drawn so far.
+	 */
+	Job randomJob(Random random){
+		return jobs[random.nextInt(jobs.length)];
+	}
+	
+	private Job draw(int position) {
+		int index = permutation[position];
+		int firstAvailableIndex = permutation[nOfDrawnJobs];
+		permutation[position] = firstAvailableIndex;
+		positions[firstAvailableIndex] = position;
+		permutation[nOfDrawnJobs] = index;
+		positions[index] = nOfDrawnJobs;
+		nOfDrawnJobs++;
+		return jobs[index];
+	}
+
+}
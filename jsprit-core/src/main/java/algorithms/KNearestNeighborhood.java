@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import util.Neighborhood;
+import basics.Job;
+import basics.Service;
+import basics.VehicleRoutingProblem;
+
+/**
+ * Neighborhood that considers two locations as neighbors if a service at one location is among the k nearest jobs of a service
+ * at the other location (based on the average transport costs between them).
+ * 
+ * <p>It is based on the same k-nearest-neighbor index that radialRuin uses. Like {@link util.NeighborhoodImpl}, all locations are
+ * neighbors as long as it is not initialised. Locations without services (e.g. depots) are neighbors to all locations.
+ * 
+ * @author schroeder
+ *
+ */
+public class KNearestNeighborhood implements Neighborhood {
+
+	private static Logger log = Logger.getLogger(KNearestNeighborhood.class);
+	
+	private final int k;
+	
+	private JobNeighborhoods jobNeighborhoods;
+	
+	private Map<String,List<Job>> jobsAtLocation;
+	
+	private boolean initialised = false;
+	
+	/**
+	 * Creates a neighborhood with the k nearest jobs of each job. Call {@link #initialise(VehicleRoutingProblem)} before using it.
+	 * 
+	 * @param k
+	 */
+	public KNearestNeighborhood(int k) {
+		super();
+		this.k = k;
+	}
+	
+	/**
+	 * Calculates the k nearest neighbors of each job in vrp.
+	 * 
+	 * @param vrp
+	 */
+	public void initialise(VehicleRoutingProblem vrp){
+		log.info("initialise neighborhood [k="+ k + "]");
+		jobNeighborhoods = JobNeighborhoods.newInstance(vrp.getJobs().values(), new JobDistanceAvgCosts(vrp.getTransportCosts()), k);
+		jobsAtLocation = new HashMap<String, List<Job>>();
+		for(Job j : vrp.getJobs().values()){
+			if(!(j instanceof Service)) continue;
+			String locationId = ((Service)j).getLocationId();
+			List<Job> jobs = jobsAtLocation.get(locationId);
+			if(jobs == null){
+				jobs = new ArrayList<Job>(1);
+				jobsAtLocation.put(locationId, jobs);
+			}
+			jobs.add(j);
+		}
+		initialised = true;
+	}
+
+	@Override
+	public boolean areNeighbors(String location1, String location2) {
+		if(!initialised) return true;
+		if(location1.equals(location2)) return true;
+		List<Job> jobs1 = jobsAtLocation.get(location1);
+		List<Job> jobs2 = jobsAtLocation.get(location2);
+		if(jobs1 == null || jobs2 == null) return true;
+		for(Job j1 : jobs1){
+			for(Job j2 : jobs2){
+				if(jobNeighborhoods.isNeighbor(j1, j2) || jobNeighborhoods.isNeighbor(j2, j1)) return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=kNearestNeighborhood][k="+k+"]";
+	}
+
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import util.metrics.LatencyHistogram;
+import util.metrics.MetricsRegistry;
+import basics.Job;
+import basics.route.Driver;
+import basics.route.Vehicle;
+import basics.route.VehicleRoute;
+
+/**
+ * Records the latency of each insertion calculation of the calculator it decorates in insertionCalculator.time (see {@link MetricsRegistry}).
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class MeasuredInsertionCalculator implements JobInsertionCalculator {
+	
+	private final JobInsertionCalculator calculator;
+	
+	private final MetricsRegistry metrics;
+	
+	private final LatencyHistogram calculationTime;
+
+	MeasuredInsertionCalculator(JobInsertionCalculator calculator, MetricsRegistry metrics) {
+		super();
+		this.calculator = calculator;
+		this.metrics = metrics;
+		this.calculationTime = metrics.getHistogram("insertionCalculator.time");
+	}
+
+	@Override
+	public InsertionData calculate(VehicleRoute currentRoute, Job jobToInsert, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownScore) {
+		if(!metrics.isEnabled()){
+			return calculator.calculate(currentRoute, jobToInsert, newVehicle, newVehicleDepartureTime, newDriver, bestKnownScore);
+		}
+		long startTime = System.nanoTime();
+		InsertionData iData = calculator.calculate(currentRoute, jobToInsert, newVehicle, newVehicleDepartureTime, newDriver, bestKnownScore);
+		calculationTime.recordSince(startTime);
+		return iData;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=measuredInsertionCalculator][calculator="+calculator+"]";
+	}
+
+}
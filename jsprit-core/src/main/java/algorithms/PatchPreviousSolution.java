@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import util.RouteUtils;
+import util.metrics.MetricsRegistry;
+import basics.Job;
+import basics.Service;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.route.TourActivities;
+import basics.route.TourActivity;
+import basics.route.TourActivity.JobActivity;
+import basics.route.VehicleImpl.NoVehicle;
+import basics.route.VehicleRoute;
+
+/**
+ * Creates the initial solution of a problem from the solution of a previous version of that problem, i.e. a problem with 
+ * partly other jobs but the same vehicles.
+ * 
+ * <p>The previous routes are rebuilt in the same order with the activities of the new problem. Jobs that are not part 
+ * of the new problem anymore, or that have been replaced by another job with the same id, are left out. Jobs that are not served 
+ * by the rebuilt routes (such as new jobs) are inserted with the specified insertion strategy. 
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class PatchPreviousSolution implements InitialSolutionFactory {
+	
+	private static final Logger logger = Logger.getLogger(PatchPreviousSolution.class);
+	
+	private final VehicleRoutingProblemSolution previousSolution;
+	
+	private final AbstractInsertionStrategy insertion;
+	
+	private final RouteStates routeStates;
+	
+	private final MetricsRegistry metrics;
+
+	PatchPreviousSolution(VehicleRoutingProblemSolution previousSolution, AbstractInsertionStrategy insertion, RouteStates routeStates, MetricsRegistry metrics) {
+		super();
+		this.previousSolution = previousSolution;
+		this.insertion = insertion;
+		this.routeStates = routeStates;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public VehicleRoutingProblemSolution createInitialSolution(VehicleRoutingProblem vrp) {
+		logger.info("patch previous solution.");
+		TourStateUpdater tourStateUpdater = new TourStateUpdater(routeStates, vrp.getIndexedTransportCosts(), vrp.getActivityCosts(), metrics);
+		List<VehicleRoute> vehicleRoutes = new ArrayList<VehicleRoute>();
+		Set<Job> servedJobs = new HashSet<Job>();
+		for(VehicleRoute previousRoute : previousSolution.getRoutes()){
+			if(previousRoute.getVehicle() instanceof NoVehicle) continue;
+			TourActivities tour = TourActivities.emptyTour();
+			for(TourActivity act : previousRoute.getTourActivities().getActivities()){
+				Job job = getJob(vrp, act);
+				if(job instanceof Service && servedJobs.add(job)){
+					tour.addActivity(routeStates.getActivity((Service) job, true));
+				}
+			}
+			if(tour.isEmpty()) continue;
+			VehicleRoute route = VehicleRoute.newInstance(tour, previousRoute.getDriver(), previousRoute.getVehicle());
+			route.setDepartureTime(previousRoute.getStart().getEndTime());
+			tourStateUpdater.updateRoute(route);
+			vehicleRoutes.add(route);
+		}
+		List<Job> unassignedJobs = new ArrayList<Job>();
+		for(Job job : vrp.getJobs().values()){
+			if(!servedJobs.contains(job)) unassignedJobs.add(job);
+		}
+		logger.info("keep " + servedJobs.size() + " jobs on " + vehicleRoutes.size() + " routes and insert " + unassignedJobs.size() + " jobs");
+		insertion.run(vehicleRoutes, unassignedJobs, Double.MAX_VALUE);
+		return new VehicleRoutingProblemSolution(vehicleRoutes, RouteUtils.getTotalCost(vehicleRoutes));
+	}
+
+	/**
+	 * Returns the job act serves if vrp still contains this very job, otherwise null.
+	 */
+	private Job getJob(VehicleRoutingProblem vrp, TourActivity act) {
+		if(!(act instanceof JobActivity)) return null;
+		Job job = ((JobActivity<?>) act).getJob();
+		if(vrp.getJobs().get(job.getId()) != job) return null;
+		return job;
+	}
+
+}
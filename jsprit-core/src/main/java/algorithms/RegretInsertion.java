@@ -14,7 +14,10 @@ package algorithms;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.apache.log4j.Logger;
 
@@ -32,6 +35,13 @@ import basics.route.VehicleRoute;
  * The idea is that if the cost of the secondBest alternative is way higher than the first best, it seems to be important to insert this
  * customer immediatedly. If difference is not that high, it might not impact solution if this customer is inserted later.
  * 
+ * <p>With regret-k, the score is the sum of the differences between the k-1 next best alternatives and the firstBest.
+ * 
+ * <p>Insertion data of each unassigned job and each route are memorized, thus after inserting a job only the insertion data of the 
+ * route the job has been inserted in need to be recalculated (unless the vehicle of this route has been switched, since this might
+ * change the vehicles available for other routes as well). The unassigned jobs are kept in a priority queue ordered by their scores, 
+ * and a job is only re-scored if the recalculated route is, or has been, among its k best alternatives.
+ * 
  * @author stefan schroeder
  *
  */
@@ -84,6 +94,148 @@ final class RegretInsertion extends AbstractInsertionStrategy{
 		
 	}
 	
+	/**
+	 * Memorizes the insertion data of an unassigned job for each route, and ranks the routes the job can be inserted in by their insertion costs.
+	 * 
+	 * @author schroeder
+	 *
+	 */
+	static class JobInsertions {
+		
+		private static final int NO_ROUTE = -1;
+		
+		private final Job job;
+		
+		private final int sequenceNumber;
+		
+		private final List<InsertionData> insertionData = new ArrayList<InsertionData>();
+		
+		private final Comparator<Integer> costComparator = new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer routeIndex1, Integer routeIndex2) {
+				int result = Double.compare(insertionData.get(routeIndex1).getInsertionCost(), insertionData.get(routeIndex2).getInsertionCost());
+				if(result != 0) return result;
+				return routeIndex1.compareTo(routeIndex2);
+			}
+			
+		};
+		
+		private final TreeSet<Integer> ranking = new TreeSet<Integer>(costComparator);
+		
+		/**
+		 * Index of the route with the k-th lowest insertion cost, or of the last ranked route if there are less than k.
+		 */
+		private int kthRouteIndex = NO_ROUTE;
+		
+		private double score;
+
+		JobInsertions(Job job, int sequenceNumber) {
+			super();
+			this.job = job;
+			this.sequenceNumber = sequenceNumber;
+		}
+		
+		Job getJob() {
+			return job;
+		}
+		
+		int getSequenceNumber() {
+			return sequenceNumber;
+		}
+		
+		double getScore() {
+			return score;
+		}
+		
+		void setScore(double score) {
+			this.score = score;
+		}
+
+		/**
+		 * Sets the insertion data of the route with routeIndex. A new route must have the index of the number of known routes.
+		 * 
+		 * <p>Returns true if the route is, or has been, among the k routes with the lowest insertion costs, i.e. if the regret-k score of the job might have changed.
+		 */
+		boolean update(int routeIndex, InsertionData iData, int k){
+			boolean amongKBest = isAmongKBest(routeIndex);
+			if(routeIndex < insertionData.size()){
+				ranking.remove(routeIndex);
+				insertionData.set(routeIndex, iData);
+			}
+			else insertionData.add(iData);
+			if(!(iData instanceof NoInsertionFound)){
+				if(!amongKBest){
+					amongKBest = ranking.size() < k || costComparator.compare(routeIndex, kthRouteIndex) < 0;
+				}
+				ranking.add(routeIndex);
+			}
+			if(amongKBest){
+				kthRouteIndex = NO_ROUTE;
+				Iterator<Integer> rankedRoutes = ranking.iterator();
+				for(int i=0;i<k && rankedRoutes.hasNext();i++){
+					kthRouteIndex = rankedRoutes.next();
+				}
+			}
+			return amongKBest;
+		}
+		
+		private boolean isAmongKBest(int routeIndex){
+			if(kthRouteIndex == NO_ROUTE || routeIndex >= insertionData.size() || insertionData.get(routeIndex) instanceof NoInsertionFound){
+				return false;
+			}
+			return costComparator.compare(routeIndex, kthRouteIndex) <= 0;
+		}
+		
+		boolean hasInsertion(){
+			return !ranking.isEmpty();
+		}
+		
+		int getBestRouteIndex(){
+			return ranking.first();
+		}
+		
+		InsertionData getInsertionData(int routeIndex){
+			return insertionData.get(routeIndex);
+		}
+		
+		/**
+		 * Returns the indices of the routes this job can be inserted in, in ascending order of their insertion costs.
+		 */
+		Iterator<Integer> getRanking(){
+			return ranking.iterator();
+		}
+		
+	}
+	
+	private static final int ALL_ROUTES = -1;
+	
+	private static final Comparator<JobInsertions> BY_SCORE = new Comparator<JobInsertions>() {
+
+		@Override
+		public int compare(JobInsertions jobInsertions1, JobInsertions jobInsertions2) {
+			int result = Double.compare(jobInsertions2.getScore(), jobInsertions1.getScore());
+			if(result != 0) return result;
+			return compareSequenceNumbers(jobInsertions1, jobInsertions2);
+		}
+		
+	};
+	
+	private static final Comparator<JobInsertions> BY_SEQUENCE_NUMBER = new Comparator<JobInsertions>() {
+
+		@Override
+		public int compare(JobInsertions jobInsertions1, JobInsertions jobInsertions2) {
+			return compareSequenceNumbers(jobInsertions1, jobInsertions2);
+		}
+		
+	};
+	
+	private static int compareSequenceNumbers(JobInsertions jobInsertions1, JobInsertions jobInsertions2) {
+		if(jobInsertions1.getSequenceNumber() < jobInsertions2.getSequenceNumber()) return -1;
+		if(jobInsertions1.getSequenceNumber() > jobInsertions2.getSequenceNumber()) return 1;
+		return 0;
+	}
+	
 	public static RegretInsertion newInstance(RouteAlgorithm routeAlgorithm) {
 		return new RegretInsertion(routeAlgorithm);
 	}
@@ -93,6 +245,8 @@ final class RegretInsertion extends AbstractInsertionStrategy{
 	private RouteAlgorithm routeAlgorithm;
 	
 	private ScoringFunction scoringFunction = new TimeWindowScorer();
+	
+	private int k = 2;
 
 	/**
 	 * Sets the scoring function.
@@ -105,6 +259,19 @@ final class RegretInsertion extends AbstractInsertionStrategy{
 		this.scoringFunction = scoringFunction;
 	}
 
+	/**
+	 * Sets the number of alternatives k that are considered for the regret score, i.e. regret-k.
+	 * 
+	 * <p>By default, k=2, i.e. the score is the difference between secondBest and firstBest.
+	 * 
+	 * @param k
+	 * @throws IllegalStateException if k < 2
+	 */
+	public void setK(int k) {
+		if(k < 2) throw new IllegalStateException("k must be at least 2, but is " + k);
+		this.k = k;
+	}
+
 	public RegretInsertion(RouteAlgorithm routeAlgorithm) {
 		super();
 		this.routeAlgorithm = routeAlgorithm;
@@ -113,7 +280,7 @@ final class RegretInsertion extends AbstractInsertionStrategy{
 	
 	@Override
 	public String toString() {
-		return "[name=regretInsertion][additionalScorer="+scoringFunction+"]";
+		return "[name=regretInsertion][k="+k+"][additionalScorer="+scoringFunction+"]";
 	}
 	
 	public RouteAlgorithm getRouteAlgorithm(){
@@ -124,56 +291,35 @@ final class RegretInsertion extends AbstractInsertionStrategy{
 	 * Runs insertion.
 	 * 
 	 * <p>Before inserting a job, all unassigned jobs are scored according to its best- and secondBest-insertion plus additional scoring variables.
+	 * Only jobs in front of the first job that cannot be inserted in any route are candidates, and if there are none, a new route is created for this job.
 	 * 
 	 */
 	@Override
 	public void run(Collection<VehicleRoute> routes, Collection<Job> unassignedJobs, double resultToBeat) {
-		List<Job> jobs = new ArrayList<Job>(unassignedJobs);
 		informInsertionStarts(routes,unassignedJobs.size());
-		int inserted = 0;
-		while(!jobs.isEmpty()){
-			List<Job> unassignedJobList = new ArrayList<Job>(jobs);
-			ScoredJob bestScoredJob = null;
-			double bestScore = -1*Double.MAX_VALUE;
-			VehicleRoute insertIn = null;
-			
-			for(Job unassignedJob : unassignedJobList){
-				InsertionData best = null;
-				InsertionData secondBest = null;
-				VehicleRoute bestRoute = null;
-				
-				double benchmark = Double.MAX_VALUE;
-				for(VehicleRoute route : routes){
-					if(secondBest != null){
-						benchmark = secondBest.getInsertionCost();
-					}
-					InsertionData iData = routeAlgorithm.calculateBestInsertion(route, unassignedJob, benchmark);
-					if(iData instanceof NoInsertionFound) continue;
-					if(best == null){
-						best = iData;
-						bestRoute = route;
-					}
-					else if(iData.getInsertionCost() < best.getInsertionCost()){
-						secondBest = best;
-						best = iData;
-						bestRoute = route;
-					}
-					else if(secondBest == null || (iData.getInsertionCost() < secondBest.getInsertionCost())){
-						secondBest = iData;
-					}
-				}
-				if(best == null){
-					break;
-				}
-				double score = score(unassignedJob,best,secondBest);
-				if(score > bestScore){
-					bestScoredJob = new ScoredJob(unassignedJob,score,best,bestRoute);
-					bestScore = score;
-				}
+		List<VehicleRoute> routeList = new ArrayList<VehicleRoute>(routes);
+		List<JobInsertions> jobInsertionsList = new ArrayList<JobInsertions>();
+		TreeSet<JobInsertions> scoredJobs = new TreeSet<JobInsertions>(BY_SCORE);
+		TreeSet<JobInsertions> jobsWithoutInsertion = new TreeSet<JobInsertions>(BY_SEQUENCE_NUMBER);
+		for(Job unassignedJob : unassignedJobs){
+			JobInsertions jobInsertions = new JobInsertions(unassignedJob, jobInsertionsList.size());
+			jobInsertionsList.add(jobInsertions);
+			jobsWithoutInsertion.add(jobInsertions);
+		}
+		int changedRoute = ALL_ROUTES;
+		while(!jobInsertionsList.isEmpty()){
+			if(getDeadline().isExceeded()){
+				//scoring needs the insertions of all jobs into all routes, thus insert the remaining jobs one by one into their first feasible route
+				insertRemainingJobs(routes, jobInsertionsList);
+				break;
 			}
+			update(jobInsertionsList, routeList, changedRoute, scoredJobs, jobsWithoutInsertion);
+			JobInsertions bestJobInsertions = getBestCandidate(scoredJobs, jobsWithoutInsertion);
+			VehicleRoute insertIn;
 			Job assignedJob;
-			if(bestScoredJob == null){
-				Job job = unassignedJobList.get(0);
+			if(bestJobInsertions == null){
+				JobInsertions jobInsertions = jobsWithoutInsertion.pollFirst();
+				Job job = jobInsertions.getJob();
 				VehicleRoute newRoute = VehicleRoute.emptyRoute();	
 				InsertionData bestI = routeAlgorithm.calculateBestInsertion(newRoute, job, Double.MAX_VALUE);
 				if(bestI instanceof InsertionData.NoInsertionFound) throw new IllegalStateException("given the vehicles, could not create a valid solution");
@@ -181,30 +327,91 @@ final class RegretInsertion extends AbstractInsertionStrategy{
 				assignedJob=job;
 				routeAlgorithm.insertJob(job,bestI,newRoute);
 				routes.add(newRoute);
-				jobs.remove(job);
-				
+				routeList.add(newRoute);
+				jobInsertionsList.remove(jobInsertions);
+				changedRoute = ALL_ROUTES;
 			}
 			else{
-				routeAlgorithm.insertJob(bestScoredJob.getJob(),bestScoredJob.getInsertionData(), bestScoredJob.getRoute());
+				int bestRouteIndex = bestJobInsertions.getBestRouteIndex();
+				ScoredJob bestScoredJob = new ScoredJob(bestJobInsertions.getJob(),bestJobInsertions.getScore(),bestJobInsertions.getInsertionData(bestRouteIndex),routeList.get(bestRouteIndex));
 				insertIn=bestScoredJob.getRoute();
 				assignedJob=bestScoredJob.getJob();
-				jobs.remove(bestScoredJob.getJob());
+				boolean vehicleSwitched = !insertIn.getVehicle().getId().equals(bestScoredJob.getInsertionData().getSelectedVehicle().getId());
+				routeAlgorithm.insertJob(assignedJob,bestScoredJob.getInsertionData(), insertIn);
+				jobInsertionsList.remove(bestJobInsertions);
+				scoredJobs.remove(bestJobInsertions);
+				if(vehicleSwitched) changedRoute = ALL_ROUTES;
+				else changedRoute = routeList.indexOf(insertIn);
 			}
-			inserted++;
-			informJobInserted((unassignedJobList.size()-inserted), assignedJob, insertIn);
-			
+			informJobInserted(jobInsertionsList.size(), assignedJob, insertIn);
 		}
 	}
 
-	private double score(Job unassignedJob, InsertionData best, InsertionData secondBest) {
-		if(best == null){
-			throw new IllegalStateException("cannot insert job " +  unassignedJob.getId());
+	private void insertRemainingJobs(Collection<VehicleRoute> routes, List<JobInsertions> jobInsertionsList) {
+		while(!jobInsertionsList.isEmpty()){
+			Job job = jobInsertionsList.remove(0).getJob();
+			VehicleRoute insertIn = insertIntoFirstFeasibleRoute(routes, job);
+			informJobInserted(jobInsertionsList.size(), job, insertIn);
 		}
-		if(secondBest == null){
-			return Double.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the job with the highest score among the jobs in front of the first job without insertion, or null if there is none.
+	 */
+	private JobInsertions getBestCandidate(TreeSet<JobInsertions> scoredJobs, TreeSet<JobInsertions> jobsWithoutInsertion) {
+		if(jobsWithoutInsertion.isEmpty()){
+			return scoredJobs.isEmpty() ? null : scoredJobs.first();
+		}
+		int firstWithoutInsertion = jobsWithoutInsertion.first().getSequenceNumber();
+		for(JobInsertions jobInsertions : scoredJobs){
+			if(jobInsertions.getSequenceNumber() < firstWithoutInsertion) return jobInsertions;
+		}
+		return null;
+	}
+
+	/**
+	 * Recalculates the insertion data of changedRoute, or of all routes if changedRoute is ALL_ROUTES, and re-scores the jobs 
+	 * whose k best alternatives have changed.
+	 */
+	private void update(List<JobInsertions> jobInsertionsList, List<VehicleRoute> routeList, int changedRoute, TreeSet<JobInsertions> scoredJobs, TreeSet<JobInsertions> jobsWithoutInsertion) {
+		for(JobInsertions jobInsertions : jobInsertionsList){
+			boolean scoreChanged = false;
+			if(changedRoute == ALL_ROUTES){
+				for(int routeIndex=0;routeIndex<routeList.size();routeIndex++){
+					scoreChanged |= jobInsertions.update(routeIndex, routeAlgorithm.calculateBestInsertion(routeList.get(routeIndex), jobInsertions.getJob(), Double.MAX_VALUE), k);
+				}
+			}
+			else{
+				scoreChanged = jobInsertions.update(changedRoute, routeAlgorithm.calculateBestInsertion(routeList.get(changedRoute), jobInsertions.getJob(), Double.MAX_VALUE), k);
+			}
+			if(!scoreChanged) continue;
+			scoredJobs.remove(jobInsertions);
+			jobsWithoutInsertion.remove(jobInsertions);
+			if(jobInsertions.hasInsertion()){
+				jobInsertions.setScore(score(jobInsertions));
+				scoredJobs.add(jobInsertions);
+			}
+			else{
+				jobsWithoutInsertion.add(jobInsertions);
+			}
 		}
-		return (secondBest.getInsertionCost()-best.getInsertionCost()) + scoringFunction.score(unassignedJob);
+	}
 
+	/**
+	 * Returns the sum of the differences between the k-1 next best alternatives and the best alternative plus the score of this.ScoringFunction.
+	 * If there are less than k alternatives, only the available alternatives are considered. If there is only one alternative, the score is Double.MAX_VALUE.
+	 */
+	private double score(JobInsertions jobInsertions) {
+		Iterator<Integer> ranking = jobInsertions.getRanking();
+		double best = jobInsertions.getInsertionData(ranking.next()).getInsertionCost();
+		if(!ranking.hasNext()){
+			return Double.MAX_VALUE;
+		}
+		double regret = 0.0;
+		for(int i=1;i<k && ranking.hasNext();i++){
+			regret += jobInsertions.getInsertionData(ranking.next()).getInsertionCost() - best;
+		}
+		return regret + scoringFunction.score(jobInsertions.getJob());
 	}
 		
 }
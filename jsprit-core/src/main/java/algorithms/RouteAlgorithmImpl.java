@@ -76,6 +76,7 @@ final class RouteAlgorithmImpl implements RouteAlgorithm {
 	public boolean removeJobWithoutTourUpdate(Job job, VehicleRoute vehicleRoute) {
 		boolean removed = vehicleRoute.getTourActivities().removeJob(job);
 		if(removed){
+			if(actStates != null) actStates.getJobRouteIndex().informJobRemoved(job);
 			jobRemoved(vehicleRoute,job);
 		}
 		return removed;
@@ -128,6 +129,7 @@ final class RouteAlgorithmImpl implements RouteAlgorithm {
 			vehicleRoute.setDepartureTime(insertionData.getVehicleDepartureTime());
 		}
 		else throw new IllegalStateException("neither service nor shipment. this is not supported.");
+		if(actStates != null) actStates.getJobRouteIndex().informJobInserted(job, vehicleRoute);
 		jobInserted(vehicleRoute,job);
 	}
 	
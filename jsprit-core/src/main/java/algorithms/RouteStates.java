@@ -20,13 +20,18 @@
  ******************************************************************************/
 package algorithms;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
 import basics.Job;
+import basics.JobIndex;
 import basics.Service;
 import basics.VehicleRoutingProblem;
 import basics.VehicleRoutingProblemSolution;
@@ -37,170 +42,506 @@ import basics.route.ServiceActivity;
 import basics.route.TourActivity;
 import basics.route.VehicleRoute;
 
+/**
+ * States of routes and activities.
+ * 
+ * <p>Each activity and each route gets a dense index, and its states are stored in primitive arrays at this index. Thus updaters and 
+ * insertion-calculators can determine the index once, and then read and write states without hashing objects. 
+ * Activities are registered when initialising the states of jobs, routes are registered when their state is requested the first time. 
+ * {@link RouteState} and {@link ActivityState} are views on these arrays.
+ * 
+ * <p>Routes are registered by the key of their activities (see {@link basics.route.TourActivities#getActivitiesKey()}), thus a copy of a route 
+ * has the states of its original until one of both is modified, and updaters can skip copies of routes that have already been updated. 
+ * When an iteration starts, only routes of the solutions in memory stay registered. 
+ * 
+ * <p>The states of a job's activity belong to the route that updated them last. If they are updated for another route (e.g. since the job 
+ * has been moved in a copy of the solution), the former route is not up-to-date anymore (see {@link #setForwardUpdatingRoute(int, int)}).
+ * 
+ * <p>The activity of a job is indexed by the job's index in a {@link JobIndex}, which looks services up in an array. Only activities 
+ * that are registered one by one (i.e. not as job) are looked up in a map.
+ * 
+ * <p>Indices are registered in concurrent maps, thus insertion-calculators can read states concurrently (see {@link BestInsertionConcurrent}). 
+ * States are only written when routes are updated, which is done by one thread only.
+ *
+ */
 class RouteStates implements IterationStartsListener{
 	
+	static final int NO_INDEX = -1;
+	
+	/**
+	 * Modification count of a route whose states have not been updated yet.
+	 */
+	static final int NO_MOD_COUNT = -1;
+	
 	Logger log = Logger.getLogger(RouteStates.class);
 
 	static class RouteState {
-		private double costs;
-		private int load;
-		private VehicleRoute route;
-		public RouteState(VehicleRoute route) {
+		
+		private final RouteStates states;
+		
+		private final int index;
+		
+		RouteState(RouteStates states, int index) {
 			super();
-			this.route = route;
+			this.states = states;
+			this.index = index;
 		}
+		
+		int getIndex() {
+			return index;
+		}
+		
 		/**
 		 * @return the costs
 		 */
 		public double getCosts() {
-			return costs;
+			return states.getRouteCosts(index);
 		}
 		/**
 		 * @param costs the costs to set
 		 */
 		public void setCosts(double costs) {
-			this.costs = costs;
+			states.setRouteCosts(index, costs);
 		}
 		/**
 		 * @return the load
 		 */
 		public int getLoad() {
-			return load;
+			return states.getRouteLoad(index);
 		}
 		/**
 		 * @param load the load to set
 		 */
 		public void setLoad(int load) {
-			this.load = load;
+			states.setRouteLoad(index, load);
 		}
 		
 	}
 	
 	static class ActivityState {
-		private double earliestOperationStart;
-		private double latestOperationStart;
-		private double currentLoad;
-		private double currentCost;
-		private TourActivity act;
 		
-		public ActivityState(TourActivity activity){
-			this.earliestOperationStart=activity.getTheoreticalEarliestOperationStartTime();
-			this.latestOperationStart=activity.getTheoreticalLatestOperationStartTime();
-			this.act = activity;
+		private final RouteStates states;
+		
+		private final int index;
+		
+		ActivityState(RouteStates states, int index){
+			this.states = states;
+			this.index = index;
+		}
+		
+		int getIndex() {
+			return index;
 		}
 		
 		@Override
 		public String toString() {
-			return "[earliestStart="+earliestOperationStart+"][latestStart="+
-				latestOperationStart+"][currLoad="+currentLoad+"][currCost="+currentCost+"]";
+			return "[earliestStart="+getEarliestOperationStart()+"][latestStart="+
+				getLatestOperationStart()+"][currLoad="+getCurrentLoad()+"][currCost="+getCurrentCost()+"]";
 		}
 		
 		public double getEarliestOperationStart() {
-			return earliestOperationStart;
+			return states.getEarliestOperationStart(index);
 		}
 		
 		void setEarliestOperationStart(double earliestOperationStart) {
-			this.earliestOperationStart = earliestOperationStart;
+			states.setEarliestOperationStart(index, earliestOperationStart);
 		}
 		
 		public double getLatestOperationStart() {
-			return latestOperationStart;
+			return states.getLatestOperationStart(index);
 		}
 		
 		void setLatestOperationStart(double latestOperationStart) {
-			this.latestOperationStart = latestOperationStart;
+			states.setLatestOperationStart(index, latestOperationStart);
 		}
 		
 		public double getCurrentLoad() {
-			return currentLoad;
+			return states.getCurrentLoad(index);
 		}
 		
 		void setCurrentLoad(double currentLoad) {
-			this.currentLoad = currentLoad;
+			states.setCurrentLoad(index, currentLoad);
 		}
 		
 		public double getCurrentCost() {
-			return currentCost;
+			return states.getCurrentCost(index);
 		}
 		
 		void setCurrentCost(double currentCost) {
-			this.currentCost = currentCost;
+			states.setCurrentCost(index, currentCost);
 		}
 
 		public void reset() {
-			earliestOperationStart = act.getTheoreticalEarliestOperationStartTime();
-			latestOperationStart = act.getTheoreticalLatestOperationStartTime() ;
-			currentLoad = 0.0;
-			currentCost = 0.0;
+			states.resetActivityState(index);
 		}
 	}
 	
-		
 	private Map<TourActivity, ActivityState> activityStates;
 	
-	private Map<Service, TourActivity> tourActivities;
+	private ConcurrentHashMap<Object, RouteState> routeStates;
+	
+	private JobIndex jobIndex = null;
+	
+	/**
+	 * index of the first job activity. job activities are indexed jobActivityOffset + jobIndex.getIndex(job).
+	 */
+	private int jobActivityOffset = 0;
+	
+	private TourActivity[] activities = new TourActivity[0];
+	
+	private ActivityState[] states = new ActivityState[0];
+	
+	private double[] earliestOperationStarts = new double[0];
+	
+	private double[] latestOperationStarts = new double[0];
+	
+	private double[] currentLoads = new double[0];
+	
+	private double[] currentCosts = new double[0];
+	
+	private double[] currentTransportCosts = new double[0];
+	
+	private double[] currentActivityCosts = new double[0];
 	
-	private Map<VehicleRoute, RouteState> routeStates;
+	/*
+	 * indices of the routes that updated the forward and backward states of an activity last, or NO_INDEX.
+	 */
+	private int[] forwardUpdatingRoutes = new int[0];
+	
+	private int[] backwardUpdatingRoutes = new int[0];
+	
+	private int nuOfActivities = 0;
+	
+	/*
+	 * route arrays might grow while insertion-calculators of other threads register new routes, thus they are volatile.
+	 */
+	private volatile double[] routeCosts = new double[16];
+	
+	private volatile int[] routeLoads = new int[16];
+	
+	private volatile int[] forwardUpdateModCounts = new int[16];
+	
+	private volatile int[] backwardUpdateModCounts = new int[16];
+	
+	/*
+	 * number of route indices in use or free.
+	 */
+	private int nuOfRoutes = 0;
+	
+	private int[] freeRouteIndices = new int[16];
+	
+	private int nuOfFreeRouteIndices = 0;
+	
+	private final JobRouteIndex jobRouteIndex = new JobRouteIndex();
 	
 	public RouteStates() {
-		activityStates = new HashMap<TourActivity, RouteStates.ActivityState>();
-		tourActivities = new HashMap<Service,TourActivity>();
-		routeStates = new HashMap<VehicleRoute, RouteStates.RouteState>();
+		activityStates = new ConcurrentHashMap<TourActivity, RouteStates.ActivityState>();
+		routeStates = new ConcurrentHashMap<Object, RouteStates.RouteState>();
+	}
+
+	/**
+	 * Returns the index of routes serving jobs which is shared by the components that insert and remove jobs.
+	 */
+	JobRouteIndex getJobRouteIndex(){
+		return jobRouteIndex;
 	}
 
 	ActivityState getState(TourActivity act){
-		if(!activityStates.containsKey(act)) return null;
-		return activityStates.get(act);
+		int activityIndex = getActivityIndex(act);
+		if(activityIndex == NO_INDEX) return null;
+		return states[activityIndex];
+	}
+	
+	/**
+	 * Returns the index of act's states, or NO_INDEX if act has no states (such as start and end).
+	 */
+	int getActivityIndex(TourActivity act){
+		if(jobIndex != null && act instanceof ServiceActivity){
+			int index = jobIndex.getIndex(((ServiceActivity) act).getJob());
+			if(index != JobIndex.NO_INDEX) return jobActivityOffset + index;
+		}
+		if(activityStates.isEmpty()) return NO_INDEX;
+		ActivityState state = activityStates.get(act);
+		if(state == null) return NO_INDEX;
+		return state.index;
+	}
+	
+	double getEarliestOperationStart(int activityIndex){
+		return earliestOperationStarts[activityIndex];
+	}
+	
+	void setEarliestOperationStart(int activityIndex, double earliestOperationStart){
+		earliestOperationStarts[activityIndex] = earliestOperationStart;
+	}
+	
+	double getLatestOperationStart(int activityIndex){
+		return latestOperationStarts[activityIndex];
+	}
+	
+	void setLatestOperationStart(int activityIndex, double latestOperationStart){
+		latestOperationStarts[activityIndex] = latestOperationStart;
+	}
+	
+	double getCurrentLoad(int activityIndex){
+		return currentLoads[activityIndex];
+	}
+	
+	void setCurrentLoad(int activityIndex, double currentLoad){
+		currentLoads[activityIndex] = currentLoad;
+	}
+	
+	double getCurrentCost(int activityIndex){
+		return currentCosts[activityIndex];
+	}
+	
+	void setCurrentCost(int activityIndex, double currentCost){
+		currentCosts[activityIndex] = currentCost;
+	}
+	
+	/**
+	 * Returns the transport costs accumulated up to the activity, i.e. the transport share of its current costs.
+	 */
+	double getCurrentTransportCost(int activityIndex){
+		return currentTransportCosts[activityIndex];
+	}
+	
+	void setCurrentTransportCost(int activityIndex, double currentTransportCost){
+		currentTransportCosts[activityIndex] = currentTransportCost;
+	}
+	
+	/**
+	 * Returns the activity costs accumulated up to the activity, i.e. the activity share of its current costs.
+	 */
+	double getCurrentActivityCost(int activityIndex){
+		return currentActivityCosts[activityIndex];
+	}
+	
+	void setCurrentActivityCost(int activityIndex, double currentActivityCost){
+		currentActivityCosts[activityIndex] = currentActivityCost;
+	}
+	
+	private void resetActivityState(int activityIndex){
+		setForwardUpdatingRoute(activityIndex, NO_INDEX);
+		setBackwardUpdatingRoute(activityIndex, NO_INDEX);
+		earliestOperationStarts[activityIndex] = activities[activityIndex].getTheoreticalEarliestOperationStartTime();
+		latestOperationStarts[activityIndex] = activities[activityIndex].getTheoreticalLatestOperationStartTime();
+		currentLoads[activityIndex] = 0.0;
+		currentCosts[activityIndex] = 0.0;
+		currentTransportCosts[activityIndex] = 0.0;
+		currentActivityCosts[activityIndex] = 0.0;
 	}
 	
 	public void clearStates(){
+		resetRouteStates();
 		activityStates.clear();
+		jobIndex = null;
+		jobActivityOffset = 0;
+		nuOfActivities = 0;
 	}
 	
-	public Map<TourActivity, ActivityState> getActivityStates() {
-		return activityStates;
-	}
-
 	TourActivity getActivity(Service service, boolean resetState){
-		TourActivity tourActivity = tourActivities.get(service);
-		getState(tourActivity).reset(); 
-		return tourActivity;
+		int index = jobIndex.getIndex(service);
+		if(index == JobIndex.NO_INDEX) throw new IllegalStateException("service " + service + " has no state. it is not part of the initialised jobs.");
+		int activityIndex = jobActivityOffset + index;
+		resetActivityState(activityIndex); 
+		return activities[activityIndex];
 	}
 	
-	public void resetRouteStates(){
+	public synchronized void resetRouteStates(){
 		routeStates.clear();
+		nuOfRoutes = 0;
+		nuOfFreeRouteIndices = 0;
+	}
+	
+	/**
+	 * De-registers all routes except the routes of solutions. Their indices are reused for routes registered later.
+	 */
+	synchronized void retainRouteStates(Collection<VehicleRoutingProblemSolution> solutions){
+		Set<Object> keys = new HashSet<Object>();
+		for(VehicleRoutingProblemSolution solution : solutions){
+			for(VehicleRoute route : solution.getRoutes()){
+				keys.add(route.getTourActivities().getActivitiesKey());
+			}
+		}
+		Iterator<Map.Entry<Object, RouteState>> entries = routeStates.entrySet().iterator();
+		while(entries.hasNext()){
+			Map.Entry<Object, RouteState> entry = entries.next();
+			if(!keys.contains(entry.getKey())){
+				freeRouteIndices[nuOfFreeRouteIndices++] = entry.getValue().index;
+				entries.remove();
+			}
+		}
 	}
 	
 	public RouteState getRouteState(VehicleRoute route){
-		RouteState routeState = routeStates.get(route);
+		RouteState routeState = routeStates.get(route.getTourActivities().getActivitiesKey());
 		if(routeState == null){
-			routeState = new RouteState(route);
-			putRouteState(route, routeState);
+			routeState = registerRoute(route);
+		}
+		return routeState;
+	}
+	
+	/**
+	 * Returns the index of route's states. If route is not known yet, it is registered.
+	 */
+	int getRouteIndex(VehicleRoute route){
+		return getRouteState(route).index;
+	}
+	
+	double getRouteCosts(int routeIndex){
+		return routeCosts[routeIndex];
+	}
+	
+	void setRouteCosts(int routeIndex, double costs){
+		routeCosts[routeIndex] = costs;
+	}
+	
+	int getRouteLoad(int routeIndex){
+		return routeLoads[routeIndex];
+	}
+	
+	void setRouteLoad(int routeIndex, int load){
+		routeLoads[routeIndex] = load;
+	}
+	
+	/**
+	 * Returns the modification count of the route's tour when its forward states (earliest starts, loads, costs) were updated 
+	 * the last time, or NO_MOD_COUNT.
+	 * 
+	 * @see basics.route.TourActivities#getModCount()
+	 */
+	int getForwardUpdateModCount(int routeIndex){
+		return forwardUpdateModCounts[routeIndex];
+	}
+	
+	void setForwardUpdateModCount(int routeIndex, int modCount){
+		forwardUpdateModCounts[routeIndex] = modCount;
+	}
+	
+	/**
+	 * Returns the modification count of the route's tour when its backward states (latest starts) were updated 
+	 * the last time, or NO_MOD_COUNT.
+	 * 
+	 * @see basics.route.TourActivities#getModCount()
+	 */
+	int getBackwardUpdateModCount(int routeIndex){
+		return backwardUpdateModCounts[routeIndex];
+	}
+	
+	void setBackwardUpdateModCount(int routeIndex, int modCount){
+		backwardUpdateModCounts[routeIndex] = modCount;
+	}
+	
+	/**
+	 * Memorizes that the forward states of the activity have been updated for the route. If they have been updated for another route before, 
+	 * the forward states of this other route are not up-to-date anymore, i.e. its forward update modification count is reset to NO_MOD_COUNT.
+	 */
+	void setForwardUpdatingRoute(int activityIndex, int routeIndex){
+		int formerRouteIndex = forwardUpdatingRoutes[activityIndex];
+		if(formerRouteIndex == routeIndex) return;
+		if(formerRouteIndex != NO_INDEX) forwardUpdateModCounts[formerRouteIndex] = NO_MOD_COUNT;
+		forwardUpdatingRoutes[activityIndex] = routeIndex;
+	}
+	
+	/**
+	 * Memorizes that the backward states of the activity have been updated for the route. If they have been updated for another route before, 
+	 * the backward states of this other route are not up-to-date anymore, i.e. its backward update modification count is reset to NO_MOD_COUNT.
+	 */
+	void setBackwardUpdatingRoute(int activityIndex, int routeIndex){
+		int formerRouteIndex = backwardUpdatingRoutes[activityIndex];
+		if(formerRouteIndex == routeIndex) return;
+		if(formerRouteIndex != NO_INDEX) backwardUpdateModCounts[formerRouteIndex] = NO_MOD_COUNT;
+		backwardUpdatingRoutes[activityIndex] = routeIndex;
+	}
+	
+	private synchronized RouteState registerRoute(VehicleRoute route){
+		Object key = route.getTourActivities().getActivitiesKey();
+		RouteState routeState = routeStates.get(key);
+		if(routeState != null) return routeState;
+		int routeIndex;
+		if(nuOfFreeRouteIndices > 0){
+			routeIndex = freeRouteIndices[--nuOfFreeRouteIndices];
+		}
+		else{
+			if(nuOfRoutes == routeCosts.length){
+				int capacity = 2*routeCosts.length;
+				routeCosts = Arrays.copyOf(routeCosts, capacity);
+				routeLoads = Arrays.copyOf(routeLoads, capacity);
+				forwardUpdateModCounts = Arrays.copyOf(forwardUpdateModCounts, capacity);
+				backwardUpdateModCounts = Arrays.copyOf(backwardUpdateModCounts, capacity);
+				freeRouteIndices = Arrays.copyOf(freeRouteIndices, capacity);
+			}
+			routeIndex = nuOfRoutes++;
 		}
+		routeCosts[routeIndex] = 0.0;
+		routeLoads[routeIndex] = 0;
+		forwardUpdateModCounts[routeIndex] = NO_MOD_COUNT;
+		backwardUpdateModCounts[routeIndex] = NO_MOD_COUNT;
+		routeState = new RouteState(this, routeIndex);
+		routeStates.put(key, routeState);
 		return routeState;
 	}
 	
-	private void putRouteState(VehicleRoute route, RouteState routeState){
-		routeStates.put(route, routeState);
+	/**
+	 * Registers act and initialises its states with its theoretical operation start times.
+	 */
+	ActivityState initialiseStateOfActivity(TourActivity act){
+		ActivityState state = addActivity(act);
+		activityStates.put(act, state);
+		return state;
+	}
+	
+	private ActivityState addActivity(TourActivity act){
+		if(nuOfActivities == activities.length){
+			int capacity = Math.max(16, 2*activities.length);
+			activities = Arrays.copyOf(activities, capacity);
+			states = Arrays.copyOf(states, capacity);
+			earliestOperationStarts = Arrays.copyOf(earliestOperationStarts, capacity);
+			latestOperationStarts = Arrays.copyOf(latestOperationStarts, capacity);
+			currentLoads = Arrays.copyOf(currentLoads, capacity);
+			currentCosts = Arrays.copyOf(currentCosts, capacity);
+			currentTransportCosts = Arrays.copyOf(currentTransportCosts, capacity);
+			currentActivityCosts = Arrays.copyOf(currentActivityCosts, capacity);
+			forwardUpdatingRoutes = Arrays.copyOf(forwardUpdatingRoutes, capacity);
+			backwardUpdatingRoutes = Arrays.copyOf(backwardUpdatingRoutes, capacity);
+		}
+		int activityIndex = nuOfActivities++;
+		activities[activityIndex] = act;
+		forwardUpdatingRoutes[activityIndex] = NO_INDEX;
+		backwardUpdatingRoutes[activityIndex] = NO_INDEX;
+		resetActivityState(activityIndex);
+		ActivityState state = new ActivityState(this, activityIndex);
+		states[activityIndex] = state;
+		return state;
 	}
 	
 	void initialiseStateOfJobs(Collection<Job> jobs){
-		for(Job job : jobs){
+		initialiseStateOfJobs(JobIndex.newInstance(jobs));
+	}
+	
+	/**
+	 * Registers an activity for each job of jobIndex. Its states are indexed by the job's index, e.g. the problem's {@link JobIndex}.
+	 * 
+	 * @throws IllegalStateException if jobs have already been initialised (and states have not been cleared since)
+	 */
+	void initialiseStateOfJobs(JobIndex jobIndex){
+		if(this.jobIndex != null) throw new IllegalStateException("states of jobs are already initialised. clear states first.");
+		jobActivityOffset = nuOfActivities;
+		for(int i=0;i<jobIndex.getNuOfJobs();i++){
+			Job job = jobIndex.getJob(i);
 			if(job instanceof Service){
-				ServiceActivity service = ServiceActivity.newInstance((Service)job);
-				ActivityState state = new ActivityState(service);
-				tourActivities.put((Service) job, service);
-				activityStates.put(service, state);
+				addActivity(ServiceActivity.newInstance((Service)job));
 			}
 			else{
 				throw new IllegalStateException();
 			}
 		}
+		this.jobIndex = jobIndex;
 	}
 
 	@Override
 	public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
-		resetRouteStates();
+		retainRouteStates(solutions);
 	}
 
 	
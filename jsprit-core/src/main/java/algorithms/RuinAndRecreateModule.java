@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.Collection;
+
+import org.apache.log4j.Logger;
+
+import util.RouteUtils;
+import util.metrics.LatencyHistogram;
+import util.metrics.MetricsRegistry;
+import basics.Job;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.InsertionListener;
+import basics.algo.SearchStrategyModule;
+import basics.algo.SearchStrategyModuleListener;
+
+/**
+ * Module that ruins a solution with a {@link RuinStrategy} and recreates it with an {@link AbstractInsertionStrategy}.
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class RuinAndRecreateModule implements SearchStrategyModule {
+	
+	private Logger logger = Logger.getLogger(SearchStrategyModule.class);
+	
+	private final RuinStrategy ruin;
+	
+	private final AbstractInsertionStrategy insertion;
+	
+	private final MetricsRegistry metrics;
+	
+	private final LatencyHistogram ruinTime;
+	
+	private final LatencyHistogram recreateTime;
+
+	RuinAndRecreateModule(RuinStrategy ruin, AbstractInsertionStrategy insertion, MetricsRegistry metrics) {
+		super();
+		this.ruin = ruin;
+		this.insertion = insertion;
+		this.metrics = metrics;
+		this.ruinTime = metrics.getHistogram("ruin.time");
+		this.recreateTime = metrics.getHistogram("recreate.time");
+	}
+
+	@Override
+	public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution vrpSolution) {
+		boolean recordMetrics = metrics.isEnabled();
+		long startTime = recordMetrics ? System.nanoTime() : 0;
+		Collection<Job> ruinedJobs = ruin.ruin(vrpSolution.getRoutes());
+		long ruinEndTime = recordMetrics ? System.nanoTime() : 0;
+		insertion.run(vrpSolution.getRoutes(), ruinedJobs, Double.MAX_VALUE);
+		if(recordMetrics){
+			ruinTime.record(ruinEndTime - startTime);
+			recreateTime.recordSince(ruinEndTime);
+		}
+		double totalCost = RouteUtils.getTotalCost(vrpSolution.getRoutes());
+		vrpSolution.setCost(totalCost);
+		return vrpSolution;
+	}
+	
+	@Override
+	public String toString() {
+		return getName();
+	}
+	
+	@Override
+	public String getName() {
+		return "[name=ruin_and_recreate][ruin="+ruin+"][recreate="+insertion+"]";
+	}
+	
+	@Override
+	public void addModuleListener(SearchStrategyModuleListener moduleListener) {
+		if(moduleListener instanceof InsertionListener){
+			InsertionListener iListener = (InsertionListener) moduleListener; 
+			if(!insertion.getListener().contains(iListener)){
+				logger.info("register moduleListener " + moduleListener);
+				insertion.addListener(iListener);
+			}
+		}
+	}
+
+}
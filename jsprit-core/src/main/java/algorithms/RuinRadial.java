@@ -15,18 +15,13 @@ package algorithms;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.TreeSet;
 
 import org.apache.log4j.Logger;
 
 import util.RandomNumberGeneration;
-import util.StopWatch;
 import basics.Job;
 import basics.VehicleRoutingProblem;
 import basics.VehicleRoutingProblemSolution;
@@ -52,41 +47,37 @@ final class RuinRadial implements RuinStrategy {
 		return new RuinRadial(vrp, fraction, jobDistance, jobRemover, routeUpdater);
 	}
 	
-	
-	static class ReferencedJob {
-		private Job job;
-		private double distance;
-
-		public ReferencedJob(Job job, double distance) {
-			super();
-			this.job = job;
-			this.distance = distance;
-		}
-
-		public Job getJob() {
-			return job;
-		}
-
-		public double getDistance() {
-			return distance;
-		}
+	/**
+	 * returns a new instance of ruinRadial that determines the jobs to be ruined with the specified neighborhood-index. this way
+	 * several ruin-strategies can share one index.
+	 * 
+	 * @param vrp
+	 * @param fraction
+	 * @param jobNeighborhoods
+	 * @param jobRemover
+	 * @param routeUpdater
+	 * @return
+	 */
+	static RuinRadial newInstance(VehicleRoutingProblem vrp, double fraction, JobNeighborhoods jobNeighborhoods, JobRemover jobRemover, VehicleRouteUpdater routeUpdater){
+		return new RuinRadial(vrp, fraction, jobNeighborhoods, jobRemover, routeUpdater);
 	}
-
+	
+	
 	private Logger logger = Logger.getLogger(RuinRadial.class);
 
 	private VehicleRoutingProblem vrp;
 
 	private double fractionOfAllNodes2beRuined;
 
-	private Map<String, TreeSet<ReferencedJob>> distanceNodeTree = new HashMap<String, TreeSet<ReferencedJob>>();
+	private JobNeighborhoods jobNeighborhoods;
 
-	private Random random = RandomNumberGeneration.getRandom();
+	private Random random = RandomNumberGeneration.newRandom(RuinRadial.class);
 
-	private JobDistance jobDistance;
-	
 	private JobRemover jobRemover;
 	
 	private VehicleRouteUpdater routeUpdater;
+	
+	private JobSampler jobSampler;
 
 	public void setRandom(Random random) {
 		this.random = random;
@@ -95,49 +86,42 @@ final class RuinRadial implements RuinStrategy {
 	public RuinRadial(VehicleRoutingProblem vrp, double fraction, JobDistance jobDistance, JobRemover jobRemover, VehicleRouteUpdater routeUpdater) {
 		super();
 		this.vrp = vrp;
-		this.jobDistance = jobDistance;
 		this.jobRemover = jobRemover;
 		this.routeUpdater = routeUpdater;
 		this.fractionOfAllNodes2beRuined = fraction;
-		calculateDistancesFromJob2Job();
+		this.jobNeighborhoods = JobNeighborhoods.newInstance(vrp.getJobs().values(), jobDistance, getNuOfJobs2BeRemoved());
+		this.jobSampler = JobSampler.newInstance(vrp.getJobs().values());
+		logger.info("intialise " + this);
+	}
+	
+	public RuinRadial(VehicleRoutingProblem vrp, double fraction, JobNeighborhoods jobNeighborhoods, JobRemover jobRemover, VehicleRouteUpdater routeUpdater) {
+		super();
+		this.vrp = vrp;
+		this.jobRemover = jobRemover;
+		this.routeUpdater = routeUpdater;
+		this.fractionOfAllNodes2beRuined = fraction;
+		this.jobNeighborhoods = jobNeighborhoods;
+		this.jobSampler = JobSampler.newInstance(vrp.getJobs().values());
 		logger.info("intialise " + this);
 	}
 
+	/**
+	 * Restricts the jobs around which is ruined to targetJobs, i.e. only their neighborhoods are ruined. By default, 
+	 * all jobs of the problem are targets.
+	 * 
+	 * @param targetJobs
+	 */
+	void setTargetJobs(Collection<Job> targetJobs){
+		if(targetJobs.isEmpty()) throw new IllegalStateException("there must be at least one target job");
+		this.jobSampler = JobSampler.newInstance(targetJobs);
+		logger.info("restrict target jobs to " + targetJobs.size() + " jobs");
+	}
+
 	public void setRuinFraction(double fractionOfAllNodes) {
 		this.fractionOfAllNodes2beRuined = fractionOfAllNodes;
 		logger.info("fraction set " + this);
 	}
 
-	private void calculateDistancesFromJob2Job() {
-		logger.info("preprocess distances between locations ...");
-		StopWatch stopWatch = new StopWatch();
-		stopWatch.start();
-		int nuOfDistancesStored = 0;
-		for (Job i : vrp.getJobs().values()) {
-			TreeSet<ReferencedJob> treeSet = new TreeSet<ReferencedJob>(
-					new Comparator<ReferencedJob>() {
-						@Override
-						public int compare(ReferencedJob o1, ReferencedJob o2) {
-							if (o1.getDistance() <= o2.getDistance()) {
-								return 1;
-							} else {
-								return -1;
-							}
-						}
-					});
-			distanceNodeTree.put(i.getId(), treeSet);
-			for (Job j : vrp.getJobs().values()) {
-				double distance = jobDistance.calculateDistance(i, j);
-				ReferencedJob refNode = new ReferencedJob(j, distance);
-				treeSet.add(refNode);
-				nuOfDistancesStored++;
-			}
-		}
-		stopWatch.stop();
-		logger.info("preprocessing comp-time: " + stopWatch + "; nuOfDistances stored: " + nuOfDistancesStored + "; estimated memory: " + 
-				(distanceNodeTree.keySet().size()*64+nuOfDistancesStored*92) + " bytes");
-	}
-	
 	@Override
 	public String toString() {
 		return "[name=radialRuin][fraction="+fractionOfAllNodes2beRuined+"]";
@@ -159,21 +143,11 @@ final class RuinRadial implements RuinStrategy {
 	
 	public Collection<Job> ruin(Collection<VehicleRoute> vehicleRoutes, Job targetJob, int nOfJobs2BeRemoved){
 		List<Job> unassignedJobs = new ArrayList<Job>();
-		TreeSet<ReferencedJob> tree = distanceNodeTree.get(targetJob.getId());
-		Iterator<ReferencedJob> descendingIterator = tree.descendingIterator();
-		int counter = 0;
-		while (descendingIterator.hasNext() && counter < nOfJobs2BeRemoved) {
-			ReferencedJob refJob = descendingIterator.next();
-			Job job = refJob.getJob();
+		Iterator<Job> neighborIterator = jobNeighborhoods.getNearestNeighborsIterator(nOfJobs2BeRemoved, targetJob);
+		while (neighborIterator.hasNext()) {
+			Job job = neighborIterator.next();
 			unassignedJobs.add(job);
-			counter++;
-			boolean removed = false;
-			for (VehicleRoute route : vehicleRoutes) {
-				removed = jobRemover.removeJobWithoutTourUpdate(job, route); 
-				if (removed) {
-					break;
-				}
-			}
+			jobRemover.removeJobWithoutTourUpdate(job, vehicleRoutes);
 		}
 		for(VehicleRoute route : vehicleRoutes){
 			routeUpdater.updateRoute(route);
@@ -182,10 +156,7 @@ final class RuinRadial implements RuinStrategy {
 	}
 	
 	private Job pickRandomJob() {
-		int totNuOfJobs = vrp.getJobs().values().size();
-		int randomIndex = random.nextInt(totNuOfJobs);
-		Job job = new ArrayList<Job>(vrp.getJobs().values()).get(randomIndex);
-		return job;
+		return jobSampler.randomJob(random);
 	}
 
 	private int getNuOfJobs2BeRemoved() {
@@ -14,7 +14,6 @@ package algorithms;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
@@ -46,11 +45,13 @@ final class RuinRandom implements RuinStrategy {
 
 	private double fractionOfAllNodes2beRuined;
 
-	private Random random = RandomNumberGeneration.getRandom();
+	private Random random = RandomNumberGeneration.newRandom(RuinRandom.class);
 
 	private JobRemover jobRemover;
 
 	private VehicleRouteUpdater vehicleRouteUpdater;
+	
+	private JobSampler jobSampler;
 
 	public void setRandom(Random random) {
 		this.random = random;
@@ -70,6 +71,7 @@ final class RuinRandom implements RuinStrategy {
 		this.jobRemover = jobRemover;
 		this.vehicleRouteUpdater = vehicleRouteUpdater;
 		this.fractionOfAllNodes2beRuined = fraction;
+		this.jobSampler = JobSampler.newInstance(vrp.getJobs().values());
 		logger.info("initialise " + this);
 		logger.info("done");
 	}
@@ -94,14 +96,9 @@ final class RuinRandom implements RuinStrategy {
 	public Collection<Job> ruin(Collection<VehicleRoute> vehicleRoutes, Job targetJob, int nOfJobs2BeRemoved) {
 		List<Job> unassignedJobs = new ArrayList<Job>();
 		if(targetJob != null){
-			boolean removed = false;
-			for (VehicleRoute route : vehicleRoutes) {
-				removed = jobRemover.removeJobWithoutTourUpdate(targetJob, route);
-				if (removed) {
-					nOfJobs2BeRemoved--;
-					unassignedJobs.add(targetJob);
-					break;
-				}
+			if(jobRemover.removeJobWithoutTourUpdate(targetJob, vehicleRoutes) != null){
+				nOfJobs2BeRemoved--;
+				unassignedJobs.add(targetJob);
 			}
 		}
 		ruin(vehicleRoutes, nOfJobs2BeRemoved, unassignedJobs);
@@ -114,15 +111,15 @@ final class RuinRandom implements RuinStrategy {
 	}
 
 	private void ruin(Collection<VehicleRoute> vehicleRoutes,int nOfJobs2BeRemoved, List<Job> unassignedJobs) {
-		LinkedList<Job> availableJobs = new LinkedList<Job>(vrp.getJobs().values());
-		for (int i = 0; i < nOfJobs2BeRemoved; i++) {
-			Job job = pickRandomJob(availableJobs);
+		jobSampler.reset();
+		for(Job removedJob : unassignedJobs){
+			jobSampler.drawJob(removedJob);
+		}
+		int nOfJobs = Math.min(nOfJobs2BeRemoved, jobSampler.getNuOfAvailableJobs());
+		for (int i = 0; i < nOfJobs; i++) {
+			Job job = jobSampler.drawJob(random);
 			unassignedJobs.add(job);
-			availableJobs.remove(job);
-			for (VehicleRoute route : vehicleRoutes) {
-				boolean removed = jobRemover.removeJobWithoutTourUpdate(job, route);
-				if (removed) break;
-			}
+			jobRemover.removeJobWithoutTourUpdate(job, vehicleRoutes);
 		}
 		updateRoutes(vehicleRoutes);
 	}
@@ -139,11 +136,6 @@ final class RuinRandom implements RuinStrategy {
 		return "[name=randomRuin][fraction="+fractionOfAllNodes2beRuined+"]";
 	}
 	
-	private Job pickRandomJob(LinkedList<Job> availableJobs) {
-		int randomIndex = random.nextInt(availableJobs.size());
-		return availableJobs.get(randomIndex);
-	}
-
 	private int selectNuOfJobs2BeRemoved() {
 		return (int) Math.ceil(vrp.getJobs().values().size() * fractionOfAllNodes2beRuined);
 	}
@@ -14,6 +14,8 @@ package algorithms;
 
 import org.apache.log4j.Logger;
 
+import util.metrics.LatencyHistogram;
+import util.metrics.MetricsRegistry;
 import basics.costs.VehicleRoutingActivityCosts;
 import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.VehicleRoute;
@@ -36,6 +38,10 @@ import basics.route.VehicleRoute;
  * 
  * If softTimeWindow is set to true, latestOperationStartTimes are not updated and the tour is always feasible.
  * 
+ * Routes whose tours have not been modified since their last update are skipped. Otherwise only the states of activities that 
+ * might have changed are updated, i.e. forward in time from the lowest and backward in time from the highest modified position 
+ * (see TourActivities.getModCount()).
+ * 
  * @author stefan schroeder
  *
  */
@@ -56,9 +62,22 @@ class TourStateUpdater implements VehicleRouteUpdater{
 	
 	private RouteStates actStates;
 	
+	private final MetricsRegistry metrics;
+	
+	private final LatencyHistogram updateTime;
+	
 	public TourStateUpdater(RouteStates activityStates, VehicleRoutingTransportCosts costs, VehicleRoutingActivityCosts costFunction) {
+		this(activityStates, costs, costFunction, MetricsRegistry.getDefault());
+	}
+	
+	/**
+	 * Constructs the updater, which records the latency of updates to metrics.
+	 */
+	public TourStateUpdater(RouteStates activityStates, VehicleRoutingTransportCosts costs, VehicleRoutingActivityCosts costFunction, MetricsRegistry metrics) {
 		super();
-		forwardUpdate = new UpdateTourStatesForwardInTime(costs, costs, costFunction);
+		this.metrics = metrics;
+		this.updateTime = metrics.getHistogram("stateUpdate.time");
+		forwardUpdate = new UpdateTourStatesForwardInTime(costs, costFunction);
 		backwardUpdate = new UpdateTourStatesBackwardInTime(costs);
 		actStates=activityStates;
 		forwardUpdate.setActivityStates(actStates);
@@ -69,11 +88,14 @@ class TourStateUpdater implements VehicleRouteUpdater{
 	 * 
 	 */
 	public boolean updateRoute(VehicleRoute vehicleRoute) {
+		boolean recordMetrics = metrics.isEnabled();
+		long startTime = recordMetrics ? System.nanoTime() : 0;
 		if(updateTimeWindows){
 			backwardUpdate.checkFeasibility = ensureFeasibility;
 			backwardUpdate.updateRoute(vehicleRoute);
 		}
 		forwardUpdate.updateRoute(vehicleRoute);
+		if(recordMetrics) updateTime.recordSince(startTime);
 		boolean tourIsFeasible = true; 
 		
 		return tourIsFeasible;
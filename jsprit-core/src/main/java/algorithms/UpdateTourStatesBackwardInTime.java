@@ -12,12 +12,12 @@
  ******************************************************************************/
 package algorithms;
 
-import java.util.Iterator;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 
 import algorithms.RouteStates.ActivityState;
-import basics.costs.BackwardTransportTime;
+import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.Start;
 import basics.route.TourActivities;
 import basics.route.TourActivity;
@@ -42,7 +42,7 @@ class UpdateTourStatesBackwardInTime implements VehicleRouteUpdater{
 	
 	public boolean checkFeasibility = true;
 
-	private BackwardTransportTime transportTime;
+	private ActivityTransportCosts transportTime;
 	
 	private RouteStates actStates;
 	
@@ -54,49 +54,62 @@ class UpdateTourStatesBackwardInTime implements VehicleRouteUpdater{
 		return actStates.getState(act);
 	}
 	
-	public UpdateTourStatesBackwardInTime(BackwardTransportTime transportTime) {
+	public UpdateTourStatesBackwardInTime(VehicleRoutingTransportCosts transportCosts) {
 		super();
-		this.transportTime = transportTime;
+		this.transportTime = new ActivityTransportCosts(transportCosts);
 	}
 
-	/*
+	/**
+	 * Updates latest operation starts of the route's activities.
 	 * 
+	 * <p>A route whose tour has not been modified since its last update is skipped, and otherwise only activities from the 
+	 * highest modified position backwards are updated. This also applies to copies of the route (see {@link RouteStates}), 
+	 * unless states of its activities have been updated for another route in the meantime.
 	 */
 	public boolean updateRoute(VehicleRoute vehicleRoute) {
-		boolean ok = update(vehicleRoute);
+		TourActivities tour = vehicleRoute.getTourActivities();
+		int routeIndex = actStates.getRouteIndex(vehicleRoute);
+		int modCount = tour.getModCount();
+		int lastUpdate = actStates.getBackwardUpdateModCount(routeIndex);
+		if(lastUpdate == modCount){
+			return true;
+		}
+		boolean ok = update(vehicleRoute, routeIndex, tour.getHighestModifiedIndex(lastUpdate));
+		actStates.setBackwardUpdateModCount(routeIndex, modCount);
 		return ok;
 	}
 
-
-
-	private boolean update(VehicleRoute vehicleRoute) {
-		TourActivities tour = vehicleRoute.getTourActivities();
-		int tourSize = tour.getActivities().size();
-		Iterator<TourActivity> reverseActIter = vehicleRoute.getTourActivities().reverseActivityIterator();
-		TourActivity prevAct;
+	private boolean update(VehicleRoute vehicleRoute, int routeIndex, int fromIndex) {
+		List<TourActivity> activities = vehicleRoute.getTourActivities().getActivities();
 		boolean feasible = true;
-		prevAct = vehicleRoute.getEnd();
+		TourActivity prevAct = vehicleRoute.getEnd();
 		double startAtPrevAct = prevAct.getTheoreticalLatestOperationStartTime();
-		int count = 0;
-		while(reverseActIter.hasNext()){
-			TourActivity currAct = reverseActIter.next();
-			
+		if(fromIndex < activities.size()-1){
+			//continue with the state of the unmodified successor of fromIndex
+			int prevActIndex = actStates.getActivityIndex(activities.get(fromIndex+1));
+			if(prevActIndex == RouteStates.NO_INDEX){
+				fromIndex = activities.size()-1;
+			}
+			else{
+				prevAct = activities.get(fromIndex+1);
+				startAtPrevAct = actStates.getLatestOperationStart(prevActIndex);
+			}
+		}
+		for(int i=fromIndex;i>=0;i--){
+			TourActivity currAct = activities.get(i);
 			double latestOperationStartTime = latestOperationStartTime(vehicleRoute, prevAct, currAct, startAtPrevAct);
-			ActivityState state = state(currAct);
-			state.setLatestOperationStart(latestOperationStartTime);
+			int actIndex = actStates.getActivityIndex(currAct);
+			actStates.setLatestOperationStart(actIndex, latestOperationStartTime);
+			actStates.setBackwardUpdatingRoute(actIndex, routeIndex);
 			prevAct = currAct;
 			startAtPrevAct = latestOperationStartTime;
-			count++;
 		}
-//		Start start = vehicleRoute.getStart();
-//		double latestOperationStartTime = latestOperationStartTime(vehicleRoute, prevAct, start, startAtPrevAct);
-		assert count == tourSize;
 		return feasible;
 	}
 
 	private double latestOperationStartTime(VehicleRoute vehicleRoute,
 			TourActivity prevAct, TourActivity currAct, double startAtPrevAct) {
-		double latestDepTimeAtCurrAct = startAtPrevAct - transportTime.getBackwardTransportTime(currAct.getLocationId(), prevAct.getLocationId(), startAtPrevAct, vehicleRoute.getDriver(),vehicleRoute.getVehicle());
+		double latestDepTimeAtCurrAct = startAtPrevAct - transportTime.getBackwardTransportTime(currAct, prevAct, startAtPrevAct, vehicleRoute.getDriver(),vehicleRoute.getVehicle());
 		double potentialLatestOperationStartTimeAtCurrAct = latestDepTimeAtCurrAct - currAct.getOperationTime();
 		double latestOperationStartTime = Math.min(currAct.getTheoreticalLatestOperationStartTime(), potentialLatestOperationStartTimeAtCurrAct);
 		return latestOperationStartTime;
@@ -12,12 +12,14 @@
  ******************************************************************************/
 package algorithms;
 
+import java.util.List;
+
 import org.apache.log4j.Logger;
 
 import algorithms.RouteStates.ActivityState;
-import basics.costs.ForwardTransportCost;
-import basics.costs.ForwardTransportTime;
+import basics.costs.TransportLeg;
 import basics.costs.VehicleRoutingActivityCosts;
+import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.Driver;
 import basics.route.End;
 import basics.route.ServiceActivity;
@@ -25,6 +27,7 @@ import basics.route.TourActivities;
 import basics.route.TourActivity;
 import basics.route.Vehicle;
 import basics.route.VehicleRoute;
+import basics.route.VehicleRouteCostCalculator;
 
 
 /**
@@ -42,9 +45,7 @@ class UpdateTourStatesForwardInTime implements VehicleRouteUpdater{
 	
 	private VehicleRoutingActivityCosts activityCost;
 
-	private ForwardTransportTime transportTime;
-
-	private ForwardTransportCost transportCost;
+	private ActivityTransportCosts transportCosts;
 	
 	private RouteStates routeStates;
 	
@@ -59,38 +60,87 @@ class UpdateTourStatesForwardInTime implements VehicleRouteUpdater{
 		return routeStates.getState(act);
 	}
 
-	public UpdateTourStatesForwardInTime(ForwardTransportTime transportTime, ForwardTransportCost transportCost, VehicleRoutingActivityCosts activityCost) {
+	public UpdateTourStatesForwardInTime(VehicleRoutingTransportCosts transportCosts, VehicleRoutingActivityCosts activityCost) {
 		super();
-		this.transportTime = transportTime;
-		this.transportCost = transportCost;
+		this.transportCosts = new ActivityTransportCosts(transportCosts);
 		this.activityCost = activityCost;
 	}
 
 	/**
+	 * Updates earliest operation starts, loads and costs of the route's activities, and costs and load of the route. 
 	 * 
+	 * <p>If activity states are set, a route whose tour has not been modified since its last update is skipped, and otherwise 
+	 * only activities from the lowest modified position onwards are updated. This also applies to copies of the route (see {@link RouteStates}), 
+	 * unless states of its activities have been updated for another route in the meantime.
 	 * 
 	 */
 	public boolean updateRoute(VehicleRoute vehicleRoute) {
-		vehicleRoute.getVehicleRouteCostCalculator().reset();
+		if(!activityStatesSet){
+			update(vehicleRoute, 0);
+			return true;
+		}
+		TourActivities tour = vehicleRoute.getTourActivities();
+		int routeIndex = routeStates.getRouteIndex(vehicleRoute);
+		int modCount = tour.getModCount();
+		int lastUpdate = routeStates.getForwardUpdateModCount(routeIndex);
+		if(lastUpdate == modCount){
+			return true;
+		}
+		update(vehicleRoute, tour.getLowestModifiedIndex(lastUpdate));
+		routeStates.setForwardUpdateModCount(routeIndex, modCount);
+		return true;
+	}
+	
+	private void update(VehicleRoute vehicleRoute, int fromIndex) {
+		int routeIndex = routeStates.getRouteIndex(vehicleRoute);
+		VehicleRouteCostCalculator routeCostCalculator = vehicleRoute.getVehicleRouteCostCalculator();
+		routeCostCalculator.reset();
 		
 		Vehicle vehicle = vehicleRoute.getVehicle();
 		Driver driver = vehicleRoute.getDriver();
+		List<TourActivity> activities = vehicleRoute.getTourActivities().getActivities();
+		TransportLeg leg = new TransportLeg();
 		
 		TourActivity prevAct = vehicleRoute.getStart(); 
-		
 		double startAtPrevAct = vehicleRoute.getStart().getEndTime();
 		
 		double totalOperationCost = 0.0;
+		double totalTransportCost = 0.0;
+		double totalActivityCost = 0.0;
 		int totalLoadPicked = 0;
 		int currentLoadState = 0;
 		
-		for(TourActivity currentAct : vehicleRoute.getTourActivities().getActivities()){ 
+		int prevActIndex = RouteStates.NO_INDEX;
+		if(fromIndex > 0 && activityStatesSet){
+			prevActIndex = routeStates.getActivityIndex(activities.get(fromIndex-1));
+		}
+		if(prevActIndex == RouteStates.NO_INDEX){
+			fromIndex = 0;
+		}
+		else{
+			//continue with the states of the unmodified activities in front of fromIndex
+			prevAct = activities.get(fromIndex-1);
+			startAtPrevAct = prevAct.getEndTime();
+			totalOperationCost = routeStates.getCurrentCost(prevActIndex);
+			totalTransportCost = routeStates.getCurrentTransportCost(prevActIndex);
+			totalActivityCost = routeStates.getCurrentActivityCost(prevActIndex);
+			currentLoadState = (int) routeStates.getCurrentLoad(prevActIndex);
+			for(int i=0;i<fromIndex;i++){
+				totalLoadPicked += getPickedLoad(activities.get(i));
+			}
+			routeCostCalculator.addTransportCost(totalTransportCost);
+			routeCostCalculator.addActivityCost(totalActivityCost);
+		}
+		
+		for(int i=fromIndex;i<activities.size();i++){ 
+			TourActivity currentAct = activities.get(i);
 			totalLoadPicked += getPickedLoad(currentAct); 
 			currentLoadState += getCapDemand(currentAct);
 			
-			double transportTime = this.transportTime.getTransportTime(prevAct.getLocationId(), currentAct.getLocationId(), startAtPrevAct, driver, vehicle);
+			transportCosts.getTransportLeg(prevAct, currentAct, startAtPrevAct, driver, vehicle, leg);
+			double transportCost = leg.getCost();
 			
-			double arrivalTimeAtCurrAct = startAtPrevAct + transportTime; 
+			double arrivalTimeAtCurrAct = startAtPrevAct + leg.getTime(); 
 			double operationStartTime = Math.max(currentAct.getTheoreticalEarliestOperationStartTime(), arrivalTimeAtCurrAct);
 		
 			double operationEndTime = operationStartTime + currentAct.getOperationTime();
@@ -98,20 +148,24 @@ class UpdateTourStatesForwardInTime implements VehicleRouteUpdater{
 			currentAct.setArrTime(arrivalTimeAtCurrAct);
 			currentAct.setEndTime(operationEndTime);
 			
-			double transportCost = this.transportCost.getTransportCost(prevAct.getLocationId(), currentAct.getLocationId(), startAtPrevAct, driver, vehicle);
 			double actCost = activityCost.getActivityCost(currentAct, arrivalTimeAtCurrAct, driver, vehicle);
 			
-			vehicleRoute.getVehicleRouteCostCalculator().addTransportCost(transportCost);
-			vehicleRoute.getVehicleRouteCostCalculator().addActivityCost(actCost);
+			routeCostCalculator.addTransportCost(transportCost);
+			routeCostCalculator.addActivityCost(actCost);
 			
 			totalOperationCost += transportCost;
 			totalOperationCost += actCost;
+			totalTransportCost += transportCost;
+			totalActivityCost += actCost;
 			
 			if(activityStatesSet){
-				ActivityState currentState = state(currentAct);
-				currentState.setEarliestOperationStart(operationStartTime);
-				currentState.setCurrentLoad(currentLoadState);
-				currentState.setCurrentCost(totalOperationCost);
+				int actIndex = routeStates.getActivityIndex(currentAct);
+				routeStates.setEarliestOperationStart(actIndex, operationStartTime);
+				routeStates.setCurrentLoad(actIndex, currentLoadState);
+				routeStates.setCurrentCost(actIndex, totalOperationCost);
+				routeStates.setCurrentTransportCost(actIndex, totalTransportCost);
+				routeStates.setCurrentActivityCost(actIndex, totalActivityCost);
+				routeStates.setForwardUpdatingRoute(actIndex, routeIndex);
 			}
 			
 			prevAct = currentAct;
@@ -119,24 +173,23 @@ class UpdateTourStatesForwardInTime implements VehicleRouteUpdater{
 		}
 		
 		End currentAct = vehicleRoute.getEnd();
-		double transportCost = this.transportCost.getTransportCost(prevAct.getLocationId(), currentAct.getLocationId(), startAtPrevAct, driver, vehicle);
-		double transportTime = this.transportTime.getTransportTime(prevAct.getLocationId(), currentAct.getLocationId(), startAtPrevAct, driver, vehicle);
-		double arrivalTimeAtCurrAct = startAtPrevAct + transportTime; 
+		transportCosts.getTransportLeg(prevAct, currentAct, startAtPrevAct, driver, vehicle, leg);
+		double transportCost = leg.getCost();
+		double arrivalTimeAtCurrAct = startAtPrevAct + leg.getTime(); 
 		
 		currentAct.setArrTime(arrivalTimeAtCurrAct);
 		currentAct.setEndTime(arrivalTimeAtCurrAct);
 		
 		totalOperationCost += transportCost;
 			
-		routeStates.getRouteState(vehicleRoute).setCosts(totalOperationCost);
-		routeStates.getRouteState(vehicleRoute).setLoad(totalLoadPicked);
+		routeStates.setRouteCosts(routeIndex, totalOperationCost);
+		routeStates.setRouteLoad(routeIndex, totalLoadPicked);
 		
-		vehicleRoute.getVehicleRouteCostCalculator().addTransportCost(transportCost);
+		routeCostCalculator.addTransportCost(transportCost);
 		
-		vehicleRoute.getVehicleRouteCostCalculator().price(vehicleRoute.getDriver());
-		vehicleRoute.getVehicleRouteCostCalculator().price(vehicleRoute.getVehicle());
-		vehicleRoute.getVehicleRouteCostCalculator().finish();
-		return true;
+		routeCostCalculator.price(vehicleRoute.getDriver());
+		routeCostCalculator.price(vehicleRoute.getVehicle());
+		routeCostCalculator.finish();
 	}
 
 	private int getCapDemand(TourActivity currentAct) {
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.log4j.Logger;
+
+import util.Coordinate;
+import util.metrics.MetricsRegistry;
+import basics.Service;
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.io.AlgorithmConfig;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+/**
+ * Algorithm-config that has been copied and validated once, and from which algorithms for many problems can be created.
+ * 
+ * <p>newInstance(AlgorithmConfig) copies the config, such that later changes to the config do not affect it, and validates it 
+ * by creating an algorithm for a problem with one vehicle and one service. Thus errors in the config show up when validating it 
+ * and not when solving a problem. 
+ * 
+ * <p>Nothing is precompiled. {@link #createAlgorithm(VehicleRoutingProblem)} reads the config and creates all components of the 
+ * algorithm (like {@link VehicleRoutingAlgorithms#createAlgorithm(VehicleRoutingProblem, basics.io.AlgorithmConfig)} does), it only saves 
+ * parsing the xml-file. 
+ * 
+ * <p>It can be shared by threads. Since the configuration is not thread-safe, each algorithm is built from its own copy of it. 
+ * Only copying it is done one at a time, building the algorithm (which includes problem-dependent work such as calculating job-neighborhoods) 
+ * is done concurrently.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class ValidatedAlgorithmConfig {
+	
+	private static Logger log = Logger.getLogger(ValidatedAlgorithmConfig.class);
+	
+	/**
+	 * Copies and validates the algorithm-config.
+	 * 
+	 * @param algorithmConfig
+	 * @return validated copy of algorithmConfig
+	 * @throws IllegalStateException if the config is not valid
+	 */
+	public static ValidatedAlgorithmConfig newInstance(AlgorithmConfig algorithmConfig){
+		ValidatedAlgorithmConfig validatedConfig = new ValidatedAlgorithmConfig(new XMLConfiguration(algorithmConfig.getXMLConfiguration()));
+		validatedConfig.validate();
+		return validatedConfig;
+	}
+	
+	private final XMLConfiguration config;
+	
+	private final int nuOfIslands;
+	
+	private ValidatedAlgorithmConfig(XMLConfiguration config){
+		this.config = config;
+		this.nuOfIslands = config.getInt("islands", 1);
+	}
+	
+	private void validate() {
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("vehicle").setLocationId("depot").setLocationCoord(Coordinate.newInstance(0, 0))
+				.setType(VehicleTypeImpl.Builder.newInstance("type", 1).build()).build());
+		vrpBuilder.addService(Service.Builder.newInstance("service", 1).setLocationId("customer").setCoord(Coordinate.newInstance(1, 1)).build());
+		try{
+			createAlgorithm(vrpBuilder.build());
+		}
+		catch(RuntimeException e){
+			throw new IllegalStateException("algorithm-config is not valid. " + e.getMessage(), e);
+		}
+		log.info("validated " + this);
+	}
+
+	/**
+	 * Creates an algorithm that solves vrp according to this config.
+	 * 
+	 * @param vrp
+	 * @return algorithm
+	 */
+	public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp){
+		return createAlgorithm(vrp, MetricsRegistry.getDefault());
+	}
+	
+	/**
+	 * Creates an algorithm that solves vrp according to this config, and whose components record their metrics to metricsRegistry.
+	 * 
+	 * @param vrp
+	 * @param metricsRegistry
+	 * @return algorithm
+	 */
+	public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, MetricsRegistry metricsRegistry){
+		XMLConfiguration algorithmConfig;
+		synchronized(config){
+			algorithmConfig = new XMLConfiguration(config);
+		}
+		return VehicleRoutingAlgorithms.createAlgo(vrp, algorithmConfig, null, 0, metricsRegistry);
+	}
+	
+	/**
+	 * Returns the number of islands each algorithm consists of.
+	 * 
+	 * @return nuOfIslands
+	 */
+	public int getNuOfIslands(){
+		return nuOfIslands;
+	}
+
+	@Override
+	public String toString() {
+		return "[name=validatedAlgorithmConfig][islands="+nuOfIslands+"]";
+	}
+
+}
@@ -35,10 +35,12 @@ import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.commons.configuration.XMLConfiguration;
 import org.apache.log4j.Logger;
 
-import util.RouteUtils;
+import util.RandomNumberGeneration;
+import util.metrics.MetricsRegistry;
 import algorithms.VehicleRoutingAlgorithms.TypedMap.AbstractInsertionKey;
 import algorithms.VehicleRoutingAlgorithms.TypedMap.AbstractKey;
 import algorithms.VehicleRoutingAlgorithms.TypedMap.AcceptorKey;
+import algorithms.VehicleRoutingAlgorithms.TypedMap.JobNeighborhoodsKey;
 import algorithms.VehicleRoutingAlgorithms.TypedMap.RuinStrategyKey;
 import algorithms.VehicleRoutingAlgorithms.TypedMap.SelectorKey;
 import algorithms.VehicleRoutingAlgorithms.TypedMap.StrategyModuleKey;
@@ -55,13 +57,14 @@ import basics.VehicleRoutingProblem;
 import basics.VehicleRoutingProblem.FleetSize;
 import basics.VehicleRoutingProblemSolution;
 import basics.algo.AlgorithmStartsListener;
+import basics.algo.CpuTimeBreaker;
 import basics.algo.InsertionListener;
 import basics.algo.IterationWithoutImprovementBreaker;
+import basics.algo.ObjectiveValueBreaker;
 import basics.algo.PrematureAlgorithmBreaker;
 import basics.algo.SearchStrategy;
 import basics.algo.SearchStrategyManager;
 import basics.algo.SearchStrategyModule;
-import basics.algo.SearchStrategyModuleListener;
 import basics.algo.TimeBreaker;
 import basics.algo.VariationCoefficientBreaker;
 import basics.algo.SearchStrategy.DiscoveredSolution;
@@ -302,6 +305,48 @@ public class VehicleRoutingAlgorithms {
 			
 		}
 				
+		static class JobNeighborhoodsKey implements AbstractKey<JobNeighborhoods>{
+
+			private String jobDistanceName;
+			
+			public JobNeighborhoodsKey(String jobDistanceName) {
+				super();
+				this.jobDistanceName = jobDistanceName;
+			}
+			
+			@Override
+			public int hashCode() {
+				final int prime = 31;
+				int result = 1;
+				result = prime * result
+						+ ((jobDistanceName == null) ? 0 : jobDistanceName.hashCode());
+				return result;
+			}
+
+			@Override
+			public boolean equals(Object obj) {
+				if (this == obj)
+					return true;
+				if (obj == null)
+					return false;
+				if (getClass() != obj.getClass())
+					return false;
+				JobNeighborhoodsKey other = (JobNeighborhoodsKey) obj;
+				if (jobDistanceName == null) {
+					if (other.jobDistanceName != null)
+						return false;
+				} else if (!jobDistanceName.equals(other.jobDistanceName))
+					return false;
+				return true;
+			}
+
+			@Override
+			public Class<JobNeighborhoods> getType() {
+				return JobNeighborhoods.class;
+			}
+			
+		}
+				
 		private Map<AbstractKey<?>, Object> map = new HashMap<AbstractKey<?>, Object>();
 
 		public <T> T get(AbstractKey<T> key) {
@@ -375,6 +420,18 @@ public class VehicleRoutingAlgorithms {
 		return createAlgo(vrp,algorithmConfig.getXMLConfiguration(),null,0);
 	}
 	
+	/**
+	 * Creates a {@link VehicleRoutingAlgorithm} from a AlgorithConfig based on the input vrp, whose components record their metrics to metricsRegistry.
+	 * 
+	 * @param vrp
+	 * @param algorithmConfig
+	 * @param metricsRegistry
+	 * @return {@link VehicleRoutingAlgorithm}
+	 */
+	public static VehicleRoutingAlgorithm createAlgorithm(final VehicleRoutingProblem vrp, final AlgorithmConfig algorithmConfig, MetricsRegistry metricsRegistry){
+		return createAlgo(vrp,algorithmConfig.getXMLConfiguration(),null,0,metricsRegistry);
+	}
+	
 	@Deprecated
 	public static VehicleRoutingAlgorithm readAndCreateAlgorithm(final VehicleRoutingProblem vrp, final XMLConfiguration config){
 		return createAlgo(vrp,config,null,0);
@@ -424,21 +481,46 @@ public class VehicleRoutingAlgorithms {
 		return createAlgo(vrp,algorithmConfig.getXMLConfiguration(), executorService, nuOfThreads);
 	}
 
-	private static VehicleRoutingAlgorithm createAlgo(final VehicleRoutingProblem vrp, XMLConfiguration config, ExecutorService executorService, int nuOfThreads){
-			
-		//fleetmanager
-		final VehicleFleetManager vehicleFleetManager;
-		if(vrp.getFleetSize().equals(FleetSize.INFINITE)){
-			vehicleFleetManager = new InfiniteVehicles(vrp.getVehicles());
-
-		}
-		else if(vrp.getFleetSize().equals(FleetSize.FINITE)){ 
-			vehicleFleetManager = new VehicleFleetManagerImpl(vrp.getVehicles()); 
+	static VehicleRoutingAlgorithm createAlgo(final VehicleRoutingProblem vrp, XMLConfiguration config, ExecutorService executorService, int nuOfThreads){
+		return createAlgo(vrp, config, executorService, nuOfThreads, MetricsRegistry.getDefault());
+	}
+	
+	static VehicleRoutingAlgorithm createAlgo(final VehicleRoutingProblem vrp, XMLConfiguration config, ExecutorService executorService, int nuOfThreads, MetricsRegistry metrics){
+		int nuOfIslands = config.getInt("islands", 1);
+		if(nuOfIslands > 1){
+			return createIslandAlgo(vrp, config, executorService, nuOfThreads, nuOfIslands, metrics);
 		}
-		else{
-			throw new IllegalStateException("fleet size can only be infinite or finite. " +
-					"makes sure your config file contains one of these options");
+		return createSingleAlgo(vrp, config, executorService, nuOfThreads, metrics);
+	}
+	
+	/**
+	 * Creates nuOfIslands independent algorithms and runs them in parallel. Each island gets its own random-number generator 
+	 * which is seeded with the global one, and records its metrics to the scope island[i] of metrics. 
+	 */
+	private static VehicleRoutingAlgorithm createIslandAlgo(final VehicleRoutingProblem vrp, XMLConfiguration config, ExecutorService executorService, int nuOfThreads, int nuOfIslands, MetricsRegistry metrics){
+		int migrationInterval = config.getInt("migrationInterval", 0);
+		if(migrationInterval < 0) throw new IllegalStateException("migrationInterval must not be negative");
+		log.info("create " + nuOfIslands + " islands with migrationInterval " + migrationInterval);
+		List<VehicleRoutingAlgorithm> islands = new ArrayList<VehicleRoutingAlgorithm>();
+		long masterSeed = RandomNumberGeneration.getSeed();
+		for(int i=0;i<nuOfIslands;i++){
+			RandomNumberGeneration.setThreadSeed(RandomNumberGeneration.deriveSeed(masterSeed, i));
+			try{
+				islands.add(createSingleAlgo(vrp, config, executorService, nuOfThreads, metrics.getScope("island" + i)));
+			}
+			finally{
+				RandomNumberGeneration.removeThreadSeed();
+			}
 		}
+		IslandVehicleRoutingAlgorithm islandAlgorithm = new IslandVehicleRoutingAlgorithm(vrp, islands, migrationInterval);
+		islandAlgorithm.setMetricsRegistry(metrics);
+		return islandAlgorithm;
+	}
+
+	private static VehicleRoutingAlgorithm createSingleAlgo(final VehicleRoutingProblem vrp, XMLConfiguration config, ExecutorService executorService, int nuOfThreads, MetricsRegistry metrics){
+			
+		//fleetmanager
+		final VehicleFleetManager vehicleFleetManager = createFleetManager(vrp);
 
 		Set<PrioritizedVRAListener> algorithmListeners = new HashSet<PrioritizedVRAListener>();
 		List<InsertionListener> insertionListeners = new ArrayList<InsertionListener>();
@@ -446,7 +528,7 @@ public class VehicleRoutingAlgorithms {
 		algorithmListeners.add(new PrioritizedVRAListener(Priority.LOW, new SolutionVerifier()));
 
 		RouteStates routeStates = new RouteStates();
-		routeStates.initialiseStateOfJobs(vrp.getJobs().values());
+		routeStates.initialiseStateOfJobs(vrp.getJobIndex());
 		algorithmListeners.add(new PrioritizedVRAListener(Priority.LOW, routeStates));
 		
 		TypedMap definedClasses = new TypedMap();
@@ -454,7 +536,7 @@ public class VehicleRoutingAlgorithms {
 		/*
 		 * initial solution - construction
 		 */
-		AlgorithmStartsListener createInitialSolution = createInitialSolution(config,vrp,vehicleFleetManager,routeStates,algorithmListeners,definedClasses,executorService,nuOfThreads);
+		AlgorithmStartsListener createInitialSolution = createInitialSolution(config,vrp,vehicleFleetManager,routeStates,algorithmListeners,definedClasses,executorService,nuOfThreads,metrics);
 		if(createInitialSolution != null) algorithmListeners.add(new PrioritizedVRAListener(Priority.MEDIUM, createInitialSolution));
 
 		int solutionMemory = config.getInt("strategy.memory");
@@ -466,14 +548,16 @@ public class VehicleRoutingAlgorithms {
 			SolutionSelector selector = getSelector(strategyConfig,vrp,algorithmListeners,definedClasses);
 			SearchStrategy strategy = new SearchStrategy(selector, acceptor);
 			strategy.setName(name);
+			strategy.setMetricsRegistry(metrics);
 			List<HierarchicalConfiguration> modulesConfig = strategyConfig.configurationsAt("modules.module");
 			for(HierarchicalConfiguration moduleConfig : modulesConfig){
-				SearchStrategyModule module = buildModule(moduleConfig,vrp,vehicleFleetManager,routeStates,algorithmListeners,definedClasses,executorService,nuOfThreads);
+				SearchStrategyModule module = buildModule(moduleConfig,vrp,vehicleFleetManager,routeStates,algorithmListeners,definedClasses,executorService,nuOfThreads,metrics);
 				strategy.addModule(module);
 			}
 			searchStratManager.addStrategy(strategy, strategyConfig.getDouble("probability"));
 		}
 		VehicleRoutingAlgorithm metaAlgorithm = new VehicleRoutingAlgorithm(vrp, searchStratManager);
+		metaAlgorithm.setMetricsRegistry(metrics);
 		if(config.containsKey("iterations")){
 			int iter = config.getInt("iterations");
 			metaAlgorithm.setNuOfIterations(iter);
@@ -488,6 +572,77 @@ public class VehicleRoutingAlgorithms {
 		return metaAlgorithm;	
 	}
 
+	/**
+	 * Creates an algorithm that re-optimises previousSolution after the jobs of the problem have changed.
+	 * 
+	 * <p>Its initial solution is previousSolution without the jobs that are not part of vrp anymore, into which the remaining jobs are 
+	 * inserted with the construction insertion of config. Afterwards it ruins and recreates only the neighborhoods of targetJobs, i.e. 
+	 * of the jobs around which the solution has changed. Islands and search strategies of config are not used.
+	 */
+	static VehicleRoutingAlgorithm createReoptimizationAlgo(final VehicleRoutingProblem vrp, XMLConfiguration config, VehicleRoutingProblemSolution previousSolution, 
+			Collection<Job> targetJobs, int nuOfIterations, double shareToRuin, MetricsRegistry metrics){
+		VehicleFleetManager vehicleFleetManager = createFleetManager(vrp);
+		
+		Set<PrioritizedVRAListener> algorithmListeners = new HashSet<PrioritizedVRAListener>();
+		algorithmListeners.add(new PrioritizedVRAListener(Priority.LOW, new SolutionVerifier()));
+		
+		RouteStates routeStates = new RouteStates();
+		routeStates.initialiseStateOfJobs(vrp.getJobIndex());
+		algorithmListeners.add(new PrioritizedVRAListener(Priority.LOW, routeStates));
+		
+		TypedMap definedClasses = new TypedMap();
+		
+		AbstractInsertionStrategy insertion = getConstructionInsertion(config, vrp, vehicleFleetManager, routeStates, algorithmListeners, definedClasses, null, 0, metrics);
+		if(insertion == null) throw new IllegalStateException("construction.insertion is missing. it is required to insert the changed jobs.");
+		final PatchPreviousSolution patchPreviousSolution = new PatchPreviousSolution(previousSolution, insertion, routeStates, metrics);
+		algorithmListeners.add(new PrioritizedVRAListener(Priority.MEDIUM, new AlgorithmStartsListener() {
+			
+			@Override
+			public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+				solutions.add(patchPreviousSolution.createInitialSolution(problem));
+			}
+			
+		}));
+		
+		SearchStrategyManager searchStratManager = new SearchStrategyManager();
+		int solutionMemory = config.getInt("strategy.memory", 1);
+		SearchStrategy strategy = new SearchStrategy(SelectBest.getInstance(), new AcceptNewIfBetterThanWorst(solutionMemory));
+		strategy.setName("reoptimization");
+		strategy.setMetricsRegistry(metrics);
+		if(!targetJobs.isEmpty()){
+			int nuOfJobs2BeRemoved = (int) Math.ceil(vrp.getJobs().size() * shareToRuin);
+			JobNeighborhoods jobNeighborhoods = JobNeighborhoods.newInstance(vrp.getJobs().values(), new JobDistanceAvgCosts(vrp.getTransportCosts()), nuOfJobs2BeRemoved);
+			RuinRadial ruin = RuinRadial.newInstance(vrp, shareToRuin, jobNeighborhoods, new JobRemoverImpl(routeStates.getJobRouteIndex()), new TourStateUpdater(routeStates, vrp.getIndexedTransportCosts(), vrp.getActivityCosts(), metrics));
+			ruin.setTargetJobs(targetJobs);
+			strategy.addModule(new RuinAndRecreateModule(ruin, insertion, metrics));
+		}
+		else{
+			log.info("no job has changed. thus the previous solution is not re-optimised.");
+			nuOfIterations = 0;
+		}
+		searchStratManager.addStrategy(strategy, 1.0);
+		
+		VehicleRoutingAlgorithm metaAlgorithm = new VehicleRoutingAlgorithm(vrp, searchStratManager);
+		metaAlgorithm.setMetricsRegistry(metrics);
+		metaAlgorithm.setNuOfIterations(nuOfIterations);
+		metaAlgorithm.setPrematureAlgorithmBreaker(getPrematureBreaker(config, algorithmListeners));
+		registerListeners(metaAlgorithm, algorithmListeners);
+		return metaAlgorithm;
+	}
+	
+	private static VehicleFleetManager createFleetManager(final VehicleRoutingProblem vrp) {
+		if(vrp.getFleetSize().equals(FleetSize.INFINITE)){
+			return new InfiniteVehicles(vrp.getVehicles());
+		}
+		else if(vrp.getFleetSize().equals(FleetSize.FINITE)){ 
+			return new VehicleFleetManagerImpl(vrp.getVehicles()); 
+		}
+		else{
+			throw new IllegalStateException("fleet size can only be infinite or finite. " +
+					"makes sure your config file contains one of these options");
+		}
+	}
+
 	private static PrematureAlgorithmBreaker getPrematureBreaker(XMLConfiguration config, Set<PrioritizedVRAListener> algorithmListeners) {
 		String basedOn = config.getString("prematureBreak[@basedOn]");
 		if(basedOn == null){
@@ -516,6 +671,21 @@ public class VehicleRoutingAlgorithms {
 			algorithmListeners.add(new PrioritizedVRAListener(Priority.LOW, timeBreaker));
 			return timeBreaker;
 		}
+		if(basedOn.equals("cpuTime")){
+			log.info("set prematureBreak based on cpu-time");
+			String timeString = config.getString("prematureBreak.time");
+			if(timeString == null) throw new IllegalStateException("prematureBreak.time is missing");
+			double time = Double.valueOf(timeString);
+			CpuTimeBreaker cpuTimeBreaker = new CpuTimeBreaker(time);
+			algorithmListeners.add(new PrioritizedVRAListener(Priority.LOW, cpuTimeBreaker));
+			return cpuTimeBreaker;
+		}
+		if(basedOn.equals("objectiveValue")){
+			log.info("set prematureBreak based on objective value");
+			String valueString = config.getString("prematureBreak.value");
+			if(valueString == null) throw new IllegalStateException("prematureBreak.value is missing");
+			return new ObjectiveValueBreaker(Double.valueOf(valueString));
+		}
 		if(basedOn.equals("variationCoefficient")){
 			log.info("set prematureBreak based on variation coefficient");
 			String thresholdString = config.getString("prematureBreak.threshold");
@@ -557,7 +727,28 @@ public class VehicleRoutingAlgorithms {
 		metaAlgorithm.getAlgorithmListeners().addAll(algorithmListeners);
 	}
 	
-	private static AlgorithmStartsListener createInitialSolution(XMLConfiguration config, final VehicleRoutingProblem vrp, VehicleFleetManager vehicleFleetManager, RouteStates activityStates, Set<PrioritizedVRAListener> algorithmListeners, TypedMap definedClasses, ExecutorService executorService, int nuOfThreads) {
+	private static AlgorithmStartsListener createInitialSolution(XMLConfiguration config, final VehicleRoutingProblem vrp, VehicleFleetManager vehicleFleetManager, RouteStates activityStates, Set<PrioritizedVRAListener> algorithmListeners, TypedMap definedClasses, ExecutorService executorService, int nuOfThreads, MetricsRegistry metrics) {
+		AbstractInsertionStrategy insertionStrategy = getConstructionInsertion(config, vrp, vehicleFleetManager, activityStates, algorithmListeners, definedClasses, executorService, nuOfThreads, metrics);
+		if(insertionStrategy == null) return null;
+		final AbstractInsertionStrategy finalInsertionStrategy = insertionStrategy;
+
+		return new AlgorithmStartsListener() {
+
+			@Override
+			public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+
+				CreateInitialSolution createInitialSolution = new CreateInitialSolution(finalInsertionStrategy);
+				createInitialSolution.setGenerateAsMuchAsRoutesAsVehiclesExist(false);
+				VehicleRoutingProblemSolution vrpSol = createInitialSolution.createInitialSolution(vrp);
+				solutions.add(vrpSol);
+
+			}
+		};
+
+
+	}
+	
+	private static AbstractInsertionStrategy getConstructionInsertion(XMLConfiguration config, final VehicleRoutingProblem vrp, VehicleFleetManager vehicleFleetManager, RouteStates activityStates, Set<PrioritizedVRAListener> algorithmListeners, TypedMap definedClasses, ExecutorService executorService, int nuOfThreads, MetricsRegistry metrics) {
 		List<HierarchicalConfiguration> modConfigs = config.configurationsAt("construction.insertion");
 		if(modConfigs == null) return null;
 		if(modConfigs.isEmpty()) return null;
@@ -572,26 +763,11 @@ public class VehicleRoutingAlgorithms {
 		AbstractInsertionStrategy insertionStrategy = definedClasses.get(insertionStrategyKey);
 		if(insertionStrategy == null){
 			List<PrioritizedVRAListener> prioListeners = new ArrayList<PrioritizedVRAListener>();
-			insertionStrategy = createInsertionStrategy(modConfig, vrp, vehicleFleetManager, activityStates, prioListeners, executorService, nuOfThreads);
+			insertionStrategy = createInsertionStrategy(modConfig, vrp, vehicleFleetManager, activityStates, prioListeners, executorService, nuOfThreads, metrics);
 			algorithmListeners.addAll(prioListeners);
 			definedClasses.put(insertionStrategyKey,insertionStrategy);
 		}
-		final AbstractInsertionStrategy finalInsertionStrategy = insertionStrategy;
-
-		return new AlgorithmStartsListener() {
-
-			@Override
-			public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
-
-				CreateInitialSolution createInitialSolution = new CreateInitialSolution(finalInsertionStrategy);
-				createInitialSolution.setGenerateAsMuchAsRoutesAsVehiclesExist(false);
-				VehicleRoutingProblemSolution vrpSol = createInitialSolution.createInitialSolution(vrp);
-				solutions.add(vrpSol);
-
-			}
-		};
-
-
+		return insertionStrategy;
 	}
 	
 	private static SolutionSelector getSelector(HierarchicalConfiguration strategyConfig, VehicleRoutingProblem vrp, Set<PrioritizedVRAListener> algorithmListeners, TypedMap definedSelectors) {
@@ -654,7 +830,7 @@ public class VehicleRoutingAlgorithms {
 	}
 	
 	private static SearchStrategyModule buildModule(HierarchicalConfiguration moduleConfig, VehicleRoutingProblem vrp, VehicleFleetManager vehicleFleetManager, 
-			RouteStates activityStates, Set<PrioritizedVRAListener> algorithmListeners, TypedMap definedClasses, ExecutorService executorService, int nuOfThreads) {
+			RouteStates activityStates, Set<PrioritizedVRAListener> algorithmListeners, TypedMap definedClasses, ExecutorService executorService, int nuOfThreads, MetricsRegistry metrics) {
 		String moduleName = moduleConfig.getString("[@name]");
 		if(moduleName == null) throw new IllegalStateException("module(-name) is missing.");
 		String moduleId = moduleConfig.getString("[@id]");
@@ -675,12 +851,15 @@ public class VehicleRoutingAlgorithms {
 			final RuinStrategy ruin;
 			ModKey ruinKey = makeKey(ruin_name,ruin_id);
 			if(ruin_name.equals("randomRuin")){
-				ruin = getRandomRuin(vrp, activityStates, definedClasses, ruinKey, shareToRuin);
+				ruin = getRandomRuin(vrp, activityStates, definedClasses, ruinKey, shareToRuin, metrics);
 			}
 			else if(ruin_name.equals("radialRuin")){
 				String ruin_distance = moduleConfig.getString("ruin.distance");
 				JobDistance jobDistance;
-				if(ruin_distance == null) jobDistance = new JobDistanceAvgCosts(vrp.getTransportCosts());
+				if(ruin_distance == null) {
+					ruin_distance = "avgCosts";
+					jobDistance = new JobDistanceAvgCosts(vrp.getTransportCosts());
+				}
 				else {
 					if(ruin_distance.equals("euclidean")){
 						jobDistance = new EuclideanServiceDistance();
@@ -688,7 +867,8 @@ public class VehicleRoutingAlgorithms {
 					else throw new IllegalStateException("does not know ruin.distance " + ruin_distance + ". either ommit ruin.distance then the "
 							+ "default is used or use 'euclidean'");
 				}
-				ruin = getRadialRuin(vrp, activityStates, definedClasses, ruinKey, shareToRuin, jobDistance);
+				JobNeighborhoods jobNeighborhoods = getJobNeighborhoods(vrp, definedClasses, ruin_distance, jobDistance, shareToRuin);
+				ruin = getRadialRuin(vrp, activityStates, definedClasses, ruinKey, shareToRuin, jobNeighborhoods, metrics);
 			}
 			else throw new IllegalStateException("ruin[@name] " + ruin_name + " is not known. Use either randomRuin or radialRuin.");
 			
@@ -703,46 +883,10 @@ public class VehicleRoutingAlgorithms {
 				List<HierarchicalConfiguration> insertionConfigs = moduleConfig.configurationsAt("insertion");
 				if(insertionConfigs.size() != 1) throw new IllegalStateException("this should be 1");
 				List<PrioritizedVRAListener> prioListeners = new ArrayList<PrioritizedVRAListener>();
-				insertion = createInsertionStrategy(insertionConfigs.get(0), vrp, vehicleFleetManager, activityStates, prioListeners, executorService, nuOfThreads);
+				insertion = createInsertionStrategy(insertionConfigs.get(0), vrp, vehicleFleetManager, activityStates, prioListeners, executorService, nuOfThreads, metrics);
 				algorithmListeners.addAll(prioListeners);
 			}
-			final AbstractInsertionStrategy final_insertion = insertion;
-			SearchStrategyModule module = new SearchStrategyModule() {
-				
-				private Logger logger = Logger.getLogger(SearchStrategyModule.class);
-				
-				@Override
-				public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution vrpSolution) {
-					Collection<Job> ruinedJobs = ruin.ruin(vrpSolution.getRoutes());
-					final_insertion.run(vrpSolution.getRoutes(), ruinedJobs, Double.MAX_VALUE);
-					double totalCost = RouteUtils.getTotalCost(vrpSolution.getRoutes());
-					vrpSolution.setCost(totalCost);
-					return vrpSolution;
-				}
-				
-				@Override
-				public String toString() {
-					return getName();
-				}
-				
-				@Override
-				public String getName() {
-					return "[name=ruin_and_recreate][ruin="+ruin+"][recreate="+final_insertion+"]";
-				}
-				
-				@Override
-				public void addModuleListener(SearchStrategyModuleListener moduleListener) {
-					if(moduleListener instanceof InsertionListener){
-						InsertionListener iListener = (InsertionListener) moduleListener; 
-						if(!final_insertion.getListener().contains(iListener)){
-							logger.info("register moduleListener " + moduleListener);
-							final_insertion.addListener(iListener);
-						}
-						
-					}
-					
-				}
-			};
+			SearchStrategyModule module = new RuinAndRecreateModule(ruin, insertion, metrics);
 			return module;
 		}
 	
@@ -757,7 +901,8 @@ public class VehicleRoutingAlgorithms {
 			RuinStrategyKey stratKey = new RuinStrategyKey(ruinKey);
 			RuinStrategy ruin = definedClasses.get(stratKey);
 			if(ruin == null){
-				ruin = RuinRadial.newInstance(vrp, 0.3, new JobDistanceAvgCosts(vrp.getTransportCosts()), new JobRemoverImpl(), new TourStateUpdater(activityStates, vrp.getTransportCosts(), vrp.getActivityCosts()));
+				JobNeighborhoods jobNeighborhoods = getJobNeighborhoods(vrp, definedClasses, "avgCosts", new JobDistanceAvgCosts(vrp.getTransportCosts()), 0.3);
+				ruin = RuinRadial.newInstance(vrp, 0.3, jobNeighborhoods, new JobRemoverImpl(activityStates.getJobRouteIndex()), new TourStateUpdater(activityStates, vrp.getIndexedTransportCosts(), vrp.getActivityCosts(), metrics));
 				definedClasses.put(stratKey, ruin);
 			}
 			
@@ -772,13 +917,14 @@ public class VehicleRoutingAlgorithms {
 				List<HierarchicalConfiguration> insertionConfigs = moduleConfig.configurationsAt("insertion");
 				if(insertionConfigs.size() != 1) throw new IllegalStateException("this should be 1");
 				List<PrioritizedVRAListener> prioListeners = new ArrayList<PrioritizedVRAListener>();
-				insertion = createInsertionStrategy(insertionConfigs.get(0), vrp, vehicleFleetManager, activityStates, prioListeners, executorService, nuOfThreads);
+				insertion = createInsertionStrategy(insertionConfigs.get(0), vrp, vehicleFleetManager, activityStates, prioListeners, executorService, nuOfThreads, metrics);
 				algorithmListeners.addAll(prioListeners);
 			}
 			GendreauPostOpt postOpt = new GendreauPostOpt(vrp, ruin, insertion);
 			postOpt.setShareOfJobsToRuin(share);
 			postOpt.setNuOfIterations(iterations);
 			postOpt.setFleetManager(vehicleFleetManager);
+			algorithmListeners.add(new PrioritizedVRAListener(Priority.HIGH, postOpt));
 			definedClasses.put(strategyModuleKey, postOpt);
 			return postOpt;
 		}
@@ -791,11 +937,27 @@ public class VehicleRoutingAlgorithms {
 				"\n\tgendreauPostOpt");
 	}
 
-	private static RuinStrategy getRadialRuin(VehicleRoutingProblem vrp, RouteStates activityStates, TypedMap definedClasses, ModKey modKey, double shareToRuin, JobDistance jobDistance) {
+	/**
+	 * Returns the neighborhood-index for jobDistanceName. It is built only once and shared by all radial ruins using the same job-distance.
+	 * 
+	 * <p>The index stores as many neighbors as the first ruin requires. If other ruins remove more jobs, the missing neighbors are calculated on the fly.
+	 */
+	private static JobNeighborhoods getJobNeighborhoods(VehicleRoutingProblem vrp, TypedMap definedClasses, String jobDistanceName, JobDistance jobDistance, double shareToRuin) {
+		JobNeighborhoodsKey neighborhoodsKey = new JobNeighborhoodsKey(jobDistanceName);
+		JobNeighborhoods jobNeighborhoods = definedClasses.get(neighborhoodsKey);
+		if(jobNeighborhoods == null){
+			int k = (int) Math.ceil(vrp.getJobs().size() * shareToRuin);
+			jobNeighborhoods = JobNeighborhoods.newInstance(vrp.getJobs().values(), jobDistance, k);
+			definedClasses.put(neighborhoodsKey, jobNeighborhoods);
+		}
+		return jobNeighborhoods;
+	}
+
+	private static RuinStrategy getRadialRuin(VehicleRoutingProblem vrp, RouteStates activityStates, TypedMap definedClasses, ModKey modKey, double shareToRuin, JobNeighborhoods jobNeighborhoods, MetricsRegistry metrics) {
 		RuinStrategyKey stratKey = new RuinStrategyKey(modKey);
 		RuinStrategy ruin = definedClasses.get(stratKey);
 		if(ruin == null){
-			ruin = RuinRadial.newInstance(vrp, shareToRuin, jobDistance, new JobRemoverImpl(), new TourStateUpdater(activityStates, vrp.getTransportCosts(), vrp.getActivityCosts()));
+			ruin = RuinRadial.newInstance(vrp, shareToRuin, jobNeighborhoods, new JobRemoverImpl(activityStates.getJobRouteIndex()), new TourStateUpdater(activityStates, vrp.getIndexedTransportCosts(), vrp.getActivityCosts(), metrics));
 			definedClasses.put(stratKey, ruin);
 		}
 		return ruin;
@@ -803,18 +965,18 @@ public class VehicleRoutingAlgorithms {
 
 	private static RuinStrategy getRandomRuin(VehicleRoutingProblem vrp,
 			RouteStates activityStates, TypedMap definedClasses,
-			ModKey modKey, double shareToRuin) {
+			ModKey modKey, double shareToRuin, MetricsRegistry metrics) {
 		RuinStrategyKey stratKey = new RuinStrategyKey(modKey);
 		RuinStrategy ruin = definedClasses.get(stratKey);
 		if(ruin == null){
-			ruin = RuinRandom.newInstance(vrp, shareToRuin, new JobRemoverImpl(), new TourStateUpdater(activityStates, vrp.getTransportCosts(), vrp.getActivityCosts()));
+			ruin = RuinRandom.newInstance(vrp, shareToRuin, new JobRemoverImpl(activityStates.getJobRouteIndex()), new TourStateUpdater(activityStates, vrp.getIndexedTransportCosts(), vrp.getActivityCosts(), metrics));
 			definedClasses.put(stratKey, ruin);
 		}
 		return ruin;
 	}
 	
-	private static AbstractInsertionStrategy createInsertionStrategy(HierarchicalConfiguration moduleConfig, VehicleRoutingProblem vrp,VehicleFleetManager vehicleFleetManager, RouteStates activityStates, List<PrioritizedVRAListener> algorithmListeners, ExecutorService executorService, int nuOfThreads) {
-		AbstractInsertionStrategy insertion = InsertionFactory.createInsertion(vrp, moduleConfig, vehicleFleetManager, activityStates, algorithmListeners, executorService, nuOfThreads);
+	private static AbstractInsertionStrategy createInsertionStrategy(HierarchicalConfiguration moduleConfig, VehicleRoutingProblem vrp,VehicleFleetManager vehicleFleetManager, RouteStates activityStates, List<PrioritizedVRAListener> algorithmListeners, ExecutorService executorService, int nuOfThreads, MetricsRegistry metrics) {
+		AbstractInsertionStrategy insertion = InsertionFactory.createInsertion(vrp, moduleConfig, vehicleFleetManager, activityStates, algorithmListeners, executorService, nuOfThreads, metrics);
 		return insertion;
 	}
 	
@@ -43,7 +43,7 @@ public class SelectRandomly implements SolutionSelector{
 		return selector;
 	}
 	
-	private Random random = RandomNumberGeneration.getRandom();
+	private Random random = RandomNumberGeneration.newRandom(SelectRandomly.class);
 	
 	@Override
 	public VehicleRoutingProblemSolution selectSolution(Collection<VehicleRoutingProblemSolution> solutions) {
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense int ids of jobs, i.e. jobs are indexed 0,1,...,nuOfJobs-1 in the order they are given.
+ * 
+ * <p>A job index belongs to the problem (or the algorithm) that creates it. It does not change the jobs, thus jobs can be 
+ * shared by several problems that index them differently. Services are looked up in an array by their serial number, 
+ * other jobs (and services that are equal to an indexed one, but another object) by their hash.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class JobIndex {
+	
+	/**
+	 * Index of jobs that are not indexed.
+	 */
+	public static final int NO_INDEX = -1;
+	
+	/**
+	 * Returns a job index that indexes jobs in their iteration order. Jobs that occur more than once are indexed once.
+	 * 
+	 * @param jobs
+	 * @return jobIndex
+	 */
+	public static JobIndex newInstance(Collection<? extends Job> jobs){
+		return new JobIndex(jobs);
+	}
+	
+	private final Job[] jobs;
+	
+	private final Map<Job,Integer> indices;
+	
+	private final int minSerial;
+	
+	/**
+	 * indices of services by serial-minSerial, or null if serials are too sparse to be held in an array.
+	 */
+	private final int[] indicesBySerial;
+	
+	private JobIndex(Collection<? extends Job> jobCollection){
+		indices = new HashMap<Job, Integer>(jobCollection.size()*2);
+		List<Job> jobList = new ArrayList<Job>(jobCollection.size());
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for(Job job : jobCollection){
+			if(indices.containsKey(job)) continue;
+			indices.put(job, jobList.size());
+			jobList.add(job);
+			if(job instanceof Service){
+				min = Math.min(min, ((Service) job).getSerial());
+				max = Math.max(max, ((Service) job).getSerial());
+			}
+		}
+		jobs = jobList.toArray(new Job[jobList.size()]);
+		minSerial = min;
+		if(min <= max && (long)max - min < 4L*jobs.length + 16){
+			indicesBySerial = new int[max - min + 1];
+			Arrays.fill(indicesBySerial, NO_INDEX);
+			for(int i=0;i<jobs.length;i++){
+				if(jobs[i] instanceof Service) indicesBySerial[((Service) jobs[i]).getSerial() - min] = i;
+			}
+		}
+		else{
+			indicesBySerial = null;
+		}
+	}
+	
+	/**
+	 * Returns the index of job, or {@link #NO_INDEX} if job is not indexed.
+	 * 
+	 * @param job
+	 * @return index
+	 */
+	public int getIndex(Job job){
+		if(indicesBySerial != null && job instanceof Service){
+			int slot = ((Service) job).getSerial() - minSerial;
+			if(slot >= 0 && slot < indicesBySerial.length && indicesBySerial[slot] != NO_INDEX){
+				return indicesBySerial[slot];
+			}
+		}
+		Integer index = indices.get(job);
+		if(index == null) return NO_INDEX;
+		return index;
+	}
+	
+	/**
+	 * Returns the job of index.
+	 * 
+	 * @param index
+	 * @return job
+	 * @throws IllegalStateException if index is unknown
+	 */
+	public Job getJob(int index){
+		if(index < 0 || index >= jobs.length) throw new IllegalStateException("job-index " + index + " is unknown. there are " + jobs.length + " jobs.");
+		return jobs[index];
+	}
+	
+	public int getNuOfJobs(){
+		return jobs.length;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=jobIndex][#jobs="+jobs.length+"]";
+	}
+
+}
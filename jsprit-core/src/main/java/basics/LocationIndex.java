@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense int ids of the locations of a {@link VehicleRoutingProblem}, i.e. location ids are interned to 0,1,...,nuOfLocations-1 
+ * when the problem is built.
+ * 
+ * <p>This allows transport costs and neighborhoods to be stored in arrays that are indexed by location, and to be looked up without 
+ * comparing or hashing location ids (see {@link basics.costs.IndexedTransportCosts}). The location index of a service is looked up 
+ * via the problem's {@link JobIndex}, thus indices are not stored in services and vehicles, and these can be shared by problems.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class LocationIndex {
+	
+	/**
+	 * Index of locations that are not known, e.g. locations of jobs or vehicles that have not been built into a problem.
+	 */
+	public static final int NO_INDEX = -1;
+	
+	/**
+	 * Returns a location index that interns locationIds in their iteration order. Ids that occur more than once are interned once.
+	 * 
+	 * <p>The locations of the services of jobIndex are looked up once, and stored by job index.
+	 * 
+	 * @param locationIds
+	 * @param jobIndex
+	 * @return locationIndex
+	 */
+	static LocationIndex newInstance(Collection<String> locationIds, JobIndex jobIndex){
+		return new LocationIndex(locationIds, jobIndex);
+	}
+	
+	private final Map<String,Integer> indices;
+	
+	private final String[] locationIds;
+	
+	private final JobIndex jobIndex;
+	
+	private final int[] jobLocations;
+	
+	private LocationIndex(Collection<String> locationIds, JobIndex jobIndex){
+		indices = new HashMap<String, Integer>(locationIds.size()*2);
+		String[] ids = new String[locationIds.size()];
+		for(String locationId : locationIds){
+			if(locationId == null || indices.containsKey(locationId)) continue;
+			ids[indices.size()] = locationId;
+			indices.put(locationId, indices.size());
+		}
+		this.locationIds = new String[indices.size()];
+		System.arraycopy(ids, 0, this.locationIds, 0, this.locationIds.length);
+		this.jobIndex = jobIndex;
+		jobLocations = new int[jobIndex.getNuOfJobs()];
+		for(int i=0;i<jobLocations.length;i++){
+			Job job = jobIndex.getJob(i);
+			if(job instanceof Service) jobLocations[i] = getIndex(((Service) job).getLocationId());
+			else jobLocations[i] = NO_INDEX;
+		}
+	}
+	
+	/**
+	 * Returns the index of locationId, or {@link #NO_INDEX} if locationId is unknown.
+	 * 
+	 * @param locationId
+	 * @return index
+	 */
+	public int getIndex(String locationId){
+		Integer index = indices.get(locationId);
+		if(index == null) return NO_INDEX;
+		return index;
+	}
+	
+	/**
+	 * Returns the index of the service's location, or {@link #NO_INDEX} if it is unknown.
+	 * 
+	 * <p>Services of the problem are looked up by their job index, i.e. without hashing their location id.
+	 * 
+	 * @param service
+	 * @return index
+	 */
+	public int getIndex(Service service){
+		int job = jobIndex.getIndex(service);
+		if(job != JobIndex.NO_INDEX) return jobLocations[job];
+		return getIndex(service.getLocationId());
+	}
+	
+	/**
+	 * Returns true if index is the index of locationId. 
+	 * 
+	 * <p>This checks an index that was cached with locationId, e.g. by an activity, without hashing locationId.
+	 * 
+	 * @param index
+	 * @param locationId
+	 * @return true if index is the index of locationId
+	 */
+	public boolean isIndexOf(int index, String locationId){
+		if(index < 0 || index >= locationIds.length) return false;
+		return locationIds[index].equals(locationId);
+	}
+	
+	/**
+	 * Returns the location id of index.
+	 * 
+	 * @param index
+	 * @return locationId
+	 * @throws IllegalStateException if index is unknown
+	 */
+	public String getLocationId(int index){
+		if(index < 0 || index >= locationIds.length) throw new IllegalStateException("location-index " + index + " is unknown. there are " + locationIds.length + " locations.");
+		return locationIds[index];
+	}
+	
+	public int getNuOfLocations(){
+		return locationIds.length;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=locationIndex][#locations="+locationIds.length+"]";
+	}
+
+}
@@ -20,12 +20,16 @@
  ******************************************************************************/
 package basics;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import basics.route.TimeWindow;
 import util.Coordinate;
 
 
 public class Service implements Job {
 
+	private static final AtomicInteger serials = new AtomicInteger(0);
+
 	
 	
 	public static class Builder {
@@ -98,6 +102,8 @@ public class Service implements Job {
 	private final TimeWindow timeWindow;
 
 	private final int demand;
+	
+	private final int serial;
 
 	private Service(Builder builder){
 		id = builder.id;
@@ -106,6 +112,7 @@ public class Service implements Job {
 		serviceTime = builder.serviceTime;
 		timeWindow = builder.timeWindow;
 		demand = builder.demand;
+		serial = serials.getAndIncrement();
 		name = builder.name;
 	}
 
@@ -118,6 +125,15 @@ public class Service implements Job {
 		return locationId;
 	}
 	
+	/**
+	 * Returns the number of this service which is unique among all services built, and never changes. 
+	 * 
+	 * <p>It lets {@link JobIndex} look up the index of a service in an array instead of hashing it.
+	 */
+	int getSerial(){
+		return serial;
+	}
+	
 	public Coordinate getCoord(){
 		return coord;
 	}
@@ -26,9 +26,11 @@ import java.util.Collection;
 import org.apache.log4j.Logger;
 
 import util.Counter;
+import util.metrics.MetricsRegistry;
 import algorithms.acceptors.SolutionAcceptor;
 import basics.algo.AlgorithmEndsListener;
 import basics.algo.AlgorithmStartsListener;
+import basics.algo.Deadline;
 import basics.algo.IterationEndsListener;
 import basics.algo.IterationStartsListener;
 import basics.algo.IterationWithoutImprovementBreaker;
@@ -65,6 +67,10 @@ public class VehicleRoutingAlgorithm {
 	
 	private Collection<VehicleRoutingProblemSolution> initialSolutions;
 	
+	private final Deadline deadline = new Deadline();
+	
+	private MetricsRegistry metricsRegistry = MetricsRegistry.getDefault();
+	
 	private PrematureAlgorithmBreaker prematureAlgorithmBreaker = new PrematureAlgorithmBreaker() {
 		
 		@Override
@@ -114,6 +120,44 @@ public class VehicleRoutingAlgorithm {
 	public void setPrematureAlgorithmBreaker(PrematureAlgorithmBreaker prematureAlgorithmBreaker){
 		this.prematureAlgorithmBreaker = prematureAlgorithmBreaker;
 	}
+	
+	public PrematureAlgorithmBreaker getPrematureAlgorithmBreaker(){
+		return prematureAlgorithmBreaker;
+	}
+	
+	/**
+	 * Returns the deadline of this algorithm. 
+	 * 
+	 * <p>The algorithm stops after the iteration in which the deadline is exceeded, and insertion strategies and post-optimisations that 
+	 * are registered as {@link AlgorithmStartsListener} check it while they run. Thus, a deadline should be set to the time an answer is required, 
+	 * while {@link PrematureAlgorithmBreaker}s are checked only after each iteration. 
+	 * 
+	 * @return deadline
+	 */
+	public Deadline getDeadline(){
+		return deadline;
+	}
+
+	/**
+	 * Returns the registry the components of this algorithm record their metrics to. By default, it is {@link MetricsRegistry#getDefault()}.
+	 * 
+	 * @return metricsRegistry
+	 */
+	public MetricsRegistry getMetricsRegistry() {
+		return metricsRegistry;
+	}
+	
+	/**
+	 * Sets the registry the components of this algorithm record their metrics to. 
+	 * 
+	 * <p>Components get their registry when they are created, thus this does not redirect components that exist already. To create an algorithm 
+	 * whose components record to a registry of its own, use algorithms.VehicleRoutingAlgorithms.createAlgorithm(vrp, algorithmConfig, metricsRegistry).
+	 * 
+	 * @param metricsRegistry
+	 */
+	public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
 
 	/**
 	 * Gets the {@link SearchStrategyManager}.
@@ -145,6 +189,11 @@ public class VehicleRoutingAlgorithm {
 		algorithmStarts(problem,solutions);
 		logger.info("iterations start");
 		for(int i=0;i<nOfIterations;i++){
+			if(deadline.isExceeded()){
+				logger.info("deadline exceeded before iteration "+ (i+1));
+				nuOfIterationsThisAlgoIsRunning = i;
+				break;
+			}
 			iterationStarts(i+1,problem,solutions);
 			counter.incCounter();
 			SearchStrategy strategy = searchStrategyManager.getRandomStrategy();
@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -25,6 +27,8 @@ import util.CrowFlyCosts;
 import util.Locations;
 import util.Neighborhood;
 import basics.costs.DefaultVehicleRoutingActivityCosts;
+import basics.costs.IndexedTransportCosts;
+import basics.costs.IndexedTransportCostsAdapter;
 import basics.costs.VehicleRoutingActivityCosts;
 import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.Vehicle;
@@ -81,6 +85,10 @@ public class VehicleRoutingProblem {
 		private FleetComposition fleetComposition = FleetComposition.HOMOGENEOUS;
 		
 		private Collection<VehicleType> vehicleTypes;
+		
+		private LocationIndex locationIndex;
+		
+		private JobIndex jobIndex;
 
 		/**
 		 * by default all locations are neighbors
@@ -96,7 +104,7 @@ public class VehicleRoutingProblem {
 		public Builder() {
 			jobs = new HashMap<String, Job>();
 			vehicles = new ArrayList<Vehicle>();
-			coordinates = new HashMap<String, Coordinate>();
+			coordinates = new LinkedHashMap<String, Coordinate>();
 			vehicleTypes = new ArrayList<VehicleType>();
 			services = new ArrayList<Service>();
 		}
@@ -273,6 +281,9 @@ public class VehicleRoutingProblem {
 		 * 
 		 * <p>If {@link VehicleRoutingTransportCosts} are not set, {@link CrowFlyCosts} is used.
 		 * 
+		 * <p>Jobs and location ids are interned to dense indices (see {@link JobIndex} and {@link LocationIndex}). These belong to the 
+		 * problem, i.e. jobs and vehicles are not changed and can be added to other problems.
+		 * 
 		 * @return {@link VehicleRoutingProblem}
 		 */
 		public VehicleRoutingProblem build() {
@@ -281,9 +292,22 @@ public class VehicleRoutingProblem {
 				logger.warn("set routing costs crowFlyDistance.");
 				transportCosts = new CrowFlyCosts(getLocations());
 			}
+			internLocations();
 			return new VehicleRoutingProblem(this);
 		}
 
+		private void internLocations() {
+			Collection<String> locationIds = new LinkedHashSet<String>(coordinates.keySet());
+			for(Vehicle v : vehicles){
+				locationIds.add(v.getLocationId());
+			}
+			for(Job j : jobs.values()){
+				if(j instanceof Service) locationIds.add(((Service) j).getLocationId());
+			}
+			jobIndex = JobIndex.newInstance(jobs.values());
+			locationIndex = LocationIndex.newInstance(locationIds, jobIndex);
+		}
+
 		public Builder addLocation(String id, Coordinate coord) {
 			coordinates.put(id, coord);
 			return this;
@@ -362,6 +386,12 @@ public class VehicleRoutingProblem {
 	
 	private VehicleRoutingActivityCosts activityCosts;
 	
+	private final LocationIndex locationIndex;
+	
+	private final JobIndex jobIndex;
+	
+	private final IndexedTransportCosts indexedTransportCosts;
+	
 	private Neighborhood neighborhood;
 	
 	private final Map<String, Job> jobs;
@@ -396,6 +426,9 @@ public class VehicleRoutingProblem {
 		this.transportCosts = builder.transportCosts;
 		this.activityCosts = builder.activityCosts;
 		this.neighborhood = builder.neighborhood;
+		this.locationIndex = builder.locationIndex;
+		this.jobIndex = builder.jobIndex;
+		this.indexedTransportCosts = IndexedTransportCostsAdapter.adapt(transportCosts, locationIndex);
 		log.info("initialise " + this);
 	}
 	
@@ -472,6 +505,34 @@ public class VehicleRoutingProblem {
 	public VehicleRoutingTransportCosts getTransportCosts() {
 		return transportCosts;
 	}
+	
+	/**
+	 * Returns the dense indices of this problem's locations, i.e. the int-indexed location accessor.
+	 * 
+	 * @return locationIndex
+	 */
+	public LocationIndex getLocationIndex() {
+		return locationIndex;
+	}
+	
+	/**
+	 * Returns the dense indices of this problem's jobs.
+	 * 
+	 * @return jobIndex
+	 */
+	public JobIndex getJobIndex() {
+		return jobIndex;
+	}
+	
+	/**
+	 * Returns routing costs keyed by the indices of {@link #getLocationIndex()}. These are used by the algorithms.
+	 * 
+	 * @return indexedTransportCosts
+	 * @see IndexedTransportCostsAdapter
+	 */
+	public IndexedTransportCosts getIndexedTransportCosts() {
+		return indexedTransportCosts;
+	}
 
 	/**
 	 * Returns activityCosts.
@@ -36,23 +36,40 @@ public class VehicleRoutingProblemSolution {
 	public static double NO_COST_YET = -9999.0;
 	
 	/**
-	 * Makes a deep copy of the solution to be copied.
+	 * Makes a copy of the solution to be copied. 
+	 * 
+	 * <p>Routes are copied with VehicleRoute.copyOf(VehicleRoute), i.e. their activities are shared with the original 
+	 * solution until a route is modified. Thus the copy must be used by the thread that uses the original solution. 
 	 * 
 	 * @param solution2copy
 	 * @return
 	 */
 	public static VehicleRoutingProblemSolution copyOf(VehicleRoutingProblemSolution solution2copy){
-		 return new VehicleRoutingProblemSolution(solution2copy);
+		 return new VehicleRoutingProblemSolution(solution2copy, true);
+	}
+	
+	/**
+	 * Makes a copy of the solution to be copied whose routes have their own activities (see VehicleRoute.deepCopyOf(VehicleRoute)).
+	 * 
+	 * <p>Use it to hand a copy over to another thread, such as another island or a consumer of solutions found so far.
+	 * 
+	 * @param solution2copy
+	 * @return
+	 */
+	public static VehicleRoutingProblemSolution deepCopyOf(VehicleRoutingProblemSolution solution2copy){
+		 return new VehicleRoutingProblemSolution(solution2copy, false);
 	}
 	
 	private final Collection<VehicleRoute> routes;
 
 	private double cost;
 
-	private VehicleRoutingProblemSolution(VehicleRoutingProblemSolution solution){
+	private VehicleRoutingProblemSolution(VehicleRoutingProblemSolution solution, boolean shareActivities){
 		routes = new ArrayList<VehicleRoute>();
 		for(VehicleRoute r : solution.getRoutes()){
-			VehicleRoute route = VehicleRoute.copyOf(r);
+			VehicleRoute route;
+			if(shareActivities) route = VehicleRoute.copyOf(r);
+			else route = VehicleRoute.deepCopyOf(r);
 			routes.add(route);
 		}
 		this.cost = solution.getCost();
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+
+/**
+ * Publishes a {@link SolutionSnapshot} whenever the algorithm has found a new best solution, such that consumers can follow the search 
+ * while it is running.
+ * 
+ * <p>Register it at the algorithm with algorithm.getAlgorithmListeners().addListener(publisher). Consumers either subscribe and poll their 
+ * {@link Subscription}, or they register an {@link AnytimeSolutionListener}, which is informed in a thread of its own. 
+ * 
+ * <p>Each subscription has a bounded queue. If a consumer is slower than the search, its oldest snapshots are dropped, i.e. the search 
+ * thread never waits for consumers, and consumers always get the latest best solution. The search thread only copies the new best solution, 
+ * which is cheap since routes are copied on write.
+ * 
+ * <p>The publisher can be registered at an algorithm that runs several times. Each run is a search of its own, i.e. subscriptions 
+ * are completed at the end of each run, and listeners are informed about the end of each run. 
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class AnytimeSolutionPublisher implements AlgorithmStartsListener, IterationEndsListener, AlgorithmEndsListener{
+	
+	/**
+	 * Queue of snapshots of one consumer.
+	 * 
+	 * @author stefan schroeder
+	 *
+	 */
+	public static class Subscription {
+		
+		private final BlockingQueue<SolutionSnapshot> snapshots;
+		
+		private final AtomicLong nuOfDroppedSnapshots = new AtomicLong(0);
+		
+		private final AnytimeSolutionListener listener;
+		
+		private volatile int nuOfStartedSearches = 0;
+		
+		private volatile int nuOfEndedSearches = 0;
+		
+		private Thread dispatcher;
+		
+		private int dispatchedSearch = 0;
+		
+		/**
+		 * Snapshot of the next search that a dispatcher has already polled, and hands over to the dispatcher of the next search.
+		 */
+		private SolutionSnapshot snapshotOfNextSearch;
+		
+		private Subscription(int capacity, AnytimeSolutionListener listener){
+			snapshots = new ArrayBlockingQueue<SolutionSnapshot>(capacity);
+			this.listener = listener;
+		}
+		
+		/**
+		 * Starts the dispatcher of the specified search, unless it has been started already. It waits for the dispatcher of the previous 
+		 * search, thus the listener is informed in order and never concurrently.
+		 */
+		private synchronized void startDispatcher(int search){
+			if(listener == null || dispatchedSearch >= search) return;
+			dispatchedSearch = search;
+			dispatcher = new Thread(new Dispatcher(this, listener, search, dispatcher), "anytime-solution-dispatcher");
+			dispatcher.setDaemon(true);
+			dispatcher.start();
+		}
+		
+		private void publish(SolutionSnapshot snapshot){
+			while(!snapshots.offer(snapshot)){
+				if(snapshots.poll() != null) nuOfDroppedSnapshots.incrementAndGet();
+			}
+		}
+		
+		/**
+		 * Returns the oldest snapshot that has not been polled yet, or null if there is none.
+		 * 
+		 * @return snapshot
+		 */
+		public SolutionSnapshot poll(){
+			return snapshots.poll();
+		}
+		
+		/**
+		 * Returns the oldest snapshot that has not been polled yet, and waits for one if necessary. Returns null if the timeout 
+		 * elapses before a snapshot is available.
+		 * 
+		 * @return snapshot
+		 * @throws InterruptedException
+		 */
+		public SolutionSnapshot poll(long timeout, TimeUnit unit) throws InterruptedException{
+			return snapshots.poll(timeout, unit);
+		}
+		
+		/**
+		 * Returns true if the search has ended and all snapshots have been polled. It is not completed anymore once the algorithm starts again.
+		 * 
+		 * @return true if no more snapshots will come
+		 */
+		public boolean isCompleted(){
+			return nuOfEndedSearches > 0 && nuOfEndedSearches >= nuOfStartedSearches && snapshots.isEmpty();
+		}
+		
+		/**
+		 * Returns the number of snapshots that have been dropped, since the queue was full.
+		 * 
+		 * @return nuOfDroppedSnapshots
+		 */
+		public long getNuOfDroppedSnapshots(){
+			return nuOfDroppedSnapshots.get();
+		}
+		
+	}
+	
+	private static class Dispatcher implements Runnable {
+		
+		private final Subscription subscription;
+		
+		private final AnytimeSolutionListener listener;
+		
+		private final int search;
+		
+		private final Thread dispatcherOfPreviousSearch;
+
+		Dispatcher(Subscription subscription, AnytimeSolutionListener listener, int search, Thread dispatcherOfPreviousSearch) {
+			super();
+			this.subscription = subscription;
+			this.listener = listener;
+			this.search = search;
+			this.dispatcherOfPreviousSearch = dispatcherOfPreviousSearch;
+		}
+
+		@Override
+		public void run() {
+			try{
+				if(dispatcherOfPreviousSearch != null) dispatcherOfPreviousSearch.join();
+				while(true){
+					//read before polling, thus an empty queue means that all snapshots of the ended search have been polled
+					boolean searchEnded = subscription.nuOfEndedSearches >= search;
+					SolutionSnapshot snapshot = subscription.snapshotOfNextSearch;
+					subscription.snapshotOfNextSearch = null;
+					if(snapshot == null) snapshot = subscription.poll(DISPATCHER_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+					if(snapshot == null){
+						if(searchEnded) break;
+						continue;
+					}
+					if(snapshot.getSearch() > search){
+						subscription.snapshotOfNextSearch = snapshot;
+						break;
+					}
+					listener.informNewBestSolution(snapshot);
+				}
+				listener.informSearchEnds();
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+			catch(RuntimeException e){
+				log.error("anytime-solution-listener " + listener + " failed. it is not informed anymore.", e);
+			}
+		}
+		
+	}
+	
+	private static Logger log = Logger.getLogger(AnytimeSolutionPublisher.class);
+	
+	private static final long DISPATCHER_POLL_TIMEOUT = 50;
+	
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+	
+	private long startTime;
+	
+	private double bestCost = Double.MAX_VALUE;
+	
+	private volatile int nuOfSearches = 0;
+	
+	private volatile boolean searching = false;
+	
+	/**
+	 * Subscribes a consumer that polls snapshots from a queue with the specified capacity.
+	 * 
+	 * @param capacity
+	 * @return subscription
+	 */
+	public Subscription subscribe(int capacity){
+		return subscribe(capacity, null);
+	}
+	
+	private Subscription subscribe(int capacity, AnytimeSolutionListener listener){
+		if(capacity < 1) throw new IllegalStateException("capacity must be at least 1");
+		Subscription subscription = new Subscription(capacity, listener);
+		subscriptions.add(subscription);
+		return subscription;
+	}
+	
+	/**
+	 * Subscribes a listener that is informed in a thread of its own, and whose snapshots are buffered in a queue with the specified capacity.
+	 * 
+	 * <p>Each search is dispatched by a thread of its own, which ends once the listener has been informed about the end of the search.
+	 * 
+	 * @param listener
+	 * @param capacity
+	 */
+	public void subscribe(AnytimeSolutionListener listener, int capacity){
+		if(listener == null) throw new IllegalStateException("listener is missing");
+		Subscription subscription = subscribe(capacity, listener);
+		if(searching) subscription.startDispatcher(nuOfSearches);
+	}
+
+	@Override
+	public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+		startTime = System.nanoTime();
+		bestCost = Double.MAX_VALUE;
+		nuOfSearches++;
+		searching = true;
+		for(Subscription subscription : subscriptions){
+			subscription.nuOfStartedSearches = nuOfSearches;
+			subscription.startDispatcher(nuOfSearches);
+		}
+		publishIfImproved(0, solutions);
+	}
+
+	@Override
+	public void informIterationEnds(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+		publishIfImproved(i, solutions);
+	}
+
+	@Override
+	public void informAlgorithmEnds(VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+		//the last iteration might have ended prematurely without informing iteration-ends-listeners
+		publishIfImproved(-1, solutions);
+		searching = false;
+		for(Subscription subscription : subscriptions){
+			subscription.nuOfEndedSearches = nuOfSearches;
+		}
+	}
+
+	private void publishIfImproved(int iteration, Collection<VehicleRoutingProblemSolution> solutions) {
+		VehicleRoutingProblemSolution best = null;
+		for(VehicleRoutingProblemSolution solution : solutions){
+			if(best == null || solution.getCost() < best.getCost()) best = solution;
+		}
+		if(best == null || best.getCost() >= bestCost) return;
+		bestCost = best.getCost();
+		if(subscriptions.isEmpty()) return;
+		SolutionSnapshot snapshot = new SolutionSnapshot(best, iteration, (System.nanoTime() - startTime)/1.0e9, nuOfSearches);
+		for(Subscription subscription : subscriptions){
+			subscription.publish(snapshot);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=anytimeSolutionPublisher][#subscriptions="+subscriptions.size()+"]";
+	}
+
+}
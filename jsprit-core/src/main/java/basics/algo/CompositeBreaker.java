@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.SearchStrategy.DiscoveredSolution;
+
+/**
+ * Combines breakers such that the algorithm breaks if any of them or if all of them want to break.
+ * 
+ * <p>Each breaker is asked after each iteration, even if the result is already known, since breakers such as 
+ * {@link IterationWithoutImprovementBreaker} count iterations. The start of the algorithm is passed on to breakers that are 
+ * {@link AlgorithmStartsListener}s, thus only the composite needs to be registered as listener.
+ * 
+ * <p>If all breakers need to break, a single {@link TimeBreaker} does not stop the algorithm. Thus time breakers within an "all"-composite 
+ * (also nested ones) only start their clock, and do not impose their time limit on the algorithm's {@link Deadline}.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class CompositeBreaker implements PrematureAlgorithmBreaker, AlgorithmStartsListener{
+	
+	/**
+	 * Returns a breaker that breaks if any of the breakers breaks.
+	 */
+	public static CompositeBreaker any(PrematureAlgorithmBreaker... breakers){
+		return new CompositeBreaker(Arrays.asList(breakers), false);
+	}
+	
+	/**
+	 * Returns a breaker that breaks if all breakers break in the same iteration.
+	 */
+	public static CompositeBreaker all(PrematureAlgorithmBreaker... breakers){
+		return new CompositeBreaker(Arrays.asList(breakers), true);
+	}
+	
+	private final List<PrematureAlgorithmBreaker> breakers;
+	
+	private final boolean all;
+
+	private CompositeBreaker(Collection<PrematureAlgorithmBreaker> breakers, boolean all) {
+		super();
+		if(breakers.isEmpty()) throw new IllegalStateException("at least one breaker is required");
+		this.breakers = new ArrayList<PrematureAlgorithmBreaker>(breakers);
+		this.all = all;
+	}
+
+	@Override
+	public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+		int nuOfBreaks = 0;
+		for(PrematureAlgorithmBreaker breaker : breakers){
+			if(breaker.isPrematureBreak(discoveredSolution)) nuOfBreaks++;
+		}
+		if(all) return nuOfBreaks == breakers.size();
+		return nuOfBreaks > 0;
+	}
+
+	@Override
+	public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+		informAlgorithmStarts(problem, algorithm, solutions, !all);
+	}
+	
+	private void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions, boolean imposeDeadlines) {
+		for(PrematureAlgorithmBreaker breaker : breakers){
+			if(breaker instanceof CompositeBreaker){
+				CompositeBreaker composite = (CompositeBreaker) breaker;
+				composite.informAlgorithmStarts(problem, algorithm, solutions, imposeDeadlines && !composite.all);
+			}
+			else if(breaker instanceof TimeBreaker && !imposeDeadlines){
+				((TimeBreaker) breaker).startClock();
+			}
+			else if(breaker instanceof AlgorithmStartsListener){
+				((AlgorithmStartsListener) breaker).informAlgorithmStarts(problem, algorithm, solutions);
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=CompositeBreaker][mode="+(all ? "all" : "any")+"][breakers="+breakers+"]";
+	}
+
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+
+import org.apache.log4j.Logger;
+
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.SearchStrategy.DiscoveredSolution;
+
+/**
+ * Breaks the algorithm when the thread running it has consumed more than timeThreshold seconds of cpu-time.
+ * 
+ * <p>Unlike {@link TimeBreaker}, it does not count the time the thread waits, but it neither counts the cpu-time of other threads, 
+ * such as those of concurrent insertion strategies. Since cpu-time cannot be converted into a deadline, it is only checked after each iteration.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class CpuTimeBreaker implements PrematureAlgorithmBreaker, AlgorithmStartsListener{
+
+	private static Logger logger = Logger.getLogger(CpuTimeBreaker.class);
+	
+	private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+	
+	private double timeThreshold;
+	
+	private long startTime;
+	
+	public CpuTimeBreaker(double time) {
+		super();
+		if(!threadMXBean.isCurrentThreadCpuTimeSupported()) throw new IllegalStateException("cpu-time of threads cannot be measured by this jvm");
+		this.timeThreshold = time;
+		logger.info("initialise " + this);
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=CpuTimeBreaker][timeThreshold="+timeThreshold+"]";
+	}
+
+	@Override
+	public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+		if((threadMXBean.getCurrentThreadCpuTime() - startTime)/1.0e9 > timeThreshold) return true;
+		return false;
+	}
+
+	@Override
+	public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+		startTime = threadMXBean.getCurrentThreadCpuTime();
+	}
+
+}
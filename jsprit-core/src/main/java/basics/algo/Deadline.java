@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+/**
+ * Point in time, measured with System.nanoTime(), at which an algorithm has to stop. 
+ * 
+ * <p>An algorithm checks its deadline after each iteration, and components with long-running loops, such as insertion strategies and 
+ * post-optimisations, check it cooperatively to cut their work short. They still finish what they are doing such that the solution 
+ * stays valid, thus a deadline can be exceeded by the time to finish the current step, but not by a whole iteration.
+ * 
+ * <p>The deadline can only be moved forward in time (see {@link #restrict(long)}), such that several time limits can be imposed 
+ * on one algorithm and the earliest wins. It can be set and read by different threads.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class Deadline {
+	
+	private volatile boolean set = false;
+	
+	private volatile long deadline;
+	
+	/**
+	 * Sets the deadline to nanoTime, if no deadline has been set yet or the current one is later.
+	 * 
+	 * @param nanoTime point in time as measured by System.nanoTime()
+	 */
+	public synchronized void restrict(long nanoTime){
+		if(!set || nanoTime - deadline < 0){
+			deadline = nanoTime;
+			set = true;
+		}
+	}
+	
+	/**
+	 * Sets the deadline to the point in time of deadline, if deadline is set and no deadline has been set yet or the current one is later.
+	 * 
+	 * @param deadline
+	 */
+	public void restrict(Deadline deadline){
+		long nanoTime;
+		synchronized(deadline){
+			if(!deadline.set) return;
+			nanoTime = deadline.deadline;
+		}
+		restrict(nanoTime);
+	}
+	
+	/**
+	 * Sets the deadline to timeBudget seconds from now, if no deadline has been set yet or the current one is later.
+	 * 
+	 * @param timeBudget in seconds
+	 */
+	public void restrictToBudget(double timeBudget){
+		restrict(System.nanoTime() + (long)(timeBudget * 1.0e9));
+	}
+	
+	/**
+	 * Removes the deadline.
+	 */
+	public synchronized void clear(){
+		set = false;
+	}
+	
+	public boolean isSet(){
+		return set;
+	}
+	
+	/**
+	 * Returns true if a deadline is set and it has passed.
+	 * 
+	 * @return true if the deadline is exceeded
+	 */
+	public boolean isExceeded(){
+		return set && System.nanoTime() - deadline >= 0;
+	}
+	
+	/**
+	 * Returns the time until the deadline in nanoseconds, which is negative if the deadline has passed, and Long.MAX_VALUE if no deadline is set.
+	 * 
+	 * @return remaining time in nanoseconds
+	 */
+	public long getRemainingTime(){
+		if(!set) return Long.MAX_VALUE;
+		return deadline - System.nanoTime();
+	}
+
+	@Override
+	public String toString() {
+		if(!set) return "[name=deadline][remainingTime=none]";
+		return "[name=deadline][remainingTime="+(getRemainingTime()/1.0e9)+"s]";
+	}
+	
+}
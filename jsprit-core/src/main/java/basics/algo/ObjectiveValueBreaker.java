@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+import org.apache.log4j.Logger;
+
+import basics.algo.SearchStrategy.DiscoveredSolution;
+
+/**
+ * Breaks the algorithm as soon as it has accepted a solution whose cost is not higher than the target objective value.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class ObjectiveValueBreaker implements PrematureAlgorithmBreaker{
+
+	private static Logger logger = Logger.getLogger(ObjectiveValueBreaker.class);
+	
+	private double targetValue;
+	
+	public ObjectiveValueBreaker(double targetValue) {
+		super();
+		this.targetValue = targetValue;
+		logger.info("initialise " + this);
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=ObjectiveValueBreaker][targetValue="+targetValue+"]";
+	}
+
+	@Override
+	public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+		if(discoveredSolution.isAccepted() && discoveredSolution.getSolution().getCost() <= targetValue) return true;
+		return false;
+	}
+
+}
@@ -26,6 +26,9 @@ import java.util.Collections;
 
 import org.apache.log4j.Logger;
 
+import util.metrics.LatencyHistogram;
+import util.metrics.MetricsRegistry;
+import util.metrics.StripedCounter;
 import algorithms.acceptors.SolutionAcceptor;
 import algorithms.selectors.SolutionSelector;
 import basics.VehicleRoutingProblem;
@@ -73,6 +76,14 @@ public class SearchStrategy {
 	
 	private String name;
 	
+	private MetricsRegistry metrics = MetricsRegistry.getDefault();
+	
+	private LatencyHistogram timeHistogram;
+	
+	private StripedCounter selectedCounter;
+	
+	private StripedCounter acceptedCounter;
+	
 	public SearchStrategy(SolutionSelector solutionSelector, SolutionAcceptor solutionAcceptor) {
 		super();
 		this.solutionSelector = solutionSelector;
@@ -86,6 +97,27 @@ public class SearchStrategy {
 
 	public void setName(String name) {
 		this.name = name;
+		resolveMetrics();
+	}
+	
+	/**
+	 * Sets the registry this strategy records to. By default, it is {@link MetricsRegistry#getDefault()}.
+	 * 
+	 * @param metrics
+	 */
+	public void setMetricsRegistry(MetricsRegistry metrics) {
+		this.metrics = metrics;
+		resolveMetrics();
+	}
+	
+	/**
+	 * Looks up the counters and the histogram of this strategy once, such that recording does not build names and look them up each iteration.
+	 */
+	private void resolveMetrics() {
+		String metricsPrefix = "strategy." + getName();
+		timeHistogram = metrics.getHistogram(metricsPrefix + ".time");
+		selectedCounter = metrics.getCounter(metricsPrefix + ".selected");
+		acceptedCounter = metrics.getCounter(metricsPrefix + ".accepted");
 	}
 
 	public Collection<SearchStrategyModule> getSearchStrategyModules() {
@@ -112,6 +144,7 @@ public class SearchStrategy {
 	 * ({@link SearchStrategyModule}) on the selectedSolution and 3) accepting the new solution according to {@link SolutionAcceptor}. 
 	 * <p> Note that after 1) the selected solution is copied, thus the original solution is not modified.
 	 * <p> Note also that 3) modifies the input parameter solutions by adding, removing, replacing the existing solutions or whatever is defined in the solutionAcceptor.
+	 * <p> If metrics are enabled, it records how often it is run and its solution is accepted, and how long it takes (see {@link MetricsRegistry}).
 	 *  
 	 * @param vrp
 	 * @param solutions which will be modified 
@@ -119,6 +152,8 @@ public class SearchStrategy {
 	 * @see SolutionSelector, SearchStrategyModule, SolutionAcceptor 
 	 */
 	public DiscoveredSolution run(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions){
+		boolean recordMetrics = metrics.isEnabled();
+		long startTime = recordMetrics ? System.nanoTime() : 0;
 		VehicleRoutingProblemSolution solution = solutionSelector.selectSolution(solutions);
 		if(solution == null) throw new IllegalStateException("solution is null. check solutionSelector to return an appropiate solution.");
 		VehicleRoutingProblemSolution lastSolution = VehicleRoutingProblemSolution.copyOf(solution);
@@ -128,6 +163,12 @@ public class SearchStrategy {
 		}
 		boolean solutionAccepted = solutionAcceptor.acceptSolution(solutions, lastSolution);
 		DiscoveredSolution discoveredSolution = new DiscoveredSolution(lastSolution, solutionAccepted, getName());
+		if(recordMetrics){
+			if(timeHistogram == null) resolveMetrics();
+			timeHistogram.recordSince(startTime);
+			selectedCounter.increment();
+			if(solutionAccepted) acceptedCounter.increment();
+		}
 		return discoveredSolution;
 	}
 
@@ -36,7 +36,7 @@ public class SearchStrategyManager {
 	
 	private List<Double> probabilities = new ArrayList<Double>();
 	
-	private Random random = RandomNumberGeneration.getRandom();
+	private Random random = RandomNumberGeneration.newRandom(SearchStrategyManager.class);
 	
 	private double sumOfProbabilities = 0;
 	
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+import basics.VehicleRoutingProblemSolution;
+
+/**
+ * Best solution of an algorithm at some point of its search, together with its cost, the iteration it has been found in and the time 
+ * elapsed since the algorithm started.
+ * 
+ * <p>The solution is a copy with its own activities (see {@link VehicleRoutingProblemSolution#deepCopyOf(VehicleRoutingProblemSolution)}), 
+ * thus the search does not change it while it is read by another thread. It must not be changed by its consumers either.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class SolutionSnapshot {
+	
+	private final VehicleRoutingProblemSolution solution;
+	
+	private final double cost;
+	
+	private final int iteration;
+	
+	private final double elapsedTime;
+	
+	private final int search;
+
+	SolutionSnapshot(VehicleRoutingProblemSolution solution, int iteration, double elapsedTime, int search) {
+		super();
+		this.solution = VehicleRoutingProblemSolution.deepCopyOf(solution);
+		this.cost = solution.getCost();
+		this.iteration = iteration;
+		this.elapsedTime = elapsedTime;
+		this.search = search;
+	}
+
+	public VehicleRoutingProblemSolution getSolution() {
+		return solution;
+	}
+
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * Returns the iteration in which the solution has been found, 0 if it is an initial solution.
+	 * 
+	 * @return iteration
+	 */
+	public int getIteration() {
+		return iteration;
+	}
+
+	/**
+	 * Returns the time in seconds that elapsed between the start of the algorithm and the snapshot.
+	 * 
+	 * @return elapsedTime in seconds
+	 */
+	public double getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Returns the number of the search (i.e. the run of the algorithm) the snapshot has been taken in.
+	 * 
+	 * @return search
+	 */
+	int getSearch() {
+		return search;
+	}
+
+	@Override
+	public String toString() {
+		return "[name=solutionSnapshot][cost="+cost+"][iteration="+iteration+"][elapsedTime="+elapsedTime+"]";
+	}
+
+}
@@ -23,9 +23,6 @@ package basics.algo;
 
 import java.util.Collection;
 
-import org.apache.commons.math.stat.StatUtils;
-import org.apache.commons.math.stat.descriptive.moment.Mean;
-import org.apache.commons.math.stat.descriptive.moment.StandardDeviation;
 import org.apache.log4j.Logger;
 
 import basics.VehicleRoutingAlgorithm;
@@ -33,13 +30,23 @@ import basics.VehicleRoutingProblem;
 import basics.VehicleRoutingProblemSolution;
 import basics.algo.SearchStrategy.DiscoveredSolution;
 
+/**
+ * Breaks the algorithm when more than timeThreshold seconds have passed since it started.
+ * 
+ * <p>Time is measured with System.nanoTime(). When the algorithm starts, the time limit is also imposed on its {@link Deadline}, 
+ * such that long-running insertions and post-optimisations are cut short, too. Only the clock is started if the breaker is part of 
+ * {@link CompositeBreaker#all(PrematureAlgorithmBreaker...)}, since the time limit alone does not break the algorithm then.
+ * 
+ * @author stefan schroeder
+ *
+ */
 public class TimeBreaker implements PrematureAlgorithmBreaker, AlgorithmStartsListener{
 
 	private static Logger logger = Logger.getLogger(TimeBreaker.class);
 	
 	private double timeThreshold;
 	
-	private double startTime;
+	private long startTime;
 	
 	public TimeBreaker(double time) {
 		super();
@@ -54,13 +61,21 @@ public class TimeBreaker implements PrematureAlgorithmBreaker, AlgorithmStartsLi
 
 	@Override
 	public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
-		if((System.currentTimeMillis() - startTime)/1000.0 > timeThreshold) return true;
+		if((System.nanoTime() - startTime)/1.0e9 > timeThreshold) return true;
 		return false;
 	}
 	
 	@Override
 	public void informAlgorithmStarts(VehicleRoutingProblem problem,VehicleRoutingAlgorithm algorithm,Collection<VehicleRoutingProblemSolution> solutions) {
-		startTime = System.currentTimeMillis();
+		startClock();
+		algorithm.getDeadline().restrict(startTime + (long)(timeThreshold * 1.0e9));
+	}
+	
+	/**
+	 * Starts measuring time without imposing the time limit on the algorithm's deadline.
+	 */
+	void startClock(){
+		startTime = System.nanoTime();
 	}
 
 }
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.costs;
+
+import basics.LocationIndex;
+
+/**
+ * Transport costs that can create an indexed view of themselves for the locations of a problem, e.g. to translate the problem's location 
+ * indices to their own storage once instead of looking up location ids per query.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public interface IndexableTransportCosts extends VehicleRoutingTransportCosts {
+	
+	/**
+	 * Returns indexed costs whose int-based methods are keyed by the indices of locationIndex.
+	 * 
+	 * @param locationIndex
+	 * @return indexedTransportCosts
+	 */
+	public IndexedTransportCosts createIndexedCosts(LocationIndex locationIndex);
+
+}
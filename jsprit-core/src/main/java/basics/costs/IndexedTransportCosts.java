@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.costs;
+
+import basics.LocationIndex;
+import basics.route.Driver;
+import basics.route.Vehicle;
+
+/**
+ * Transport costs keyed by the dense location indices of a problem (see {@link LocationIndex}) instead of location ids.
+ * 
+ * <p>Values must be equal to the ones of the corresponding id-based methods. The algorithms query legs by index whenever both 
+ * locations of a leg are in {@link #getLocationIndex()}, and by id otherwise.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public interface IndexedTransportCosts extends TransportLegCosts {
+	
+	public double getTransportTime(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle);
+	
+	public double getBackwardTransportTime(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle);
+	
+	public double getTransportCost(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle);
+	
+	public double getBackwardTransportCost(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle);
+	
+	/**
+	 * Fills leg with time, distance and cost of the transport from fromIndex to toIndex that departs at departureTime.
+	 * 
+	 * @see TransportLegCosts
+	 */
+	public void getTransportLeg(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg);
+	
+	/**
+	 * Returns the location index whose indices key these costs.
+	 * 
+	 * @return locationIndex
+	 */
+	public LocationIndex getLocationIndex();
+
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.costs;
+
+import basics.LocationIndex;
+import basics.route.Driver;
+import basics.route.Vehicle;
+
+/**
+ * Adapts {@link VehicleRoutingTransportCosts} to {@link IndexedTransportCosts}, i.e. int-based queries translate indices to location ids 
+ * and ask the adapted costs.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class IndexedTransportCostsAdapter implements IndexedTransportCosts {
+	
+	/**
+	 * Returns transportCosts if they are {@link IndexedTransportCosts} already, their indexed view if they are {@link IndexableTransportCosts}, 
+	 * and an adapter of transportCosts otherwise.
+	 * 
+	 * @param transportCosts
+	 * @param locationIndex
+	 * @return indexedTransportCosts
+	 */
+	public static IndexedTransportCosts adapt(VehicleRoutingTransportCosts transportCosts, LocationIndex locationIndex){
+		if(transportCosts instanceof IndexedTransportCosts) return (IndexedTransportCosts) transportCosts;
+		if(transportCosts instanceof IndexableTransportCosts) return ((IndexableTransportCosts) transportCosts).createIndexedCosts(locationIndex);
+		return new IndexedTransportCostsAdapter(TransportLegCostsAdapter.adapt(transportCosts), locationIndex);
+	}
+	
+	private final TransportLegCosts transportCosts;
+	
+	private final LocationIndex locationIndex;
+
+	private IndexedTransportCostsAdapter(TransportLegCosts transportCosts, LocationIndex locationIndex) {
+		super();
+		this.transportCosts = transportCosts;
+		this.locationIndex = locationIndex;
+	}
+
+	@Override
+	public double getTransportTime(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getTransportTime(locationIndex.getLocationId(fromIndex), locationIndex.getLocationId(toIndex), departureTime, driver, vehicle);
+	}
+
+	@Override
+	public double getBackwardTransportTime(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getBackwardTransportTime(locationIndex.getLocationId(fromIndex), locationIndex.getLocationId(toIndex), arrivalTime, driver, vehicle);
+	}
+
+	@Override
+	public double getTransportCost(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getTransportCost(locationIndex.getLocationId(fromIndex), locationIndex.getLocationId(toIndex), departureTime, driver, vehicle);
+	}
+
+	@Override
+	public double getBackwardTransportCost(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getBackwardTransportCost(locationIndex.getLocationId(fromIndex), locationIndex.getLocationId(toIndex), arrivalTime, driver, vehicle);
+	}
+
+	@Override
+	public void getTransportLeg(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+		transportCosts.getTransportLeg(locationIndex.getLocationId(fromIndex), locationIndex.getLocationId(toIndex), departureTime, driver, vehicle, leg);
+	}
+
+	@Override
+	public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+		transportCosts.getTransportLeg(fromId, toId, departureTime, driver, vehicle, leg);
+	}
+
+	@Override
+	public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getTransportTime(fromId, toId, departureTime, driver, vehicle);
+	}
+
+	@Override
+	public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getBackwardTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+	}
+
+	@Override
+	public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getTransportCost(fromId, toId, departureTime, driver, vehicle);
+	}
+
+	@Override
+	public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getBackwardTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+	}
+	
+	@Override
+	public LocationIndex getLocationIndex() {
+		return locationIndex;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=indexedTransportCostsAdapter][transportCosts="+transportCosts+"][locationIndex="+locationIndex+"]";
+	}
+
+}
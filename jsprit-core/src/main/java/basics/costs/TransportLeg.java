@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.costs;
+
+/**
+ * Mutable result of a leg query, i.e. transport time, distance and cost of the transport from one location to another.
+ * 
+ * <p>Callers provide the leg, and {@link TransportLegCosts} fill it, thus hot loops can reuse one leg for all queries instead of 
+ * creating a result object per query. A leg must not be shared by threads.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class TransportLeg {
+	
+	/**
+	 * Distance of legs whose transport costs do not know distances.
+	 */
+	public static final double UNKNOWN_DISTANCE = Double.NaN;
+	
+	private double time;
+	
+	private double distance = UNKNOWN_DISTANCE;
+	
+	private double cost;
+	
+	public void set(double time, double distance, double cost){
+		this.time = time;
+		this.distance = distance;
+		this.cost = cost;
+	}
+
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the distance of the leg, or {@link #UNKNOWN_DISTANCE} if the transport costs do not know it.
+	 * 
+	 * @return distance
+	 */
+	public double getDistance() {
+		return distance;
+	}
+
+	public double getCost() {
+		return cost;
+	}
+	
+	@Override
+	public String toString() {
+		return "[time="+time+"][distance="+distance+"][cost="+cost+"]";
+	}
+
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.costs;
+
+import basics.route.Driver;
+import basics.route.Vehicle;
+
+/**
+ * Transport costs that determine transport time, distance and cost of a leg in one query, such that a lookup (or the walk through 
+ * time-dependent speeds) is done once per leg instead of once for its time and once for its cost.
+ * 
+ * <p>This is an optional extension of {@link VehicleRoutingTransportCosts}. The algorithms adapt transport costs that do not implement 
+ * it with {@link TransportLegCostsAdapter}. Time and cost of a leg must be equal to getTransportTime(...) and getTransportCost(...).
+ * 
+ * @author stefan schroeder
+ *
+ */
+public interface TransportLegCosts extends VehicleRoutingTransportCosts {
+	
+	/**
+	 * Fills leg with time, distance and cost of the transport from fromId to toId that departs at departureTime.
+	 * 
+	 * @param fromId
+	 * @param toId
+	 * @param departureTime
+	 * @param driver
+	 * @param vehicle
+	 * @param leg to be filled
+	 */
+	public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg);
+
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.costs;
+
+import basics.route.Driver;
+import basics.route.Vehicle;
+
+/**
+ * Adapts {@link VehicleRoutingTransportCosts} to {@link TransportLegCosts}, i.e. a leg query asks the adapted costs for time and cost 
+ * separately, and the distance of legs is unknown.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class TransportLegCostsAdapter implements TransportLegCosts {
+	
+	/**
+	 * Returns transportCosts if they are {@link TransportLegCosts} already, otherwise an adapter of transportCosts.
+	 * 
+	 * @param transportCosts
+	 * @return transportLegCosts
+	 */
+	public static TransportLegCosts adapt(VehicleRoutingTransportCosts transportCosts){
+		if(transportCosts instanceof TransportLegCosts) return (TransportLegCosts) transportCosts;
+		return new TransportLegCostsAdapter(transportCosts);
+	}
+	
+	private final VehicleRoutingTransportCosts transportCosts;
+
+	private TransportLegCostsAdapter(VehicleRoutingTransportCosts transportCosts) {
+		super();
+		this.transportCosts = transportCosts;
+	}
+
+	@Override
+	public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+		double time = transportCosts.getTransportTime(fromId, toId, departureTime, driver, vehicle);
+		double cost = transportCosts.getTransportCost(fromId, toId, departureTime, driver, vehicle);
+		leg.set(time, TransportLeg.UNKNOWN_DISTANCE, cost);
+	}
+
+	@Override
+	public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getTransportTime(fromId, toId, departureTime, driver, vehicle);
+	}
+
+	@Override
+	public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getBackwardTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+	}
+
+	@Override
+	public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getTransportCost(fromId, toId, departureTime, driver, vehicle);
+	}
+
+	@Override
+	public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return transportCosts.getBackwardTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=transportLegCostsAdapter][transportCosts="+transportCosts+"]";
+	}
+
+}
@@ -13,6 +13,7 @@
 package basics.route;
 
 import util.Coordinate;
+import basics.LocationIndex;
 
 public final class End implements TourActivity {
 
@@ -29,6 +30,8 @@ public final class End implements TourActivity {
 
 	private String locationId;
 	
+	private int locationIndex = LocationIndex.NO_INDEX;
+	
 	private Coordinate coordinate;
 	
 	public Coordinate getCoordinate() {
@@ -65,8 +68,11 @@ public final class End implements TourActivity {
 
 	public End(End end) {
 		this.locationId = end.getLocationId();
+		this.locationIndex = end.getLocationIndex();
 		theoretical_earliestOperationStartTime = end.getTheoreticalEarliestOperationStartTime();
 		theoretical_latestOperationStartTime = end.getTheoreticalLatestOperationStartTime();
+		arrTime = end.getArrTime();
+		endTime = end.getEndTime();
 	}
 
 	public double getTheoreticalEarliestOperationStartTime() {
@@ -85,8 +91,34 @@ public final class End implements TourActivity {
 		this.endTime = endTime;
 	}
 
+	/**
+	 * Sets the locationId, and resets the location index to {@link LocationIndex#NO_INDEX}.
+	 * 
+	 * @param locationId
+	 */
 	public void setLocationId(String locationId) {
 		this.locationId = locationId;
+		this.locationIndex = LocationIndex.NO_INDEX;
+	}
+	
+	/**
+	 * Caches the index of the location in a {@link LocationIndex}. 
+	 * 
+	 * @param locationIndex
+	 */
+	public void setLocationIndex(int locationIndex) {
+		this.locationIndex = locationIndex;
+	}
+	
+	/**
+	 * Returns the cached location index, or {@link LocationIndex#NO_INDEX}. 
+	 * 
+	 * <p>It might have been cached for another problem, thus check it with {@link LocationIndex#isIndexOf(int, String)} before using it.
+	 * 
+	 * @return locationIndex
+	 */
+	public int getLocationIndex() {
+		return locationIndex;
 	}
 
 	@Override
@@ -13,6 +13,7 @@
 package basics.route;
 
 import util.Coordinate;
+import basics.LocationIndex;
 
 public final class Start implements TourActivity {
 
@@ -31,6 +32,7 @@ public final class Start implements TourActivity {
 	
 	private String locationId;
 	
+	private int locationIndex = LocationIndex.NO_INDEX;
 	
 	
 	private Coordinate coordinate;
@@ -54,6 +56,7 @@ public final class Start implements TourActivity {
 
 	private Start(Start start) {
 		this.locationId = start.getLocationId();
+		this.locationIndex = start.getLocationIndex();
 		theoretical_earliestOperationStartTime = start.getTheoreticalEarliestOperationStartTime();
 		theoretical_latestOperationStartTime = start.getTheoreticalLatestOperationStartTime();
 		endTime = start.getEndTime();
@@ -73,8 +76,34 @@ public final class Start implements TourActivity {
 		return theoretical_earliestOperationStartTime;
 	}
 
+	/**
+	 * Sets the locationId, and resets the location index to {@link LocationIndex#NO_INDEX}.
+	 * 
+	 * @param locationId
+	 */
 	public void setLocationId(String locationId) {
 		this.locationId = locationId;
+		this.locationIndex = LocationIndex.NO_INDEX;
+	}
+	
+	/**
+	 * Caches the index of the location in a {@link LocationIndex}. 
+	 * 
+	 * @param locationIndex
+	 */
+	public void setLocationIndex(int locationIndex) {
+		this.locationIndex = locationIndex;
+	}
+	
+	/**
+	 * Returns the cached location index, or {@link LocationIndex#NO_INDEX}. 
+	 * 
+	 * <p>It might have been cached for another problem, thus check it with {@link LocationIndex#isIndexOf(int, String)} before using it.
+	 * 
+	 * @return locationIndex
+	 */
+	public int getLocationIndex() {
+		return locationIndex;
 	}
 
 	public double getTheoreticalLatestOperationStartTime() {
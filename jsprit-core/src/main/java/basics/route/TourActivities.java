@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import basics.Job;
 import basics.route.TourActivity.JobActivity;
@@ -36,6 +37,20 @@ public class TourActivities {
 		return new TourActivities(tourActivities);
 	}
 	
+	/**
+	 * Returns a copy that shares activities and jobs with the tour to be copied until one of both is modified. 
+	 * 
+	 * <p>Activities are then duplicated for the modified tour (copy-on-write). Since the shared activities carry arrival and end times, 
+	 * this can only be used if the copy is scheduled exactly like its original, i.e. by the same vehicle with the same departure time, 
+	 * see VehicleRoute.copyOf(VehicleRoute).
+	 * 
+	 * @param tourActivities
+	 * @return
+	 */
+	static TourActivities sharedCopyOf(TourActivities tourActivities){
+		return new TourActivities(tourActivities, true);
+	}
+	
 	public static class ReverseActivityIterator implements Iterator<TourActivity> {
 
 		private List<TourActivity> acts;		
@@ -75,11 +90,37 @@ public class TourActivities {
 		return new TourActivities();
 	}
 	
-	private final ArrayList<TourActivity> tourActivities = new ArrayList<TourActivity>();
+	private ArrayList<TourActivity> tourActivities = new ArrayList<TourActivity>();
 //	private final LinkedList<TourActivity> tourActivities = new LinkedList<TourActivity>();
 //	private final TreeList tourActivities = new TreeList();
 
-	private final Set<Job> jobs = new HashSet<Job>();
+	private Set<Job> jobs = new HashSet<Job>();
+	
+	/*
+	 * number of tours that share tourActivities and jobs. it is only decreased when a tour stops sharing them, thus 
+	 * tours that are not referenced anymore still count, and a remaining tour might copy its activities needlessly once.
+	 */
+	private AtomicInteger sharedBy = new AtomicInteger(1);
+	
+	/*
+	 * identifies tourActivities. it is shared like tourActivities and renewed when they are duplicated.
+	 */
+	private Object activitiesKey = new Object();
+	
+	/*
+	 * number of modifications that are logged to determine which positions have been modified since a former modification. 
+	 * it must be a power of two.
+	 */
+	private static final int MODIFICATION_LOG_SIZE = 32;
+	
+	private static final int ALL_MODIFIED = Integer.MIN_VALUE;
+	
+	private int modCount = 0;
+	
+	/*
+	 * positions of the last modifications. insertions are logged with their position, removals with -(position+1).
+	 */
+	private final int[] modificationLog = new int[MODIFICATION_LOG_SIZE];
 	
 	private int load = 0;
 	
@@ -95,6 +136,16 @@ public class TourActivities {
 		}
 	}
 	
+	private TourActivities(TourActivities tour2share, boolean share) {
+		this.tourActivities = tour2share.tourActivities;
+		this.jobs = tour2share.jobs;
+		this.sharedBy = tour2share.sharedBy;
+		this.sharedBy.incrementAndGet();
+		this.activitiesKey = tour2share.activitiesKey;
+		this.modCount = tour2share.modCount;
+		System.arraycopy(tour2share.modificationLog, 0, this.modificationLog, 0, MODIFICATION_LOG_SIZE);
+	}
+	
 	public TourActivities(){
 		
 	}
@@ -104,7 +155,7 @@ public class TourActivities {
 	}
 	
 	public Iterator<TourActivity> iterator(){
-		return tourActivities.iterator();
+		return getActivities().iterator();
 	}
 
 	public boolean isEmpty() {
@@ -136,20 +187,23 @@ public class TourActivities {
 			return false;
 		}
 		else{
+			unshare();
 			jobRemoved = jobs.remove(job);
 		}
 		boolean activityRemoved = false;
-		List<TourActivity> acts = new ArrayList<TourActivity>(tourActivities);
-		for(TourActivity c : acts){
+		for(int i=tourActivities.size()-1;i>=0;i--){
+			TourActivity c = tourActivities.get(i);
 			if(c instanceof JobActivity){
 				if(job.equals(((JobActivity) c).getJob())){
-					tourActivities.remove(c);
+					tourActivities.remove(i);
+					logModification(-(i+1));
 					activityRemoved = true;
 				}
 			}
 			else if(c instanceof ServiceActivity){
 				if(job.equals(((ServiceActivity) c).getJob())){
-					tourActivities.remove(c);
+					tourActivities.remove(i);
+					logModification(-(i+1));
 					activityRemoved = true;
 				}
 			}
@@ -167,14 +221,23 @@ public class TourActivities {
 		 * ...
 		 * 
 		 */
-		if(insertionIndex < tourActivities.size()) tourActivities.add(insertionIndex, act); 
-		else if(insertionIndex >= tourActivities.size()) tourActivities.add(act);
+		unshare();
+		if(insertionIndex < tourActivities.size()){
+			tourActivities.add(insertionIndex, act);
+			logModification(insertionIndex);
+		}
+		else if(insertionIndex >= tourActivities.size()){
+			tourActivities.add(act);
+			logModification(tourActivities.size()-1);
+		}
 		addJob(act);
 	}
 	
 	public void addActivity(TourActivity act){
 		if(tourActivities.contains(act)) throw new IllegalStateException("act " + act + " already in tour. cannot add act twice.");
+		unshare();
 		tourActivities.add(act);
+		logModification(tourActivities.size()-1);
 		addJob(act);
 	}
 
@@ -199,6 +262,121 @@ public class TourActivities {
 		return backward;
 	}
 
+	/**
+	 * Returns the number of modifications of this tour, i.e. each insertion and removal of an activity increases it by one. 
+	 * 
+	 * <p>Components that derive states from this tour can memorize the modification count of their last update, 
+	 * skip the next update if it has not changed, and otherwise ask for the range of positions that have been modified 
+	 * since then (see getLowestModifiedIndex(int) and getHighestModifiedIndex(int)).
+	 * 
+	 * @return number of modifications
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+	
+	/**
+	 * Returns the key of this tour's activities. 
+	 * 
+	 * <p>A copy made with sharedCopyOf(TourActivities) (see VehicleRoute.copyOf(VehicleRoute)) has the key and the modification count of its 
+	 * original, until one of both is modified. The modified tour then gets a new key. Thus key and modification count identify the 
+	 * sequence of activities, and components that memorize states of a tour can recognize them in copies of the tour.
+	 * 
+	 * @return key of activities
+	 */
+	public Object getActivitiesKey() {
+		return activitiesKey;
+	}
+	
+	/**
+	 * Marks the whole tour as modified. 
+	 * 
+	 * <p>This must be called if something changed all activities depend on, such as the vehicle or its departure time.
+	 */
+	public void markModified(){
+		unshare();
+		logModification(ALL_MODIFIED);
+	}
+	
+	/**
+	 * Returns the lowest position that has been modified since modCount, i.e. activities in front of this position have the same predecessors 
+	 * as they had at modCount. 
+	 * 
+	 * <p>If modCount is unknown or too old to be traced back, 0 is returned. If nothing has been modified, the number of activities is returned.
+	 * 
+	 * @param modCount a former modification count of this tour
+	 * @return lowest modified position
+	 */
+	public int getLowestModifiedIndex(int modCount){
+		if(!isTraceable(modCount)) return 0;
+		int lowest = tourActivities.size();
+		for(int m=modCount;m<this.modCount;m++){
+			int entry = modificationLog[m & (MODIFICATION_LOG_SIZE-1)];
+			if(entry == ALL_MODIFIED) return 0;
+			lowest = Math.min(lowest, getPosition(entry));
+		}
+		return Math.min(lowest, tourActivities.size());
+	}
+	
+	/**
+	 * Returns the highest position that has been modified since modCount, i.e. activities behind this position have the same successors 
+	 * as they had at modCount.
+	 * 
+	 * <p>If modCount is unknown or too old to be traced back, the position of the last activity is returned. If nothing has been modified, -1 is returned.
+	 * 
+	 * @param modCount a former modification count of this tour
+	 * @return highest modified position
+	 */
+	public int getHighestModifiedIndex(int modCount){
+		if(!isTraceable(modCount)) return tourActivities.size()-1;
+		int highest = -1;
+		for(int m=modCount;m<this.modCount;m++){
+			int entry = modificationLog[m & (MODIFICATION_LOG_SIZE-1)];
+			if(entry == ALL_MODIFIED) return tourActivities.size()-1;
+			int position = getPosition(entry);
+			if(entry >= 0){
+				//insertion shifts the formerly highest position backward
+				if(position <= highest) highest++;
+			}
+			else{
+				//removal shifts it forward
+				if(position < highest) highest--;
+			}
+			highest = Math.max(highest, position);
+		}
+		return Math.min(highest, tourActivities.size()-1);
+	}
+
+	private boolean isTraceable(int modCount) {
+		return modCount >= 0 && modCount <= this.modCount && this.modCount - modCount <= MODIFICATION_LOG_SIZE;
+	}
 
+	private int getPosition(int entry) {
+		if(entry < 0) return -(entry+1);
+		return entry;
+	}
+
+	/*
+	 * duplicates shared activities before this tour is modified. the duplicates keep the position in the tour, thus the modification 
+	 * log is still valid. they get a new key, since only this tour is modified.
+	 */
+	private void unshare() {
+		if(sharedBy.get() == 1) return;
+		ArrayList<TourActivity> ownActivities = new ArrayList<TourActivity>(tourActivities.size());
+		for(TourActivity act : tourActivities){
+			ownActivities.add(act.duplicate());
+		}
+		tourActivities = ownActivities;
+		jobs = new HashSet<Job>(jobs);
+		backward = null;
+		sharedBy.decrementAndGet();
+		sharedBy = new AtomicInteger(1);
+		activitiesKey = new Object();
+	}
+
+	private void logModification(int entry) {
+		modificationLog[modCount & (MODIFICATION_LOG_SIZE-1)] = entry;
+		modCount++;
+	}
 
 }
@@ -15,9 +15,31 @@ package basics.route;
 import basics.route.VehicleImpl.NoVehicle;
 
 public class VehicleRoute {
-			
+	
+	/**
+	 * Returns a copy of the route. 
+	 * 
+	 * <p>Its activities are shared with the route to be copied and only duplicated when one of both routes is modified, 
+	 * thus copying a route is cheap and copying a solution costs in proportion to the routes that are modified afterwards.
+	 * 
+	 * <p>Since updating the states of a route sets arrival and end times of its activities, the copy must be used by the thread that uses 
+	 * the route to be copied. Use deepCopyOf(VehicleRoute) to hand a copy over to another thread.
+	 * 
+	 * @param route
+	 * @return
+	 */
 	public static VehicleRoute copyOf(VehicleRoute route) {
-		return new VehicleRoute(route);
+		return new VehicleRoute(route, true);
+	}
+	
+	/**
+	 * Returns a copy of the route with its own activities, i.e. activities are duplicated (see TourActivities.copyOf(TourActivities)).
+	 * 
+	 * @param route
+	 * @return
+	 */
+	public static VehicleRoute deepCopyOf(VehicleRoute route) {
+		return new VehicleRoute(route, false);
 	}
 	
 	public static VehicleRoute newInstance(TourActivities tour, Driver driver, Vehicle vehicle) {
@@ -101,10 +123,11 @@ public class VehicleRoute {
 		return costCalculator.getCosts();
 	}
 	
-	private VehicleRoute(VehicleRoute route){
+	private VehicleRoute(VehicleRoute route, boolean shareActivities){
 		this.start = Start.copyOf(route.getStart());
 		this.end = End.copyOf(route.getEnd());
-		this.tourActivities = TourActivities.copyOf(route.getTourActivities());
+		if(shareActivities) this.tourActivities = TourActivities.sharedCopyOf(route.getTourActivities());
+		else this.tourActivities = TourActivities.copyOf(route.getTourActivities());
 		this.vehicle = route.getVehicle();
 		this.driver = route.getDriver();
 		this.costCalculator = route.getVehicleRouteCostCalculator().duplicate();
@@ -151,10 +174,12 @@ public class VehicleRoute {
 	public void setVehicle(Vehicle vehicle, double vehicleDepTime){
 		this.vehicle = vehicle;
 		setStartAndEnd(vehicle, vehicleDepTime);
+		tourActivities.markModified();
 	}
 	
 	public void setDepartureTime(double vehicleDepTime){
 		if(start == null) throw new IllegalStateException("cannot set departureTime without having a vehicle on this route. use setVehicle(vehicle,departureTime) instead.");
+		if(start.getEndTime() != vehicleDepTime) tourActivities.markModified();
 		start.setEndTime(vehicleDepTime);
 	}
 	
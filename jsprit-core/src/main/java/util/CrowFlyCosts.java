@@ -17,7 +17,11 @@ package util;
 
 import org.apache.log4j.Logger;
 
-import basics.costs.VehicleRoutingTransportCosts;
+import basics.LocationIndex;
+import basics.costs.IndexableTransportCosts;
+import basics.costs.IndexedTransportCosts;
+import basics.costs.TransportLeg;
+import basics.costs.TransportLegCosts;
 import basics.route.Driver;
 import basics.route.Vehicle;
 
@@ -26,7 +30,111 @@ import basics.route.Vehicle;
  * @author stefan schroeder
  * 
  */
-public class CrowFlyCosts implements VehicleRoutingTransportCosts {
+public class CrowFlyCosts implements TransportLegCosts, IndexableTransportCosts {
+
+	/**
+	 * View of crow-fly costs that is keyed by the location indices of a problem. Coordinates are copied to arrays once, thus queries by index 
+	 * neither look up coordinates nor hash location ids.
+	 * 
+	 * @author stefan schroeder
+	 *
+	 */
+	private class IndexedCrowFlyCosts implements IndexedTransportCosts {
+		
+		private final LocationIndex locationIndex;
+		
+		private final double[] xs;
+		
+		private final double[] ys;
+		
+		private final boolean[] hasCoord;
+		
+		IndexedCrowFlyCosts(LocationIndex locationIndex){
+			this.locationIndex = locationIndex;
+			int nuOfLocations = locationIndex.getNuOfLocations();
+			xs = new double[nuOfLocations];
+			ys = new double[nuOfLocations];
+			hasCoord = new boolean[nuOfLocations];
+			for(int i=0;i<nuOfLocations;i++){
+				Coordinate coord = locations.getCoord(locationIndex.getLocationId(i));
+				if(coord == null) continue;
+				xs[i] = coord.getX();
+				ys[i] = coord.getY();
+				hasCoord[i] = true;
+			}
+		}
+		
+		private double calculateDistance(int fromIndex, int toIndex){
+			if(fromIndex < 0 || toIndex < 0 || fromIndex >= hasCoord.length || toIndex >= hasCoord.length || !hasCoord[fromIndex] || !hasCoord[toIndex]){
+				throw new NullPointerException("cannot calculate euclidean distance. coordinates are missing. either add coordinates or use another transport-cost-calculator.");
+			}
+			double xDiff = xs[fromIndex] - xs[toIndex];
+			double yDiff = ys[fromIndex] - ys[toIndex];
+			return Math.sqrt(xDiff*xDiff + yDiff*yDiff) * detourFactor;
+		}
+
+		@Override
+		public double getTransportTime(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle) {
+			return calculateDistance(fromIndex, toIndex) / speed;
+		}
+
+		@Override
+		public double getBackwardTransportTime(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return getTransportTime(fromIndex, toIndex, arrivalTime, null, null);
+		}
+
+		@Override
+		public double getTransportCost(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle) {
+			return getCost(calculateDistance(fromIndex, toIndex), vehicle);
+		}
+
+		@Override
+		public double getBackwardTransportCost(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return getTransportCost(fromIndex, toIndex, arrivalTime, null, null);
+		}
+
+		@Override
+		public void getTransportLeg(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+			double distance = calculateDistance(fromIndex, toIndex);
+			leg.set(distance / speed, distance, getCost(distance, vehicle));
+		}
+
+		@Override
+		public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+			CrowFlyCosts.this.getTransportLeg(fromId, toId, departureTime, driver, vehicle, leg);
+		}
+
+		@Override
+		public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+			return CrowFlyCosts.this.getTransportTime(fromId, toId, departureTime, driver, vehicle);
+		}
+
+		@Override
+		public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return CrowFlyCosts.this.getBackwardTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+		}
+
+		@Override
+		public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+			return CrowFlyCosts.this.getTransportCost(fromId, toId, departureTime, driver, vehicle);
+		}
+
+		@Override
+		public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return CrowFlyCosts.this.getBackwardTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+		}
+		
+		@Override
+		public LocationIndex getLocationIndex() {
+			return locationIndex;
+		}
+		
+		@Override
+		public String toString() {
+			return "[name=indexedCrowFlyCosts][locationIndex="+locationIndex+"]";
+		}
+		
+	}
 
 	private static Logger logger = Logger.getLogger(CrowFlyCosts.class);
 
@@ -46,14 +154,44 @@ public class CrowFlyCosts implements VehicleRoutingTransportCosts {
 		return "[name=crowFlyCosts]";
 	}
 
+	/**
+	 * Returns a view of these costs that is keyed by the location indices of a problem. Coordinates are those that are known when the 
+	 * view is created, whereas speed and detourFactor are read per query.
+	 */
+	@Override
+	public IndexedTransportCosts createIndexedCosts(LocationIndex locationIndex) {
+		return new IndexedCrowFlyCosts(locationIndex);
+	}
+
 	@Override
 	public double getTransportCost(String fromId, String toId, double time, Driver driver, Vehicle vehicle) {
-		double distance;
+		return getCost(calculateDistance(fromId, toId), vehicle);
+	}
+
+	@Override
+	public double getTransportTime(String fromId, String toId, double time, Driver driver, Vehicle vehicle) {
+		double transportTime = calculateDistance(fromId, toId) / speed;
+		return transportTime;
+	}
+	
+	/**
+	 * Fills leg with time, distance and cost of the relation fromId-toId, whereby the distance is calculated once for all three values.
+	 */
+	@Override
+	public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+		double distance = calculateDistance(fromId, toId);
+		leg.set(distance / speed, distance, getCost(distance, vehicle));
+	}
+
+	private double calculateDistance(String fromId, String toId) {
 		try {
-			distance = EuclideanDistanceCalculator.calculateDistance(locations.getCoord(fromId), locations.getCoord(toId)) * detourFactor;
+			return EuclideanDistanceCalculator.calculateDistance(locations.getCoord(fromId), locations.getCoord(toId)) * detourFactor;
 		} catch (NullPointerException e) {
 			throw new NullPointerException("cannot calculate euclidean distance. coordinates are missing. either add coordinates or use another transport-cost-calculator.");
 		}
+	}
+
+	private double getCost(double distance, Vehicle vehicle) {
 		double costs = distance;
 		if(vehicle != null){
 			if(vehicle.getType() != null){
@@ -63,18 +201,6 @@ public class CrowFlyCosts implements VehicleRoutingTransportCosts {
 		return costs;
 	}
 
-	@Override
-	public double getTransportTime(String fromId, String toId, double time, Driver driver, Vehicle vehicle) {
-		double distance;
-		try {
-			distance = EuclideanDistanceCalculator.calculateDistance(locations.getCoord(fromId), locations.getCoord(toId)) * detourFactor;
-		} catch (NullPointerException e) {
-			throw new NullPointerException("cannot calculate euclidean distance. coordinates are missing. either add coordinates or use another transport-cost-calculator.");
-		}
-		double transportTime = distance / speed;
-		return transportTime;
-	}
-
 	@Override
 	public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
 		return getTransportCost(fromId, toId, arrivalTime, null, null);
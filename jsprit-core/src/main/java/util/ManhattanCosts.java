@@ -14,7 +14,8 @@ package util;
 
 
 
-import basics.costs.VehicleRoutingTransportCosts;
+import basics.costs.TransportLeg;
+import basics.costs.TransportLegCosts;
 import basics.route.Driver;
 import basics.route.Vehicle;
 
@@ -24,7 +25,7 @@ import basics.route.Vehicle;
  * 
  */
 
-public class ManhattanCosts implements VehicleRoutingTransportCosts {
+public class ManhattanCosts implements TransportLegCosts {
 
 	public double speed = 1;
 
@@ -46,6 +47,12 @@ public class ManhattanCosts implements VehicleRoutingTransportCosts {
 		return transportTime;
 	}
 
+	@Override
+	public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+		double distance = calculateDistance(fromId, toId);
+		leg.set(distance / speed, distance, distance);
+	}
+
 	private double calculateDistance(String fromId, String toId) {
 		double distance = Math.abs(locations.getCoord(fromId).getX()
 				- locations.getCoord(toId).getX())
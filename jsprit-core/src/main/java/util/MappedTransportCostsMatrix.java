@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import basics.costs.VehicleRoutingTransportCosts;
+import basics.route.Driver;
+import basics.route.Vehicle;
+import basics.route.VehicleTypeImpl.VehicleCostParams;
+
+/**
+ * Transport-costs matrix that reads distances and times from a binary matrix-file which is memory-mapped, i.e.
+ * the matrix is not loaded onto the heap but into the page-cache of the operating system. Thus several jvms on one host
+ * can share one matrix and large matrices (with for example 20,000 locations and more) can be used with a small heap.
+ *
+ * <p>A matrix-file is written with {@link MappedTransportCostsMatrixWriter}. It consists of a header that contains the
+ * precision of the values, whether the matrix is symmetric and the locationIds (in the order of their index), followed
+ * by the distance- and the time-section. Each section is a flat matrix with either float or double values. Missing
+ * relations are represented by NaN.
+ *
+ * <p>Like {@link VehicleRoutingTransportCostsMatrix}, it throws an IllegalStateException if a relation does not exist.
+ *
+ * @author schroeder
+ *
+ */
+public class MappedTransportCostsMatrix implements VehicleRoutingTransportCosts {
+
+	/**
+	 * Precision the values are stored with.
+	 *
+	 * @author schroeder
+	 *
+	 */
+	public static enum Precision {
+		FLOAT(4), DOUBLE(8);
+
+		private final int bytes;
+
+		private Precision(int bytes){
+			this.bytes = bytes;
+		}
+
+		public int getBytes(){
+			return bytes;
+		}
+
+		static Precision valueOf(int bytes){
+			if(bytes == 4) return FLOAT;
+			if(bytes == 8) return DOUBLE;
+			throw new IllegalStateException("precision with " + bytes + " bytes is not supported. use either 4 (float) or 8 (double) bytes.");
+		}
+	}
+
+	static final int MAGIC_NUMBER = 0x4A53504D;
+
+	static final int VERSION = 1;
+
+	/**
+	 * Size of each mapped segment. A single MappedByteBuffer cannot exceed 2GB, thus a section is mapped in several segments.
+	 */
+	static final int SEGMENT_BITS = 30;
+
+	static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+	private static Logger log = Logger.getLogger(MappedTransportCostsMatrix.class);
+
+	/**
+	 * Returns the number of cells required to store a matrix with nuOfLocations.
+	 */
+	static long getMatrixSize(int nuOfLocations, boolean isSymmetric){
+		if(isSymmetric) return (long)nuOfLocations*(nuOfLocations+1)/2;
+		return (long)nuOfLocations*nuOfLocations;
+	}
+
+	/**
+	 * Returns the cell of the relation fromIndex-toIndex. If the matrix is symmetric, it is the cell in the lower triangle.
+	 */
+	static long getCell(int fromIndex, int toIndex, int nuOfLocations, boolean isSymmetric){
+		if(isSymmetric){
+			if(fromIndex < toIndex){
+				return (long)toIndex*(toIndex+1)/2 + fromIndex;
+			}
+			return (long)fromIndex*(fromIndex+1)/2 + toIndex;
+		}
+		return (long)fromIndex*nuOfLocations + toIndex;
+	}
+
+	/**
+	 * Maps the section [offset,offset+length) of the channel in segments of SEGMENT_SIZE.
+	 */
+	static MappedByteBuffer[] mapSection(FileChannel channel, MapMode mode, long offset, long length) throws IOException{
+		int nuOfSegments = (int)((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+		MappedByteBuffer[] segments = new MappedByteBuffer[nuOfSegments];
+		for(int i=0;i<nuOfSegments;i++){
+			long segmentStart = i*SEGMENT_SIZE;
+			long segmentLength = Math.min(SEGMENT_SIZE, length - segmentStart);
+			segments[i] = channel.map(mode, offset + segmentStart, segmentLength);
+		}
+		return segments;
+	}
+
+	/**
+	 * Reads the matrix-file and returns the memory-mapped matrix.
+	 *
+	 * @param file
+	 * @return matrix
+	 * @throws IllegalStateException if file cannot be read or is not a matrix-file
+	 */
+	public static MappedTransportCostsMatrix newInstance(File file){
+		return new MappedTransportCostsMatrix(file);
+	}
+
+	private final Map<String,Integer> locationIndices;
+
+	private final int nuOfLocations;
+
+	private final boolean isSymmetric;
+
+	private final Precision precision;
+
+	private final boolean distancesSet;
+
+	private final boolean timesSet;
+
+	private final MappedByteBuffer[] distances;
+
+	private final MappedByteBuffer[] times;
+
+	private final String fileName;
+
+	private MappedTransportCostsMatrix(File file){
+		this.fileName = file.getName();
+		RandomAccessFile randomAccessFile = null;
+		try {
+			randomAccessFile = new RandomAccessFile(file, "r");
+			if(randomAccessFile.readInt() != MAGIC_NUMBER) throw new IllegalStateException(file + " is not a transport-costs matrix file.");
+			int version = randomAccessFile.readInt();
+			if(version != VERSION) throw new IllegalStateException("version " + version + " of matrix file " + file + " is not supported.");
+			isSymmetric = randomAccessFile.readBoolean();
+			precision = Precision.valueOf(randomAccessFile.readByte());
+			distancesSet = randomAccessFile.readBoolean();
+			timesSet = randomAccessFile.readBoolean();
+			nuOfLocations = randomAccessFile.readInt();
+			locationIndices = new HashMap<String, Integer>(nuOfLocations*2);
+			for(int i=0;i<nuOfLocations;i++){
+				locationIndices.put(randomAccessFile.readUTF(), i);
+			}
+			long sectionLength = getMatrixSize(nuOfLocations, isSymmetric)*precision.getBytes();
+			long offset = getDataOffset(randomAccessFile.getFilePointer());
+			FileChannel channel = randomAccessFile.getChannel();
+			if(distancesSet){
+				distances = mapSection(channel, MapMode.READ_ONLY, offset, sectionLength);
+				offset += sectionLength;
+			}
+			else distances = null;
+			if(timesSet){
+				times = mapSection(channel, MapMode.READ_ONLY, offset, sectionLength);
+			}
+			else times = null;
+		} catch (IOException e) {
+			log.error(e);
+			throw new IllegalStateException("cannot read matrix file " + file, e);
+		}
+		finally{
+			close(randomAccessFile);
+		}
+		log.info("initialise " + this);
+	}
+
+	/**
+	 * Data sections start at a multiple of 8 bytes, thus no value spans two segments.
+	 */
+	static long getDataOffset(long headerLength){
+		return (headerLength + 7) & ~7L;
+	}
+
+	private static void close(RandomAccessFile randomAccessFile) {
+		if(randomAccessFile == null) return;
+		try {
+			randomAccessFile.close();
+		} catch (IOException e) {
+			log.warn("cannot close matrix file", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "[name=mappedTransportCostsMatrix][file="+fileName+"][#locations="+nuOfLocations+"][isSymmetric="+isSymmetric+"][precision="+precision+"]";
+	}
+
+	/**
+	 * Returns the number of locations this matrix knows.
+	 *
+	 * @return nuOfLocations
+	 */
+	public int getNuOfLocations(){
+		return nuOfLocations;
+	}
+
+	/**
+	 * Returns the index of locationId, or -1 if this matrix does not know locationId.
+	 *
+	 * @param locationId
+	 * @return index
+	 */
+	public int getLocationIndex(String locationId){
+		Integer index = locationIndices.get(locationId);
+		if(index == null) return -1;
+		return index;
+	}
+
+	/**
+	 * Returns the distance between the locations indexed by fromIndex and toIndex.
+	 *
+	 * @param fromIndex
+	 * @param toIndex
+	 * @return distance
+	 * @throws IllegalStateException if there is no distance value for this relation
+	 */
+	public double getDistance(int fromIndex, int toIndex){
+		if(!distancesSet) return 0.0;
+		if(fromIndex == toIndex) return 0.0;
+		double distance = getValue(distances, fromIndex, toIndex);
+		if(Double.isNaN(distance)) throw new IllegalStateException("distance value for relation from location-index " + fromIndex + " to " + toIndex + " does not exist");
+		return distance;
+	}
+
+	/**
+	 * Returns the transport-time between the locations indexed by fromIndex and toIndex.
+	 *
+	 * @param fromIndex
+	 * @param toIndex
+	 * @return transport-time
+	 * @throws IllegalStateException if there is no time value for this relation
+	 */
+	public double getTime(int fromIndex, int toIndex){
+		if(!timesSet) return 0.0;
+		if(fromIndex == toIndex) return 0.0;
+		double time = getValue(times, fromIndex, toIndex);
+		if(Double.isNaN(time)) throw new IllegalStateException("time value for relation from location-index " + fromIndex + " to " + toIndex + " does not exist");
+		return time;
+	}
+
+	private double getValue(MappedByteBuffer[] section, int fromIndex, int toIndex){
+		long position = getCell(fromIndex, toIndex, nuOfLocations, isSymmetric)*precision.getBytes();
+		MappedByteBuffer segment = section[(int)(position >>> SEGMENT_BITS)];
+		int positionInSegment = (int)(position & (SEGMENT_SIZE-1));
+		if(precision == Precision.FLOAT) return segment.getFloat(positionInSegment);
+		return segment.getDouble(positionInSegment);
+	}
+
+	private double getTime(String fromId, String toId) {
+		if(fromId.equals(toId)) return 0.0;
+		if(!timesSet) return 0.0;
+		int fromIndex = getLocationIndex(fromId);
+		int toIndex = getLocationIndex(toId);
+		if(fromIndex < 0 || toIndex < 0) throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
+		return getTime(fromIndex, toIndex);
+	}
+
+	private double getDistance(String fromId, String toId) {
+		if(fromId.equals(toId)) return 0.0;
+		if(!distancesSet) return 0.0;
+		int fromIndex = getLocationIndex(fromId);
+		int toIndex = getLocationIndex(toId);
+		if(fromIndex < 0 || toIndex < 0) throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
+		return getDistance(fromIndex, toIndex);
+	}
+
+	@Override
+	public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		return getTime(fromId, toId);
+	}
+
+	@Override
+	public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return getTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+	}
+
+	@Override
+	public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		if(vehicle == null) return getDistance(fromId, toId);
+		VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+		return costParams.perDistanceUnit*getDistance(fromId, toId) + costParams.perTimeUnit*getTime(fromId, toId);
+	}
+
+	@Override
+	public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return getTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+	}
+
+}
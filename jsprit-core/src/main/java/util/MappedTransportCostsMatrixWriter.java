@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.log4j.Logger;
+
+import util.MappedTransportCostsMatrix.Precision;
+import util.VehicleRoutingTransportCostsMatrix.RelationList;
+
+/**
+ * Writes the relations of a {@link VehicleRoutingTransportCostsMatrix.Builder} to a matrix-file that can be read by
+ * {@link MappedTransportCostsMatrix}.
+ *
+ * <p>The matrix is not built on the heap. The sections are pre-filled with NaN and the relations are then written
+ * directly to their cells in the memory-mapped file.
+ *
+ * @author schroeder
+ *
+ */
+public class MappedTransportCostsMatrixWriter {
+
+	private static Logger log = Logger.getLogger(MappedTransportCostsMatrixWriter.class);
+
+	private VehicleRoutingTransportCostsMatrix.Builder matrixBuilder;
+
+	private Precision precision;
+
+	/**
+	 * Creates a writer that writes the relations of matrixBuilder with the specified precision.
+	 *
+	 * @param matrixBuilder
+	 * @param precision
+	 */
+	public MappedTransportCostsMatrixWriter(VehicleRoutingTransportCostsMatrix.Builder matrixBuilder, Precision precision) {
+		super();
+		this.matrixBuilder = matrixBuilder;
+		this.precision = precision;
+	}
+
+	/**
+	 * Creates a writer that writes the relations of matrixBuilder with double precision.
+	 *
+	 * @param matrixBuilder
+	 */
+	public MappedTransportCostsMatrixWriter(VehicleRoutingTransportCostsMatrix.Builder matrixBuilder) {
+		this(matrixBuilder, Precision.DOUBLE);
+	}
+
+	/**
+	 * Writes the matrix-file. An existing file is overridden.
+	 *
+	 * @param filename
+	 * @throws IllegalStateException if file cannot be written
+	 */
+	public void write(String filename){
+		write(new File(filename));
+	}
+
+	/**
+	 * Writes the matrix-file. An existing file is overridden.
+	 *
+	 * @param file
+	 * @throws IllegalStateException if file cannot be written
+	 */
+	public void write(File file){
+		try {
+			long headerLength = writeHeader(file);
+			writeSections(file, MappedTransportCostsMatrix.getDataOffset(headerLength));
+		} catch (IOException e) {
+			log.error(e);
+			throw new IllegalStateException("cannot write matrix file " + file, e);
+		}
+		log.info("matrix with " + matrixBuilder.getLocationIndices().size() + " locations written to " + file);
+	}
+
+	private long writeHeader(File file) throws IOException {
+		Map<String,Integer> locationIndices = matrixBuilder.getLocationIndices();
+		String[] locationIds = new String[locationIndices.size()];
+		for(Entry<String,Integer> e : locationIndices.entrySet()){
+			locationIds[e.getValue()] = e.getKey();
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try{
+			out.writeInt(MappedTransportCostsMatrix.MAGIC_NUMBER);
+			out.writeInt(MappedTransportCostsMatrix.VERSION);
+			out.writeBoolean(matrixBuilder.isSymmetric());
+			out.writeByte(precision.getBytes());
+			out.writeBoolean(matrixBuilder.isDistancesSet());
+			out.writeBoolean(matrixBuilder.isTimesSet());
+			out.writeInt(locationIds.length);
+			for(String locationId : locationIds){
+				out.writeUTF(locationId);
+			}
+			out.flush();
+			return out.size();
+		}
+		finally{
+			out.close();
+		}
+	}
+
+	private void writeSections(File file, long offset) throws IOException {
+		int nuOfLocations = matrixBuilder.getLocationIndices().size();
+		boolean isSymmetric = matrixBuilder.isSymmetric();
+		long sectionLength = MappedTransportCostsMatrix.getMatrixSize(nuOfLocations, isSymmetric)*precision.getBytes();
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try{
+			long fileLength = offset;
+			if(matrixBuilder.isDistancesSet()) fileLength += sectionLength;
+			if(matrixBuilder.isTimesSet()) fileLength += sectionLength;
+			randomAccessFile.setLength(fileLength);
+			FileChannel channel = randomAccessFile.getChannel();
+			if(matrixBuilder.isDistancesSet()){
+				writeSection(channel, offset, sectionLength, matrixBuilder.getDistances(), nuOfLocations, isSymmetric, "distance");
+				offset += sectionLength;
+			}
+			if(matrixBuilder.isTimesSet()){
+				writeSection(channel, offset, sectionLength, matrixBuilder.getTimes(), nuOfLocations, isSymmetric, "transport-time");
+			}
+		}
+		finally{
+			randomAccessFile.close();
+		}
+	}
+
+	private void writeSection(FileChannel channel, long offset, long sectionLength, RelationList relations, int nuOfLocations, boolean isSymmetric, String valueName) throws IOException {
+		MappedByteBuffer[] segments = MappedTransportCostsMatrix.mapSection(channel, MapMode.READ_WRITE, offset, sectionLength);
+		for(MappedByteBuffer segment : segments){
+			while(segment.remaining() >= precision.getBytes()){
+				if(precision == Precision.FLOAT) segment.putFloat(Float.NaN);
+				else segment.putDouble(Double.NaN);
+			}
+		}
+		for(int i=0;i<relations.size();i++){
+			long position = MappedTransportCostsMatrix.getCell(relations.getFrom(i), relations.getTo(i), nuOfLocations, isSymmetric)*precision.getBytes();
+			MappedByteBuffer segment = segments[(int)(position >>> MappedTransportCostsMatrix.SEGMENT_BITS)];
+			int positionInSegment = (int)(position & (MappedTransportCostsMatrix.SEGMENT_SIZE-1));
+			if(precision == Precision.FLOAT){
+				if(!Float.isNaN(segment.getFloat(positionInSegment))) warnOverride(relations, i, valueName);
+				segment.putFloat(positionInSegment, (float)relations.getValue(i));
+			}
+			else{
+				if(!Double.isNaN(segment.getDouble(positionInSegment))) warnOverride(relations, i, valueName);
+				segment.putDouble(positionInSegment, relations.getValue(i));
+			}
+		}
+		for(MappedByteBuffer segment : segments){
+			segment.force();
+		}
+	}
+
+	private void warnOverride(RelationList relations, int i, String valueName) {
+		log.warn(valueName + " from " + relations.getFrom(i) + " to " + relations.getTo(i) + " (location-indices) already exists. This overrides " + valueName + ".");
+	}
+
+}
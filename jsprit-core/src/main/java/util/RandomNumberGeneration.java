@@ -12,24 +12,145 @@
  ******************************************************************************/
 package util;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
+/**
+ * Provides random-number generators.
+ * 
+ * <p>Components obtain their own generator with {@link #newRandom(Class)} when they are created. Its seed is derived from a master seed, 
+ * the component's class and the number of generators this class has obtained so far. Thus, components do not share generators, 
+ * and the numbers a component draws depend neither on the numbers other components draw nor on the order in which components of 
+ * different classes are created. They do depend on the order in which instances of the same class are created though, since the 
+ * second instance of a class gets the second stream of this class.
+ * 
+ * <p>The master seed is the global one (see {@link #setSeed(long)}) unless a seed is set for the current thread with {@link #setThreadSeed(long)}. 
+ * The latter allows to create algorithms with independent streams, for example each island of {@link algorithms.IslandVehicleRoutingAlgorithm} 
+ * is created with the seed deriveSeed(masterSeed, islandIndex). Given the master seed, runs are reproducible regardless of the 
+ * threads that run them.
+ * 
+ * @author stefan schroeder
+ *
+ */
 public class RandomNumberGeneration {
+	
+	/*
+	 * master seed and number of generators per component that have been derived from it.
+	 */
+	private static class Streams {
+		
+		final long seed;
+		
+		final Map<String,Integer> nuOfRandoms = new HashMap<String, Integer>();
+		
+		Random random;
+		
+		Streams(long seed) {
+			super();
+			this.seed = seed;
+		}
+		
+		synchronized Random newRandom(String component){
+			Integer n = nuOfRandoms.get(component);
+			if(n == null) n = 0;
+			nuOfRandoms.put(component, n+1);
+			return new Random(deriveSeed(deriveSeed(seed, component.hashCode()), n));
+		}
+		
+		synchronized Random getRandom(){
+			if(random == null) random = new Random(seed);
+			return random;
+		}
+	}
 
 	private static long DEFAULT_SEED = 4711L;
 
-	private static Random random = new Random(DEFAULT_SEED);
+	private static volatile Streams globalStreams = new Streams(DEFAULT_SEED);
+	
+	private static ThreadLocal<Streams> threadStreams = new ThreadLocal<Streams>();
+	
+	private static Streams streams(){
+		Streams s = threadStreams.get();
+		if(s != null) return s;
+		return globalStreams;
+	}
 
+	/**
+	 * Returns the random-number generator of the master seed, which is shared by all its users. 
+	 * 
+	 * <p>Components should obtain their own generator with {@link #newRandom(Class)} instead.
+	 * 
+	 * @return random
+	 */
 	public static Random getRandom() {
-		return random;
+		return streams().getRandom();
+	}
+	
+	/**
+	 * Returns a new random-number generator for a component, whose seed is derived from the master seed, the component's class 
+	 * and the number of generators that have already been returned for this class.
+	 * 
+	 * @param component the class of the component that uses the generator
+	 * @return random
+	 */
+	public static Random newRandom(Class<?> component) {
+		return streams().newRandom(component.getName());
+	}
+	
+	/**
+	 * Returns the master seed of the current thread.
+	 * 
+	 * @return seed
+	 */
+	public static long getSeed() {
+		return streams().seed;
+	}
+	
+	/**
+	 * Derives a seed for stream number streamId from seed. 
+	 * 
+	 * <p>Seeds of different streams are scrambled with the finalizer of SplitMix64 such that the generators seeded with them are independent, 
+	 * even if seed and streamIds differ only slightly.
+	 * 
+	 * @param seed
+	 * @param streamId
+	 * @return derived seed
+	 */
+	public static long deriveSeed(long seed, long streamId) {
+		long z = seed + (streamId + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * Sets the master seed of the current thread, i.e. components created in this thread derive their generators from it. 
+	 * 
+	 * @param seed
+	 */
+	public static void setThreadSeed(long seed) {
+		threadStreams.set(new Streams(seed));
+	}
+	
+	/**
+	 * Removes the master seed of the current thread, i.e. the global one is used again.
+	 */
+	public static void removeThreadSeed() {
+		threadStreams.remove();
 	}
 
-	public static void setSeed(long seed) {
-		random.setSeed(seed);
+	/**
+	 * Sets the global master seed, and starts its streams anew.
+	 * 
+	 * @param seed
+	 */
+	public static synchronized void setSeed(long seed) {
+		globalStreams = new Streams(seed);
 	}
 
-	public static void reset() {
-		random.setSeed(DEFAULT_SEED);
+	public static synchronized void reset() {
+		globalStreams = new Streams(DEFAULT_SEED);
 	}
 
 }
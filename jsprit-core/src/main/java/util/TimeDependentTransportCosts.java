@@ -0,0 +1,533 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.log4j.Logger;
+
+import basics.LocationIndex;
+import basics.costs.IndexableTransportCosts;
+import basics.costs.IndexedTransportCosts;
+import basics.costs.TransportLeg;
+import basics.costs.TransportLegCosts;
+import basics.route.Driver;
+import basics.route.Vehicle;
+import basics.route.VehicleTypeImpl.VehicleCostParams;
+
+/**
+ * Time-dependent transport costs, i.e. transport times depend on the departure time (or the arrival time, if calculated backward).
+ * 
+ * <p>Distances are euclidean distances (times detourFactor). Speeds are given by {@link SpeedProfile}s, i.e. piecewise-constant speeds over 
+ * time bins. A default profile applies to all arcs, and arcs (or classes of arcs sharing a profile) can be given their own profile.
+ * 
+ * <p>For each profile, the distance that can be travelled from time 0 up to time t is precomputed at the bin ends. It is a piecewise-linear 
+ * and strictly increasing function, thus both forward and backward transport times are determined by binary search on primitive arrays 
+ * and are FIFO-consistent, i.e. departing later never means arriving earlier, and the backward time is the exact inverse of the forward time.
+ * 
+ * <p>Costs are perDistanceUnit*distance + perTimeUnit*time of the vehicle's type, or the distance if there is no vehicle.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class TimeDependentTransportCosts implements TransportLegCosts, IndexableTransportCosts {
+	
+	/**
+	 * Piecewise-constant speeds over time bins [0,binEnds[0]), [binEnds[0],binEnds[1]), ... The speed of the first bin also applies 
+	 * before 0 and the speed of the last bin after its end.
+	 * 
+	 * @author stefan schroeder
+	 *
+	 */
+	public static final class SpeedProfile {
+		
+		/**
+		 * Returns a profile whose bin i ends at binEnds[i] and has speed speeds[i].
+		 * 
+		 * @param binEnds strictly increasing and positive
+		 * @param speeds positive
+		 * @return speedProfile
+		 * @throws IllegalStateException if bins or speeds are invalid
+		 */
+		public static SpeedProfile newInstance(double[] binEnds, double[] speeds){
+			return new SpeedProfile(binEnds, speeds);
+		}
+		
+		/**
+		 * Returns a profile with one constant speed.
+		 * 
+		 * @param speed
+		 * @return speedProfile
+		 */
+		public static SpeedProfile constant(double speed){
+			return new SpeedProfile(new double[]{ 1.0 }, new double[]{ speed });
+		}
+		
+		/**
+		 * times[i] is the begin of bin i, times[nuOfBins] the end of the last bin
+		 */
+		private final double[] times;
+		
+		/**
+		 * distances[i] is the distance that can be travelled from time 0 to times[i]
+		 */
+		private final double[] distances;
+		
+		private final double[] speeds;
+		
+		private SpeedProfile(double[] binEnds, double[] speeds){
+			if(binEnds.length == 0 || binEnds.length != speeds.length) throw new IllegalStateException("there must be one speed for each bin, and at least one bin.");
+			int nuOfBins = binEnds.length;
+			this.times = new double[nuOfBins+1];
+			this.distances = new double[nuOfBins+1];
+			this.speeds = new double[nuOfBins];
+			for(int i=0;i<nuOfBins;i++){
+				if(!(speeds[i] > 0.0)) throw new IllegalStateException("speeds must be positive, but speed of bin " + i + " is " + speeds[i]);
+				if(!(binEnds[i] > times[i])) throw new IllegalStateException("bin ends must be positive and strictly increasing, but end of bin " + i + " is " + binEnds[i]);
+				this.speeds[i] = speeds[i];
+				times[i+1] = binEnds[i];
+				distances[i+1] = distances[i] + (times[i+1]-times[i])*speeds[i];
+			}
+		}
+		
+		/**
+		 * Returns the transport time to travel distance when departing at departureTime.
+		 * 
+		 * @param distance
+		 * @param departureTime
+		 * @return transportTime
+		 */
+		public double getTransportTime(double distance, double departureTime){
+			return getTime(getDistance(departureTime) + distance) - departureTime;
+		}
+		
+		/**
+		 * Returns the transport time to travel distance when arriving at arrivalTime.
+		 * 
+		 * @param distance
+		 * @param arrivalTime
+		 * @return transportTime
+		 */
+		public double getBackwardTransportTime(double distance, double arrivalTime){
+			return arrivalTime - getTime(getDistance(arrivalTime) - distance);
+		}
+		
+		double[] getBinEnds(){
+			return Arrays.copyOfRange(times, 1, times.length);
+		}
+		
+		/**
+		 * Returns the distance that can be travelled from 0 to time.
+		 */
+		private double getDistance(double time){
+			int last = speeds.length;
+			if(time <= times[0]) return distances[0] + (time - times[0])*speeds[0];
+			if(time >= times[last]) return distances[last] + (time - times[last])*speeds[last-1];
+			int bin = getBin(times, time);
+			return distances[bin] + (time - times[bin])*speeds[bin];
+		}
+		
+		/**
+		 * Returns the time at which distance can be travelled from 0, i.e. the inverse of getDistance(time).
+		 */
+		private double getTime(double distance){
+			int last = speeds.length;
+			if(distance <= distances[0]) return times[0] + (distance - distances[0])/speeds[0];
+			if(distance >= distances[last]) return times[last] + (distance - distances[last])/speeds[last-1];
+			int bin = getBin(distances, distance);
+			return times[bin] + (distance - distances[bin])/speeds[bin];
+		}
+		
+		/**
+		 * Returns i such that breakpoints[i] <= value < breakpoints[i+1].
+		 */
+		private static int getBin(double[] breakpoints, double value){
+			int i = Arrays.binarySearch(breakpoints, value);
+			if(i >= 0) return i;
+			return -i-2;
+		}
+		
+		@Override
+		public String toString() {
+			return "[name=speedProfile][#bins="+speeds.length+"]";
+		}
+		
+	}
+	
+	/**
+	 * Builder that builds time-dependent transport costs.
+	 * 
+	 * @author stefan schroeder
+	 *
+	 */
+	public static class Builder {
+		
+		/**
+		 * Returns a new builder whose costs use defaultProfile for all arcs that are not given their own profile.
+		 * 
+		 * @param locations
+		 * @param defaultProfile
+		 * @return builder
+		 */
+		public static Builder newInstance(Locations locations, SpeedProfile defaultProfile){
+			return new Builder(locations, defaultProfile);
+		}
+		
+		private final Locations locations;
+		
+		private final List<SpeedProfile> profiles = new ArrayList<SpeedProfile>();
+		
+		private final Map<SpeedProfile,Integer> profileIndices = new HashMap<SpeedProfile, Integer>();
+		
+		private final Map<String,Integer> locationIndices = new HashMap<String, Integer>();
+		
+		private final List<int[]> arcs = new ArrayList<int[]>();
+		
+		private double detourFactor = 1.0;
+		
+		private Builder(Locations locations, SpeedProfile defaultProfile){
+			this.locations = locations;
+			getProfileIndex(defaultProfile);
+		}
+		
+		public Builder setDetourFactor(double detourFactor){
+			this.detourFactor = detourFactor;
+			return this;
+		}
+		
+		/**
+		 * Sets the profile of the arc from fromId to toId. Arcs of a class share the same profile object.
+		 * 
+		 * @param fromId
+		 * @param toId
+		 * @param profile
+		 * @return builder
+		 */
+		public Builder setArcProfile(String fromId, String toId, SpeedProfile profile){
+			arcs.add(new int[]{ getLocationIndex(fromId), getLocationIndex(toId), getProfileIndex(profile) });
+			return this;
+		}
+		
+		private int getProfileIndex(SpeedProfile profile){
+			Integer index = profileIndices.get(profile);
+			if(index == null){
+				index = profiles.size();
+				profiles.add(profile);
+				profileIndices.put(profile, index);
+			}
+			return index;
+		}
+		
+		private int getLocationIndex(String locationId){
+			Integer index = locationIndices.get(locationId);
+			if(index == null){
+				index = locationIndices.size();
+				locationIndices.put(locationId, index);
+			}
+			return index;
+		}
+		
+		public TimeDependentTransportCosts build(){
+			return new TimeDependentTransportCosts(this);
+		}
+		
+	}
+	
+	/**
+	 * View of the costs that is keyed by the location indices of a problem. Coordinates and the translation to the arc-location indices 
+	 * are copied to arrays once.
+	 * 
+	 * @author stefan schroeder
+	 *
+	 */
+	private class IndexedTimeDependentCosts implements IndexedTransportCosts {
+		
+		private final LocationIndex locationIndex;
+		
+		private final double[] xs;
+		
+		private final double[] ys;
+		
+		private final boolean[] hasCoord;
+		
+		private final int[] arcLocationIndices;
+		
+		IndexedTimeDependentCosts(LocationIndex locationIndex){
+			this.locationIndex = locationIndex;
+			int nuOfLocations = locationIndex.getNuOfLocations();
+			xs = new double[nuOfLocations];
+			ys = new double[nuOfLocations];
+			hasCoord = new boolean[nuOfLocations];
+			arcLocationIndices = new int[nuOfLocations];
+			for(int i=0;i<nuOfLocations;i++){
+				String locationId = locationIndex.getLocationId(i);
+				arcLocationIndices[i] = getArcLocationIndex(locationId);
+				Coordinate coord = locations.getCoord(locationId);
+				if(coord == null) continue;
+				xs[i] = coord.getX();
+				ys[i] = coord.getY();
+				hasCoord[i] = true;
+			}
+		}
+		
+		private void checkIndex(int index){
+			if(index < 0 || index >= hasCoord.length || !hasCoord[index]){
+				throw new NullPointerException("cannot calculate euclidean distance. coordinates are missing. either add coordinates or use another transport-cost-calculator.");
+			}
+		}
+		
+		private double getDistance(int fromIndex, int toIndex){
+			checkIndex(fromIndex);
+			checkIndex(toIndex);
+			double xDiff = xs[fromIndex] - xs[toIndex];
+			double yDiff = ys[fromIndex] - ys[toIndex];
+			return Math.sqrt(xDiff*xDiff + yDiff*yDiff) * detourFactor;
+		}
+		
+		private SpeedProfile getProfile(int fromIndex, int toIndex){
+			return TimeDependentTransportCosts.this.getProfile(arcLocationIndices[fromIndex], arcLocationIndices[toIndex]);
+		}
+
+		@Override
+		public double getTransportTime(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle) {
+			if(fromIndex == toIndex) return 0.0;
+			return getProfile(fromIndex, toIndex).getTransportTime(getDistance(fromIndex, toIndex), departureTime);
+		}
+
+		@Override
+		public double getBackwardTransportTime(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle) {
+			if(fromIndex == toIndex) return 0.0;
+			return getProfile(fromIndex, toIndex).getBackwardTransportTime(getDistance(fromIndex, toIndex), arrivalTime);
+		}
+
+		@Override
+		public double getTransportCost(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle) {
+			if(fromIndex == toIndex) return 0.0;
+			double distance = getDistance(fromIndex, toIndex);
+			return getCost(distance, getProfile(fromIndex, toIndex).getTransportTime(distance, departureTime), vehicle);
+		}
+
+		@Override
+		public double getBackwardTransportCost(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle) {
+			if(fromIndex == toIndex) return 0.0;
+			double distance = getDistance(fromIndex, toIndex);
+			return getCost(distance, getProfile(fromIndex, toIndex).getBackwardTransportTime(distance, arrivalTime), vehicle);
+		}
+
+		@Override
+		public void getTransportLeg(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+			if(fromIndex == toIndex){
+				leg.set(0.0, 0.0, 0.0);
+				return;
+			}
+			double distance = getDistance(fromIndex, toIndex);
+			double time = getProfile(fromIndex, toIndex).getTransportTime(distance, departureTime);
+			leg.set(time, distance, getCost(distance, time, vehicle));
+		}
+
+		@Override
+		public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+			TimeDependentTransportCosts.this.getTransportLeg(fromId, toId, departureTime, driver, vehicle, leg);
+		}
+
+		@Override
+		public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+			return TimeDependentTransportCosts.this.getTransportTime(fromId, toId, departureTime, driver, vehicle);
+		}
+
+		@Override
+		public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return TimeDependentTransportCosts.this.getBackwardTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+		}
+
+		@Override
+		public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+			return TimeDependentTransportCosts.this.getTransportCost(fromId, toId, departureTime, driver, vehicle);
+		}
+
+		@Override
+		public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return TimeDependentTransportCosts.this.getBackwardTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+		}
+		
+		@Override
+		public LocationIndex getLocationIndex() {
+			return locationIndex;
+		}
+		
+		@Override
+		public String toString() {
+			return "[name=indexedTimeDependentCosts][costs="+TimeDependentTransportCosts.this+"][locationIndex="+locationIndex+"]";
+		}
+		
+	}
+	
+	private static Logger log = Logger.getLogger(TimeDependentTransportCosts.class);
+	
+	private final Locations locations;
+	
+	private final double detourFactor;
+	
+	private final SpeedProfile[] profiles;
+	
+	private final Map<String,Integer> arcLocationIndices;
+	
+	/**
+	 * arcs with their own profile as sorted keys fromIndex*nuOfArcLocations+toIndex (of arcLocationIndices), and the index of their profile
+	 */
+	private final long[] arcKeys;
+	
+	private final int[] arcProfiles;
+	
+	private TimeDependentTransportCosts(Builder builder){
+		this.locations = builder.locations;
+		this.detourFactor = builder.detourFactor;
+		this.profiles = builder.profiles.toArray(new SpeedProfile[builder.profiles.size()]);
+		this.arcLocationIndices = new HashMap<String, Integer>(builder.locationIndices);
+		Map<Long,Integer> profileByArc = new HashMap<Long, Integer>();
+		for(int[] arc : builder.arcs){
+			profileByArc.put(getArcKey(arc[0], arc[1]), arc[2]);
+		}
+		arcKeys = new long[profileByArc.size()];
+		int i = 0;
+		for(Long key : profileByArc.keySet()){
+			arcKeys[i++] = key;
+		}
+		Arrays.sort(arcKeys);
+		arcProfiles = new int[arcKeys.length];
+		for(i=0;i<arcKeys.length;i++){
+			arcProfiles[i] = profileByArc.get(arcKeys[i]);
+		}
+		log.info("initialise " + this);
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=timeDependentTransportCosts][#speedProfiles="+profiles.length+"][#arcProfiles="+arcKeys.length+"][detourFactor="+detourFactor+"]";
+	}
+	
+	/**
+	 * Returns the sorted times at which the speed of at least one profile changes.
+	 * 
+	 * @return breakpoints
+	 */
+	public double[] getBreakpoints(){
+		TreeSet<Double> breakpoints = new TreeSet<Double>();
+		for(SpeedProfile profile : profiles){
+			for(double binEnd : profile.getBinEnds()){
+				breakpoints.add(binEnd);
+			}
+		}
+		double[] result = new double[breakpoints.size()];
+		int i = 0;
+		for(Double breakpoint : breakpoints){
+			result[i++] = breakpoint;
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns a view of these costs that is keyed by the location indices of a problem.
+	 */
+	@Override
+	public IndexedTransportCosts createIndexedCosts(LocationIndex locationIndex) {
+		return new IndexedTimeDependentCosts(locationIndex);
+	}
+
+	@Override
+	public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		if(fromId.equals(toId)) return 0.0;
+		return getProfile(fromId, toId).getTransportTime(calculateDistance(fromId, toId), departureTime);
+	}
+
+	@Override
+	public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		if(fromId.equals(toId)) return 0.0;
+		return getProfile(fromId, toId).getBackwardTransportTime(calculateDistance(fromId, toId), arrivalTime);
+	}
+
+	@Override
+	public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		if(fromId.equals(toId)) return 0.0;
+		double distance = calculateDistance(fromId, toId);
+		return getCost(distance, getProfile(fromId, toId).getTransportTime(distance, departureTime), vehicle);
+	}
+
+	@Override
+	public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		if(fromId.equals(toId)) return 0.0;
+		double distance = calculateDistance(fromId, toId);
+		return getCost(distance, getProfile(fromId, toId).getBackwardTransportTime(distance, arrivalTime), vehicle);
+	}
+
+	@Override
+	public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+		if(fromId.equals(toId)){
+			leg.set(0.0, 0.0, 0.0);
+			return;
+		}
+		double distance = calculateDistance(fromId, toId);
+		double time = getProfile(fromId, toId).getTransportTime(distance, departureTime);
+		leg.set(time, distance, getCost(distance, time, vehicle));
+	}
+	
+	private double calculateDistance(String fromId, String toId) {
+		try {
+			return EuclideanDistanceCalculator.calculateDistance(locations.getCoord(fromId), locations.getCoord(toId)) * detourFactor;
+		} catch (NullPointerException e) {
+			throw new NullPointerException("cannot calculate euclidean distance. coordinates are missing. either add coordinates or use another transport-cost-calculator.");
+		}
+	}
+	
+	private double getCost(double distance, double time, Vehicle vehicle){
+		if(vehicle == null) return distance;
+		VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+		return costParams.perDistanceUnit*distance + costParams.perTimeUnit*time;
+	}
+	
+	private int getArcLocationIndex(String locationId){
+		Integer index = arcLocationIndices.get(locationId);
+		if(index == null) return -1;
+		return index;
+	}
+	
+	private SpeedProfile getProfile(String fromId, String toId){
+		if(arcKeys.length == 0) return profiles[0];
+		return getProfile(getArcLocationIndex(fromId), getArcLocationIndex(toId));
+	}
+	
+	private SpeedProfile getProfile(int fromArcLocation, int toArcLocation){
+		if(arcKeys.length == 0 || fromArcLocation < 0 || toArcLocation < 0) return profiles[0];
+		int i = Arrays.binarySearch(arcKeys, getArcKey(fromArcLocation, toArcLocation));
+		if(i < 0) return profiles[0];
+		return profiles[arcProfiles[i]];
+	}
+	
+	private long getArcKey(int fromArcLocation, int toArcLocation){
+		return (long)fromArcLocation*Integer.MAX_VALUE + toArcLocation;
+	}
+
+}
@@ -1,11 +1,17 @@
 package util;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
 
-import basics.costs.VehicleRoutingTransportCosts;
+import basics.LocationIndex;
+import basics.costs.IndexableTransportCosts;
+import basics.costs.IndexedTransportCosts;
+import basics.costs.TransportLeg;
+import basics.costs.TransportLegCosts;
 import basics.route.Driver;
 import basics.route.Vehicle;
 import basics.route.VehicleTypeImpl.VehicleCostParams;
@@ -17,71 +23,162 @@ import basics.route.VehicleTypeImpl.VehicleCostParams;
  * you set a particular distance, this expects distance-entries for all relations. This counts also 
  * for a particular time. If the method getTransportCosts(...) is then invoked for a relation, where no distance can be found, an 
  * IllegalStateException will be thrown. Thus if you want to only use distances only, do not use addTransportTime(...).
+ * <p>Internally, each locationId is mapped to a dense index when the matrix is built. Distances and times are stored in flat
+ * double-arrays, i.e. a lookup does neither parse locationIds nor create any key-object. If the matrix is symmetric, only the lower
+ * triangle of the matrix is stored.
+ *
  * @author schroeder
  *
  */
-public class VehicleRoutingTransportCostsMatrix implements VehicleRoutingTransportCosts {
+public class VehicleRoutingTransportCostsMatrix implements TransportLegCosts, IndexableTransportCosts {
 
-	static class RelationKey {
+	/**
+	 * Growable list of relations in primitive arrays, i.e. (fromIndex,toIndex,value)-triples.
+	 *
+	 * @author schroeder
+	 *
+	 */
+	static class RelationList {
 		
-		static RelationKey newKey(String from, String to){
-			int fromInt = Integer.parseInt(from);
-			int toInt = Integer.parseInt(to);
-			if(fromInt < toInt){
-				return new RelationKey(from, to);
+		private int[] from = new int[16];
+
+		private int[] to = new int[16];
+
+		private double[] values = new double[16];
+
+		private int size = 0;
+
+		void add(int fromIndex, int toIndex, double value){
+			if(size == from.length){
+				int newLength = from.length*2;
+				from = Arrays.copyOf(from, newLength);
+				to = Arrays.copyOf(to, newLength);
+				values = Arrays.copyOf(values, newLength);
 			}
-			else {
-				return new RelationKey(to, from);
+			from[size] = fromIndex;
+			to[size] = toIndex;
+			values[size] = value;
+			size++;
+		}
+
+		int size(){
+			return size;
+		}
+
+		int getFrom(int i){
+			return from[i];
+		}
+
+		int getTo(int i){
+			return to[i];
+		}
+
+		double getValue(int i){
+			return values[i];
+		}
+	}
+
+	/**
+	 * View of the matrix that is keyed by the location indices of a problem. Problem indices are translated to matrix indices by array lookup.
+	 *
+	 * @author schroeder
+	 *
+	 */
+	private class IndexedMatrix implements IndexedTransportCosts {
+
+		private final LocationIndex locationIndex;
+
+		private final int[] matrixIndices;
+
+		IndexedMatrix(LocationIndex locationIndex){
+			this.locationIndex = locationIndex;
+			matrixIndices = new int[locationIndex.getNuOfLocations()];
+			for(int i=0;i<matrixIndices.length;i++){
+				matrixIndices[i] = VehicleRoutingTransportCostsMatrix.this.getLocationIndex(locationIndex.getLocationId(i));
 			}
 		}
 		
-		final String from;
-		final String to;
-		
-		public RelationKey(String from, String to) {
-			super();
-			this.from = from;
-			this.to = to;
+		private int toMatrixIndex(int index){
+			int matrixIndex = -1;
+			if(index >= 0 && index < matrixIndices.length) matrixIndex = matrixIndices[index];
+			if(matrixIndex < 0) throw new IllegalStateException("location-index " + index + " is unknown to the matrix");
+			return matrixIndex;
 		}
 
-		/* (non-Javadoc)
-		 * @see java.lang.Object#hashCode()
-		 */
 		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((from == null) ? 0 : from.hashCode());
-			result = prime * result + ((to == null) ? 0 : to.hashCode());
-			return result;
+		public double getTransportTime(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle) {
+			return getTime(toMatrixIndex(fromIndex), toMatrixIndex(toIndex));
 		}
 
-		/* (non-Javadoc)
-		 * @see java.lang.Object#equals(java.lang.Object)
-		 */
 		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			RelationKey other = (RelationKey) obj;
-			if (from == null) {
-				if (other.from != null)
-					return false;
-			} else if (!from.equals(other.from))
-				return false;
-			if (to == null) {
-				if (other.to != null)
-					return false;
-			} else if (!to.equals(other.to))
-				return false;
-			return true;
+		public double getBackwardTransportTime(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return getTransportTime(fromIndex, toIndex, arrivalTime, driver, vehicle);
 		}
-	}
 
+		@Override
+		public double getTransportCost(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle) {
+			int from = toMatrixIndex(fromIndex);
+			int to = toMatrixIndex(toIndex);
+			if(vehicle == null) return getDistance(from, to);
+			VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+			return costParams.perDistanceUnit*getDistance(from, to) + costParams.perTimeUnit*getTime(from, to);
+		}
+
+		@Override
+		public double getBackwardTransportCost(int fromIndex, int toIndex, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return getTransportCost(fromIndex, toIndex, arrivalTime, driver, vehicle);
+		}
+
+		@Override
+		public void getTransportLeg(int fromIndex, int toIndex, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+			int from = toMatrixIndex(fromIndex);
+			int to = toMatrixIndex(toIndex);
+			double time = getTime(from, to);
+			double distance = getDistance(from, to);
+			double cost = distance;
+			if(vehicle != null){
+				VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+				cost = costParams.perDistanceUnit*distance + costParams.perTimeUnit*time;
+			}
+			leg.set(time, distance, cost);
+		}
+
+		@Override
+		public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+			VehicleRoutingTransportCostsMatrix.this.getTransportLeg(fromId, toId, departureTime, driver, vehicle, leg);
+		}
+
+		@Override
+		public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+			return VehicleRoutingTransportCostsMatrix.this.getTransportTime(fromId, toId, departureTime, driver, vehicle);
+		}
+
+		@Override
+		public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return VehicleRoutingTransportCostsMatrix.this.getBackwardTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+		}
+
+		@Override
+		public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+			return VehicleRoutingTransportCostsMatrix.this.getTransportCost(fromId, toId, departureTime, driver, vehicle);
+		}
+
+		@Override
+		public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+			return VehicleRoutingTransportCostsMatrix.this.getBackwardTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+		}
+
+		@Override
+		public LocationIndex getLocationIndex() {
+			return locationIndex;
+		}
+		
+		@Override
+		public String toString() {
+			return "[name=indexedMatrix][matrix="+VehicleRoutingTransportCostsMatrix.this+"][locationIndex="+locationIndex+"]";
+		}
+
+	}
 	
 	/**
 	 * Builder that builds the matrix.
@@ -94,9 +191,11 @@ public class VehicleRoutingTransportCostsMatrix implements VehicleRoutingTranspo
 		
 		private boolean isSymmetric;
 		
-		private Map<RelationKey,Double> distances = new HashMap<RelationKey, Double>();
+		private Map<String,Integer> locationIndices = new HashMap<String, Integer>();
 		
-		private Map<RelationKey,Double> times = new HashMap<RelationKey, Double>();
+		private RelationList distances = new RelationList();
+
+		private RelationList times = new RelationList();
 		
 		private boolean distancesSet = false;
 		
@@ -124,12 +223,8 @@ public class VehicleRoutingTransportCostsMatrix implements VehicleRoutingTranspo
 		 * @return
 		 */
 		public Builder addTransportDistance(String from, String to, double distance){
-			RelationKey key = RelationKey.newKey(from, to);
 			if(!distancesSet) distancesSet = true;
-			if(distances.containsKey(key)){
-				log.warn("distance from " + from + " to " + to + " already exists. This overrides distance.");
-			}
-			distances.put(key, distance);
+			distances.add(getIndex(from), getIndex(to), distance);
 			return this;
 		}
 		
@@ -141,14 +236,43 @@ public class VehicleRoutingTransportCostsMatrix implements VehicleRoutingTranspo
 		 * @return
 		 */
 		public Builder addTransportTime(String from, String to, double time){
-			RelationKey key = RelationKey.newKey(from, to);
 			if(!timesSet) timesSet = true;
-			if(times.containsKey(key)){
-				log.warn("transport-time from " + from + " to " + to + " already exists. This overrides distance.");
-			}
-			times.put(key, time);
+			times.add(getIndex(from), getIndex(to), time);
 			return this;
 		}
+
+		private int getIndex(String locationId){
+			Integer index = locationIndices.get(locationId);
+			if(index == null){
+				index = locationIndices.size();
+				locationIndices.put(locationId, index);
+			}
+			return index;
+		}
+
+		boolean isSymmetric(){
+			return isSymmetric;
+		}
+
+		boolean isDistancesSet(){
+			return distancesSet;
+		}
+
+		boolean isTimesSet(){
+			return timesSet;
+		}
+
+		Map<String,Integer> getLocationIndices(){
+			return Collections.unmodifiableMap(locationIndices);
+		}
+
+		RelationList getDistances(){
+			return distances;
+		}
+
+		RelationList getTimes(){
+			return times;
+		}
 		
 		/**
 		 * Builds the matrix.
@@ -157,26 +281,154 @@ public class VehicleRoutingTransportCostsMatrix implements VehicleRoutingTranspo
 		public VehicleRoutingTransportCostsMatrix build(){
 			return new VehicleRoutingTransportCostsMatrix(this);
 		}
+
+		private double[] toMatrix(RelationList relations, String valueName){
+			int nuOfLocations = locationIndices.size();
+			double[] matrix = new double[getMatrixSize(nuOfLocations, isSymmetric)];
+			Arrays.fill(matrix, Double.NaN);
+			for(int i=0;i<relations.size();i++){
+				int cell = getCell(relations.getFrom(i), relations.getTo(i), nuOfLocations, isSymmetric);
+				if(!Double.isNaN(matrix[cell])){
+					log.warn(valueName + " from " + relations.getFrom(i) + " to " + relations.getTo(i) + " (location-indices) already exists. This overrides " + valueName + ".");
+				}
+				matrix[cell] = relations.getValue(i);
+			}
+			return matrix;
+		}
 	}
 	
-	private Map<RelationKey,Double> distances = new HashMap<RelationKey, Double>();
+	private static Logger log = Logger.getLogger(VehicleRoutingTransportCostsMatrix.class);
 	
-	private Map<RelationKey,Double> times = new HashMap<RelationKey, Double>();
+	/**
+	 * Returns the number of cells required to store a matrix with nuOfLocations.
+	 *
+	 * @param nuOfLocations
+	 * @param isSymmetric
+	 * @return
+	 */
+	static int getMatrixSize(int nuOfLocations, boolean isSymmetric){
+		long size;
+		if(isSymmetric) size = (long)nuOfLocations*(nuOfLocations+1)/2;
+		else size = (long)nuOfLocations*nuOfLocations;
+		if(size > Integer.MAX_VALUE) throw new IllegalStateException("too many locations (" + nuOfLocations + ") to be stored in an array-based matrix.");
+		return (int)size;
+	}
 	
-	private boolean isSymmetric;
+	/**
+	 * Returns the cell of the relation fromIndex-toIndex in the flat matrix.
+	 *
+	 * <p>If the matrix is symmetric, it is the cell in the lower triangle.
+	 *
+	 * @param fromIndex
+	 * @param toIndex
+	 * @param nuOfLocations
+	 * @param isSymmetric
+	 * @return
+	 */
+	static int getCell(int fromIndex, int toIndex, int nuOfLocations, boolean isSymmetric){
+		if(isSymmetric){
+			if(fromIndex < toIndex){
+				return (int)((long)toIndex*(toIndex+1)/2) + fromIndex;
+			}
+			return (int)((long)fromIndex*(fromIndex+1)/2) + toIndex;
+		}
+		return fromIndex*nuOfLocations + toIndex;
+	}
 	
-	private boolean timesSet;
+	private final Map<String,Integer> locationIndices;
 	
-	private boolean distancesSet;
+	private final int nuOfLocations;
+
+	private final double[] distances;
+
+	private final double[] times;
+
+	private final boolean isSymmetric;
+
+	private final boolean timesSet;
+
+	private final boolean distancesSet;
 	
 	private VehicleRoutingTransportCostsMatrix(Builder builder){
 		this.isSymmetric = builder.isSymmetric;
-		distances.putAll(builder.distances);
-		times.putAll(builder.times);
+		this.locationIndices = new HashMap<String, Integer>(builder.locationIndices);
+		this.nuOfLocations = locationIndices.size();
 		timesSet = builder.timesSet;
 		distancesSet = builder.distancesSet;
+		if(distancesSet) distances = builder.toMatrix(builder.distances, "distance");
+		else distances = null;
+		if(timesSet) times = builder.toMatrix(builder.times, "transport-time");
+		else times = null;
+		log.info("initialise " + this);
+	}
+
+	@Override
+	public String toString() {
+		return "[name=vehicleRoutingTransportCostsMatrix][#locations="+nuOfLocations+"][isSymmetric="+isSymmetric+"]";
+	}
+
+	/**
+	 * Returns the number of locations this matrix knows.
+	 *
+	 * @return nuOfLocations
+	 */
+	public int getNuOfLocations(){
+		return nuOfLocations;
+	}
+
+	/**
+	 * Returns the dense index of locationId, or -1 if this matrix does not know locationId.
+	 *
+	 * @param locationId
+	 * @return index
+	 */
+	public int getLocationIndex(String locationId){
+		Integer index = locationIndices.get(locationId);
+		if(index == null) return -1;
+		return index;
+	}
+
+	/**
+	 * Returns the transport-time between the locations indexed by fromIndex and toIndex.
+	 *
+	 * @param fromIndex
+	 * @param toIndex
+	 * @return transport-time
+	 * @throws IllegalStateException if there is no time value for this relation
+	 * @see #getLocationIndex(String)
+	 */
+	public double getTime(int fromIndex, int toIndex){
+		if(!timesSet) return 0.0;
+		if(fromIndex == toIndex) return 0.0;
+		double time = times[getCell(fromIndex, toIndex, nuOfLocations, isSymmetric)];
+		if(Double.isNaN(time)) throw new IllegalStateException("time value for relation from location-index " + fromIndex + " to " + toIndex + " does not exist");
+		return time;
 	}
 
+	/**
+	 * Returns the distance between the locations indexed by fromIndex and toIndex.
+	 *
+	 * @param fromIndex
+	 * @param toIndex
+	 * @return distance
+	 * @throws IllegalStateException if there is no distance value for this relation
+	 * @see #getLocationIndex(String)
+	 */
+	public double getDistance(int fromIndex, int toIndex){
+		if(!distancesSet) return 0.0;
+		if(fromIndex == toIndex) return 0.0;
+		double distance = distances[getCell(fromIndex, toIndex, nuOfLocations, isSymmetric)];
+		if(Double.isNaN(distance)) throw new IllegalStateException("distance value for relation from location-index " + fromIndex + " to " + toIndex + " does not exist");
+		return distance;
+	}
+
+	/**
+	 * Returns a view of this matrix that is keyed by the location indices of a problem.
+	 */
+	@Override
+	public IndexedTransportCosts createIndexedCosts(LocationIndex locationIndex) {
+		return new IndexedMatrix(locationIndex);
+	}
 
 	@Override
 	public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
@@ -187,37 +439,26 @@ public class VehicleRoutingTransportCostsMatrix implements VehicleRoutingTranspo
 	private double getTime(String fromId, String toId) {
 		if(fromId.equals(toId)) return 0.0;
 		if(!timesSet) return 0.0;
-		RelationKey key = RelationKey.newKey(fromId, toId);
-		if(!isSymmetric){
-			if(times.containsKey(key)) return times.get(key);
-			else throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
-		}
-		else{
-			Double time = times.get(key);
-			if(time == null){
-				time = times.get(RelationKey.newKey(toId, fromId));
-			}
-			if(time != null) return time;
-			else throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
-		}
+		double time = getValue(times, fromId, toId);
+		if(Double.isNaN(time)) throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
+		return time;
 	}
 
 	private double getDistance(String fromId, String toId) {
 		if(fromId.equals(toId)) return 0.0;
 		if(!distancesSet) return 0.0;
-		RelationKey key = RelationKey.newKey(fromId, toId);
-		if(!isSymmetric){
-			if(distances.containsKey(key)) return distances.get(key);
-			else throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
-		}
-		else{
-			Double time = distances.get(key);
-			if(time == null){
-				time = distances.get(RelationKey.newKey(toId, fromId));
-			}
-			if(time != null) return time;
-			else throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
-		}
+		double distance = getValue(distances, fromId, toId);
+		if(Double.isNaN(distance)) throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
+		return distance;
+	}
+
+	private double getValue(double[] matrix, String fromId, String toId){
+		return getValue(matrix, getLocationIndex(fromId), getLocationIndex(toId));
+	}
+
+	private double getValue(double[] matrix, int fromIndex, int toIndex){
+		if(fromIndex < 0 || toIndex < 0) return Double.NaN;
+		return matrix[getCell(fromIndex, toIndex, nuOfLocations, isSymmetric)];
 	}
 
 	@Override
@@ -234,6 +475,36 @@ public class VehicleRoutingTransportCostsMatrix implements VehicleRoutingTranspo
 	}
 
 
+	/**
+	 * Fills leg with time, distance and cost of the relation fromId-toId, whereby location indices are looked up once for all three values.
+	 */
+	@Override
+	public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+		if(fromId.equals(toId)){
+			leg.set(0.0, 0.0, 0.0);
+			return;
+		}
+		int fromIndex = getLocationIndex(fromId);
+		int toIndex = getLocationIndex(toId);
+		double time = 0.0;
+		if(timesSet){
+			time = getValue(times, fromIndex, toIndex);
+			if(Double.isNaN(time)) throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
+		}
+		double distance = 0.0;
+		if(distancesSet){
+			distance = getValue(distances, fromIndex, toIndex);
+			if(Double.isNaN(distance)) throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
+		}
+		double cost = distance;
+		if(vehicle != null){
+			VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+			cost = costParams.perDistanceUnit*distance + costParams.perTimeUnit*time;
+		}
+		leg.set(time, distance, cost);
+	}
+
+
 	@Override
 	public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
 		return getTransportCost(fromId, toId, arrivalTime, driver, vehicle);
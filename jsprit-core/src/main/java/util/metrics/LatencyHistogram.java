@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with a bounded relative error, similar to HdrHistogram.
+ * 
+ * <p>Values are counted in buckets whose width grows with the value: each power of two is divided into 8 buckets, thus 
+ * percentiles are accurate up to 12.5% and a histogram covers all long values with less than 500 buckets. Recording a 
+ * value is lock-free and only increments a bucket and a {@link StripedCounter}, thus it is cheap enough to record each 
+ * call of a hot method.
+ * 
+ * <p>Like the cells of a {@link StripedCounter}, the buckets are striped: each thread increments the buckets of its stripe, 
+ * thus threads recording similar latencies rarely contend for the same bucket. Reading the histogram merges the stripes.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 3;
+	
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	private static final int NU_OF_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	static int bucketIndex(long value){
+		if(value < SUB_BUCKETS) return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	static long lowestValueOfBucket(int bucketIndex){
+		if(bucketIndex < SUB_BUCKETS) return bucketIndex;
+		int exponent = bucketIndex / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int subBucket = bucketIndex % SUB_BUCKETS;
+		return ((long) (SUB_BUCKETS + subBucket)) << (exponent - SUB_BUCKET_BITS);
+	}
+	
+	static long highestValueOfBucket(int bucketIndex){
+		if(bucketIndex == NU_OF_BUCKETS - 1) return Long.MAX_VALUE;
+		return lowestValueOfBucket(bucketIndex + 1) - 1;
+	}
+	
+	/**
+	 * Number of longs between the first buckets of two stripes. Stripes are a cache line apart.
+	 */
+	private static final int STRIPE_LENGTH = NU_OF_BUCKETS + StripedCounter.PADDING;
+	
+	private final AtomicLongArray buckets;
+	
+	private final int mask;
+	
+	private final StripedCounter total = new StripedCounter();
+	
+	private final AtomicLong max = new AtomicLong(0);
+	
+	public LatencyHistogram() {
+		super();
+		int nuOfStripes = StripedCounter.nuOfStripes();
+		this.mask = nuOfStripes - 1;
+		this.buckets = new AtomicLongArray(StripedCounter.PADDING + nuOfStripes * STRIPE_LENGTH);
+	}
+	
+	/**
+	 * Records a latency. Negative latencies are recorded as 0.
+	 * 
+	 * @param nanos
+	 */
+	public void record(long nanos){
+		if(nanos < 0) nanos = 0;
+		buckets.incrementAndGet(StripedCounter.PADDING + StripedCounter.stripe(mask) * STRIPE_LENGTH + bucketIndex(nanos));
+		total.add(nanos);
+		long currentMax = max.get();
+		while(nanos > currentMax){
+			if(max.compareAndSet(currentMax, nanos)) break;
+			currentMax = max.get();
+		}
+	}
+	
+	/**
+	 * Records the latency between startNanos (taken from System.nanoTime()) and now.
+	 * 
+	 * @param startNanos
+	 */
+	public void recordSince(long startNanos){
+		record(System.nanoTime() - startNanos);
+	}
+	
+	public long getCount(){
+		long count = 0;
+		for(long bucketCount : getCounts()){
+			count += bucketCount;
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the counts of all buckets, merged over all stripes.
+	 */
+	private long[] getCounts(){
+		long[] counts = new long[NU_OF_BUCKETS];
+		for(int stripeStart=StripedCounter.PADDING;stripeStart<buckets.length();stripeStart+=STRIPE_LENGTH){
+			for(int i=0;i<NU_OF_BUCKETS;i++){
+				counts[i] += buckets.get(stripeStart + i);
+			}
+		}
+		return counts;
+	}
+	
+	/**
+	 * Returns the sum of all recorded latencies in nanoseconds.
+	 * 
+	 * @return total
+	 */
+	public long getTotal(){
+		return total.sum();
+	}
+	
+	/**
+	 * Returns the mean latency in nanoseconds, or 0 if nothing has been recorded.
+	 * 
+	 * @return mean
+	 */
+	public double getMean(){
+		long count = getCount();
+		if(count == 0) return 0.0;
+		return (double) getTotal() / (double) count;
+	}
+	
+	public long getMax(){
+		return max.get();
+	}
+	
+	/**
+	 * Returns the latency in nanoseconds that percentile percent of the recorded latencies do not exceed, or 0 if nothing has 
+	 * been recorded. It is the highest value of the bucket the percentile falls into, but not higher than the maximum.
+	 * 
+	 * @param percentile in [0,100]
+	 * @return latency
+	 */
+	public long getValueAtPercentile(double percentile){
+		if(percentile < 0.0 || percentile > 100.0) throw new IllegalStateException("percentile must be in [0,100], but is " + percentile);
+		long[] counts = getCounts();
+		long count = 0;
+		for(int i=0;i<NU_OF_BUCKETS;i++){
+			count += counts[i];
+		}
+		if(count == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+		long cumulated = 0;
+		for(int i=0;i<NU_OF_BUCKETS;i++){
+			cumulated += counts[i];
+			if(cumulated >= rank){
+				return Math.min(highestValueOfBucket(i), getMax());
+			}
+		}
+		return getMax();
+	}
+	
+	public void reset(){
+		for(int i=0;i<buckets.length();i++){
+			buckets.set(i, 0);
+		}
+		total.reset();
+		max.set(0);
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=latencyHistogram][count="+getCount()+"][mean="+getMean()+"][max="+getMax()+"]";
+	}
+
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Registry of the counters and latency histograms the algorithms record while searching.
+ * 
+ * <p>Each algorithm records to the registry it has been created with (see {@link algorithms.VehicleRoutingAlgorithms#createAlgorithm(basics.VehicleRoutingProblem, basics.io.AlgorithmConfig, MetricsRegistry)}), 
+ * which is the default registry ({@link #getDefault()}) unless another one is specified. Thus algorithms or batches of algorithms that 
+ * run at the same time can record to registries of their own. They record with the following names:
+ * <ul>
+ * <li>strategy.[name].selected - counts how often the search strategy has been selected</li>
+ * <li>strategy.[name].accepted - counts how often the acceptor has accepted the solution of the search strategy</li>
+ * <li>strategy.[name].time - latency of the search strategy</li>
+ * <li>ruin.time and recreate.time - latencies of ruin and recreate in ruin-and-recreate modules</li>
+ * <li>insertionCalculator.time - latency of job-insertion calculations, thus its count is the number of calculations</li>
+ * <li>stateUpdate.time - latency of updating route and activity states</li>
+ * </ul>
+ * 
+ * <p>Islands of an island-algorithm record to scopes of the algorithm's registry (see {@link #getScope(String)}), i.e. island i records 
+ * to island[i].strategy.[name].selected etc.
+ * 
+ * <p>Recording is cheap, thus it is enabled by default. If it is disabled, the algorithms do not even take the time. 
+ * To observe the registry with JMX, register it with {@link #registerMBean()}. 
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class MetricsRegistry implements MetricsRegistryMXBean {
+	
+	public static final String OBJECT_NAME = "jsprit:type=MetricsRegistry";
+	
+	private static final String SELECTED = ".selected";
+	
+	private static final String ACCEPTED = ".accepted";
+	
+	private static Logger logger = Logger.getLogger(MetricsRegistry.class);
+	
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+	
+	/**
+	 * Returns the registry the algorithms record to.
+	 * 
+	 * @return registry
+	 */
+	public static MetricsRegistry getDefault(){
+		return DEFAULT;
+	}
+	
+	private final ConcurrentMap<String,StripedCounter> counters;
+	
+	private final ConcurrentMap<String,LatencyHistogram> histograms;
+	
+	private final MetricsRegistry root;
+	
+	private final String prefix;
+	
+	private volatile boolean enabled = true;
+	
+	public MetricsRegistry(){
+		this.counters = new ConcurrentHashMap<String, StripedCounter>();
+		this.histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+		this.root = this;
+		this.prefix = "";
+	}
+	
+	private MetricsRegistry(MetricsRegistry root, String prefix){
+		this.counters = root.counters;
+		this.histograms = root.histograms;
+		this.root = root;
+		this.prefix = prefix;
+	}
+	
+	/**
+	 * Returns a view of this registry that prefixes the names of its counters and histograms with scope, e.g. getScope("island0").getCounter("c") 
+	 * returns the counter island0.c of this registry. 
+	 * 
+	 * <p>A scope shares everything else with its registry, i.e. it is enabled if the registry is enabled, and it reports and resets all counters 
+	 * and histograms of the registry.
+	 * 
+	 * @param scope
+	 * @return view of this registry
+	 */
+	public MetricsRegistry getScope(String scope){
+		return new MetricsRegistry(root, prefix + scope + ".");
+	}
+	
+	/**
+	 * Returns the counter with the specified name, and creates it if there is none yet.
+	 * 
+	 * @param localName name within this scope
+	 * @return counter
+	 */
+	public StripedCounter getCounter(String localName){
+		String name = prefix + localName;
+		StripedCounter counter = counters.get(name);
+		if(counter == null){
+			StripedCounter newCounter = new StripedCounter();
+			counter = counters.putIfAbsent(name, newCounter);
+			if(counter == null) counter = newCounter;
+		}
+		return counter;
+	}
+	
+	/**
+	 * Returns the histogram with the specified name, and creates it if there is none yet.
+	 * 
+	 * @param localName name within this scope
+	 * @return histogram
+	 */
+	public LatencyHistogram getHistogram(String localName){
+		String name = prefix + localName;
+		LatencyHistogram histogram = histograms.get(name);
+		if(histogram == null){
+			LatencyHistogram newHistogram = new LatencyHistogram();
+			histogram = histograms.putIfAbsent(name, newHistogram);
+			if(histogram == null) histogram = newHistogram;
+		}
+		return histogram;
+	}
+	
+	@Override
+	public boolean isEnabled() {
+		return root.enabled;
+	}
+	
+	@Override
+	public void setEnabled(boolean enabled) {
+		root.enabled = enabled;
+		logger.info("set metrics enabled to " + enabled);
+	}
+	
+	/**
+	 * Returns the sums of all counters and the counts of all histograms.
+	 */
+	@Override
+	public Map<String, Long> getCounts() {
+		Map<String,Long> counts = new TreeMap<String, Long>();
+		for(Map.Entry<String, StripedCounter> e : counters.entrySet()){
+			counts.put(e.getKey(), e.getValue().sum());
+		}
+		for(Map.Entry<String, LatencyHistogram> e : histograms.entrySet()){
+			counts.put(e.getKey(), e.getValue().getCount());
+		}
+		return counts;
+	}
+	
+	@Override
+	public Map<String, Double> getMeanLatencies() {
+		Map<String,Double> latencies = new TreeMap<String, Double>();
+		for(Map.Entry<String, LatencyHistogram> e : histograms.entrySet()){
+			latencies.put(e.getKey(), toMicros(e.getValue().getMean()));
+		}
+		return latencies;
+	}
+	
+	@Override
+	public Map<String, Double> get99thPercentileLatencies() {
+		Map<String,Double> latencies = new TreeMap<String, Double>();
+		for(Map.Entry<String, LatencyHistogram> e : histograms.entrySet()){
+			latencies.put(e.getKey(), toMicros(e.getValue().getValueAtPercentile(99.0)));
+		}
+		return latencies;
+	}
+	
+	@Override
+	public Map<String, Double> getMaxLatencies() {
+		Map<String,Double> latencies = new TreeMap<String, Double>();
+		for(Map.Entry<String, LatencyHistogram> e : histograms.entrySet()){
+			latencies.put(e.getKey(), toMicros(e.getValue().getMax()));
+		}
+		return latencies;
+	}
+	
+	/**
+	 * Returns the share of accepted solutions of each search strategy, i.e. [name].accepted divided by [name].selected.
+	 */
+	@Override
+	public Map<String, Double> getAcceptanceRatios() {
+		Map<String,Double> ratios = new TreeMap<String, Double>();
+		for(Map.Entry<String, StripedCounter> e : counters.entrySet()){
+			if(!e.getKey().endsWith(SELECTED)) continue;
+			String name = e.getKey().substring(0, e.getKey().length() - SELECTED.length());
+			long selected = e.getValue().sum();
+			if(selected == 0) continue;
+			StripedCounter accepted = counters.get(name + ACCEPTED);
+			ratios.put(name, accepted == null ? 0.0 : (double) accepted.sum() / (double) selected);
+		}
+		return ratios;
+	}
+	
+	/**
+	 * Resets all counters and histograms.
+	 */
+	@Override
+	public void reset() {
+		for(StripedCounter counter : counters.values()) counter.reset();
+		for(LatencyHistogram histogram : histograms.values()) histogram.reset();
+	}
+	
+	/**
+	 * Registers this registry at the platform MBean server with {@link #OBJECT_NAME}, if it is not registered yet.
+	 * 
+	 * @return objectName
+	 * @throws IllegalStateException if it cannot be registered
+	 */
+	public ObjectName registerMBean(){
+		return registerMBean(OBJECT_NAME);
+	}
+	
+	/**
+	 * Registers this registry at the platform MBean server with the specified name, if it is not registered yet. Use it to observe 
+	 * registries other than the default one, e.g. "jsprit:type=MetricsRegistry,name=batch1".
+	 * 
+	 * @param name
+	 * @return objectName
+	 * @throws IllegalStateException if it cannot be registered
+	 */
+	public synchronized ObjectName registerMBean(String name){
+		try {
+			ObjectName objectName = new ObjectName(name);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if(!server.isRegistered(objectName)){
+				server.registerMBean(root, objectName);
+				logger.info("register " + objectName);
+			}
+			return objectName;
+		} catch (JMException e) {
+			throw new IllegalStateException("cannot register metrics registry at the platform MBean server", e);
+		}
+	}
+	
+	private double toMicros(double nanos){
+		return nanos / 1000.0;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=metricsRegistry][prefix="+prefix+"][enabled="+root.enabled+"][#counters="+counters.size()+"][#histograms="+histograms.size()+"]";
+	}
+
+}
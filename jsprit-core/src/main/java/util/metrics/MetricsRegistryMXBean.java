@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link MetricsRegistry}, i.e. what JMX clients (such as jconsole) see of the registry. 
+ * 
+ * <p>Latencies are in microseconds.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public interface MetricsRegistryMXBean {
+	
+	public boolean isEnabled();
+	
+	public void setEnabled(boolean enabled);
+	
+	public Map<String,Long> getCounts();
+	
+	public Map<String,Double> getMeanLatencies();
+	
+	public Map<String,Double> get99thPercentileLatencies();
+	
+	public Map<String,Double> getMaxLatencies();
+	
+	public Map<String,Double> getAcceptanceRatios();
+	
+	public void reset();
+
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter that is cheap to increment by many threads at once.
+ * 
+ * <p>Each thread adds to one of several cells, which are a cache line apart, thus threads rarely contend for the same 
+ * cell and the same cache line. Reading the counter sums up the cells, thus it is more expensive than incrementing it.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class StripedCounter {
+	
+	/**
+	 * Number of longs between two cells, i.e. the size of a cache line in longs.
+	 */
+	static final int PADDING = 8;
+	
+	private final AtomicLongArray cells;
+	
+	private final int mask;
+	
+	/**
+	 * Returns the number of stripes for data that many threads write to, i.e. a power of two that is at least twice the number of processors.
+	 */
+	static int nuOfStripes(){
+		return Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) * 2;
+	}
+	
+	/**
+	 * Returns the stripe of the current thread, where mask is the number of stripes minus one.
+	 */
+	static int stripe(int mask){
+		long id = Thread.currentThread().getId();
+		int hash = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+		return hash & mask;
+	}
+	
+	public StripedCounter() {
+		super();
+		int nuOfCells = nuOfStripes();
+		this.mask = nuOfCells - 1;
+		this.cells = new AtomicLongArray((nuOfCells + 1) * PADDING);
+	}
+	
+	public void increment(){
+		add(1);
+	}
+	
+	public void add(long x){
+		cells.getAndAdd(cellIndex(), x);
+	}
+	
+	/**
+	 * Returns the sum of all cells. Additions made while summing up may or may not be part of the sum.
+	 * 
+	 * @return sum
+	 */
+	public long sum(){
+		long sum = 0;
+		for(int i=PADDING;i<cells.length();i+=PADDING){
+			sum += cells.get(i);
+		}
+		return sum;
+	}
+	
+	public void reset(){
+		for(int i=PADDING;i<cells.length();i+=PADDING){
+			cells.set(i, 0);
+		}
+	}
+
+	/**
+	 * Returns the cell of the current thread. The first cache line is left out since the array header shares it.
+	 */
+	private int cellIndex() {
+		return (stripe(mask) + 1) * PADDING;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=stripedCounter][sum="+sum()+"]";
+	}
+
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.network;
+
+/**
+ * One-to-all fastest path search on a {@link RoadNetwork}. 
+ * 
+ * <p>Scratch arrays are allocated once and reset lazily by a search stamp, thus an instance can run many searches cheaply, but it 
+ * is not thread-safe.
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class Dijkstra {
+	
+	private final RoadNetwork network;
+	
+	private final double[] times;
+	
+	private final double[] lengths;
+	
+	private final int[] reachedStamps;
+	
+	private final int[] settledStamps;
+	
+	private int stamp = 0;
+	
+	private int[] heapNodes;
+	
+	private double[] heapKeys;
+	
+	private int heapSize;
+	
+	Dijkstra(RoadNetwork network) {
+		super();
+		this.network = network;
+		int nuOfNodes = network.getNuOfNodes();
+		times = new double[nuOfNodes];
+		lengths = new double[nuOfNodes];
+		reachedStamps = new int[nuOfNodes];
+		settledStamps = new int[nuOfNodes];
+		heapNodes = new int[Math.max(16, nuOfNodes)];
+		heapKeys = new double[heapNodes.length];
+	}
+	
+	/**
+	 * Searches fastest paths from source until all nodes marked in isTarget are settled (or no node can be reached anymore).
+	 * 
+	 * @param source
+	 * @param isTarget
+	 * @param nuOfTargets number of distinct nodes marked in isTarget
+	 */
+	void run(int source, boolean[] isTarget, int nuOfTargets){
+		stamp++;
+		heapSize = 0;
+		times[source] = 0.0;
+		lengths[source] = 0.0;
+		reachedStamps[source] = stamp;
+		push(source, 0.0);
+		int settledTargets = 0;
+		while(heapSize > 0){
+			double time = heapKeys[0];
+			int node = pop();
+			if(settledStamps[node] == stamp || time > times[node]) continue;
+			settledStamps[node] = stamp;
+			if(isTarget[node]){
+				settledTargets++;
+				if(settledTargets == nuOfTargets) break;
+			}
+			for(int edge=network.getFirstEdge(node);edge<network.getEndOfEdges(node);edge++){
+				int target = network.getEdgeTarget(edge);
+				if(settledStamps[target] == stamp) continue;
+				double newTime = time + network.getEdgeTime(edge);
+				if(reachedStamps[target] != stamp || newTime < times[target]){
+					reachedStamps[target] = stamp;
+					times[target] = newTime;
+					lengths[target] = lengths[node] + network.getEdgeLength(edge);
+					push(target, newTime);
+				}
+			}
+		}
+	}
+	
+	boolean isSettled(int node){
+		return settledStamps[node] == stamp;
+	}
+	
+	/**
+	 * Returns the travel time of the fastest path to node found by the last search. Only valid if node is settled.
+	 */
+	double getTime(int node){
+		return times[node];
+	}
+	
+	/**
+	 * Returns the length of the fastest path to node found by the last search. Only valid if node is settled.
+	 */
+	double getLength(int node){
+		return lengths[node];
+	}
+	
+	/*
+	 * binary min-heap. a node is pushed again whenever its time improves, outdated entries are skipped when popped.
+	 */
+	private void push(int node, double key){
+		if(heapSize == heapNodes.length){
+			int[] newNodes = new int[2*heapSize];
+			double[] newKeys = new double[2*heapSize];
+			System.arraycopy(heapNodes, 0, newNodes, 0, heapSize);
+			System.arraycopy(heapKeys, 0, newKeys, 0, heapSize);
+			heapNodes = newNodes;
+			heapKeys = newKeys;
+		}
+		int i = heapSize++;
+		while(i > 0){
+			int parent = (i-1)/2;
+			if(heapKeys[parent] <= key) break;
+			heapNodes[i] = heapNodes[parent];
+			heapKeys[i] = heapKeys[parent];
+			i = parent;
+		}
+		heapNodes[i] = node;
+		heapKeys[i] = key;
+	}
+	
+	private int pop(){
+		int top = heapNodes[0];
+		heapSize--;
+		int node = heapNodes[heapSize];
+		double key = heapKeys[heapSize];
+		int i = 0;
+		while(true){
+			int child = 2*i+1;
+			if(child >= heapSize) break;
+			if(child+1 < heapSize && heapKeys[child+1] < heapKeys[child]) child++;
+			if(key <= heapKeys[child]) break;
+			heapNodes[i] = heapNodes[child];
+			heapKeys[i] = heapKeys[child];
+			i = child;
+		}
+		if(heapSize > 0){
+			heapNodes[i] = node;
+			heapKeys[i] = key;
+		}
+		return top;
+	}
+
+}
@@ -0,0 +1,370 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import util.Coordinate;
+
+/**
+ * Directed road graph whose edges have a length and a speed.
+ * 
+ * <p>Nodes are mapped to dense indices, and outgoing edges are stored in primitive arrays in compressed-sparse-row form, i.e. the edges 
+ * of node i are edges firstEdge[i] to firstEdge[i+1]-1. Coordinates are snapped to their nearest node with a uniform grid.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class RoadNetwork {
+	
+	/**
+	 * Builder that builds the network.
+	 * 
+	 * @author stefan schroeder
+	 *
+	 */
+	public static class Builder {
+		
+		public static Builder newInstance(){
+			return new Builder();
+		}
+		
+		private final Map<String,Integer> nodeIndices = new HashMap<String, Integer>();
+		
+		private final List<String> nodeIds = new ArrayList<String>();
+		
+		private double[] xs = new double[16];
+		
+		private double[] ys = new double[16];
+		
+		private int[] edgeFrom = new int[16];
+		
+		private int[] edgeTo = new int[16];
+		
+		private double[] edgeLengths = new double[16];
+		
+		private double[] edgeTimes = new double[16];
+		
+		private int nuOfEdges = 0;
+		
+		private Builder(){
+			
+		}
+		
+		/**
+		 * Adds a node.
+		 * 
+		 * @param nodeId
+		 * @param coord
+		 * @return builder
+		 * @throws IllegalStateException if node already exists
+		 */
+		public Builder addNode(String nodeId, Coordinate coord){
+			if(nodeIndices.containsKey(nodeId)) throw new IllegalStateException("node " + nodeId + " already exists.");
+			int index = nodeIds.size();
+			if(index == xs.length){
+				xs = copyOf(xs, 2*index);
+				ys = copyOf(ys, 2*index);
+			}
+			xs[index] = coord.getX();
+			ys[index] = coord.getY();
+			nodeIds.add(nodeId);
+			nodeIndices.put(nodeId, index);
+			return this;
+		}
+		
+		/**
+		 * Adds a directed edge from fromNodeId to toNodeId.
+		 * 
+		 * @param fromNodeId
+		 * @param toNodeId
+		 * @param length
+		 * @param speed
+		 * @return builder
+		 * @throws IllegalStateException if one of the nodes is unknown, length is negative or speed is not positive
+		 */
+		public Builder addEdge(String fromNodeId, String toNodeId, double length, double speed){
+			if(!(length >= 0.0)) throw new IllegalStateException("length of edge " + fromNodeId + "-" + toNodeId + " must not be negative, but is " + length);
+			if(!(speed > 0.0)) throw new IllegalStateException("speed of edge " + fromNodeId + "-" + toNodeId + " must be positive, but is " + speed);
+			if(nuOfEdges == edgeFrom.length){
+				int newLength = 2*nuOfEdges;
+				edgeFrom = copyOf(edgeFrom, newLength);
+				edgeTo = copyOf(edgeTo, newLength);
+				edgeLengths = copyOf(edgeLengths, newLength);
+				edgeTimes = copyOf(edgeTimes, newLength);
+			}
+			edgeFrom[nuOfEdges] = getNodeIndex(fromNodeId);
+			edgeTo[nuOfEdges] = getNodeIndex(toNodeId);
+			edgeLengths[nuOfEdges] = length;
+			edgeTimes[nuOfEdges] = length / speed;
+			nuOfEdges++;
+			return this;
+		}
+		
+		/**
+		 * Adds edges in both directions between node1 and node2.
+		 * 
+		 * @param nodeId1
+		 * @param nodeId2
+		 * @param length
+		 * @param speed
+		 * @return builder
+		 */
+		public Builder addTwoWayEdge(String nodeId1, String nodeId2, double length, double speed){
+			addEdge(nodeId1, nodeId2, length, speed);
+			addEdge(nodeId2, nodeId1, length, speed);
+			return this;
+		}
+		
+		private int getNodeIndex(String nodeId){
+			Integer index = nodeIndices.get(nodeId);
+			if(index == null) throw new IllegalStateException("node " + nodeId + " is unknown. add nodes before edges.");
+			return index;
+		}
+		
+		public RoadNetwork build(){
+			return new RoadNetwork(this);
+		}
+		
+		private static double[] copyOf(double[] array, int newLength){
+			double[] copy = new double[newLength];
+			System.arraycopy(array, 0, copy, 0, array.length);
+			return copy;
+		}
+		
+		private static int[] copyOf(int[] array, int newLength){
+			int[] copy = new int[newLength];
+			System.arraycopy(array, 0, copy, 0, array.length);
+			return copy;
+		}
+		
+	}
+	
+	private static Logger log = Logger.getLogger(RoadNetwork.class);
+	
+	private final Map<String,Integer> nodeIndices;
+	
+	private final String[] nodeIds;
+	
+	private final double[] xs;
+	
+	private final double[] ys;
+	
+	private final int[] firstEdge;
+	
+	private final int[] edgeTargets;
+	
+	private final double[] edgeLengths;
+	
+	private final double[] edgeTimes;
+	
+	private double minX;
+	
+	private double minY;
+	
+	private double cellSize;
+	
+	private int nuOfColumns;
+	
+	private int nuOfRows;
+	
+	/**
+	 * nodes of grid cell c are cellNodes[cellStart[c]] to cellNodes[cellStart[c+1]-1]
+	 */
+	private int[] cellStart;
+	
+	private int[] cellNodes;
+	
+	private RoadNetwork(Builder builder){
+		int nuOfNodes = builder.nodeIds.size();
+		int nuOfEdges = builder.nuOfEdges;
+		nodeIndices = new HashMap<String, Integer>(builder.nodeIndices);
+		nodeIds = builder.nodeIds.toArray(new String[nuOfNodes]);
+		xs = new double[nuOfNodes];
+		ys = new double[nuOfNodes];
+		System.arraycopy(builder.xs, 0, xs, 0, nuOfNodes);
+		System.arraycopy(builder.ys, 0, ys, 0, nuOfNodes);
+		firstEdge = new int[nuOfNodes+1];
+		edgeTargets = new int[nuOfEdges];
+		edgeLengths = new double[nuOfEdges];
+		edgeTimes = new double[nuOfEdges];
+		for(int e=0;e<nuOfEdges;e++){
+			firstEdge[builder.edgeFrom[e]+1]++;
+		}
+		for(int i=0;i<nuOfNodes;i++){
+			firstEdge[i+1] += firstEdge[i];
+		}
+		int[] next = new int[nuOfNodes];
+		System.arraycopy(firstEdge, 0, next, 0, nuOfNodes);
+		for(int e=0;e<nuOfEdges;e++){
+			int position = next[builder.edgeFrom[e]]++;
+			edgeTargets[position] = builder.edgeTo[e];
+			edgeLengths[position] = builder.edgeLengths[e];
+			edgeTimes[position] = builder.edgeTimes[e];
+		}
+		buildGrid();
+		log.info("initialise " + this);
+	}
+	
+	private void buildGrid() {
+		int nuOfNodes = nodeIds.length;
+		if(nuOfNodes == 0) return;
+		minX = Double.MAX_VALUE;
+		minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+		for(int i=0;i<nuOfNodes;i++){
+			minX = Math.min(minX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxX = Math.max(maxX, xs[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+		int cellsPerSide = (int) Math.ceil(Math.sqrt(nuOfNodes));
+		cellSize = Math.max(maxX - minX, maxY - minY) / cellsPerSide;
+		if(!(cellSize > 0.0)) cellSize = 1.0;
+		nuOfColumns = (int) ((maxX - minX) / cellSize) + 1;
+		nuOfRows = (int) ((maxY - minY) / cellSize) + 1;
+		cellStart = new int[nuOfColumns*nuOfRows+1];
+		int[] cellOfNode = new int[nuOfNodes];
+		for(int i=0;i<nuOfNodes;i++){
+			cellOfNode[i] = getColumn(xs[i]) + getRow(ys[i])*nuOfColumns;
+			cellStart[cellOfNode[i]+1]++;
+		}
+		for(int c=0;c<nuOfColumns*nuOfRows;c++){
+			cellStart[c+1] += cellStart[c];
+		}
+		cellNodes = new int[nuOfNodes];
+		int[] next = new int[nuOfColumns*nuOfRows];
+		System.arraycopy(cellStart, 0, next, 0, next.length);
+		for(int i=0;i<nuOfNodes;i++){
+			cellNodes[next[cellOfNode[i]]++] = i;
+		}
+	}
+	
+	private int getColumn(double x){
+		return Math.max(0, Math.min(nuOfColumns-1, (int) Math.floor((x - minX) / cellSize)));
+	}
+	
+	private int getRow(double y){
+		return Math.max(0, Math.min(nuOfRows-1, (int) Math.floor((y - minY) / cellSize)));
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=roadNetwork][#nodes="+nodeIds.length+"][#edges="+edgeTargets.length+"]";
+	}
+	
+	public int getNuOfNodes(){
+		return nodeIds.length;
+	}
+	
+	public int getNuOfEdges(){
+		return edgeTargets.length;
+	}
+	
+	/**
+	 * Returns the index of nodeId, or -1 if nodeId is unknown.
+	 * 
+	 * @param nodeId
+	 * @return nodeIndex
+	 */
+	public int getNodeIndex(String nodeId){
+		Integer index = nodeIndices.get(nodeId);
+		if(index == null) return -1;
+		return index;
+	}
+	
+	public String getNodeId(int nodeIndex){
+		return nodeIds[nodeIndex];
+	}
+	
+	/**
+	 * Returns the index of the node that is nearest (by euclidean distance) to coord.
+	 * 
+	 * <p>Grid cells are searched ring by ring around the cell of coord, until no unsearched cell can contain a nearer node.
+	 * 
+	 * @param coord
+	 * @return nodeIndex
+	 * @throws IllegalStateException if the network has no nodes
+	 */
+	public int getNearestNode(Coordinate coord){
+		if(nodeIds.length == 0) throw new IllegalStateException("cannot snap " + coord + " to a node. network has no nodes.");
+		double x = coord.getX();
+		double y = coord.getY();
+		int column = getColumn(x);
+		int row = getRow(y);
+		int nearest = -1;
+		double nearestDistance = Double.MAX_VALUE;
+		int maxRing = Math.max(nuOfColumns, nuOfRows);
+		for(int ring=0;ring<=maxRing;ring++){
+			for(int c=column-ring;c<=column+ring;c++){
+				if(c < 0 || c >= nuOfColumns) continue;
+				for(int r=row-ring;r<=row+ring;r++){
+					if(r < 0 || r >= nuOfRows) continue;
+					if(Math.abs(c-column) != ring && Math.abs(r-row) != ring) continue;
+					int cell = c + r*nuOfColumns;
+					for(int k=cellStart[cell];k<cellStart[cell+1];k++){
+						int node = cellNodes[k];
+						double xDiff = xs[node] - x;
+						double yDiff = ys[node] - y;
+						double distance = Math.sqrt(xDiff*xDiff + yDiff*yDiff);
+						if(distance < nearestDistance){
+							nearestDistance = distance;
+							nearest = node;
+						}
+					}
+				}
+			}
+			/*
+			 * cells of the next ring are at least ring*cellSize away from any point of the cell of coord (or from coord's projection 
+			 * onto the grid, which is not farther away from any node than coord itself)
+			 */
+			if(nearest != -1 && nearestDistance <= ring*cellSize) break;
+		}
+		return nearest;
+	}
+	
+	int getFirstEdge(int nodeIndex){
+		return firstEdge[nodeIndex];
+	}
+	
+	int getEndOfEdges(int nodeIndex){
+		return firstEdge[nodeIndex+1];
+	}
+	
+	int getEdgeTarget(int edge){
+		return edgeTargets[edge];
+	}
+	
+	double getEdgeLength(int edge){
+		return edgeLengths[edge];
+	}
+	
+	double getEdgeTime(int edge){
+		return edgeTimes[edge];
+	}
+
+}
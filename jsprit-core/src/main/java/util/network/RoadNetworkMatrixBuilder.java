@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.network;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import util.Coordinate;
+import util.VehicleRoutingTransportCostsMatrix;
+
+/**
+ * Builds a {@link VehicleRoutingTransportCostsMatrix} of fastest paths between locations on a {@link RoadNetwork}.
+ * 
+ * <p>Each location is snapped to its nearest node. Then, for every distinct source node, a one-to-all Dijkstra search runs until all 
+ * location nodes are settled. Searches are distributed to nuOfThreads threads, each with its own search scratch. Transport time is 
+ * the travel time of the fastest path and distance is its length. Locations snapped to the same node are 0.0 apart. 
+ * 
+ * <p>Relations that cannot be reached are not added to the matrix, i.e. the matrix throws an IllegalStateException if they 
+ * are requested.
+ * 
+ * <p>Usage: RoadNetworkMatrixBuilder.newInstance(network).addLocations(vrpBuilder.getLocationMap()).build()
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class RoadNetworkMatrixBuilder {
+	
+	public static RoadNetworkMatrixBuilder newInstance(RoadNetwork network){
+		return new RoadNetworkMatrixBuilder(network);
+	}
+	
+	private static Logger log = Logger.getLogger(RoadNetworkMatrixBuilder.class);
+	
+	private final RoadNetwork network;
+	
+	private final Map<String,Coordinate> locations = new LinkedHashMap<String, Coordinate>();
+	
+	private int nuOfThreads = 1;
+	
+	private RoadNetworkMatrixBuilder(RoadNetwork network) {
+		super();
+		this.network = network;
+	}
+	
+	public RoadNetworkMatrixBuilder addLocation(String locationId, Coordinate coord){
+		locations.put(locationId, coord);
+		return this;
+	}
+	
+	public RoadNetworkMatrixBuilder addLocations(Map<String,Coordinate> locations){
+		this.locations.putAll(locations);
+		return this;
+	}
+	
+	/**
+	 * Sets the number of threads running shortest path searches (default is 1).
+	 * 
+	 * @param nuOfThreads
+	 * @return this builder
+	 */
+	public RoadNetworkMatrixBuilder setNuOfThreads(int nuOfThreads){
+		if(nuOfThreads < 1) throw new IllegalStateException("nuOfThreads must be at least 1");
+		this.nuOfThreads = nuOfThreads;
+		return this;
+	}
+	
+	/**
+	 * Computes the fastest paths between all locations and returns them as asymmetric matrix.
+	 * 
+	 * @return matrix
+	 */
+	public VehicleRoutingTransportCostsMatrix build(){
+		int nuOfLocations = locations.size();
+		String[] locationIds = locations.keySet().toArray(new String[nuOfLocations]);
+		int[] locationNodes = new int[nuOfLocations];
+		boolean[] isTarget = new boolean[network.getNuOfNodes()];
+		int[] sourceRows = new int[network.getNuOfNodes()];
+		List<Integer> sourceNodes = new ArrayList<Integer>();
+		for(int i=0;i<nuOfLocations;i++){
+			int node = network.getNearestNode(locations.get(locationIds[i]));
+			locationNodes[i] = node;
+			if(!isTarget[node]){
+				isTarget[node] = true;
+				sourceRows[node] = sourceNodes.size();
+				sourceNodes.add(node);
+			}
+		}
+		log.info("compute fastest paths between " + nuOfLocations + " locations (snapped to " + sourceNodes.size() + " nodes) with " + nuOfThreads + " thread(s)");
+		double[][] times = new double[sourceNodes.size()][];
+		double[][] lengths = new double[sourceNodes.size()][];
+		search(sourceNodes, locationNodes, isTarget, times, lengths);
+		
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+		int nuOfUnreachableRelations = 0;
+		for(int i=0;i<nuOfLocations;i++){
+			int row = sourceRows[locationNodes[i]];
+			for(int j=0;j<nuOfLocations;j++){
+				if(i == j || Double.isNaN(times[row][j])){
+					if(i != j) nuOfUnreachableRelations++;
+					continue;
+				}
+				matrixBuilder.addTransportTime(locationIds[i], locationIds[j], times[row][j]);
+				matrixBuilder.addTransportDistance(locationIds[i], locationIds[j], lengths[row][j]);
+			}
+		}
+		if(nuOfUnreachableRelations > 0){
+			log.warn(nuOfUnreachableRelations + " relations cannot be reached on the road network. they are not part of the matrix.");
+		}
+		return matrixBuilder.build();
+	}
+
+	private void search(final List<Integer> sourceNodes, final int[] locationNodes, final boolean[] isTarget, final double[][] times, final double[][] lengths) {
+		final int nuOfTargets = sourceNodes.size();
+		int nuOfTasks = Math.min(nuOfThreads, sourceNodes.size());
+		if(nuOfTasks <= 1){
+			search(new Dijkstra(network), 0, 1, sourceNodes, locationNodes, isTarget, nuOfTargets, times, lengths);
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(nuOfTasks);
+		try{
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for(int t=0;t<nuOfTasks;t++){
+				final int offset = t;
+				final int step = nuOfTasks;
+				futures.add(executor.submit(new Callable<Object>() {
+
+					@Override
+					public Object call() throws Exception {
+						search(new Dijkstra(network), offset, step, sourceNodes, locationNodes, isTarget, nuOfTargets, times, lengths);
+						return null;
+					}
+					
+				}));
+			}
+			for(Future<Object> future : futures){
+				future.get();
+			}
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while computing fastest paths", e);
+		}
+		catch(ExecutionException e){
+			throw new IllegalStateException("cannot compute fastest paths", e.getCause());
+		}
+		finally{
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * searches from every step-th source node starting at offset. rows are distinct per task, so they can be written without locks; 
+	 * they become visible to the calling thread by Future.get().
+	 */
+	private void search(Dijkstra dijkstra, int offset, int step, List<Integer> sourceNodes, int[] locationNodes, boolean[] isTarget, int nuOfTargets, double[][] times, double[][] lengths) {
+		for(int row=offset;row<sourceNodes.size();row+=step){
+			dijkstra.run(sourceNodes.get(row), isTarget, nuOfTargets);
+			double[] timeRow = new double[locationNodes.length];
+			double[] lengthRow = new double[locationNodes.length];
+			for(int j=0;j<locationNodes.length;j++){
+				int node = locationNodes[j];
+				if(dijkstra.isSettled(node)){
+					timeRow[j] = dijkstra.getTime(node);
+					lengthRow[j] = dijkstra.getLength(node);
+				}
+				else{
+					timeRow[j] = Double.NaN;
+					lengthRow[j] = Double.NaN;
+				}
+			}
+			times[row] = timeRow;
+			lengths[row] = lengthRow;
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.network;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.log4j.Logger;
+
+import util.Coordinate;
+
+/**
+ * Reads a road network from a comma-separated text file.
+ * 
+ * <p>Each line is either empty, a comment starting with '#', a node, a directed edge or a two-way edge:
+ * <pre>
+ * n,nodeId,x,y
+ * e,fromNodeId,toNodeId,length,speed
+ * b,nodeId1,nodeId2,length,speed
+ * </pre>
+ * Nodes must be declared before the edges that refer to them.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class RoadNetworkReader {
+	
+	private static Logger log = Logger.getLogger(RoadNetworkReader.class);
+	
+	private final RoadNetwork.Builder networkBuilder;
+	
+	public RoadNetworkReader(RoadNetwork.Builder networkBuilder) {
+		super();
+		this.networkBuilder = networkBuilder;
+	}
+	
+	/**
+	 * Reads the network from filename into the network builder.
+	 * 
+	 * @param filename
+	 * @throws IllegalStateException if the file cannot be read or contains a malformed line
+	 */
+	public void read(String filename){
+		log.info("read road network from " + filename);
+		FileReader fileReader;
+		try {
+			fileReader = new FileReader(filename);
+		} catch (IOException e) {
+			throw new IllegalStateException("cannot open " + filename, e);
+		}
+		read(fileReader);
+	}
+	
+	/**
+	 * Reads the network from reader into the network builder and closes reader.
+	 * 
+	 * @param reader
+	 * @throws IllegalStateException if reader cannot be read or contains a malformed line
+	 */
+	public void read(Reader reader){
+		BufferedReader bufferedReader = new BufferedReader(reader);
+		int lineNumber = 0;
+		try {
+			String line;
+			while((line = bufferedReader.readLine()) != null){
+				lineNumber++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")) continue;
+				readLine(line.split(","), lineNumber);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("cannot read road network", e);
+		}
+		finally{
+			close(bufferedReader);
+		}
+	}
+
+	private void readLine(String[] tokens, int lineNumber) {
+		String type = tokens[0].trim();
+		try{
+			if(type.equals("n") && tokens.length == 4){
+				networkBuilder.addNode(tokens[1].trim(), Coordinate.newInstance(parse(tokens[2]), parse(tokens[3])));
+			}
+			else if(type.equals("e") && tokens.length == 5){
+				networkBuilder.addEdge(tokens[1].trim(), tokens[2].trim(), parse(tokens[3]), parse(tokens[4]));
+			}
+			else if(type.equals("b") && tokens.length == 5){
+				networkBuilder.addTwoWayEdge(tokens[1].trim(), tokens[2].trim(), parse(tokens[3]), parse(tokens[4]));
+			}
+			else{
+				throw new IllegalStateException("unknown record type '" + type + "' or wrong number of fields (" + tokens.length + ")");
+			}
+		}
+		catch(NumberFormatException e){
+			throw new IllegalStateException("malformed number in line " + lineNumber, e);
+		}
+		catch(IllegalStateException e){
+			throw new IllegalStateException("cannot read line " + lineNumber + ": " + e.getMessage(), e);
+		}
+	}
+
+	private double parse(String token) {
+		return Double.parseDouble(token.trim());
+	}
+
+	private void close(BufferedReader reader) {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			log.warn("cannot close road network reader: " + e);
+		}
+	}
+
+}
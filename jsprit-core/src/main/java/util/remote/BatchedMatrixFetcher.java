@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.remote;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import util.Coordinate;
+import util.VehicleRoutingTransportCostsMatrix;
+
+/**
+ * Builds a {@link VehicleRoutingTransportCostsMatrix} from tables of an external routing service.
+ * 
+ * <p>All relations between the distinct coordinates of the locations are needed. Those that are not in the cache are requested 
+ * with a {@link TableRequestClient} in blocks of up to batchSize sources times batchSize destinations, and blocks are requested 
+ * concurrently by nuOfThreads threads. Fetched relations are put into the cache and the cache is flushed, thus they are not 
+ * requested again after a restart. Locations with equal coordinates are 0.0 apart. Unreachable relations are not added to the 
+ * matrix, i.e. the matrix throws an IllegalStateException if they are requested.
+ * 
+ * <p>Since transport costs are set on VehicleRoutingProblem.Builder, take the locations from there:
+ * <pre>
+ * VehicleRoutingTransportCostsMatrix matrix = BatchedMatrixFetcher.newInstance(client, cache).addLocations(vrpBuilder.getLocationMap()).build();
+ * vrpBuilder.setRoutingCost(matrix);
+ * </pre>
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class BatchedMatrixFetcher {
+	
+	public static BatchedMatrixFetcher newInstance(TableRequestClient client, TransportTableCache cache){
+		return new BatchedMatrixFetcher(client, cache);
+	}
+	
+	private static Logger log = Logger.getLogger(BatchedMatrixFetcher.class);
+	
+	private final TableRequestClient client;
+	
+	private final TransportTableCache cache;
+	
+	private final Map<String,Coordinate> locations = new LinkedHashMap<String, Coordinate>();
+	
+	private String profile = "car";
+	
+	private int batchSize = 100;
+	
+	private int nuOfThreads = 1;
+	
+	private int nuOfRequests = 0;
+	
+	private BatchedMatrixFetcher(TableRequestClient client, TransportTableCache cache) {
+		super();
+		this.client = client;
+		this.cache = cache;
+	}
+	
+	public BatchedMatrixFetcher addLocation(String locationId, Coordinate coord){
+		locations.put(locationId, coord);
+		return this;
+	}
+	
+	public BatchedMatrixFetcher addLocations(Map<String,Coordinate> locations){
+		this.locations.putAll(locations);
+		return this;
+	}
+	
+	/**
+	 * Sets the routing profile that is requested and that is part of the cache key (default is car).
+	 * 
+	 * @param profile
+	 * @return this fetcher
+	 */
+	public BatchedMatrixFetcher setProfile(String profile){
+		this.profile = profile;
+		return this;
+	}
+	
+	/**
+	 * Sets the maximum number of sources and of destinations per request (default is 100).
+	 * 
+	 * @param batchSize
+	 * @return this fetcher
+	 */
+	public BatchedMatrixFetcher setBatchSize(int batchSize){
+		if(batchSize < 1) throw new IllegalStateException("batchSize must be at least 1");
+		this.batchSize = batchSize;
+		return this;
+	}
+	
+	/**
+	 * Sets the number of concurrent requests (default is 1).
+	 * 
+	 * @param nuOfThreads
+	 * @return this fetcher
+	 */
+	public BatchedMatrixFetcher setNuOfThreads(int nuOfThreads){
+		if(nuOfThreads < 1) throw new IllegalStateException("nuOfThreads must be at least 1");
+		this.nuOfThreads = nuOfThreads;
+		return this;
+	}
+	
+	/**
+	 * Returns the number of requests sent by the last {@link #build()}.
+	 * 
+	 * @return nuOfRequests
+	 */
+	public int getNuOfRequests(){
+		return nuOfRequests;
+	}
+	
+	/**
+	 * Fetches missing relations, and returns all relations between the locations as asymmetric matrix.
+	 * 
+	 * @return matrix
+	 * @throws IllegalStateException if a request fails. relations fetched so far are still cached.
+	 */
+	public VehicleRoutingTransportCostsMatrix build(){
+		List<Coordinate> coordinates = new ArrayList<Coordinate>();
+		Map<Coordinate,Integer> coordinateIndices = new HashMap<Coordinate, Integer>();
+		for(Coordinate coord : locations.values()){
+			if(!coordinateIndices.containsKey(coord)){
+				coordinateIndices.put(coord, coordinates.size());
+				coordinates.add(coord);
+			}
+		}
+		fetchMissingRelations(coordinates);
+		
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+		int nuOfUnreachableRelations = 0;
+		for(Map.Entry<String,Coordinate> from : locations.entrySet()){
+			for(Map.Entry<String,Coordinate> to : locations.entrySet()){
+				if(from.getKey().equals(to.getKey())) continue;
+				double time = 0.0;
+				double distance = 0.0;
+				if(!from.getValue().equals(to.getValue())){
+					double[] values = cache.get(profile, from.getValue(), to.getValue());
+					time = values[0];
+					distance = values[1];
+				}
+				if(Double.isNaN(time)){
+					nuOfUnreachableRelations++;
+					continue;
+				}
+				matrixBuilder.addTransportTime(from.getKey(), to.getKey(), time);
+				matrixBuilder.addTransportDistance(from.getKey(), to.getKey(), distance);
+			}
+		}
+		if(nuOfUnreachableRelations > 0){
+			log.warn(nuOfUnreachableRelations + " relations cannot be reached. they are not part of the matrix.");
+		}
+		return matrixBuilder.build();
+	}
+
+	private void fetchMissingRelations(List<Coordinate> coordinates) {
+		nuOfRequests = 0;
+		final List<List<Coordinate>> sourceBlocks = new ArrayList<List<Coordinate>>();
+		final List<List<Coordinate>> destinationBlocks = new ArrayList<List<Coordinate>>();
+		for(int from=0;from<coordinates.size();from+=batchSize){
+			List<Coordinate> block = coordinates.subList(from, Math.min(from+batchSize, coordinates.size()));
+			for(int to=0;to<coordinates.size();to+=batchSize){
+				List<Coordinate> destinationBlock = coordinates.subList(to, Math.min(to+batchSize, coordinates.size()));
+				if(hasMissingRelation(block, destinationBlock)){
+					sourceBlocks.add(block);
+					destinationBlocks.add(destinationBlock);
+				}
+			}
+		}
+		if(sourceBlocks.isEmpty()){
+			log.info("all relations between " + coordinates.size() + " coordinates are cached");
+			return;
+		}
+		log.info("fetch " + sourceBlocks.size() + " table(s) for " + coordinates.size() + " coordinates with " + nuOfThreads + " thread(s)");
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(nuOfThreads, sourceBlocks.size()));
+		try{
+			List<Future<TransportTable>> futures = new ArrayList<Future<TransportTable>>();
+			for(int b=0;b<sourceBlocks.size();b++){
+				final List<Coordinate> sources = sourceBlocks.get(b);
+				final List<Coordinate> destinations = destinationBlocks.get(b);
+				futures.add(executor.submit(new Callable<TransportTable>() {
+
+					@Override
+					public TransportTable call() throws Exception {
+						return client.fetch(profile, sources, destinations);
+					}
+					
+				}));
+			}
+			for(int b=0;b<futures.size();b++){
+				TransportTable table = futures.get(b).get();
+				nuOfRequests++;
+				cacheTable(table, sourceBlocks.get(b), destinationBlocks.get(b));
+			}
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while fetching tables", e);
+		}
+		catch(ExecutionException e){
+			throw new IllegalStateException("cannot fetch table with " + client, e.getCause());
+		}
+		finally{
+			executor.shutdownNow();
+			cache.flush();
+		}
+	}
+
+	private boolean hasMissingRelation(List<Coordinate> sources, List<Coordinate> destinations) {
+		for(Coordinate from : sources){
+			for(Coordinate to : destinations){
+				if(!from.equals(to) && !cache.contains(profile, from, to)) return true;
+			}
+		}
+		return false;
+	}
+
+	private void cacheTable(TransportTable table, List<Coordinate> sources, List<Coordinate> destinations) {
+		if(table.getNuOfSources() != sources.size() || table.getNuOfDestinations() != destinations.size()){
+			throw new IllegalStateException("table " + table + " does not match request of " + sources.size() + " sources and " + destinations.size() + " destinations");
+		}
+		for(int i=0;i<sources.size();i++){
+			for(int j=0;j<destinations.size();j++){
+				if(sources.get(i).equals(destinations.get(j))) continue;
+				cache.put(profile, sources.get(i), destinations.get(j), table.getTime(i, j), table.getDistance(i, j));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.remote;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+
+import util.Coordinate;
+
+/**
+ * Requests tables from a routing service over HTTP.
+ * 
+ * <p>The request is a POST of plain text (UTF-8) with three lines:
+ * <pre>
+ * profile=car
+ * sources=x1,y1;x2,y2;...
+ * destinations=x1,y1;x2,y2;...
+ * </pre>
+ * The service answers with status 200 and one line per source. A line has one entry per destination, separated by ';'. An entry is 
+ * either 'time,distance' or '-' if the destination cannot be reached. 
+ * 
+ * <p>Services with another protocol can be plugged in by implementing {@link TableRequestClient}.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class HttpTableRequestClient implements TableRequestClient {
+	
+	private static final String CHARSET = "UTF-8";
+	
+	private final URL url;
+	
+	private int connectTimeout = 10000;
+	
+	private int readTimeout = 60000;
+	
+	/**
+	 * @param url of the table service
+	 * @throws IllegalStateException if url is malformed
+	 */
+	public HttpTableRequestClient(String url) {
+		super();
+		try {
+			this.url = new URL(url);
+		} catch (IOException e) {
+			throw new IllegalStateException("malformed url " + url, e);
+		}
+	}
+	
+	/**
+	 * Sets connect and read timeout in milliseconds (default is 10000 and 60000).
+	 * 
+	 * @param connectTimeout
+	 * @param readTimeout
+	 */
+	public void setTimeouts(int connectTimeout, int readTimeout){
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+	}
+
+	@Override
+	public TransportTable fetch(String profile, List<Coordinate> sources, List<Coordinate> destinations) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try{
+			connection.setRequestMethod("POST");
+			connection.setConnectTimeout(connectTimeout);
+			connection.setReadTimeout(readTimeout);
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "text/plain; charset=" + CHARSET);
+			byte[] request = createRequest(profile, sources, destinations).getBytes(CHARSET);
+			connection.setFixedLengthStreamingMode(request.length);
+			OutputStream out = connection.getOutputStream();
+			try{
+				out.write(request);
+			}
+			finally{
+				out.close();
+			}
+			int status = connection.getResponseCode();
+			if(status != HttpURLConnection.HTTP_OK){
+				throw new IOException("table service " + url + " answered with status " + status);
+			}
+			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), CHARSET));
+			try{
+				return readResponse(reader, sources.size(), destinations.size());
+			}
+			finally{
+				reader.close();
+			}
+		}
+		finally{
+			connection.disconnect();
+		}
+	}
+
+	private String createRequest(String profile, List<Coordinate> sources, List<Coordinate> destinations) {
+		StringBuilder request = new StringBuilder();
+		request.append("profile=").append(profile).append("\n");
+		request.append("sources=");
+		appendCoordinates(request, sources);
+		request.append("\ndestinations=");
+		appendCoordinates(request, destinations);
+		request.append("\n");
+		return request.toString();
+	}
+
+	private void appendCoordinates(StringBuilder request, List<Coordinate> coordinates) {
+		for(int i=0;i<coordinates.size();i++){
+			if(i > 0) request.append(";");
+			request.append(coordinates.get(i).getX()).append(",").append(coordinates.get(i).getY());
+		}
+	}
+
+	private TransportTable readResponse(BufferedReader reader, int nuOfSources, int nuOfDestinations) throws IOException {
+		TransportTable table = new TransportTable(nuOfSources, nuOfDestinations);
+		for(int i=0;i<nuOfSources;i++){
+			String line = reader.readLine();
+			if(line == null) throw new IOException("table service answered with " + i + " rows, but " + nuOfSources + " are expected");
+			String[] entries = line.trim().split(";");
+			if(entries.length != nuOfDestinations) throw new IOException("row " + i + " has " + entries.length + " entries, but " + nuOfDestinations + " are expected");
+			for(int j=0;j<nuOfDestinations;j++){
+				String entry = entries[j].trim();
+				if(entry.equals("-")) continue;
+				String[] values = entry.split(",");
+				if(values.length != 2) throw new IOException("malformed entry '" + entry + "' in row " + i);
+				try{
+					table.set(i, j, Double.parseDouble(values[0]), Double.parseDouble(values[1]));
+				}
+				catch(NumberFormatException e){
+					throw new IOException("malformed entry '" + entry + "' in row " + i);
+				}
+			}
+		}
+		return table;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=httpTableRequestClient][url="+url+"]";
+	}
+
+}
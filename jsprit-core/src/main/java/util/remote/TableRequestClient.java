@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.remote;
+
+import java.io.IOException;
+import java.util.List;
+
+import util.Coordinate;
+
+/**
+ * Requests a table of transport times and distances between coordinates from an external routing service.
+ * 
+ * <p>Implementations are called concurrently by {@link BatchedMatrixFetcher}, thus they must be thread-safe.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public interface TableRequestClient {
+	
+	/**
+	 * Returns the table from each source to each destination for the routing profile (e.g. car or truck). Unreachable relations 
+	 * are NaN.
+	 * 
+	 * @param profile
+	 * @param sources
+	 * @param destinations
+	 * @return table with sources.size() rows and destinations.size() columns
+	 * @throws IOException if the service cannot be reached or answers with an error
+	 */
+	public TransportTable fetch(String profile, List<Coordinate> sources, List<Coordinate> destinations) throws IOException;
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.remote;
+
+import java.util.Arrays;
+
+/**
+ * Transport times and distances from a list of sources to a list of destinations, as returned by a {@link TableRequestClient}.
+ * 
+ * <p>Values are stored row by row in primitive arrays. Unreachable relations are NaN.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public final class TransportTable {
+	
+	private final int nuOfSources;
+	
+	private final int nuOfDestinations;
+	
+	private final double[] times;
+	
+	private final double[] distances;
+	
+	/**
+	 * Creates a table whose relations are all unreachable (NaN) until they are set.
+	 * 
+	 * @param nuOfSources
+	 * @param nuOfDestinations
+	 */
+	public TransportTable(int nuOfSources, int nuOfDestinations) {
+		super();
+		this.nuOfSources = nuOfSources;
+		this.nuOfDestinations = nuOfDestinations;
+		times = new double[nuOfSources*nuOfDestinations];
+		distances = new double[nuOfSources*nuOfDestinations];
+		Arrays.fill(times, Double.NaN);
+		Arrays.fill(distances, Double.NaN);
+	}
+	
+	public void set(int sourceIndex, int destinationIndex, double time, double distance){
+		int cell = getCell(sourceIndex, destinationIndex);
+		times[cell] = time;
+		distances[cell] = distance;
+	}
+	
+	public double getTime(int sourceIndex, int destinationIndex){
+		return times[getCell(sourceIndex, destinationIndex)];
+	}
+	
+	public double getDistance(int sourceIndex, int destinationIndex){
+		return distances[getCell(sourceIndex, destinationIndex)];
+	}
+	
+	public int getNuOfSources() {
+		return nuOfSources;
+	}
+
+	public int getNuOfDestinations() {
+		return nuOfDestinations;
+	}
+
+	private int getCell(int sourceIndex, int destinationIndex){
+		if(sourceIndex < 0 || sourceIndex >= nuOfSources || destinationIndex < 0 || destinationIndex >= nuOfDestinations){
+			throw new IllegalStateException("relation " + sourceIndex + "-" + destinationIndex + " is not in table of size " + nuOfSources + "x" + nuOfDestinations);
+		}
+		return sourceIndex*nuOfDestinations + destinationIndex;
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=transportTable][#sources="+nuOfSources+"][#destinations="+nuOfDestinations+"]";
+	}
+
+}
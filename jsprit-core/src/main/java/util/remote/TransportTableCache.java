@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import util.Coordinate;
+
+/**
+ * Persistent cache of transport times and distances keyed by profile and the coordinates of both ends of a relation.
+ * 
+ * <p>Entries are held in memory. New entries are appended to the cache-file when {@link #flush()} is called, thus the file only grows 
+ * and a restart reads all relations fetched before. An incomplete last record (e.g. after a crash while flushing) is cut off.
+ * 
+ * <p>The cache is not thread-safe.
+ * 
+ * @author stefan schroeder
+ *
+ */
+public class TransportTableCache {
+	
+	static final int MAGIC_NUMBER = 0x4a545443;
+	
+	static final int VERSION = 1;
+	
+	private static class Key {
+		
+		private final String profile;
+		
+		private final double fromX;
+		
+		private final double fromY;
+		
+		private final double toX;
+		
+		private final double toY;
+
+		Key(String profile, double fromX, double fromY, double toX, double toY) {
+			super();
+			this.profile = profile;
+			this.fromX = fromX;
+			this.fromY = fromY;
+			this.toX = toX;
+			this.toY = toY;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = profile.hashCode();
+			result = 31*result + hash(fromX);
+			result = 31*result + hash(fromY);
+			result = 31*result + hash(toX);
+			result = 31*result + hash(toY);
+			return result;
+		}
+		
+		private static int hash(double value){
+			long bits = Double.doubleToLongBits(value);
+			return (int)(bits ^ (bits >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return profile.equals(other.profile) 
+					&& Double.doubleToLongBits(fromX) == Double.doubleToLongBits(other.fromX)
+					&& Double.doubleToLongBits(fromY) == Double.doubleToLongBits(other.fromY)
+					&& Double.doubleToLongBits(toX) == Double.doubleToLongBits(other.toX)
+					&& Double.doubleToLongBits(toY) == Double.doubleToLongBits(other.toY);
+		}
+		
+	}
+	
+	private static class CountingInputStream extends FilterInputStream {
+		
+		private long count = 0;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if(b != -1) count++;
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if(n > 0) count += n;
+			return n;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+		
+	}
+	
+	/**
+	 * Creates a cache that is stored in file. Existing entries of file are read.
+	 * 
+	 * @param file
+	 * @return cache
+	 * @throws IllegalStateException if file exists, but is not a cache-file or cannot be read
+	 */
+	public static TransportTableCache newInstance(File file){
+		return new TransportTableCache(file);
+	}
+	
+	/**
+	 * Creates a cache that is only held in memory.
+	 * 
+	 * @return cache
+	 */
+	public static TransportTableCache newInMemoryInstance(){
+		return new TransportTableCache(null);
+	}
+	
+	private static Logger log = Logger.getLogger(TransportTableCache.class);
+	
+	private final File file;
+	
+	private final Map<Key,double[]> entries = new HashMap<Key, double[]>();
+	
+	private final List<Key> pendingKeys = new ArrayList<Key>();
+	
+	private TransportTableCache(File file) {
+		super();
+		this.file = file;
+		if(file != null && file.length() > 0) read();
+		log.info("initialise " + this);
+	}
+	
+	/**
+	 * Returns {time, distance} of the relation, or null if it is not cached. Unreachable relations are cached with NaN values.
+	 * 
+	 * @param profile
+	 * @param from
+	 * @param to
+	 * @return {time, distance} or null
+	 */
+	public double[] get(String profile, Coordinate from, Coordinate to){
+		return entries.get(new Key(profile, from.getX(), from.getY(), to.getX(), to.getY()));
+	}
+	
+	public boolean contains(String profile, Coordinate from, Coordinate to){
+		return get(profile, from, to) != null;
+	}
+	
+	/**
+	 * Adds a relation. It is stored in the cache-file with the next {@link #flush()}.
+	 * 
+	 * @param profile
+	 * @param from
+	 * @param to
+	 * @param time
+	 * @param distance
+	 */
+	public void put(String profile, Coordinate from, Coordinate to, double time, double distance){
+		Key key = new Key(profile, from.getX(), from.getY(), to.getX(), to.getY());
+		if(entries.put(key, new double[]{ time, distance }) == null){
+			pendingKeys.add(key);
+		}
+	}
+	
+	public int size(){
+		return entries.size();
+	}
+	
+	/**
+	 * Appends the relations added since the last flush to the cache-file.
+	 * 
+	 * @throws IllegalStateException if file cannot be written
+	 */
+	public void flush(){
+		if(file == null || pendingKeys.isEmpty()) return;
+		try {
+			boolean isNew = !file.exists() || file.length() == 0;
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+			try{
+				if(isNew){
+					out.writeInt(MAGIC_NUMBER);
+					out.writeInt(VERSION);
+				}
+				for(Key key : pendingKeys){
+					double[] values = entries.get(key);
+					out.writeUTF(key.profile);
+					out.writeDouble(key.fromX);
+					out.writeDouble(key.fromY);
+					out.writeDouble(key.toX);
+					out.writeDouble(key.toY);
+					out.writeDouble(values[0]);
+					out.writeDouble(values[1]);
+				}
+			}
+			finally{
+				out.close();
+			}
+		} catch (IOException e) {
+			log.error(e);
+			throw new IllegalStateException("cannot write cache file " + file, e);
+		}
+		log.info(pendingKeys.size() + " relations appended to " + file);
+		pendingKeys.clear();
+	}
+
+	private void read() {
+		long validLength;
+		try {
+			CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+			DataInputStream in = new DataInputStream(counter);
+			try{
+				if(in.readInt() != MAGIC_NUMBER) throw new IllegalStateException(file + " is not a transport table cache file");
+				int version = in.readInt();
+				if(version != VERSION) throw new IllegalStateException("version " + version + " of cache file " + file + " is not supported");
+				validLength = counter.count;
+				while(true){
+					Key key;
+					double time;
+					double distance;
+					try{
+						key = new Key(in.readUTF(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+						time = in.readDouble();
+						distance = in.readDouble();
+					}
+					catch(EOFException e){
+						break;
+					}
+					entries.put(key, new double[]{ time, distance });
+					validLength = counter.count;
+				}
+			}
+			finally{
+				in.close();
+			}
+		} catch (IOException e) {
+			log.error(e);
+			throw new IllegalStateException("cannot read cache file " + file, e);
+		}
+		if(validLength < file.length()){
+			log.warn("last record of cache file " + file + " is incomplete. it is cut off.");
+			truncate(validLength);
+		}
+	}
+
+	private void truncate(long length) {
+		try {
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+			try{
+				randomAccessFile.setLength(length);
+			}
+			finally{
+				randomAccessFile.close();
+			}
+		} catch (IOException e) {
+			log.error(e);
+			throw new IllegalStateException("cannot repair cache file " + file, e);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "[name=transportTableCache][file="+file+"][#entries="+entries.size()+"]";
+	}
+
+}
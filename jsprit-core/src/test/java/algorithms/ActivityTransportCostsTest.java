@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import util.Coordinate;
+import util.VehicleRoutingTransportCostsMatrix;
+import basics.Service;
+import basics.VehicleRoutingProblem;
+import basics.costs.TransportLeg;
+import basics.route.ServiceActivity;
+import basics.route.Start;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+
+public class ActivityTransportCostsTest {
+	
+	private Vehicle vehicle;
+	
+	private Service a;
+	
+	private Service b;
+	
+	private VehicleRoutingProblem vrp1;
+	
+	private VehicleRoutingProblem vrp2;
+	
+	@Before
+	public void doBefore(){
+		vehicle = VehicleImpl.Builder.newInstance("v").setLocationId("depot").setLocationCoord(Coordinate.newInstance(0, 0)).build();
+		a = Service.Builder.newInstance("a", 1).setLocationId("a").build();
+		b = Service.Builder.newInstance("b", 1).setLocationId("b").build();
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("depot", "a", 1.0).addTransportDistance("depot", "b", 20.0).addTransportDistance("a", "b", 21.0);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		vrp1 = VehicleRoutingProblem.Builder.newInstance().setRoutingCost(matrix).addVehicle(vehicle).addService(a).build();
+		vrp2 = VehicleRoutingProblem.Builder.newInstance().setRoutingCost(matrix).addService(b).addService(a).addVehicle(vehicle).build();
+	}
+	
+	private double getCost(VehicleRoutingProblem vrp, Start start, Service service){
+		TransportLeg leg = new TransportLeg();
+		new ActivityTransportCosts(vrp.getIndexedTransportCosts()).getTransportLeg(start, ServiceActivity.newInstance(service), 0.0, null, null, leg);
+		return leg.getCost();
+	}
+	
+	@Test
+	public void whenProblemsShareVehiclesAndJobs_eachShouldQueryItsOwnIndices(){
+		Start start = Start.newInstance(vehicle.getLocationId(), 0.0, Double.MAX_VALUE);
+		assertEquals(1.0, getCost(vrp1, start, a), 0.01);
+		assertEquals(1.0, getCost(vrp2, start, a), 0.01);
+		assertEquals(20.0, getCost(vrp2, start, b), 0.01);
+		assertEquals(1.0, getCost(vrp1, start, a), 0.01);
+	}
+	
+	@Test
+	public void whenStartCachesIndexOfOtherProblem_itShouldBeReplaced(){
+		Start start = Start.newInstance(vehicle.getLocationId(), 0.0, Double.MAX_VALUE);
+		getCost(vrp2, start, b);
+		assertEquals(vrp2.getLocationIndex().getIndex("depot"), start.getLocationIndex());
+		assertEquals(1.0, getCost(vrp1, start, a), 0.01);
+		assertEquals(vrp1.getLocationIndex().getIndex("depot"), start.getLocationIndex());
+	}
+	
+	@Test
+	public void whenServiceIsNotPartOfProblem_itShouldQueryById(){
+		Start start = Start.newInstance(vehicle.getLocationId(), 0.0, Double.MAX_VALUE);
+		assertEquals(20.0, getCost(vrp1, start, b), 0.01);
+	}
+
+}
@@ -42,6 +42,17 @@ import algorithms.selectors.SelectRandomlyTest;
 	TestSchrimpf.class,
 	
     TestJobDistanceAvgCosts.class,
+    JobNeighborhoodsTest.class,
+    IslandVehicleRoutingAlgorithmTest.class,
+    BestInsertionConcurrentTest.class,
+    CheapestInsertionConcurrentTest.class,
+    RegretInsertionTest.class,
+    RouteStatesTest.class,
+    ActivityTransportCostsTest.class,
+    JobRouteIndexTest.class,
+    JobSamplerTest.class,
+    BatchVehicleRoutingSolverTest.class,
+    IncrementalReoptimizationTest.class,
     TestTourStateUpdaterWithService.class,
     
 	SelectBestTest.class,
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.Coordinate;
+import util.RandomNumberGeneration;
+import util.Solutions;
+import basics.Service;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.io.AlgorithmConfig;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+public class BatchVehicleRoutingSolverTest {
+	
+	private AlgorithmConfig algorithmConfig;
+	
+	private List<VehicleRoutingProblem> problems;
+	
+	@Before
+	public void doBefore(){
+		RandomNumberGeneration.reset();
+		algorithmConfig = new AlgorithmConfig();
+		XMLConfiguration config = algorithmConfig.getXMLConfiguration();
+		config.addProperty("iterations", "50");
+		config.addProperty("construction.insertion[@name]", "bestInsertion");
+		config.addProperty("strategy.memory", "1");
+		config.addProperty("strategy.searchStrategies.searchStrategy[@name]", "randomRuinAndRecreate");
+		config.addProperty("strategy.searchStrategies.searchStrategy.selector[@name]", "selectBest");
+		config.addProperty("strategy.searchStrategies.searchStrategy.acceptor[@name]", "acceptNewRemoveWorst");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module[@name]", "ruin_and_recreate");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.ruin[@name]", "randomRuin");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.ruin.share", "0.5");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.insertion[@name]", "bestInsertion");
+		config.addProperty("strategy.searchStrategies.searchStrategy.probability", "1.0");
+		
+		problems = new ArrayList<VehicleRoutingProblem>();
+		Random random = new Random(4711);
+		for(int p=0;p<4;p++){
+			VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+			vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setLocationId("depot").setLocationCoord(Coordinate.newInstance(50, 50))
+					.setType(VehicleTypeImpl.Builder.newInstance("t", 5).build()).build());
+			for(int i=0;i<15;i++){
+				vrpBuilder.addService(Service.Builder.newInstance(""+i, 1).setLocationId("loc"+i)
+						.setCoord(Coordinate.newInstance(random.nextInt(100), random.nextInt(100))).build());
+			}
+			problems.add(vrpBuilder.build());
+		}
+	}
+	
+	@After
+	public void doAfter(){
+		RandomNumberGeneration.reset();
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenConfigIsNotValid_validatingItShouldThrowException(){
+		algorithmConfig.getXMLConfiguration().setProperty("strategy.searchStrategies.searchStrategy.acceptor[@name]", "unknownAcceptor");
+		ValidatedAlgorithmConfig.newInstance(algorithmConfig);
+	}
+	
+	@Test
+	public void whenConfigIsChangedAfterValidating_validatedConfigShouldNotChange(){
+		ValidatedAlgorithmConfig validatedConfig = ValidatedAlgorithmConfig.newInstance(algorithmConfig);
+		algorithmConfig.getXMLConfiguration().setProperty("iterations", "7");
+		assertEquals(50, validatedConfig.createAlgorithm(problems.get(0)).getNuOfIterations());
+	}
+	
+	@Test
+	public void whenSolvingProblems_eachProblemShouldBeSolved() throws Exception{
+		BatchVehicleRoutingSolver solver = new BatchVehicleRoutingSolver(ValidatedAlgorithmConfig.newInstance(algorithmConfig), 2, 1);
+		List<Future<Collection<VehicleRoutingProblemSolution>>> futures = submitAll(solver);
+		solver.shutdown();
+		for(Future<Collection<VehicleRoutingProblemSolution>> f : futures){
+			VehicleRoutingProblemSolution best = Solutions.getBest(f.get());
+			assertTrue(best.getCost() > 0.0);
+		}
+		assertTrue(solver.awaitTermination(10, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void solutionsShouldNotDependOnNuOfThreads() throws Exception{
+		ValidatedAlgorithmConfig validatedConfig = ValidatedAlgorithmConfig.newInstance(algorithmConfig);
+		RandomNumberGeneration.setSeed(42);
+		BatchVehicleRoutingSolver singleThreaded = new BatchVehicleRoutingSolver(validatedConfig, 1, problems.size());
+		List<Future<Collection<VehicleRoutingProblemSolution>>> singleThreadedFutures = submitAll(singleThreaded);
+		singleThreaded.shutdown();
+		RandomNumberGeneration.setSeed(42);
+		BatchVehicleRoutingSolver multiThreaded = new BatchVehicleRoutingSolver(validatedConfig, 3, 0);
+		List<Future<Collection<VehicleRoutingProblemSolution>>> multiThreadedFutures = submitAll(multiThreaded);
+		multiThreaded.shutdown();
+		for(int i=0;i<problems.size();i++){
+			assertEquals(Solutions.getBest(singleThreadedFutures.get(i).get()).getCost(), Solutions.getBest(multiThreadedFutures.get(i).get()).getCost(), 0.0);
+		}
+	}
+	
+	@Test
+	public void whenTimeBudgetIsExceeded_algorithmShouldStop() throws Exception{
+		algorithmConfig.getXMLConfiguration().setProperty("iterations", ""+Integer.MAX_VALUE);
+		BatchVehicleRoutingSolver solver = new BatchVehicleRoutingSolver(ValidatedAlgorithmConfig.newInstance(algorithmConfig), 1, 0);
+		Future<Collection<VehicleRoutingProblemSolution>> future = solver.submit(problems.get(0), 0.2);
+		solver.shutdown();
+		assertFalse(future.get(30, TimeUnit.SECONDS).isEmpty());
+	}
+
+	private List<Future<Collection<VehicleRoutingProblemSolution>>> submitAll(BatchVehicleRoutingSolver solver) throws InterruptedException {
+		List<Future<Collection<VehicleRoutingProblemSolution>>> futures = new ArrayList<Future<Collection<VehicleRoutingProblemSolution>>>();
+		for(VehicleRoutingProblem vrp : problems){
+			futures.add(solver.submit(vrp));
+		}
+		return futures;
+	}
+	
+}
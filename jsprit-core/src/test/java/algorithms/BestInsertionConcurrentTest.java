@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static algorithms.InsertionTestFixture.exceededDeadline;
+import static algorithms.InsertionTestFixture.getCosts;
+import static algorithms.InsertionTestFixture.getNuOfJobs;
+import static algorithms.InsertionTestFixture.getSequences;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import basics.Job;
+import basics.route.VehicleRoute;
+
+public class BestInsertionConcurrentTest {
+	
+	private static final int NU_OF_SERVICES = 150;
+
+	private InsertionTestFixture fixture;
+	
+	private ExecutorService executor;
+	
+	@Before
+	public void setUp(){
+		fixture = InsertionTestFixture.newInstance(NU_OF_SERVICES);
+		executor = Executors.newFixedThreadPool(4);
+	}
+	
+	@After
+	public void tearDown(){
+		executor.shutdown();
+	}
+	
+	private List<VehicleRoute> insertSequentially(long seed){
+		BestInsertion insertion = new BestInsertion(fixture.createRouteAlgorithm());
+		insertion.setRandom(new Random(seed));
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		insertion.run(routes, new ArrayList<Job>(fixture.jobs), Double.MAX_VALUE);
+		return routes;
+	}
+	
+	private List<VehicleRoute> insertConcurrently(long seed, int nuOfBatches){
+		BestInsertionConcurrent insertion = BestInsertionConcurrent.newInstance(fixture.createRouteAlgorithm(), executor, nuOfBatches);
+		insertion.setRandom(new Random(seed));
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		insertion.run(routes, new ArrayList<Job>(fixture.jobs), Double.MAX_VALUE);
+		return routes;
+	}
+	
+	@Test
+	public void whenRunConcurrently_itShouldInsertJobsLikeSequentialBestInsertion(){
+		long seed = 42;
+		List<VehicleRoute> sequentialRoutes = insertSequentially(seed);
+		List<VehicleRoute> concurrentRoutes = insertConcurrently(seed, 4);
+		assertEquals(getSequences(sequentialRoutes), getSequences(concurrentRoutes));
+		assertEquals(getCosts(sequentialRoutes), getCosts(concurrentRoutes), 0.01);
+	}
+	
+	@Test
+	public void whenRunConcurrentlyWithDifferentSeedsAndBatches_itShouldAlwaysInsertJobsLikeSequentialBestInsertion(){
+		int[] nuOfBatches = { 2, 3, 4, 8 };
+		for(int run=0;run<12;run++){
+			long seed = 100 + run;
+			List<VehicleRoute> sequentialRoutes = insertSequentially(seed);
+			List<VehicleRoute> concurrentRoutes = insertConcurrently(seed, nuOfBatches[run % nuOfBatches.length]);
+			assertEquals(getSequences(sequentialRoutes), getSequences(concurrentRoutes));
+			assertEquals(getCosts(sequentialRoutes), getCosts(concurrentRoutes), 0.01);
+		}
+	}
+	
+	@Test
+	public void whenDeadlineIsExceeded_itShouldStillInsertAllJobs(){
+		BestInsertionConcurrent insertion = BestInsertionConcurrent.newInstance(fixture.createRouteAlgorithm(), executor, 4);
+		insertion.setDeadline(exceededDeadline());
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		insertion.run(routes, new ArrayList<Job>(fixture.jobs), Double.MAX_VALUE);
+		assertEquals(NU_OF_SERVICES, getNuOfJobs(routes));
+	}
+	
+	@Test
+	public void whenRunConcurrentlyTwice_itShouldProduceIdenticalRoutes(){
+		List<VehicleRoute> firstRun = insertConcurrently(7, 4);
+		List<VehicleRoute> secondRun = insertConcurrently(7, 4);
+		assertEquals(getSequences(firstRun), getSequences(secondRun));
+		assertEquals(getCosts(firstRun), getCosts(secondRun), 0.01);
+	}
+
+}
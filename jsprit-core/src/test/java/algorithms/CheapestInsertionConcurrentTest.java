@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static algorithms.InsertionTestFixture.exceededDeadline;
+import static algorithms.InsertionTestFixture.getNuOfJobs;
+import static algorithms.InsertionTestFixture.getSequences;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import basics.Job;
+import basics.route.VehicleRoute;
+import algorithms.InsertionData.NoInsertionFound;
+
+public class CheapestInsertionConcurrentTest {
+	
+	private static final int NU_OF_SERVICES = 100;
+
+	private InsertionTestFixture fixture;
+	
+	private ExecutorService executor;
+	
+	@Before
+	public void setUp(){
+		fixture = InsertionTestFixture.newInstance(NU_OF_SERVICES);
+		executor = Executors.newFixedThreadPool(4);
+	}
+	
+	@After
+	public void tearDown(){
+		executor.shutdown();
+	}
+	
+	private List<VehicleRoute> insertConcurrently(long seed, int nuOfThreads){
+		CheapestInsertionConcurrent insertion = CheapestInsertionConcurrent.newInstance(fixture.createRouteAlgorithm(), executor, nuOfThreads);
+		insertion.setRandom(new Random(seed));
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		insertion.run(routes, new ArrayList<Job>(fixture.jobs), Double.MAX_VALUE);
+		return routes;
+	}
+	
+	/**
+	 * Recalculates all insertion costs in each step.
+	 */
+	private List<VehicleRoute> insertWithoutMemorizingCosts(long seed){
+		RouteAlgorithm routeAlgorithm = fixture.createRouteAlgorithm();
+		List<Job> unassignedJobs = new ArrayList<Job>(fixture.jobs);
+		Collections.shuffle(unassignedJobs, new Random(seed));
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		while(!unassignedJobs.isEmpty()){
+			Job bestJob = null;
+			VehicleRoute bestRoute = null;
+			InsertionData bestInsertion = null;
+			VehicleRoute newRoute = VehicleRoute.emptyRoute();
+			List<VehicleRoute> candidateRoutes = new ArrayList<VehicleRoute>(routes);
+			candidateRoutes.add(newRoute);
+			for(Job job : unassignedJobs){
+				for(VehicleRoute route : candidateRoutes){
+					InsertionData iData = routeAlgorithm.calculateBestInsertion(route, job, Double.MAX_VALUE);
+					if(iData instanceof NoInsertionFound) continue;
+					if(bestInsertion == null || iData.getInsertionCost() < bestInsertion.getInsertionCost()){
+						bestJob = job;
+						bestRoute = route;
+						bestInsertion = iData;
+					}
+				}
+			}
+			if(bestRoute == newRoute) routes.add(newRoute);
+			routeAlgorithm.insertJob(bestJob, bestInsertion, bestRoute);
+			unassignedJobs.remove(bestJob);
+		}
+		return routes;
+	}
+	
+	@Test
+	public void whenRunConcurrently_itShouldInsertAllJobs(){
+		List<VehicleRoute> routes = insertConcurrently(42, 4);
+		assertEquals(NU_OF_SERVICES, getNuOfJobs(routes));
+		for(VehicleRoute route : routes){
+			assertTrue(!route.isEmpty());
+		}
+	}
+	
+	@Test
+	public void whenRunConcurrently_itShouldInsertJobsLikeCheapestInsertionWithoutMemorizedCosts(){
+		assertEquals(getSequences(insertWithoutMemorizingCosts(42)), getSequences(insertConcurrently(42, 4)));
+	}
+	
+	@Test
+	public void whenDeadlineIsExceeded_itShouldStillInsertAllJobs(){
+		CheapestInsertionConcurrent insertion = CheapestInsertionConcurrent.newInstance(fixture.createRouteAlgorithm(), executor, 4);
+		insertion.setDeadline(exceededDeadline());
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		insertion.run(routes, new ArrayList<Job>(fixture.jobs), Double.MAX_VALUE);
+		assertEquals(NU_OF_SERVICES, getNuOfJobs(routes));
+	}
+	
+	@Test
+	public void whenRunWithDifferentNuOfThreads_itShouldProduceIdenticalRoutes(){
+		List<String> sequences = getSequences(insertConcurrently(7, 1));
+		assertEquals(sequences, getSequences(insertConcurrently(7, 3)));
+		assertEquals(sequences, getSequences(insertConcurrently(7, 8)));
+	}
+
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.Coordinate;
+import util.RandomNumberGeneration;
+import util.Solutions;
+import basics.Job;
+import basics.Service;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.io.AlgorithmConfig;
+import basics.route.TourActivity;
+import basics.route.TourActivity.JobActivity;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleRoute;
+import basics.route.VehicleTypeImpl;
+
+public class IncrementalReoptimizationTest {
+	
+	private AlgorithmConfig algorithmConfig;
+	
+	private VehicleRoutingProblem vrp;
+	
+	private VehicleRoutingProblemSolution solution;
+	
+	@Before
+	public void doBefore(){
+		RandomNumberGeneration.reset();
+		algorithmConfig = new AlgorithmConfig();
+		XMLConfiguration config = algorithmConfig.getXMLConfiguration();
+		config.addProperty("iterations", "50");
+		config.addProperty("construction.insertion[@name]", "bestInsertion");
+		config.addProperty("strategy.memory", "1");
+		config.addProperty("strategy.searchStrategies.searchStrategy[@name]", "randomRuinAndRecreate");
+		config.addProperty("strategy.searchStrategies.searchStrategy.selector[@name]", "selectBest");
+		config.addProperty("strategy.searchStrategies.searchStrategy.acceptor[@name]", "acceptNewRemoveWorst");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module[@name]", "ruin_and_recreate");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.ruin[@name]", "randomRuin");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.ruin.share", "0.5");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.insertion[@name]", "bestInsertion");
+		config.addProperty("strategy.searchStrategies.searchStrategy.probability", "1.0");
+		
+		Random random = new Random(4711);
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setLocationId("depot").setLocationCoord(Coordinate.newInstance(50, 50))
+				.setType(VehicleTypeImpl.Builder.newInstance("t", 5).build()).build());
+		for(int i=0;i<20;i++){
+			vrpBuilder.addService(service(""+i, random));
+		}
+		vrp = vrpBuilder.build();
+		solution = Solutions.getBest(VehicleRoutingAlgorithms.createAlgorithm(vrp, algorithmConfig).searchSolutions());
+	}
+	
+	@After
+	public void doAfter(){
+		RandomNumberGeneration.reset();
+	}
+	
+	private Service service(String id, Random random){
+		return Service.Builder.newInstance(id, 1).setLocationId("loc"+id).setCoord(Coordinate.newInstance(random.nextInt(100), random.nextInt(100))).build();
+	}
+	
+	private Map<String,List<String>> getJobIdsOfVehicles(VehicleRoutingProblemSolution solution){
+		Map<String,List<String>> jobIds = new HashMap<String, List<String>>();
+		for(VehicleRoute route : solution.getRoutes()){
+			List<String> ids = new ArrayList<String>();
+			for(TourActivity act : route.getTourActivities().getActivities()){
+				ids.add(((JobActivity<?>) act).getJob().getId());
+			}
+			jobIds.put(route.getVehicle().getId()+jobIds.size(), ids);
+		}
+		return jobIds;
+	}
+	
+	private List<String> getServedJobIds(VehicleRoutingProblemSolution solution){
+		List<String> ids = new ArrayList<String>();
+		for(List<String> jobIds : getJobIdsOfVehicles(solution).values()) ids.addAll(jobIds);
+		return ids;
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenCancellingUnknownJob_itShouldThrowException(){
+		IncrementalReoptimization.Builder.newInstance(vrp, solution).cancelJob("unknown");
+	}
+	
+	@Test
+	public void whenJobsAreAddedAndCancelled_problemShouldContainChangedJobs(){
+		Service newService = service("new", new Random(1));
+		IncrementalReoptimization reoptimization = IncrementalReoptimization.Builder.newInstance(vrp, solution).addJob(newService).cancelJob("3").build();
+		VehicleRoutingProblem changedVrp = reoptimization.getProblem();
+		assertEquals(20, changedVrp.getJobs().size());
+		assertTrue(changedVrp.getJobs().containsKey("new"));
+		assertFalse(changedVrp.getJobs().containsKey("3"));
+		assertEquals(new ArrayList<Vehicle>(vrp.getVehicles()), new ArrayList<Vehicle>(changedVrp.getVehicles()));
+	}
+	
+	@Test
+	public void targetJobsShouldBeAddedJobsAndRouteNeighborsOfCancelledJobs(){
+		Service newService = service("new", new Random(1));
+		String cancelledJobId = getServedJobIds(solution).get(1);
+		IncrementalReoptimization reoptimization = IncrementalReoptimization.Builder.newInstance(vrp, solution).addJob(newService).cancelJob(cancelledJobId).build();
+		List<String> targetIds = new ArrayList<String>();
+		for(Job job : reoptimization.getTargetJobs()) targetIds.add(job.getId());
+		assertTrue(targetIds.contains("new"));
+		assertFalse(targetIds.contains(cancelledJobId));
+		assertEquals(3, targetIds.size());
+	}
+	
+	@Test
+	public void whenNothingChanges_previousSolutionShouldBeReturned(){
+		IncrementalReoptimization reoptimization = IncrementalReoptimization.Builder.newInstance(vrp, solution).build();
+		assertTrue(reoptimization.getTargetJobs().isEmpty());
+		VehicleRoutingProblemSolution reoptimized = Solutions.getBest(reoptimization.createAlgorithm(algorithmConfig).searchSolutions());
+		assertEquals(solution.getCost(), reoptimized.getCost(), 0.01);
+	}
+	
+	@Test
+	public void withoutIterations_unchangedJobsShouldKeepTheirRoutesAndOrder(){
+		String cancelledJobId = getServedJobIds(solution).get(1);
+		IncrementalReoptimization reoptimization = IncrementalReoptimization.Builder.newInstance(vrp, solution)
+				.addJob(service("new", new Random(1))).cancelJob(cancelledJobId).setNuOfIterations(0).build();
+		VehicleRoutingProblemSolution reoptimized = Solutions.getBest(reoptimization.createAlgorithm(algorithmConfig).searchSolutions());
+		Collection<List<String>> previousRoutes = getJobIdsOfVehicles(solution).values();
+		Collection<List<String>> reoptimizedRoutes = getJobIdsOfVehicles(reoptimized).values();
+		for(List<String> reoptimizedRoute : reoptimizedRoutes){
+			reoptimizedRoute.remove("new");
+		}
+		for(List<String> previousRoute : previousRoutes){
+			previousRoute.remove(cancelledJobId);
+			if(!previousRoute.isEmpty()) assertTrue(reoptimizedRoutes.contains(previousRoute));
+		}
+	}
+	
+	@Test
+	public void reoptimizedSolutionShouldServeAllJobsOfChangedProblem(){
+		String cancelledJobId = getServedJobIds(solution).get(5);
+		IncrementalReoptimization reoptimization = IncrementalReoptimization.Builder.newInstance(vrp, solution)
+				.addJob(service("new1", new Random(1))).addJob(service("new2", new Random(2))).cancelJob(cancelledJobId).setNuOfIterations(20).build();
+		VehicleRoutingProblemSolution reoptimized = Solutions.getBest(reoptimization.createAlgorithm(algorithmConfig).searchSolutions());
+		List<String> servedJobIds = getServedJobIds(reoptimized);
+		assertEquals(21, servedJobIds.size());
+		assertTrue(servedJobIds.containsAll(reoptimization.getProblem().getJobs().keySet()));
+		assertFalse(servedJobIds.contains(cancelledJobId));
+	}
+
+}
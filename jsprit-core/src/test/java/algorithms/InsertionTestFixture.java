@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import util.Coordinate;
+import util.EuclideanDistanceCalculator;
+import basics.Job;
+import basics.Service;
+import basics.algo.Deadline;
+import basics.costs.VehicleRoutingTransportCosts;
+import basics.route.Driver;
+import basics.route.TimeWindow;
+import basics.route.TourActivity;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleRoute;
+import basics.route.VehicleTypeImpl;
+
+/**
+ * Problem that insertion strategies are tested with: random services with time-windows, whose location ids are their coordinates ("x,y"), 
+ * and a fleet of 20 light and 20 heavy vehicles at "50,50".
+ * 
+ * @author stefan schroeder
+ *
+ */
+final class InsertionTestFixture {
+	
+	static InsertionTestFixture newInstance(int nuOfServices){
+		return new InsertionTestFixture(nuOfServices);
+	}
+	
+	final VehicleRoutingTransportCosts cost;
+	
+	final List<Vehicle> vehicles;
+	
+	final List<Job> jobs;
+	
+	private InsertionTestFixture(int nuOfServices){
+		cost = new VehicleRoutingTransportCosts() {
+			
+			@Override
+			public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+				return getTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+			}
+			
+			@Override
+			public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+				return getTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+			}
+			
+			@Override
+			public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				double costPerDistanceUnit = 1.0;
+				if(vehicle != null){
+					costPerDistanceUnit = vehicle.getType().getVehicleCostParams().perDistanceUnit;
+				}
+				return costPerDistanceUnit*getDistance(fromId, toId);
+			}
+			
+			@Override
+			public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				return getDistance(fromId, toId);
+			}
+			
+			private double getDistance(String fromId, String toId){
+				return EuclideanDistanceCalculator.calculateDistance(getCoord(fromId), getCoord(toId));
+			}
+			
+			private Coordinate getCoord(String locationId){
+				String[] tokens = locationId.split(",");
+				return new Coordinate(Double.parseDouble(tokens[0]), Double.parseDouble(tokens[1]));
+			}
+		};
+		
+		VehicleTypeImpl lightType = VehicleTypeImpl.Builder.newInstance("light", 20).setFixedCost(10).setCostPerDistance(1.0).build();
+		VehicleTypeImpl heavyType = VehicleTypeImpl.Builder.newInstance("heavy", 40).setFixedCost(30).setCostPerDistance(1.5).build();
+		vehicles = new ArrayList<Vehicle>();
+		for(int i=0;i<20;i++){
+			vehicles.add(VehicleImpl.Builder.newInstance("light_" + i).setLocationId("50,50").setType(lightType).setLatestArrival(1000.0).build());
+			vehicles.add(VehicleImpl.Builder.newInstance("heavy_" + i).setLocationId("50,50").setType(heavyType).setLatestArrival(1000.0).build());
+		}
+		
+		Random random = new Random(4711);
+		jobs = new ArrayList<Job>();
+		for(int i=0;i<nuOfServices;i++){
+			String locationId = (random.nextDouble()*100) + "," + (random.nextDouble()*100);
+			double start = random.nextDouble()*400;
+			jobs.add(Service.Builder.newInstance("s_" + i, 1 + random.nextInt(4)).setLocationId(locationId).setServiceTime(5.0)
+					.setTimeWindow(TimeWindow.newInstance(start, start + 200.0)).build());
+		}
+	}
+	
+	/**
+	 * Creates a route algorithm with its own route-states and fleet-manager, thus each insertion run starts from scratch.
+	 */
+	RouteAlgorithm createRouteAlgorithm(){
+		RouteStates states = new RouteStates();
+		states.initialiseStateOfJobs(jobs);
+		final VehicleFleetManagerImpl fleetManager = new VehicleFleetManagerImpl(vehicles);
+		ExampleActivityCostFunction activityCosts = new ExampleActivityCostFunction();
+		
+		CalculatesServiceInsertion serviceInsertion = new CalculatesServiceInsertion(cost, activityCosts);
+		serviceInsertion.setActivityStates(states);
+		CalculatesServiceInsertionConsideringFixCost withFixCost = new CalculatesServiceInsertionConsideringFixCost(serviceInsertion, states);
+		JobInsertionCalculator vehicleTypeDepInsertion = new CalculatesVehTypeDepServiceInsertion(fleetManager, withFixCost);
+		
+		RouteAlgorithmImpl routeAlgorithm = RouteAlgorithmImpl.newInstance(vehicleTypeDepInsertion, new TourStateUpdater(states, cost, activityCosts));
+		routeAlgorithm.setActivityStates(states);
+		routeAlgorithm.getListeners().add(new RouteAlgorithm.VehicleSwitchedListener() {
+
+			@Override
+			public void vehicleSwitched(Vehicle oldVehicle, Vehicle newVehicle) {
+				fleetManager.unlock(oldVehicle);
+				fleetManager.lock(newVehicle);
+			}
+		});
+		return routeAlgorithm;
+	}
+	
+	/**
+	 * Returns the vehicle id and the job ids of each non-empty route, such that routes can be compared.
+	 */
+	static List<String> getSequences(Collection<VehicleRoute> routes){
+		List<String> sequences = new ArrayList<String>();
+		for(VehicleRoute route : routes){
+			if(route.isEmpty()) continue;
+			StringBuilder sequence = new StringBuilder(route.getVehicle().getId());
+			for(TourActivity act : route.getTourActivities().getActivities()){
+				sequence.append(" ").append(((TourActivity.JobActivity<?>)act).getJob().getId());
+			}
+			sequences.add(sequence.toString());
+		}
+		return sequences;
+	}
+	
+	static int getNuOfJobs(Collection<VehicleRoute> routes){
+		int nuOfJobs = 0;
+		for(VehicleRoute route : routes){
+			nuOfJobs += route.getTourActivities().getJobs().size();
+		}
+		return nuOfJobs;
+	}
+	
+	static double getCosts(Collection<VehicleRoute> routes){
+		double costs = 0.0;
+		for(VehicleRoute route : routes){
+			costs += route.getCost();
+		}
+		return costs;
+	}
+	
+	static Deadline exceededDeadline(){
+		Deadline deadline = new Deadline();
+		deadline.restrict(System.nanoTime() - 1);
+		return deadline;
+	}
+
+}
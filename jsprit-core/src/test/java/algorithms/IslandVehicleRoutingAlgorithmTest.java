@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import util.Solutions;
+import algorithms.IslandVehicleRoutingAlgorithm.Migration;
+import algorithms.IslandVehicleRoutingAlgorithm.MigrationPool;
+import algorithms.acceptors.AcceptNewIfBetterThanWorst;
+import algorithms.selectors.SelectBest;
+import basics.Service;
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.AlgorithmEndsListener;
+import basics.algo.IterationWithoutImprovementBreaker;
+import basics.algo.PrematureAlgorithmBreaker;
+import basics.algo.SearchStrategy;
+import basics.algo.SearchStrategy.DiscoveredSolution;
+import basics.algo.SearchStrategyManager;
+import basics.algo.SearchStrategyModule;
+import basics.algo.SearchStrategyModuleListener;
+import basics.route.DriverImpl;
+import basics.route.ServiceActivity;
+import basics.route.TourActivities;
+import basics.route.TourActivity;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleRoute;
+import basics.route.VehicleTypeImpl;
+
+public class IslandVehicleRoutingAlgorithmTest {
+	
+	private VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().build();
+	
+	private VehicleRoutingProblemSolution solution(double cost){
+		return new VehicleRoutingProblemSolution(Collections.<VehicleRoute>emptyList(), cost);
+	}
+	
+	private VehicleRoutingAlgorithm island(final double improvementPerIteration, int iterations){
+		return island(improvementPerIteration, iterations, null);
+	}
+	
+	/**
+	 * island whose module improves the selected solution by improvementPerIteration. If barrier is not null, islands run in lock-step.
+	 */
+	private VehicleRoutingAlgorithm island(final double improvementPerIteration, int iterations, final CyclicBarrier barrier){
+		SearchStrategy strategy = new SearchStrategy(SelectBest.getInstance(), new AcceptNewIfBetterThanWorst(2));
+		strategy.addModule(new SearchStrategyModule() {
+			
+			@Override
+			public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution vrpSolution) {
+				if(barrier != null){
+					try {
+						barrier.await();
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				}
+				vrpSolution.setCost(vrpSolution.getCost() - improvementPerIteration);
+				return vrpSolution;
+			}
+			
+			@Override
+			public String getName() {
+				return "improve";
+			}
+			
+			@Override
+			public void addModuleListener(SearchStrategyModuleListener moduleListener) {
+			}
+		});
+		SearchStrategyManager manager = new SearchStrategyManager();
+		manager.addStrategy(strategy, 1.0);
+		VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(vrp, manager);
+		algorithm.setNuOfIterations(iterations);
+		return algorithm;
+	}
+	
+	@Test
+	public void whenPoolIsEmpty_itShouldMemorizeSolutionAndReturnNoImmigrant(){
+		MigrationPool pool = new MigrationPool();
+		assertEquals(null, pool.exchange(solution(100.)));
+		assertEquals(null, pool.exchange(solution(90.)));
+		VehicleRoutingProblemSolution immigrant = pool.exchange(solution(120.));
+		assertEquals(90., immigrant.getCost(), 0.01);
+	}
+	
+	@Test
+	public void whenExchangingSolutions_poolShouldNotShareActivitiesWithIslands(){
+		TourActivities tour = TourActivities.emptyTour();
+		ServiceActivity act = ServiceActivity.newInstance(Service.Builder.newInstance("s", 1).setLocationId("loc1").build());
+		tour.addActivity(act);
+		Vehicle vehicle = VehicleImpl.Builder.newInstance("v").setLocationId("loc").setType(VehicleTypeImpl.Builder.newInstance("t", 1).build()).build();
+		MigrationPool pool = new MigrationPool();
+		pool.exchange(new VehicleRoutingProblemSolution(Arrays.asList(VehicleRoute.newInstance(tour, DriverImpl.noDriver(), vehicle)), 50.));
+		VehicleRoutingProblemSolution immigrant = pool.exchange(solution(100.));
+		TourActivity immigrantAct = immigrant.getRoutes().iterator().next().getTourActivities().getActivities().get(0);
+		assertNotSame(act, immigrantAct);
+		assertEquals(act.getJob(), ((ServiceActivity)immigrantAct).getJob());
+	}
+	
+	@Test
+	public void whenPoolContainsBetterSolution_migrationShouldReplaceWorstSolution(){
+		MigrationPool pool = new MigrationPool();
+		pool.exchange(solution(50.));
+		Migration migration = new Migration(pool, 5);
+		VehicleRoutingProblemSolution worst = solution(200.);
+		Collection<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+		solutions.add(solution(100.));
+		solutions.add(worst);
+		migration.informIterationEnds(4, vrp, solutions);
+		assertTrue(solutions.contains(worst));
+		migration.informIterationEnds(5, vrp, solutions);
+		assertEquals(2, solutions.size());
+		assertTrue(!solutions.contains(worst));
+		assertEquals(50., Solutions.getBest(solutions).getCost(), 0.01);
+	}
+	
+	@Test
+	public void whenRunningIslands_itShouldReturnSolutionsOfAllIslandsIncludingGlobalBest(){
+		List<VehicleRoutingAlgorithm> islands = new ArrayList<VehicleRoutingAlgorithm>();
+		islands.add(island(1., 10));
+		islands.add(island(10., 10));
+		IslandVehicleRoutingAlgorithm algorithm = new IslandVehicleRoutingAlgorithm(vrp, islands, 0);
+		algorithm.addInitialSolution(solution(1000.));
+		Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+		assertEquals(4, solutions.size());
+		assertEquals(900., Solutions.getBest(solutions).getCost(), 0.01);
+	}
+	
+	@Test
+	public void whenDeadlineOfIslandAlgorithmIsExceeded_islandsShouldNotIterate(){
+		List<VehicleRoutingAlgorithm> islands = new ArrayList<VehicleRoutingAlgorithm>();
+		islands.add(island(1., 10));
+		islands.add(island(10., 10));
+		IslandVehicleRoutingAlgorithm algorithm = new IslandVehicleRoutingAlgorithm(vrp, islands, 0);
+		algorithm.addInitialSolution(solution(1000.));
+		algorithm.getDeadline().restrict(System.nanoTime() - 1);
+		Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+		assertEquals(1000., Solutions.getBest(solutions).getCost(), 0.01);
+		for(VehicleRoutingAlgorithm island : islands){
+			assertTrue(island.getDeadline().isExceeded());
+		}
+	}
+	
+	@Test
+	public void whenSettingPrematureBreak_eachIslandShouldGetItsOwnBreaker(){
+		List<VehicleRoutingAlgorithm> islands = new ArrayList<VehicleRoutingAlgorithm>();
+		islands.add(island(1., 10));
+		islands.add(island(10., 10));
+		IslandVehicleRoutingAlgorithm algorithm = new IslandVehicleRoutingAlgorithm(vrp, islands, 0);
+		algorithm.setPrematureBreak(5);
+		assertTrue(islands.get(0).getPrematureAlgorithmBreaker() instanceof IterationWithoutImprovementBreaker);
+		assertNotSame(islands.get(0).getPrematureAlgorithmBreaker(), islands.get(1).getPrematureAlgorithmBreaker());
+	}
+	
+	@Test
+	public void whenSettingOneBreakerForAllIslands_itShouldBreakAllIslandsAndCountTheirIterationsTogether(){
+		List<VehicleRoutingAlgorithm> islands = new ArrayList<VehicleRoutingAlgorithm>();
+		islands.add(island(1., 100));
+		islands.add(island(10., 100));
+		final AtomicInteger nuOfIterations = new AtomicInteger(0);
+		IslandVehicleRoutingAlgorithm algorithm = new IslandVehicleRoutingAlgorithm(vrp, islands, 0);
+		algorithm.setPrematureAlgorithmBreaker(new PrematureAlgorithmBreaker() {
+			
+			@Override
+			public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+				return nuOfIterations.incrementAndGet() >= 10;
+			}
+		});
+		algorithm.addInitialSolution(solution(10000.));
+		Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+		assertTrue(nuOfIterations.get() < 20);
+		//the faster island might run all iterations before the other one starts
+		assertTrue(Solutions.getBest(solutions).getCost() >= 10000. - 10*10.);
+		assertTrue(!(islands.get(0).getPrematureAlgorithmBreaker() instanceof IslandVehicleRoutingAlgorithm.IslandBreaker));
+	}
+	
+	@Test
+	public void whenIslandsMigrate_slowIslandShouldBenefitFromFastIsland(){
+		List<VehicleRoutingAlgorithm> islands = new ArrayList<VehicleRoutingAlgorithm>();
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		VehicleRoutingAlgorithm slowIsland = island(1., 100, barrier);
+		final List<VehicleRoutingProblemSolution> solutionsOfSlowIsland = new ArrayList<VehicleRoutingProblemSolution>();
+		slowIsland.getAlgorithmListeners().addListener(new AlgorithmEndsListener() {
+			
+			@Override
+			public void informAlgorithmEnds(VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+				solutionsOfSlowIsland.addAll(solutions);
+			}
+		});
+		islands.add(slowIsland);
+		islands.add(island(10., 100, barrier));
+		IslandVehicleRoutingAlgorithm algorithm = new IslandVehicleRoutingAlgorithm(vrp, islands, 10);
+		algorithm.addInitialSolution(solution(10000.));
+		algorithm.searchSolutions();
+		assertTrue(Solutions.getBest(solutionsOfSlowIsland).getCost() < 9900.);
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import util.Coordinate;
+import basics.Job;
+import basics.Service;
+
+public class JobNeighborhoodsTest {
+	
+	private List<Job> jobs;
+	
+	private JobDistance jobDistance = new EuclideanServiceDistance();
+	
+	@Before
+	public void doBefore(){
+		jobs = new ArrayList<Job>();
+		Random random = new Random(4711);
+		for(int i=0;i<200;i++){
+			jobs.add(Service.Builder.newInstance("s"+i, 1).setLocationId("loc"+i).setCoord(Coordinate.newInstance(random.nextDouble()*50, random.nextDouble()*50)).build());
+		}
+	}
+	
+	@Test
+	public void whenRequestingNeighbors_itShouldReturnThemInAscendingOrderOfTheirDistance(){
+		JobNeighborhoods neighborhoods = JobNeighborhoods.newInstance(jobs, jobDistance, 20);
+		for(Job job : jobs){
+			Iterator<Job> iterator = neighborhoods.getNearestNeighborsIterator(20, job);
+			double lastDistance = 0.;
+			int count = 0;
+			while(iterator.hasNext()){
+				double distance = jobDistance.calculateDistance(job, iterator.next());
+				assertTrue(distance >= lastDistance);
+				lastDistance = distance;
+				count++;
+			}
+			assertEquals(20, count);
+		}
+	}
+	
+	@Test
+	public void whenRequestingNeighbors_noOtherJobShouldBeNearerThanTheLastNeighbor(){
+		JobNeighborhoods neighborhoods = JobNeighborhoods.newInstance(jobs, jobDistance, 10);
+		Job job = jobs.get(17);
+		Iterator<Job> iterator = neighborhoods.getNearestNeighborsIterator(10, job);
+		List<Job> neighbors = new ArrayList<Job>();
+		while(iterator.hasNext()) neighbors.add(iterator.next());
+		double maxDistance = jobDistance.calculateDistance(job, neighbors.get(neighbors.size()-1));
+		for(Job other : jobs){
+			if(neighbors.contains(other)) continue;
+			assertTrue(jobDistance.calculateDistance(job, other) >= maxDistance);
+		}
+	}
+	
+	@Test
+	public void whenBuiltInParallel_itShouldEqualTheSequentiallyBuiltIndex(){
+		JobNeighborhoods sequential = JobNeighborhoods.newInstance(jobs, jobDistance, 15, 1);
+		JobNeighborhoods parallel = JobNeighborhoods.newInstance(jobs, jobDistance, 15, 4);
+		for(Job job : jobs){
+			Iterator<Job> seqIterator = sequential.getNearestNeighborsIterator(15, job);
+			Iterator<Job> parIterator = parallel.getNearestNeighborsIterator(15, job);
+			while(seqIterator.hasNext()){
+				assertEquals(seqIterator.next(), parIterator.next());
+			}
+			assertFalse(parIterator.hasNext());
+		}
+	}
+	
+	@Test
+	public void whenRequestingMoreThanKNeighbors_itShouldCalculateThemOnTheFly(){
+		JobNeighborhoods small = JobNeighborhoods.newInstance(jobs, jobDistance, 5);
+		JobNeighborhoods large = JobNeighborhoods.newInstance(jobs, jobDistance, 50);
+		Job job = jobs.get(3);
+		Iterator<Job> smallIterator = small.getNearestNeighborsIterator(50, job);
+		Iterator<Job> largeIterator = large.getNearestNeighborsIterator(50, job);
+		int count = 0;
+		while(largeIterator.hasNext()){
+			assertEquals(largeIterator.next(), smallIterator.next());
+			count++;
+		}
+		assertEquals(50, count);
+		assertFalse(smallIterator.hasNext());
+	}
+	
+	@Test
+	public void whenRequestingNeighbors_firstNeighborShouldBeTheJobItself(){
+		JobNeighborhoods neighborhoods = JobNeighborhoods.newInstance(jobs, jobDistance, 3);
+		assertEquals(jobs.get(42), neighborhoods.getNearestNeighborsIterator(3, jobs.get(42)).next());
+		assertTrue(neighborhoods.isNeighbor(jobs.get(42), jobs.get(42)));
+	}
+
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import basics.Service;
+import basics.route.DriverImpl;
+import basics.route.ServiceActivity;
+import basics.route.TourActivities;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleRoute;
+import basics.route.VehicleTypeImpl;
+
+public class JobRouteIndexTest {
+	
+	private Service service1;
+	
+	private Service service2;
+	
+	private Service service3;
+	
+	private VehicleRoute route1;
+	
+	private VehicleRoute route2;
+	
+	private List<VehicleRoute> routes;
+	
+	private JobRouteIndex index;
+	
+	@Before
+	public void setUp(){
+		service1 = Service.Builder.newInstance("1", 1).setLocationId("loc1").build();
+		service2 = Service.Builder.newInstance("2", 1).setLocationId("loc2").build();
+		service3 = Service.Builder.newInstance("3", 1).setLocationId("loc3").build();
+		Vehicle vehicle = VehicleImpl.Builder.newInstance("v").setLocationId("depot").setType(VehicleTypeImpl.Builder.newInstance("t", 10).build()).build();
+		
+		TourActivities tour1 = new TourActivities();
+		tour1.addActivity(ServiceActivity.newInstance(service1));
+		tour1.addActivity(ServiceActivity.newInstance(service2));
+		route1 = VehicleRoute.newInstance(tour1, DriverImpl.noDriver(), vehicle);
+		
+		TourActivities tour2 = new TourActivities();
+		tour2.addActivity(ServiceActivity.newInstance(service3));
+		route2 = VehicleRoute.newInstance(tour2, DriverImpl.noDriver(), vehicle);
+		
+		routes = new ArrayList<VehicleRoute>();
+		routes.add(route1);
+		routes.add(route2);
+		index = new JobRouteIndex();
+	}
+	
+	@Test
+	public void whenAskingForRouteOfJob_itShouldReturnTheRouteServingIt(){
+		assertSame(route1, index.getRoute(service2, routes));
+		assertSame(route2, index.getRoute(service3, routes));
+	}
+	
+	@Test
+	public void whenNoRouteServesJob_itShouldReturnNull(){
+		Service unassigned = Service.Builder.newInstance("4", 1).setLocationId("loc4").build();
+		assertNull(index.getRoute(unassigned, routes));
+	}
+	
+	@Test
+	public void whenRemovingJobFromRoutes_itShouldBeRemovedFromTheRouteServingIt(){
+		JobRemoverImpl remover = new JobRemoverImpl(index);
+		assertSame(route1, remover.removeJobWithoutTourUpdate(service1, routes));
+		assertFalse(route1.getTourActivities().servesJob(service1));
+		assertEquals(1, route1.getTourActivities().getActivities().size());
+		assertNull(remover.removeJobWithoutTourUpdate(service1, routes));
+	}
+	
+	@Test
+	public void whenJobHasBeenMovedWithoutInformingTheIndex_itShouldStillReturnTheRouteServingIt(){
+		assertSame(route1, index.getRoute(service1, routes));
+		route1.getTourActivities().removeJob(service1);
+		route2.getTourActivities().addActivity(ServiceActivity.newInstance(service1));
+		assertSame(route2, index.getRoute(service1, routes));
+	}
+	
+	@Test
+	public void whenJobIsInsertedIntoIndexedRoute_itShouldReturnThisRoute(){
+		assertSame(route1, index.getRoute(service1, routes));
+		route1.getTourActivities().removeJob(service1);
+		index.informJobRemoved(service1);
+		route2.getTourActivities().addActivity(ServiceActivity.newInstance(service1));
+		index.informJobInserted(service1, route2);
+		assertSame(route2, index.getRoute(service1, routes));
+	}
+	
+	@Test
+	public void whenAskingForCopiedRoutes_itShouldOnlyReturnCopiedRoutes(){
+		assertSame(route1, index.getRoute(service1, routes));
+		List<VehicleRoute> copiedRoutes = new ArrayList<VehicleRoute>();
+		for(VehicleRoute r : routes) copiedRoutes.add(VehicleRoute.copyOf(r));
+		VehicleRoute route = index.getRoute(service1, copiedRoutes);
+		assertSame(copiedRoutes.get(0), route);
+		new JobRemoverImpl(index).removeJobWithoutTourUpdate(service1, copiedRoutes);
+		assertFalse(copiedRoutes.get(0).getTourActivities().servesJob(service1));
+		assertTrue(route1.getTourActivities().servesJob(service1));
+	}
+	
+	@Test
+	public void whenAskingForCopiesOfUnmodifiedRoutes_routesShouldBeSearchedOnlyOnce(){
+		assertSame(route1, index.getRoute(service1, routes));
+		assertSame(route2, index.getRoute(service3, routes));
+		final AtomicInteger nuOfSearches = new AtomicInteger(0);
+		List<VehicleRoute> copiedRoutes = new ArrayList<VehicleRoute>(){
+			
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Iterator<VehicleRoute> iterator() {
+				nuOfSearches.incrementAndGet();
+				return super.iterator();
+			}
+		};
+		for(VehicleRoute r : routes) copiedRoutes.add(VehicleRoute.copyOf(r));
+		assertSame(copiedRoutes.get(0), index.getRoute(service1, copiedRoutes));
+		assertSame(copiedRoutes.get(0), index.getRoute(service2, copiedRoutes));
+		assertSame(copiedRoutes.get(1), index.getRoute(service3, copiedRoutes));
+		assertEquals(1, nuOfSearches.get());
+	}
+	
+	@Test
+	public void whenRouteIsAddedToIndexedRoutes_itShouldReturnThisRoute(){
+		assertSame(route1, index.getRoute(service1, routes));
+		Vehicle vehicle = route1.getVehicle();
+		Service service4 = Service.Builder.newInstance("4", 1).setLocationId("loc4").build();
+		TourActivities tour3 = new TourActivities();
+		tour3.addActivity(ServiceActivity.newInstance(service4));
+		VehicleRoute route3 = VehicleRoute.newInstance(tour3, DriverImpl.noDriver(), vehicle);
+		routes.add(route3);
+		index.informJobInserted(service4, route3);
+		assertSame(route3, index.getRoute(service4, routes));
+		assertSame(route2, index.getRoute(service3, routes));
+	}
+
+}
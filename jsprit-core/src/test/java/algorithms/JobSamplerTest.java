@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import basics.Job;
+import basics.Service;
+
+public class JobSamplerTest {
+	
+	private List<Job> jobs;
+	
+	private JobSampler sampler;
+	
+	private Random random;
+	
+	@Before
+	public void setUp(){
+		jobs = new ArrayList<Job>();
+		for(int i=0;i<10;i++){
+			jobs.add(Service.Builder.newInstance(""+i, 1).setLocationId("loc"+i).build());
+		}
+		sampler = JobSampler.newInstance(jobs);
+		random = new Random(4711);
+	}
+	
+	@Test
+	public void whenDrawingAllJobs_eachJobShouldBeDrawnOnce(){
+		Set<Job> drawnJobs = new HashSet<Job>();
+		for(int i=0;i<jobs.size();i++){
+			assertTrue(drawnJobs.add(sampler.drawJob(random)));
+		}
+		assertEquals(0, sampler.getNuOfAvailableJobs());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenDrawingMoreJobsThanAvailable_itShouldThrowException(){
+		for(int i=0;i<=jobs.size();i++){
+			sampler.drawJob(random);
+		}
+	}
+	
+	@Test
+	public void whenSamplerIsReset_allJobsShouldBeAvailableAgain(){
+		for(int i=0;i<5;i++){
+			sampler.drawJob(random);
+		}
+		sampler.reset();
+		assertEquals(jobs.size(), sampler.getNuOfAvailableJobs());
+		Set<Job> drawnJobs = new HashSet<Job>();
+		for(int i=0;i<jobs.size();i++){
+			assertTrue(drawnJobs.add(sampler.drawJob(random)));
+		}
+	}
+	
+	@Test
+	public void whenJobIsDrawnExplicitly_itShouldNotBeDrawnRandomly(){
+		Job job = jobs.get(3);
+		assertTrue(sampler.drawJob(job));
+		assertFalse(sampler.drawJob(job));
+		for(int i=0;i<jobs.size()-1;i++){
+			assertFalse(job.equals(sampler.drawJob(random)));
+		}
+	}
+	
+	@Test
+	public void whenJobIsUnknown_itShouldNotBeDrawn(){
+		assertFalse(sampler.drawJob(Service.Builder.newInstance("unknown", 1).setLocationId("loc").build()));
+		assertEquals(jobs.size(), sampler.getNuOfAvailableJobs());
+	}
+	
+	@Test
+	public void whenDrawingManyTimes_eachJobShouldBeDrawnFirstWithSimilarFrequency(){
+		int[] counts = new int[jobs.size()];
+		for(int i=0;i<10000;i++){
+			sampler.reset();
+			counts[jobs.indexOf(sampler.drawJob(random))]++;
+		}
+		for(int count : counts){
+			assertTrue(count > 800 && count < 1200);
+		}
+	}
+	
+}
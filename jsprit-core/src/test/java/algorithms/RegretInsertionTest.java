@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static algorithms.InsertionTestFixture.exceededDeadline;
+import static algorithms.InsertionTestFixture.getNuOfJobs;
+import static algorithms.InsertionTestFixture.getSequences;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.Coordinate;
+import util.metrics.MetricsRegistry;
+import basics.Job;
+import basics.Service;
+import basics.VehicleRoutingProblem;
+import basics.algo.VehicleRoutingAlgorithmListeners.PrioritizedVRAListener;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleRoute;
+import algorithms.InsertionData.NoInsertionFound;
+import algorithms.RegretInsertion.ScoringFunction;
+import algorithms.RegretInsertion.TimeWindowScorer;
+
+public class RegretInsertionTest {
+	
+	private static final int NU_OF_SERVICES = 80;
+
+	private InsertionTestFixture fixture;
+	
+	@Before
+	public void setUp(){
+		fixture = InsertionTestFixture.newInstance(NU_OF_SERVICES);
+	}
+	
+	private List<VehicleRoute> insert(int k, ScoringFunction scoringFunction){
+		RegretInsertion insertion = RegretInsertion.newInstance(fixture.createRouteAlgorithm());
+		insertion.setK(k);
+		insertion.setScoringFunction(scoringFunction);
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		insertion.run(routes, new ArrayList<Job>(fixture.jobs), Double.MAX_VALUE);
+		return routes;
+	}
+	
+	/**
+	 * Regret-2 insertion that recalculates the insertion data of all jobs and all routes before inserting a job.
+	 */
+	private List<VehicleRoute> insertWithoutMemorizingInsertionData(ScoringFunction scoringFunction){
+		RouteAlgorithm routeAlgorithm = fixture.createRouteAlgorithm();
+		List<Job> unassignedJobs = new ArrayList<Job>(fixture.jobs);
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		while(!unassignedJobs.isEmpty()){
+			Job bestJob = null;
+			VehicleRoute bestJobRoute = null;
+			InsertionData bestJobInsertion = null;
+			double bestScore = -1*Double.MAX_VALUE;
+			for(Job job : unassignedJobs){
+				InsertionData best = null;
+				InsertionData secondBest = null;
+				VehicleRoute bestRoute = null;
+				for(VehicleRoute route : routes){
+					InsertionData iData = routeAlgorithm.calculateBestInsertion(route, job, Double.MAX_VALUE);
+					if(iData instanceof NoInsertionFound) continue;
+					if(best == null){
+						best = iData;
+						bestRoute = route;
+					}
+					else if(iData.getInsertionCost() < best.getInsertionCost()){
+						secondBest = best;
+						best = iData;
+						bestRoute = route;
+					}
+					else if(secondBest == null || iData.getInsertionCost() < secondBest.getInsertionCost()){
+						secondBest = iData;
+					}
+				}
+				if(best == null) break;
+				double score = Double.MAX_VALUE;
+				if(secondBest != null) score = secondBest.getInsertionCost() - best.getInsertionCost() + scoringFunction.score(job);
+				if(score > bestScore){
+					bestJob = job;
+					bestJobRoute = bestRoute;
+					bestJobInsertion = best;
+					bestScore = score;
+				}
+			}
+			if(bestJob == null){
+				bestJob = unassignedJobs.get(0);
+				bestJobRoute = VehicleRoute.emptyRoute();
+				bestJobInsertion = routeAlgorithm.calculateBestInsertion(bestJobRoute, bestJob, Double.MAX_VALUE);
+				routes.add(bestJobRoute);
+			}
+			routeAlgorithm.insertJob(bestJob, bestJobInsertion, bestJobRoute);
+			unassignedJobs.remove(bestJob);
+		}
+		return routes;
+	}
+	
+	@Test
+	public void whenRegret2_itShouldInsertJobsLikeRegretInsertionWithoutMemorizedInsertionData(){
+		assertEquals(getSequences(insertWithoutMemorizingInsertionData(new TimeWindowScorer())), getSequences(insert(2, new TimeWindowScorer())));
+	}
+	
+	@Test
+	public void whenRegret4_itShouldInsertAllJobs(){
+		assertEquals(NU_OF_SERVICES, getNuOfJobs(insert(4, new TimeWindowScorer())));
+	}
+	
+	@Test
+	public void whenRouteIsNotAmongKBestAlternatives_jobShouldNotNeedToBeRescored(){
+		RegretInsertion.JobInsertions jobInsertions = new RegretInsertion.JobInsertions(fixture.jobs.get(0), 0);
+		assertTrue(jobInsertions.update(0, new InsertionData(10.0, InsertionData.NO_INDEX, 0, null, null), 2));
+		assertTrue(jobInsertions.update(1, new InsertionData(20.0, InsertionData.NO_INDEX, 0, null, null), 2));
+		assertTrue(!jobInsertions.update(2, new InsertionData(30.0, InsertionData.NO_INDEX, 0, null, null), 2));
+		assertTrue(!jobInsertions.update(2, InsertionData.noInsertionFound(), 2));
+		assertTrue(jobInsertions.update(2, new InsertionData(15.0, InsertionData.NO_INDEX, 0, null, null), 2));
+		assertTrue(jobInsertions.update(0, InsertionData.noInsertionFound(), 2));
+		assertEquals(2, jobInsertions.getBestRouteIndex());
+	}
+	
+	@Test
+	public void whenInserting_itShouldScoreJobsWithScoringFunction(){
+		final Set<Job> scoredJobs = new HashSet<Job>();
+		insert(3, new ScoringFunction() {
+			
+			@Override
+			public double score(Job job) {
+				scoredJobs.add(job);
+				return 0.0;
+			}
+		});
+		assertTrue(!scoredJobs.isEmpty());
+		assertTrue(fixture.jobs.containsAll(scoredJobs));
+	}
+	
+	@Test
+	public void whenDeadlineIsExceeded_itShouldInsertAllJobsWithoutScoring(){
+		RegretInsertion insertion = RegretInsertion.newInstance(fixture.createRouteAlgorithm());
+		final Set<Job> scoredJobs = new HashSet<Job>();
+		insertion.setScoringFunction(new ScoringFunction() {
+			
+			@Override
+			public double score(Job job) {
+				scoredJobs.add(job);
+				return 0.0;
+			}
+		});
+		insertion.setDeadline(exceededDeadline());
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		insertion.run(routes, new ArrayList<Job>(fixture.jobs), Double.MAX_VALUE);
+		assertEquals(NU_OF_SERVICES, getNuOfJobs(routes));
+		assertTrue(scoredJobs.isEmpty());
+	}
+	
+	@Test
+	public void whenConfigSpecifiesK_factoryShouldCreateRegretInsertionWithK(){
+		Vehicle vehicle = VehicleImpl.Builder.newInstance("v").setLocationId("depot").setLocationCoord(Coordinate.newInstance(0, 0)).build();
+		VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle)
+				.addService(Service.Builder.newInstance("s", 1).setLocationId("c").setCoord(Coordinate.newInstance(1, 1)).build()).build();
+		XMLConfiguration config = new XMLConfiguration();
+		config.addProperty("insertion[@name]", "regretInsertion");
+		config.addProperty("insertion[@k]", "3");
+		RouteStates states = new RouteStates();
+		states.initialiseStateOfJobs(vrp.getJobIndex());
+		AbstractInsertionStrategy insertion = InsertionFactory.createInsertion(vrp, config.configurationAt("insertion"), new VehicleFleetManagerImpl(vrp.getVehicles()), 
+				states, new ArrayList<PrioritizedVRAListener>(), null, 0, MetricsRegistry.getDefault());
+		assertTrue(insertion.toString().contains("[k=3]"));
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenSettingKLowerThan2_itShouldThrowException(){
+		RegretInsertion.newInstance(fixture.createRouteAlgorithm()).setK(1);
+	}
+
+}
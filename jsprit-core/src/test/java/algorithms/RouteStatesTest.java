@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import basics.Job;
+import basics.JobIndex;
+import basics.Service;
+import basics.VehicleRoutingProblemSolution;
+import basics.route.ServiceActivity;
+import basics.route.TimeWindow;
+import basics.route.VehicleRoute;
+
+public class RouteStatesTest {
+	
+	private RouteStates states;
+	
+	private Service service1;
+	
+	private Service service2;
+	
+	@Before
+	public void setUp(){
+		service1 = Service.Builder.newInstance("1", 1).setLocationId("loc1").setTimeWindow(TimeWindow.newInstance(10.0, 20.0)).build();
+		service2 = Service.Builder.newInstance("2", 1).setLocationId("loc2").setTimeWindow(TimeWindow.newInstance(30.0, 40.0)).build();
+		Collection<Job> jobs = Arrays.asList((Job)service1, service2);
+		states = new RouteStates();
+		states.initialiseStateOfJobs(jobs);
+	}
+	
+	@Test
+	public void whenInitialisingStatesOfJobs_activitiesShouldGetDenseIndices(){
+		assertEquals(0, states.getActivityIndex(ServiceActivity.newInstance(service1)));
+		assertEquals(1, states.getActivityIndex(ServiceActivity.newInstance(service2)));
+	}
+	
+	@Test
+	public void whenInitialisingStatesOfJobs_operationStartsShouldBeTheoreticalOnes(){
+		int index = states.getActivityIndex(ServiceActivity.newInstance(service2));
+		assertEquals(30.0, states.getEarliestOperationStart(index), 0.01);
+		assertEquals(40.0, states.getLatestOperationStart(index), 0.01);
+	}
+	
+	@Test
+	public void whenActivityIsUnknown_itShouldHaveNoIndex(){
+		Service service3 = Service.Builder.newInstance("3", 1).setLocationId("loc3").build();
+		assertEquals(RouteStates.NO_INDEX, states.getActivityIndex(ServiceActivity.newInstance(service3)));
+	}
+	
+	@Test
+	public void whenSettingStatesByIndex_viewShouldReturnThem(){
+		ServiceActivity act = ServiceActivity.newInstance(service1);
+		int index = states.getActivityIndex(act);
+		states.setCurrentCost(index, 5.0);
+		states.setCurrentLoad(index, 2.0);
+		assertEquals(5.0, states.getState(act).getCurrentCost(), 0.01);
+		assertEquals(2.0, states.getState(act).getCurrentLoad(), 0.01);
+	}
+	
+	@Test
+	public void whenResettingActivity_statesShouldBeReset(){
+		ServiceActivity act = ServiceActivity.newInstance(service1);
+		states.getState(act).setEarliestOperationStart(15.0);
+		states.getState(act).setCurrentCost(5.0);
+		states.getActivity(service1, true);
+		assertEquals(10.0, states.getState(act).getEarliestOperationStart(), 0.01);
+		assertEquals(0.0, states.getState(act).getCurrentCost(), 0.01);
+	}
+	
+	@Test
+	public void whenInitialisingStatesWithJobIndex_activitiesShouldBeIndexedByJobIndex(){
+		JobIndex jobIndex = JobIndex.newInstance(Arrays.asList((Job)service2, service1));
+		RouteStates states = new RouteStates();
+		states.initialiseStateOfJobs(jobIndex);
+		assertEquals(jobIndex.getIndex(service1), states.getActivityIndex(ServiceActivity.newInstance(service1)));
+		assertEquals(jobIndex.getIndex(service2), states.getActivityIndex(ServiceActivity.newInstance(service2)));
+		assertSame(states.getActivity(service2, true), states.getActivity(service2, true));
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenInitialisingStatesOfJobsTwice_itShouldThrowException(){
+		states.initialiseStateOfJobs(Arrays.asList((Job)service1));
+	}
+	
+	@Test
+	public void whenStatesAreCleared_jobsCanBeInitialisedAgain(){
+		states.clearStates();
+		states.initialiseStateOfJobs(Arrays.asList((Job)service2));
+		assertEquals(0, states.getActivityIndex(ServiceActivity.newInstance(service2)));
+		assertEquals(RouteStates.NO_INDEX, states.getActivityIndex(ServiceActivity.newInstance(service1)));
+	}
+	
+	@Test
+	public void whenRegisteringManyRoutes_statesOfEachRouteShouldBeKept(){
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		for(int i=0;i<100;i++){
+			VehicleRoute route = VehicleRoute.emptyRoute();
+			routes.add(route);
+			states.getRouteState(route).setCosts(i);
+			states.getRouteState(route).setLoad(2*i);
+		}
+		for(int i=0;i<100;i++){
+			int routeIndex = states.getRouteIndex(routes.get(i));
+			assertEquals(i, routeIndex);
+			assertEquals((double)i, states.getRouteCosts(routeIndex), 0.01);
+			assertEquals(2*i, states.getRouteLoad(routeIndex));
+		}
+	}
+	
+	@Test
+	public void whenRoutesAreRetained_theyShouldKeepStatesAndOtherRoutesShouldGetNewStates(){
+		VehicleRoute route = VehicleRoute.emptyRoute();
+		VehicleRoute otherRoute = VehicleRoute.emptyRoute();
+		states.getRouteState(route).setCosts(10.0);
+		states.getRouteState(otherRoute).setCosts(20.0);
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		routes.add(route);
+		states.retainRouteStates(Arrays.asList(new VehicleRoutingProblemSolution(routes, 0.0)));
+		assertEquals(10.0, states.getRouteState(route).getCosts(), 0.01);
+		assertEquals(0.0, states.getRouteState(otherRoute).getCosts(), 0.01);
+	}
+	
+	@Test
+	public void whenResettingRouteStates_routesShouldGetNewStates(){
+		VehicleRoute route = VehicleRoute.emptyRoute();
+		RouteStates.RouteState state = states.getRouteState(route);
+		state.setCosts(10.0);
+		states.resetRouteStates();
+		assertNotSame(state, states.getRouteState(route));
+		assertEquals(0.0, states.getRouteState(route).getCosts(), 0.01);
+	}
+
+}
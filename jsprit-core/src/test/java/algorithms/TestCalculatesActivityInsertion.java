@@ -30,7 +30,6 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 
-import algorithms.RouteStates.ActivityState;
 import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.TourActivities;
 import basics.route.TourActivity;
@@ -95,7 +94,7 @@ public class TestCalculatesActivityInsertion {
 	public TourActivity getActivityMock(String id, double earliestOperationStart, double currCost){
 		TourActivity act = mock(TourActivity.class);
 		when(act.getLocationId()).thenReturn(id);
-		states.getActivityStates().put(act, new ActivityState(act));
+		states.initialiseStateOfActivity(act);
 		states.getState(act).setEarliestOperationStart(earliestOperationStart);
 		states.getState(act).setCurrentCost(currCost);
 //		when(act.getEarliestOperationStartTime()).thenReturn(earliestOperationStart);
@@ -273,4 +273,21 @@ public class TestCalculatesServiceInsertionOnRouteLevel {
 //	}
 	
 	
+	@Test
+	public void whenCalculatingOnAnEmptyTourAfterCalculatingOnALongerTour_itCalculatesMarginalCostChangesOfEmptyTour(){
+		TourActivities longTour = new TourActivities();
+		longTour.addActivity(states.getActivity(first,true));
+		longTour.addActivity(states.getActivity(second,true));
+		VehicleRoute longRoute = VehicleRoute.newInstance(longTour,driver,vehicle);
+		tourStateUpdater.updateRoute(longRoute);
+		serviceInsertion.calculate(longRoute, third, newVehicle, vehicle.getEarliestDeparture(), null, Double.MAX_VALUE);
+		
+		VehicleRoute emptyRoute = VehicleRoute.newInstance(new TourActivities(),driver,vehicle);
+		tourStateUpdater.updateRoute(emptyRoute);
+		
+		InsertionData iData = serviceInsertion.calculate(emptyRoute, first, vehicle, vehicle.getEarliestDeparture(), null, Double.MAX_VALUE);
+		assertEquals(20.0, iData.getInsertionCost(), 0.2);
+		assertEquals(0, iData.getDeliveryInsertionIndex());
+	}
+	
 }
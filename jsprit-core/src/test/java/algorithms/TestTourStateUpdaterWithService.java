@@ -21,19 +21,32 @@ import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import util.Coordinate;
 import util.ManhattanDistanceCalculator;
+import algorithms.acceptors.AcceptNewRemoveFirst;
+import algorithms.selectors.SelectBest;
 import basics.Job;
 import basics.Service;
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.SearchStrategy;
+import basics.algo.SearchStrategyManager;
+import basics.algo.SearchStrategyModule;
+import basics.algo.SearchStrategyModuleListener;
 import basics.costs.VehicleRoutingTransportCosts;
 import basics.route.Driver;
 import basics.route.DriverImpl;
+import basics.route.ServiceActivity;
 import basics.route.TimeWindow;
 import basics.route.TourActivities;
+import basics.route.TourActivity;
 import basics.route.Vehicle;
 import basics.route.VehicleImpl;
 import basics.route.VehicleRoute;
@@ -56,11 +69,13 @@ public class TestTourStateUpdaterWithService {
 	RouteStates states;
 
 	private VehicleRoute vehicleRoute;
+	
+	private VehicleRoutingTransportCosts cost;
 
 	@Before
 	public void setUp() {
 
-		VehicleRoutingTransportCosts cost = new VehicleRoutingTransportCosts() {
+		cost = new VehicleRoutingTransportCosts() {
 
 			@Override
 			public double getBackwardTransportTime(String fromId, String toId,
@@ -159,6 +174,178 @@ public class TestTourStateUpdaterWithService {
 		assertEquals(40.0, vehicleRoute.getEnd().getEndTime(),0.05);
 		assertEquals(50.0, vehicleRoute.getEnd().getTheoreticalLatestOperationStartTime(),0.05);
 	}
+	
+	@Test
+	public void whenTourHasNotBeenModified_updateShouldBeSkipped(){
+		tdTourStatusProcessor.updateRoute(vehicleRoute);
+		int routeIndex = states.getRouteIndex(vehicleRoute);
+		states.setRouteCosts(routeIndex, -1.0);
+		tdTourStatusProcessor.updateRoute(vehicleRoute);
+		assertEquals(-1.0, states.getRouteCosts(routeIndex), 0.05);
+	}
+	
+	@Test
+	public void whenTourHasBeenModified_routeShouldBeUpdatedAgain(){
+		tdTourStatusProcessor.updateRoute(vehicleRoute);
+		vehicleRoute.getTourActivities().removeJob(((ServiceActivity)tour.getActivities().get(1)).getJob());
+		tdTourStatusProcessor.updateRoute(vehicleRoute);
+		assertEquals(20.0, states.getRouteState(vehicleRoute).getCosts(), 0.05);
+		assertEquals(5, states.getRouteState(vehicleRoute).getLoad());
+	}
+	
+	@Test
+	public void whenActivitiesAreRemovedAndInserted_partialUpdateShouldEqualFullUpdate(){
+		Collection<Job> services = new ArrayList<Job>();
+		for(int i=0;i<8;i++){
+			services.add(Service.Builder.newInstance("s" + i, 1).setLocationId(i + "," + (i%3)).setServiceTime(1.0)
+					.setTimeWindow(TimeWindow.newInstance(0, 100)).build());
+		}
+		RouteStates routeStates = new RouteStates();
+		routeStates.initialiseStateOfJobs(services);
+		TourStateUpdater updater = new TourStateUpdater(routeStates, cost, new ExampleActivityCostFunction());
+		TourActivities activities = new TourActivities();
+		for(Job s : services) activities.addActivity(ServiceActivity.newInstance((Service)s));
+		VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("t", 10).build();
+		Vehicle v = VehicleImpl.Builder.newInstance("v").setType(type).setLocationId("0,0").setLatestArrival(100.0).build();
+		VehicleRoute route = VehicleRoute.newInstance(activities, DriverImpl.noDriver(), v);
+		updater.updateRoute(route);
+		
+		List<Job> jobs = new ArrayList<Job>(services);
+		activities.removeJob(jobs.get(5));
+		activities.removeJob(jobs.get(2));
+		activities.addActivity(4, ServiceActivity.newInstance((Service)jobs.get(2)));
+		updater.updateRoute(route);
+		
+		VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+		RouteStates expectedStates = new RouteStates();
+		expectedStates.initialiseStateOfJobs(services);
+		new TourStateUpdater(expectedStates, cost, new ExampleActivityCostFunction()).updateRoute(copiedRoute);
+		
+		assertEquals(expectedStates.getRouteState(copiedRoute).getCosts(), routeStates.getRouteState(route).getCosts(), 0.0);
+		assertEquals(expectedStates.getRouteState(copiedRoute).getLoad(), routeStates.getRouteState(route).getLoad());
+		assertEquals(copiedRoute.getCost(), route.getCost(), 0.0);
+		for(int i=0;i<activities.getActivities().size();i++){
+			TourActivity act = activities.getActivities().get(i);
+			TourActivity expectedAct = copiedRoute.getTourActivities().getActivities().get(i);
+			assertEquals(expectedAct.getEndTime(), act.getEndTime(), 0.0);
+			assertEquals(expectedStates.getState(expectedAct).getEarliestOperationStart(), routeStates.getState(act).getEarliestOperationStart(), 0.0);
+			assertEquals(expectedStates.getState(expectedAct).getLatestOperationStart(), routeStates.getState(act).getLatestOperationStart(), 0.0);
+			assertEquals(expectedStates.getState(expectedAct).getCurrentCost(), routeStates.getState(act).getCurrentCost(), 0.0);
+			assertEquals(expectedStates.getState(expectedAct).getCurrentLoad(), routeStates.getState(act).getCurrentLoad(), 0.0);
+		}
+	}
+
+	@Test
+	public void whenSearchRuinsCopiesOfRoutes_onlyRuinedRoutesShouldBeUpdated(){
+		final AtomicInteger nuOfBackwardCalcs = new AtomicInteger(0);
+		VehicleRoutingTransportCosts countingCost = new VehicleRoutingTransportCosts() {
+			
+			@Override
+			public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+				nuOfBackwardCalcs.incrementAndGet();
+				return cost.getBackwardTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+			}
+			
+			@Override
+			public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+				return cost.getBackwardTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+			}
+			
+			@Override
+			public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				return cost.getTransportCost(fromId, toId, departureTime, driver, vehicle);
+			}
+			
+			@Override
+			public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				return cost.getTransportTime(fromId, toId, departureTime, driver, vehicle);
+			}
+		};
+		RouteStates routeStates = new RouteStates();
+		TourStateUpdater updater = new TourStateUpdater(routeStates, countingCost, new ExampleActivityCostFunction());
+		VehicleRoutingAlgorithm algorithm = createRuiningAlgorithm(routeStates, updater, 1);
+		
+		nuOfBackwardCalcs.set(0);
+		algorithm.searchSolutions();
+		//3 routes with 4 services each, but only the route that lost a service has been updated
+		assertEquals(3, nuOfBackwardCalcs.get());
+	}
+	
+	@Test
+	public void whenRoutesOfSolutionsInMemoryDiffer_updatedStatesShouldBelongToUpdatedRoute(){
+		RouteStates routeStates = new RouteStates();
+		TourStateUpdater updater = new TourStateUpdater(routeStates, cost, new ExampleActivityCostFunction());
+		VehicleRoutingAlgorithm algorithm = createRuiningAlgorithm(routeStates, updater, 6);
+		Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+		assertEquals(2, solutions.size());
+		for(VehicleRoutingProblemSolution solution : solutions){
+			for(VehicleRoute route : solution.getRoutes()){
+				updater.updateRoute(route);
+				RouteStates expectedStates = new RouteStates();
+				expectedStates.initialiseStateOfJobs(route.getTourActivities().getJobs());
+				VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+				new TourStateUpdater(expectedStates, cost, new ExampleActivityCostFunction()).updateRoute(copiedRoute);
+				assertEquals(expectedStates.getRouteState(copiedRoute).getCosts(), routeStates.getRouteState(route).getCosts(), 0.0);
+				for(TourActivity act : route.getTourActivities().getActivities()){
+					assertEquals(expectedStates.getState(act).getEarliestOperationStart(), routeStates.getState(act).getEarliestOperationStart(), 0.0);
+					assertEquals(expectedStates.getState(act).getLatestOperationStart(), routeStates.getState(act).getLatestOperationStart(), 0.0);
+					assertEquals(expectedStates.getState(act).getCurrentCost(), routeStates.getState(act).getCurrentCost(), 0.0);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * algorithm whose only module ruins one service of the selected solution (with RuinRandom), and that memorizes the last two solutions. 
+	 * its initial solution has 3 routes with 4 services each, which have been updated.
+	 */
+	private VehicleRoutingAlgorithm createRuiningAlgorithm(RouteStates routeStates, TourStateUpdater updater, int iterations){
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("t", 10).build();
+		Collection<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		for(int r=0;r<3;r++){
+			Vehicle v = VehicleImpl.Builder.newInstance("v" + r).setType(type).setLocationId("0,0").setLatestArrival(200.0).build();
+			vrpBuilder.addVehicle(v);
+			TourActivities activities = new TourActivities();
+			for(int i=0;i<4;i++){
+				Service service = Service.Builder.newInstance("s" + r + "_" + i, 1).setLocationId((r+i) + "," + (r*i%5)).setServiceTime(1.0)
+						.setTimeWindow(TimeWindow.newInstance(0, 200)).build();
+				vrpBuilder.addService(service);
+				activities.addActivity(ServiceActivity.newInstance(service));
+			}
+			routes.add(VehicleRoute.newInstance(activities, DriverImpl.noDriver(), v));
+		}
+		final VehicleRoutingProblem vrp = vrpBuilder.build();
+		routeStates.initialiseStateOfJobs(vrp.getJobs().values());
+		for(VehicleRoute route : routes) updater.updateRoute(route);
+		
+		final RuinRandom ruin = RuinRandom.newInstance(vrp, 0.05, new JobRemoverImpl(routeStates.getJobRouteIndex()), updater);
+		SearchStrategy strategy = new SearchStrategy(SelectBest.getInstance(), new AcceptNewRemoveFirst(2));
+		strategy.addModule(new SearchStrategyModule() {
+			
+			@Override
+			public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution vrpSolution) {
+				ruin.ruin(vrpSolution.getRoutes());
+				return vrpSolution;
+			}
+			
+			@Override
+			public String getName() {
+				return "ruin";
+			}
+			
+			@Override
+			public void addModuleListener(SearchStrategyModuleListener moduleListener) {
+			}
+		});
+		SearchStrategyManager manager = new SearchStrategyManager();
+		manager.addStrategy(strategy, 1.0);
+		VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(vrp, manager);
+		algorithm.getAlgorithmListeners().addListener(routeStates);
+		algorithm.addInitialSolution(new VehicleRoutingProblemSolution(routes, 100.0));
+		algorithm.setNuOfIterations(iterations);
+		return algorithm;
+	}
 
 //	public void testEarliestArrStart() {
 //		tdTourStatusProcessor.calculate(tour, vehicle, driver);
@@ -24,6 +24,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 import algorithms.TestVehicleFleetManager;
+import basics.algo.AnytimeSolutionPublisherTest;
+import basics.algo.DeadlineTest;
+import basics.algo.PrematureAlgorithmBreakerTest;
 import basics.algo.SearchStrategyManagerTest;
 import basics.algo.SearchStrategyTest;
 import basics.io.VrpReaderV2Test;
@@ -40,6 +43,9 @@ import basics.route.TestVehicleRoute;
 @Suite.SuiteClasses({
 	SearchStrategyManagerTest.class,
 	SearchStrategyTest.class,
+	DeadlineTest.class,
+	AnytimeSolutionPublisherTest.class,
+	PrematureAlgorithmBreakerTest.class,
 	TestTour.class,
 	TestVehicleFleetManager.class,
 	TestVehicleRoute.class,
@@ -24,7 +24,11 @@ import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
 
+import util.Coordinate;
+import util.VehicleRoutingTransportCostsMatrix;
 import basics.VehicleRoutingProblem.FleetSize;
+import basics.costs.IndexedTransportCosts;
+import basics.costs.TransportLeg;
 import basics.route.Vehicle;
 import basics.route.VehicleImpl;
 import basics.route.VehicleTypeImpl;
@@ -68,5 +72,69 @@ public class VehicleRoutingProblemBuilderTest {
 
 	}
 	
+	@Test
+	public void whenBuildingProblem_itShouldInternLocationsToDenseIndices(){
+		VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+		Vehicle v1 = VehicleImpl.Builder.newInstance("v1").setLocationId("depot").setLocationCoord(Coordinate.newInstance(0, 0)).build();
+		Vehicle v2 = VehicleImpl.Builder.newInstance("v2").setLocationId("depot").setLocationCoord(Coordinate.newInstance(0, 0)).build();
+		Service s1 = Service.Builder.newInstance("s1", 1).setLocationId("c1").setCoord(Coordinate.newInstance(1, 0)).build();
+		Service s2 = Service.Builder.newInstance("s2", 1).setLocationId("c2").setCoord(Coordinate.newInstance(2, 0)).build();
+		Service s3 = Service.Builder.newInstance("s3", 1).setLocationId("c1").setCoord(Coordinate.newInstance(1, 0)).build();
+		builder.addVehicle(v1).addVehicle(v2).addService(s1).addService(s2).addService(s3);
+		VehicleRoutingProblem vrp = builder.build();
+		
+		LocationIndex locationIndex = vrp.getLocationIndex();
+		assertEquals(3,locationIndex.getNuOfLocations());
+		assertEquals(locationIndex.getIndex(v1.getLocationId()),locationIndex.getIndex(v2.getLocationId()));
+		assertEquals(locationIndex.getIndex(s1),locationIndex.getIndex(s3));
+		assertEquals("depot",locationIndex.getLocationId(locationIndex.getIndex(v1.getLocationId())));
+		assertEquals("c2",locationIndex.getLocationId(locationIndex.getIndex(s2)));
+		assertEquals(locationIndex.getIndex(s1),locationIndex.getIndex("c1"));
+		assertEquals(LocationIndex.NO_INDEX,locationIndex.getIndex("unknown"));
+	}
+	
+	@Test
+	public void whenBuildingProblem_indexedCostsShouldEqualCostsById(){
+		VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+		Vehicle v = VehicleImpl.Builder.newInstance("v").setLocationId("depot").setLocationCoord(Coordinate.newInstance(0, 0)).build();
+		Service s = Service.Builder.newInstance("s", 1).setLocationId("c").setCoord(Coordinate.newInstance(3, 4)).build();
+		VehicleRoutingProblem vrp = builder.addVehicle(v).addService(s).build();
+		
+		IndexedTransportCosts costs = vrp.getIndexedTransportCosts();
+		int depot = vrp.getLocationIndex().getIndex(v.getLocationId());
+		int c = vrp.getLocationIndex().getIndex(s);
+		assertEquals(vrp.getTransportCosts().getTransportCost("depot", "c", 0.0, null, v),costs.getTransportCost(depot, c, 0.0, null, v),0.01);
+		assertEquals(vrp.getTransportCosts().getTransportTime("depot", "c", 0.0, null, v),costs.getTransportTime(depot, c, 0.0, null, v),0.01);
+		TransportLeg leg = new TransportLeg();
+		costs.getTransportLeg(c, depot, 0.0, null, v, leg);
+		assertEquals(5.,leg.getDistance(),0.01);
+	}
+	
+	@Test
+	public void whenBuildingTwoProblemsFromSharedVehiclesAndJobs_eachShouldKeepItsOwnIndices(){
+		Vehicle v = VehicleImpl.Builder.newInstance("v").setLocationId("depot").setLocationCoord(Coordinate.newInstance(0, 0)).build();
+		Service a = Service.Builder.newInstance("a", 1).setLocationId("a").setCoord(Coordinate.newInstance(1, 0)).build();
+		Service b = Service.Builder.newInstance("b", 1).setLocationId("b").setCoord(Coordinate.newInstance(20, 0)).build();
+		
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("depot", "a", 1.0).addTransportDistance("depot", "b", 20.0).addTransportDistance("a", "b", 21.0);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		
+		VehicleRoutingProblem vrp1 = VehicleRoutingProblem.Builder.newInstance().setRoutingCost(matrix).addVehicle(v).addService(a).build();
+		VehicleRoutingProblem vrp2 = VehicleRoutingProblem.Builder.newInstance().setRoutingCost(matrix).addLocation("b", b.getCoord())
+				.addService(b).addService(a).addVehicle(v).build();
+		
+		for(VehicleRoutingProblem vrp : new VehicleRoutingProblem[]{ vrp1, vrp2 }){
+			LocationIndex locationIndex = vrp.getLocationIndex();
+			int depot = locationIndex.getIndex(v.getLocationId());
+			assertEquals("depot",locationIndex.getLocationId(depot));
+			assertEquals("a",locationIndex.getLocationId(locationIndex.getIndex(a)));
+			assertEquals(a,vrp.getJobIndex().getJob(vrp.getJobIndex().getIndex(a)));
+			assertEquals(1.0,vrp.getIndexedTransportCosts().getTransportCost(depot, locationIndex.getIndex(a), 0.0, null, null),0.01);
+		}
+		assertEquals(JobIndex.NO_INDEX,vrp1.getJobIndex().getIndex(b));
+		assertEquals(20.0,vrp2.getIndexedTransportCosts().getTransportCost(vrp2.getLocationIndex().getIndex(v.getLocationId()), vrp2.getLocationIndex().getIndex(b), 0.0, null, null),0.01);
+	}
+	
 
 }
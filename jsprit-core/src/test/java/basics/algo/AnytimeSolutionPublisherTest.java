@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.AnytimeSolutionPublisher.Subscription;
+import basics.route.VehicleRoute;
+
+public class AnytimeSolutionPublisherTest {
+	
+	private AnytimeSolutionPublisher publisher;
+	
+	@Before
+	public void doBefore(){
+		publisher = new AnytimeSolutionPublisher();
+	}
+	
+	private Collection<VehicleRoutingProblemSolution> solutions(double cost){
+		List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+		solutions.add(new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), cost));
+		return solutions;
+	}
+	
+	@Test
+	public void whenAlgorithmStarts_itShouldPublishInitialBestSolution(){
+		Subscription subscription = publisher.subscribe(10);
+		publisher.informAlgorithmStarts(null, null, Arrays.asList(new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), 20.0),
+				new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), 10.0)));
+		SolutionSnapshot snapshot = subscription.poll();
+		assertEquals(10.0, snapshot.getCost(), 0.01);
+		assertEquals(0, snapshot.getIteration());
+		assertNull(subscription.poll());
+	}
+	
+	@Test
+	public void whenBestSolutionDoesNotImprove_itShouldNotPublish(){
+		Subscription subscription = publisher.subscribe(10);
+		publisher.informAlgorithmStarts(null, null, solutions(10.0));
+		publisher.informIterationEnds(1, null, solutions(10.0));
+		publisher.informIterationEnds(2, null, solutions(12.0));
+		publisher.informIterationEnds(3, null, solutions(8.0));
+		assertEquals(0, subscription.poll().getIteration());
+		SolutionSnapshot snapshot = subscription.poll();
+		assertEquals(3, snapshot.getIteration());
+		assertEquals(8.0, snapshot.getCost(), 0.01);
+		assertNull(subscription.poll());
+	}
+	
+	@Test
+	public void whenSnapshotIsPublished_itShouldNotChangeWithTheSearch(){
+		Subscription subscription = publisher.subscribe(10);
+		VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), 10.0);
+		publisher.informAlgorithmStarts(null, null, Arrays.asList(solution));
+		solution.setCost(5.0);
+		solution.getRoutes().add(VehicleRoute.emptyRoute());
+		SolutionSnapshot snapshot = subscription.poll();
+		assertEquals(10.0, snapshot.getCost(), 0.01);
+		assertTrue(snapshot.getSolution().getRoutes().isEmpty());
+	}
+	
+	@Test
+	public void whenQueueIsFull_itShouldDropOldestSnapshots(){
+		Subscription subscription = publisher.subscribe(2);
+		publisher.informAlgorithmStarts(null, null, solutions(10.0));
+		publisher.informIterationEnds(1, null, solutions(9.0));
+		publisher.informIterationEnds(2, null, solutions(8.0));
+		publisher.informIterationEnds(3, null, solutions(7.0));
+		assertEquals(2, subscription.getNuOfDroppedSnapshots());
+		assertEquals(2, subscription.poll().getIteration());
+		assertEquals(3, subscription.poll().getIteration());
+	}
+	
+	@Test
+	public void whenAlgorithmEnds_subscriptionShouldCompleteOnceItIsEmpty(){
+		Subscription subscription = publisher.subscribe(10);
+		publisher.informAlgorithmStarts(null, null, solutions(10.0));
+		publisher.informAlgorithmEnds(null, solutions(10.0));
+		assertTrue(!subscription.isCompleted());
+		subscription.poll();
+		assertTrue(subscription.isCompleted());
+	}
+	
+	@Test
+	public void whenListenerIsSubscribed_itShouldBeInformedInItsOwnThread() throws InterruptedException{
+		final List<Double> costs = new ArrayList<Double>();
+		final CountDownLatch searchEnds = new CountDownLatch(1);
+		final Thread searchThread = Thread.currentThread();
+		final List<Boolean> informedInSearchThread = new ArrayList<Boolean>();
+		publisher.subscribe(new AnytimeSolutionListener() {
+			
+			@Override
+			public void informNewBestSolution(SolutionSnapshot snapshot) {
+				costs.add(snapshot.getCost());
+				informedInSearchThread.add(Thread.currentThread() == searchThread);
+			}
+
+			@Override
+			public void informSearchEnds() {
+				searchEnds.countDown();
+			}
+			
+		}, 10);
+		publisher.informAlgorithmStarts(null, null, solutions(10.0));
+		publisher.informIterationEnds(1, null, solutions(9.0));
+		publisher.informAlgorithmEnds(null, solutions(8.0));
+		assertTrue(searchEnds.await(10, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(10.0, 9.0, 8.0), costs);
+		assertEquals(Arrays.asList(false, false, false), informedInSearchThread);
+	}
+	
+	@Test
+	public void whenAlgorithmStartsAgain_subscriptionShouldNotBeCompletedUntilItEndsAgain(){
+		Subscription subscription = publisher.subscribe(10);
+		publisher.informAlgorithmStarts(null, null, solutions(10.0));
+		publisher.informAlgorithmEnds(null, solutions(10.0));
+		subscription.poll();
+		assertTrue(subscription.isCompleted());
+		
+		publisher.informAlgorithmStarts(null, null, solutions(20.0));
+		assertEquals(20.0, subscription.poll().getCost(), 0.01);
+		assertTrue(!subscription.isCompleted());
+		publisher.informAlgorithmEnds(null, solutions(20.0));
+		assertTrue(subscription.isCompleted());
+	}
+	
+	@Test
+	public void whenAlgorithmStartsAgain_listenerShouldBeInformedAboutEachSearch() throws InterruptedException{
+		final List<String> events = new ArrayList<String>();
+		final CountDownLatch searchEnds = new CountDownLatch(2);
+		publisher.subscribe(new AnytimeSolutionListener() {
+			
+			@Override
+			public void informNewBestSolution(SolutionSnapshot snapshot) {
+				events.add("" + snapshot.getCost());
+			}
+
+			@Override
+			public void informSearchEnds() {
+				events.add("end");
+				searchEnds.countDown();
+			}
+			
+		}, 10);
+		publisher.informAlgorithmStarts(null, null, solutions(10.0));
+		publisher.informAlgorithmEnds(null, solutions(9.0));
+		publisher.informAlgorithmStarts(null, null, solutions(20.0));
+		publisher.informAlgorithmEnds(null, solutions(19.0));
+		assertTrue(searchEnds.await(10, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("10.0", "9.0", "end", "20.0", "19.0", "end"), events);
+	}
+
+}
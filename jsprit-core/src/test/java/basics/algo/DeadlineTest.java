@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DeadlineTest {
+	
+	@Test
+	public void whenNoDeadlineIsSet_itShouldNeverBeExceeded(){
+		Deadline deadline = new Deadline();
+		assertFalse(deadline.isSet());
+		assertFalse(deadline.isExceeded());
+		assertEquals(Long.MAX_VALUE, deadline.getRemainingTime());
+	}
+	
+	@Test
+	public void whenDeadlineHasPassed_itShouldBeExceeded(){
+		Deadline deadline = new Deadline();
+		deadline.restrict(System.nanoTime() - 1);
+		assertTrue(deadline.isExceeded());
+		assertTrue(deadline.getRemainingTime() < 0);
+	}
+	
+	@Test
+	public void whenDeadlineIsInTheFuture_itShouldNotBeExceeded(){
+		Deadline deadline = new Deadline();
+		deadline.restrictToBudget(60.0);
+		assertFalse(deadline.isExceeded());
+		assertTrue(deadline.getRemainingTime() > 0);
+	}
+	
+	@Test
+	public void whenDeadlineIsRestrictedTwice_theEarlierOneShouldWin(){
+		Deadline deadline = new Deadline();
+		deadline.restrict(System.nanoTime() - 1);
+		deadline.restrictToBudget(60.0);
+		assertTrue(deadline.isExceeded());
+	}
+	
+	@Test
+	public void whenDeadlineIsCleared_itShouldNotBeExceeded(){
+		Deadline deadline = new Deadline();
+		deadline.restrict(System.nanoTime() - 1);
+		deadline.clear();
+		assertFalse(deadline.isExceeded());
+	}
+	
+	@Test
+	public void whenDeadlineIsRestrictedToAnotherDeadline_itShouldTakeItOnlyIfItIsSet(){
+		Deadline deadline = new Deadline();
+		deadline.restrict(new Deadline());
+		assertFalse(deadline.isSet());
+		Deadline passed = new Deadline();
+		passed.restrict(System.nanoTime() - 1);
+		deadline.restrict(passed);
+		assertTrue(deadline.isExceeded());
+	}
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package basics.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.Test;
+
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.VehicleRoutingProblemSolution;
+import basics.algo.SearchStrategy.DiscoveredSolution;
+import basics.route.VehicleRoute;
+
+public class PrematureAlgorithmBreakerTest {
+	
+	static class FixedBreaker implements PrematureAlgorithmBreaker, AlgorithmStartsListener {
+
+		boolean breaks;
+		
+		int nuOfCalls = 0;
+		
+		boolean started = false;
+		
+		FixedBreaker(boolean breaks) {
+			super();
+			this.breaks = breaks;
+		}
+
+		@Override
+		public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+			nuOfCalls++;
+			return breaks;
+		}
+
+		@Override
+		public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+			started = true;
+		}
+		
+	}
+	
+	private DiscoveredSolution discoveredSolution(double cost, boolean accepted){
+		return new DiscoveredSolution(new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), cost), accepted, "strategy");
+	}
+	
+	@Test
+	public void whenAnyBreakerBreaks_anyShouldBreak(){
+		FixedBreaker no = new FixedBreaker(false);
+		FixedBreaker yes = new FixedBreaker(true);
+		assertTrue(CompositeBreaker.any(yes, no).isPrematureBreak(discoveredSolution(10.0, true)));
+		assertEquals(1, no.nuOfCalls);
+	}
+	
+	@Test
+	public void whenNoBreakerBreaks_anyShouldNotBreak(){
+		assertFalse(CompositeBreaker.any(new FixedBreaker(false), new FixedBreaker(false)).isPrematureBreak(discoveredSolution(10.0, true)));
+	}
+	
+	@Test
+	public void whenNotAllBreakersBreak_allShouldNotBreak(){
+		assertFalse(CompositeBreaker.all(new FixedBreaker(true), new FixedBreaker(false)).isPrematureBreak(discoveredSolution(10.0, true)));
+		assertTrue(CompositeBreaker.all(new FixedBreaker(true), new FixedBreaker(true)).isPrematureBreak(discoveredSolution(10.0, true)));
+	}
+	
+	@Test
+	public void whenAlgorithmStarts_compositeShouldInformBreakers(){
+		FixedBreaker breaker = new FixedBreaker(false);
+		CompositeBreaker.any(breaker).informAlgorithmStarts(null, null, null);
+		assertTrue(breaker.started);
+	}
+	
+	@Test
+	public void whenAcceptedSolutionReachesTarget_objectiveValueBreakerShouldBreak(){
+		ObjectiveValueBreaker breaker = new ObjectiveValueBreaker(100.0);
+		assertFalse(breaker.isPrematureBreak(discoveredSolution(100.1, true)));
+		assertFalse(breaker.isPrematureBreak(discoveredSolution(99.0, false)));
+		assertTrue(breaker.isPrematureBreak(discoveredSolution(100.0, true)));
+	}
+	
+	@Test
+	public void whenAlgorithmStarts_timeBreakerShouldRestrictDeadline(){
+		VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(VehicleRoutingProblem.Builder.newInstance().build(), new SearchStrategyManager());
+		TimeBreaker breaker = new TimeBreaker(60.0);
+		breaker.informAlgorithmStarts(null, algorithm, null);
+		assertTrue(algorithm.getDeadline().isSet());
+		assertFalse(algorithm.getDeadline().isExceeded());
+		assertFalse(breaker.isPrematureBreak(discoveredSolution(10.0, true)));
+	}
+	
+	@Test
+	public void whenTimeBreakerIsPartOfAll_itShouldNotRestrictDeadline() throws InterruptedException{
+		VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(VehicleRoutingProblem.Builder.newInstance().build(), new SearchStrategyManager());
+		CompositeBreaker breaker = CompositeBreaker.all(new TimeBreaker(0.0), new ObjectiveValueBreaker(100.0));
+		breaker.informAlgorithmStarts(null, algorithm, null);
+		Thread.sleep(5);
+		assertFalse(algorithm.getDeadline().isSet());
+		assertFalse(breaker.isPrematureBreak(discoveredSolution(200.0, true)));
+		assertTrue(breaker.isPrematureBreak(discoveredSolution(50.0, true)));
+	}
+	
+	@Test
+	public void whenTimeBreakerIsPartOfAnyWithinAll_itShouldNotRestrictDeadline(){
+		VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(VehicleRoutingProblem.Builder.newInstance().build(), new SearchStrategyManager());
+		CompositeBreaker.all(CompositeBreaker.any(new TimeBreaker(0.0)), new FixedBreaker(false)).informAlgorithmStarts(null, algorithm, null);
+		assertFalse(algorithm.getDeadline().isSet());
+	}
+	
+	@Test
+	public void whenTimeBreakerIsPartOfAny_itShouldRestrictDeadline(){
+		VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(VehicleRoutingProblem.Builder.newInstance().build(), new SearchStrategyManager());
+		CompositeBreaker.any(new TimeBreaker(60.0), new FixedBreaker(false)).informAlgorithmStarts(null, algorithm, null);
+		assertTrue(algorithm.getDeadline().isSet());
+	}
+	
+	@Test
+	public void whenCpuTimeIsNotConsumed_cpuTimeBreakerShouldNotBreak(){
+		CpuTimeBreaker breaker = new CpuTimeBreaker(60.0);
+		breaker.informAlgorithmStarts(null, null, null);
+		assertFalse(breaker.isPrematureBreak(discoveredSolution(10.0, true)));
+	}
+
+}
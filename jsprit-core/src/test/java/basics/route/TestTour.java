@@ -79,5 +79,108 @@ public class TestTour {
 //		assertEquals(0, tour.getActivities().size());
 	}
 	
+	@Test
+	public void whenAddingAndRemovingActs_modCountShouldIncrease(){
+		int modCount = tour.getModCount();
+		tour.addActivity(act);
+		assertEquals(modCount+1, tour.getModCount());
+		tour.removeJob(service);
+		assertEquals(modCount+2, tour.getModCount());
+	}
+	
+	@Test
+	public void whenNothingHasBeenModified_modifiedIndicesShouldBeEmpty(){
+		tour.addActivity(act);
+		int modCount = tour.getModCount();
+		assertEquals(1, tour.getLowestModifiedIndex(modCount));
+		assertEquals(-1, tour.getHighestModifiedIndex(modCount));
+	}
+	
+	@Test
+	public void whenInsertingAndRemovingActs_modifiedIndicesShouldCoverThem(){
+		for(int i=0;i<6;i++){
+			tour.addActivity(ServiceActivity.newInstance(Service.Builder.newInstance("s" + i, 1).setLocationId("loc").build()));
+		}
+		int modCount = tour.getModCount();
+		tour.removeJob(Service.Builder.newInstance("s1", 1).setLocationId("loc").build());
+		tour.addActivity(3, act);
+		//s0,s2,s3,yo,s4,s5
+		assertEquals(1, tour.getLowestModifiedIndex(modCount));
+		assertEquals(3, tour.getHighestModifiedIndex(modCount));
+		
+		modCount = tour.getModCount();
+		tour.addActivity(0, ServiceActivity.newInstance(Service.Builder.newInstance("s6", 1).setLocationId("loc").build()));
+		tour.removeJob(Service.Builder.newInstance("s4", 1).setLocationId("loc").build());
+		//s6,s0,s2,s3,yo,s5
+		assertEquals(0, tour.getLowestModifiedIndex(modCount));
+		assertEquals(5, tour.getHighestModifiedIndex(modCount));
+	}
+	
+	@Test
+	public void whenTourIsMarkedModified_allIndicesShouldBeModified(){
+		tour.addActivity(act);
+		int modCount = tour.getModCount();
+		tour.markModified();
+		assertEquals(0, tour.getLowestModifiedIndex(modCount));
+		assertEquals(0, tour.getHighestModifiedIndex(modCount));
+	}
+	
+	@Test
+	public void whenModCountIsUnknown_allIndicesShouldBeModified(){
+		tour.addActivity(act);
+		assertEquals(0, tour.getLowestModifiedIndex(-1));
+		assertEquals(0, tour.getHighestModifiedIndex(-1));
+	}
+	
+	@Test
+	public void whenSharedCopyIsNotModified_itShouldShareActivities(){
+		tour.addActivity(act);
+		TourActivities copy = TourActivities.sharedCopyOf(tour);
+		assertSame(act, copy.getActivities().get(0));
+		assertTrue(copy.servesJob(service));
+	}
+	
+	@Test
+	public void whenSharedCopyIsNotModified_itShouldHaveKeyAndModCountOfOriginal(){
+		tour.addActivity(act);
+		TourActivities copy = TourActivities.sharedCopyOf(tour);
+		assertSame(tour.getActivitiesKey(), copy.getActivitiesKey());
+		assertEquals(tour.getModCount(), copy.getModCount());
+		copy.removeJob(service);
+		assertNotSame(tour.getActivitiesKey(), copy.getActivitiesKey());
+		assertEquals(0, copy.getLowestModifiedIndex(tour.getModCount()));
+	}
+	
+	@Test
+	public void whenSharedCopyIsModified_originalShouldNotChange(){
+		tour.addActivity(act);
+		TourActivities copy = TourActivities.sharedCopyOf(tour);
+		Service anotherService = Service.Builder.newInstance("anotherService", 10).setLocationId("loc").build();
+		copy.addActivity(0, ServiceActivity.newInstance(anotherService));
+		assertEquals(2, copy.getActivities().size());
+		assertNotSame(act, copy.getActivities().get(1));
+		assertEquals(1, tour.getActivities().size());
+		assertSame(act, tour.getActivities().get(0));
+		assertFalse(tour.servesJob(anotherService));
+	}
+	
+	@Test
+	public void whenOriginalIsModified_sharedCopyShouldNotChange(){
+		tour.addActivity(act);
+		TourActivities copy = TourActivities.sharedCopyOf(tour);
+		tour.removeJob(service);
+		assertTrue(tour.isEmpty());
+		assertEquals(1, copy.getActivities().size());
+		assertTrue(copy.servesJob(service));
+	}
+	
+	@Test
+	public void whenSharedCopyIsMarkedModified_itShouldDuplicateActivities(){
+		tour.addActivity(act);
+		TourActivities copy = TourActivities.sharedCopyOf(tour);
+		copy.markModified();
+		assertNotSame(act, copy.getActivities().get(0));
+		assertSame(act, tour.getActivities().get(0));
+	}
 	
 }
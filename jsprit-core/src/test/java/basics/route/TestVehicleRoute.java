@@ -21,6 +21,8 @@
 package basics.route;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Iterator;
@@ -238,4 +240,16 @@ public class TestVehicleRoute {
 		}
 	}
 
+	@Test
+	public void whenCopyingRoute_copyShouldShareActivitiesAndDeepCopyShouldDuplicateThem(){
+		TourActivities tour = TourActivities.emptyTour();
+		ServiceActivity act = ServiceActivity.newInstance(Service.Builder.newInstance("s", 1).setLocationId("loc1").build());
+		tour.addActivity(act);
+		VehicleRoute route = VehicleRoute.newInstance(tour, driver, vehicle);
+		assertSame(act, VehicleRoute.copyOf(route).getTourActivities().getActivities().get(0));
+		VehicleRoute deepCopy = VehicleRoute.deepCopyOf(route);
+		assertNotSame(act, deepCopy.getTourActivities().getActivities().get(0));
+		assertTrue(deepCopy.getTourActivities().servesJob(act.getJob()));
+	}
+
 }
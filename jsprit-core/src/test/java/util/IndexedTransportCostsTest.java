@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import basics.LocationIndex;
+import basics.Service;
+import basics.VehicleRoutingProblem;
+import basics.costs.IndexedTransportCosts;
+import basics.costs.IndexedTransportCostsAdapter;
+import basics.costs.TransportLeg;
+import basics.costs.VehicleRoutingTransportCosts;
+import basics.route.Driver;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+public class IndexedTransportCostsTest {
+	
+	private VehicleRoutingProblem.Builder newProblemBuilder(){
+		VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+		builder.addVehicle(VehicleImpl.Builder.newInstance("v").setLocationId("1").setLocationCoord(Coordinate.newInstance(0, 0))
+				.setType(VehicleTypeImpl.Builder.newInstance("type", 10).setCostPerDistance(2.).setCostPerTime(3.).build()).build());
+		builder.addService(Service.Builder.newInstance("s2", 1).setLocationId("2").setCoord(Coordinate.newInstance(3, 4)).build());
+		builder.addService(Service.Builder.newInstance("s3", 1).setLocationId("3").setCoord(Coordinate.newInstance(6, 8)).build());
+		return builder;
+	}
+	
+	private void assertSameValuesAsById(VehicleRoutingProblem vrp){
+		IndexedTransportCosts indexed = vrp.getIndexedTransportCosts();
+		VehicleRoutingTransportCosts costs = vrp.getTransportCosts();
+		LocationIndex locationIndex = vrp.getLocationIndex();
+		Vehicle vehicle = vrp.getVehicles().iterator().next();
+		TransportLeg leg = new TransportLeg();
+		for(String from : Arrays.asList("1","2","3")){
+			for(String to : Arrays.asList("1","2","3")){
+				int fromIndex = locationIndex.getIndex(from);
+				int toIndex = locationIndex.getIndex(to);
+				assertEquals(costs.getTransportTime(from, to, 0.0, null, vehicle),indexed.getTransportTime(fromIndex, toIndex, 0.0, null, vehicle),0.01);
+				assertEquals(costs.getTransportCost(from, to, 0.0, null, vehicle),indexed.getTransportCost(fromIndex, toIndex, 0.0, null, vehicle),0.01);
+				assertEquals(costs.getBackwardTransportTime(from, to, 10.0, null, vehicle),indexed.getBackwardTransportTime(fromIndex, toIndex, 10.0, null, vehicle),0.01);
+				indexed.getTransportLeg(fromIndex, toIndex, 0.0, null, vehicle, leg);
+				assertEquals(costs.getTransportTime(from, to, 0.0, null, vehicle),leg.getTime(),0.01);
+				assertEquals(costs.getTransportCost(from, to, 0.0, null, vehicle),leg.getCost(),0.01);
+			}
+		}
+	}
+	
+	@Test
+	public void whenCostsAreCrowFly_indexedCostsShouldReturnSameValuesAsById(){
+		assertSameValuesAsById(newProblemBuilder().build());
+	}
+	
+	@Test
+	public void whenCostsAreMatrix_indexedCostsShouldReturnSameValuesAsById(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("3", "2", 5.);
+		matrixBuilder.addTransportDistance("1", "2", 5.);
+		matrixBuilder.addTransportDistance("1", "3", 10.);
+		matrixBuilder.addTransportTime("3", "2", 1.);
+		matrixBuilder.addTransportTime("1", "2", 2.);
+		matrixBuilder.addTransportTime("1", "3", 4.);
+		assertSameValuesAsById(newProblemBuilder().setRoutingCost(matrixBuilder.build()).build());
+	}
+	
+	@Test
+	public void whenCostsAreNeitherIndexedNorIndexable_adapterShouldReturnSameValuesAsById(){
+		VehicleRoutingProblem.Builder builder = newProblemBuilder();
+		final CrowFlyCosts crowFly = new CrowFlyCosts(builder.getLocations());
+		builder.setRoutingCost(new VehicleRoutingTransportCosts() {
+			
+			@Override
+			public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				return crowFly.getTransportTime(fromId, toId, departureTime, driver, vehicle);
+			}
+			
+			@Override
+			public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				return 2.*crowFly.getTransportCost(fromId, toId, departureTime, driver, vehicle);
+			}
+			
+			@Override
+			public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+				return crowFly.getBackwardTransportTime(fromId, toId, arrivalTime, driver, vehicle);
+			}
+			
+			@Override
+			public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+				return crowFly.getBackwardTransportCost(fromId, toId, arrivalTime, driver, vehicle);
+			}
+		});
+		VehicleRoutingProblem vrp = builder.build();
+		assertEquals(IndexedTransportCostsAdapter.class,vrp.getIndexedTransportCosts().getClass());
+		assertSameValuesAsById(vrp);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenLocationIsUnknownToMatrix_itShouldThrowException(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 5.);
+		VehicleRoutingProblem vrp = newProblemBuilder().setRoutingCost(matrixBuilder.build()).build();
+		vrp.getIndexedTransportCosts().getTransportCost(vrp.getLocationIndex().getIndex("1"), vrp.getLocationIndex().getIndex("3"), 0.0, null, null);
+	}
+
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.MappedTransportCostsMatrix.Precision;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+public class MappedTransportCostsMatrixTest {
+	
+	private File file;
+	
+	@Before
+	public void doBefore() throws IOException{
+		file = File.createTempFile("matrix", ".bin");
+	}
+	
+	@After
+	public void doAfter(){
+		file.delete();
+	}
+	
+	@Test
+	public void whenWritingSymmetricMatrix_itShouldReturnDistancesInBothDirections(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		matrixBuilder.addTransportDistance("2", "3", 4.);
+		new MappedTransportCostsMatrixWriter(matrixBuilder).write(file);
+		MappedTransportCostsMatrix matrix = MappedTransportCostsMatrix.newInstance(file);
+		assertEquals(3, matrix.getNuOfLocations());
+		assertEquals(2.,matrix.getTransportCost("1", "2", 0.0, null, null),0.01);
+		assertEquals(2.,matrix.getTransportCost("2", "1", 0.0, null, null),0.01);
+		assertEquals(4.,matrix.getTransportCost("3", "2", 0.0, null, null),0.01);
+	}
+	
+	@Test
+	public void whenWritingAsymmetricMatrixWithFloatPrecision_itShouldReturnBothDirections(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+		matrixBuilder.addTransportDistance("depot", "customer", 2.5);
+		matrixBuilder.addTransportDistance("customer", "depot", 3.5);
+		matrixBuilder.addTransportTime("depot", "customer", 10.);
+		matrixBuilder.addTransportTime("customer", "depot", 20.);
+		new MappedTransportCostsMatrixWriter(matrixBuilder, Precision.FLOAT).write(file);
+		MappedTransportCostsMatrix matrix = MappedTransportCostsMatrix.newInstance(file);
+		assertEquals(2.5,matrix.getTransportCost("depot", "customer", 0.0, null, null),0.01);
+		assertEquals(3.5,matrix.getTransportCost("customer", "depot", 0.0, null, null),0.01);
+		assertEquals(10.,matrix.getTransportTime("depot", "customer", 0.0, null, null),0.01);
+		assertEquals(20.,matrix.getTransportTime("customer", "depot", 0.0, null, null),0.01);
+	}
+	
+	@Test
+	public void whenWritingMatrix_itShouldReturnSameCostsAsInMemoryMatrix(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+		for(int i=0;i<20;i++){
+			for(int j=0;j<20;j++){
+				matrixBuilder.addTransportDistance("loc"+i, "loc"+j, i*100+j);
+				matrixBuilder.addTransportTime("loc"+i, "loc"+j, i+j*100);
+			}
+		}
+		new MappedTransportCostsMatrixWriter(matrixBuilder).write(file);
+		MappedTransportCostsMatrix mappedMatrix = MappedTransportCostsMatrix.newInstance(file);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("t", 0).setCostPerDistance(2.).setCostPerTime(1.).build();
+		Vehicle vehicle = VehicleImpl.Builder.newInstance("v").setLocationId("loc0").setType(type).build();
+		for(int i=0;i<20;i++){
+			for(int j=0;j<20;j++){
+				assertEquals(matrix.getTransportCost("loc"+i, "loc"+j, 0.0, null, vehicle),mappedMatrix.getTransportCost("loc"+i, "loc"+j, 0.0, null, vehicle),0.0001);
+			}
+		}
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenRelationDoesNotExist_itShouldThrowException(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		new MappedTransportCostsMatrixWriter(matrixBuilder).write(file);
+		MappedTransportCostsMatrix matrix = MappedTransportCostsMatrix.newInstance(file);
+		matrix.getTransportCost("2", "1", 0.0, null, null);
+	}
+	
+	@Test
+	public void whenTimesAreNotSet_itShouldReturnZeroTime(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		new MappedTransportCostsMatrixWriter(matrixBuilder).write(file);
+		MappedTransportCostsMatrix matrix = MappedTransportCostsMatrix.newInstance(file);
+		assertEquals(0.,matrix.getTransportTime("1", "2", 0.0, null, null),0.01);
+		assertTrue(matrix.getLocationIndex("unknown") < 0);
+	}
+
+}
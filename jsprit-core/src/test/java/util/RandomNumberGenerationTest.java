@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import basics.algo.SearchStrategy;
+import basics.algo.SearchStrategyManager;
+
+public class RandomNumberGenerationTest {
+	
+	@After
+	public void doAfter(){
+		RandomNumberGeneration.removeThreadSeed();
+		RandomNumberGeneration.reset();
+	}
+	
+	@Test
+	public void whenSeedIsSetAgain_componentsShouldGetSameNumbers(){
+		RandomNumberGeneration.setSeed(42);
+		long first = RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong();
+		RandomNumberGeneration.setSeed(42);
+		assertEquals(first, RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong());
+	}
+	
+	@Test
+	public void componentNumbersShouldNotDependOnOtherComponents(){
+		RandomNumberGeneration.setSeed(42);
+		long first = RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong();
+		RandomNumberGeneration.setSeed(42);
+		RandomNumberGeneration.newRandom(SearchStrategyManager.class).nextLong();
+		RandomNumberGeneration.getRandom().nextLong();
+		assertEquals(first, RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong());
+	}
+	
+	@Test
+	public void whenComponentObtainsSecondRandom_itShouldDifferFromFirst(){
+		RandomNumberGeneration.setSeed(42);
+		long first = RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong();
+		long second = RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong();
+		assertFalse(first == second);
+	}
+	
+	@Test
+	public void whenDifferentComponentsObtainRandoms_theyShouldDiffer(){
+		RandomNumberGeneration.setSeed(42);
+		long strategy = RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong();
+		long manager = RandomNumberGeneration.newRandom(SearchStrategyManager.class).nextLong();
+		assertFalse(strategy == manager);
+	}
+	
+	@Test
+	public void whenThreadSeedIsSet_numbersShouldNotDependOnThread() throws Exception{
+		RandomNumberGeneration.setThreadSeed(RandomNumberGeneration.deriveSeed(42, 1));
+		long inThisThread = RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try{
+			Future<Long> inOtherThread = executor.submit(new Callable<Long>() {
+
+				@Override
+				public Long call() throws Exception {
+					RandomNumberGeneration.setThreadSeed(RandomNumberGeneration.deriveSeed(42, 1));
+					return RandomNumberGeneration.newRandom(SearchStrategy.class).nextLong();
+				}
+				
+			});
+			assertEquals(inThisThread, inOtherThread.get().longValue());
+		}
+		finally{
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void whenThreadSeedIsSet_globalSeedShouldNotBeUsed(){
+		RandomNumberGeneration.setSeed(42);
+		RandomNumberGeneration.setThreadSeed(42);
+		Random threadRandom = RandomNumberGeneration.newRandom(SearchStrategy.class);
+		RandomNumberGeneration.removeThreadSeed();
+		Random globalRandom = RandomNumberGeneration.newRandom(SearchStrategy.class);
+		assertEquals(globalRandom.nextLong(), threadRandom.nextLong());
+		assertEquals(42, RandomNumberGeneration.getSeed());
+	}
+	
+	@Test
+	public void derivedSeedsShouldDifferForAdjacentStreams(){
+		assertFalse(RandomNumberGeneration.deriveSeed(42, 0) == RandomNumberGeneration.deriveSeed(42, 1));
+		assertFalse(RandomNumberGeneration.deriveSeed(42, 0) == RandomNumberGeneration.deriveSeed(43, 0));
+	}
+	
+}
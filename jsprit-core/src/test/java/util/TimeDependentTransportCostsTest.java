@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import util.TimeDependentTransportCosts.SpeedProfile;
+import basics.Service;
+import basics.VehicleRoutingProblem;
+import basics.costs.IndexedTransportCosts;
+import basics.costs.TransportLeg;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+public class TimeDependentTransportCostsTest {
+	
+	private VehicleRoutingProblem.Builder vrpBuilder;
+	
+	/**
+	 * speed 1 until 10, speed 2 until 100, speed 0.5 afterwards
+	 */
+	private SpeedProfile rushHour;
+	
+	@Before
+	public void doBefore(){
+		vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setLocationId("0,0").setLocationCoord(Coordinate.newInstance(0, 0))
+				.setType(VehicleTypeImpl.Builder.newInstance("type", 10).setCostPerDistance(1.).setCostPerTime(2.).build()).build());
+		vrpBuilder.addService(Service.Builder.newInstance("s", 1).setLocationId("20,0").setCoord(Coordinate.newInstance(20, 0)).build());
+		vrpBuilder.addService(Service.Builder.newInstance("t", 1).setLocationId("0,30").setCoord(Coordinate.newInstance(0, 30)).build());
+		rushHour = SpeedProfile.newInstance(new double[]{ 10., 100., 200. }, new double[]{ 1., 2., 0.5 });
+	}
+	
+	@Test
+	public void whenProfileIsConstant_itShouldReturnCrowFlyTimes(){
+		TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder.newInstance(vrpBuilder.getLocations(), SpeedProfile.constant(4.)).build();
+		assertEquals(5.,costs.getTransportTime("0,0", "20,0", 17.0, null, null),0.001);
+		assertEquals(5.,costs.getBackwardTransportTime("0,0", "20,0", 17.0, null, null),0.001);
+		assertEquals(20.,costs.getTransportCost("0,0", "20,0", 17.0, null, null),0.001);
+	}
+	
+	@Test
+	public void whenDepartingBeforeSpeedChanges_itShouldTravelInBothBins(){
+		TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder.newInstance(vrpBuilder.getLocations(), rushHour).build();
+		//10 distance units with speed 1 until 10, then 10 distance units with speed 2
+		assertEquals(15.,costs.getTransportTime("0,0", "20,0", 0.0, null, null),0.001);
+		assertEquals(10.,costs.getTransportTime("0,0", "20,0", 10.0, null, null),0.001);
+		//beyond the last bin, its speed continues
+		assertEquals(40.,costs.getTransportTime("0,0", "20,0", 300.0, null, null),0.001);
+	}
+	
+	@Test
+	public void backwardTimeShouldBeInverseOfForwardTime(){
+		TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder.newInstance(vrpBuilder.getLocations(), rushHour).build();
+		for(double departureTime=-20.;departureTime<=250.;departureTime+=2.5){
+			double time = costs.getTransportTime("0,0", "0,30", departureTime, null, null);
+			assertEquals(time,costs.getBackwardTransportTime("0,0", "0,30", departureTime + time, null, null),0.001);
+		}
+	}
+	
+	@Test
+	public void transportTimesShouldBeFifo(){
+		TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder.newInstance(vrpBuilder.getLocations(), rushHour).build();
+		double prevArrival = -Double.MAX_VALUE;
+		for(double departureTime=0.;departureTime<=250.;departureTime+=0.5){
+			double arrival = departureTime + costs.getTransportTime("0,0", "0,30", departureTime, null, null);
+			assertTrue(arrival >= prevArrival);
+			prevArrival = arrival;
+		}
+	}
+	
+	@Test
+	public void whenArcHasOwnProfile_itShouldUseIt(){
+		TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder.newInstance(vrpBuilder.getLocations(), rushHour)
+				.setArcProfile("0,0", "20,0", SpeedProfile.constant(10.)).build();
+		assertEquals(2.,costs.getTransportTime("0,0", "20,0", 0.0, null, null),0.001);
+		assertEquals(15.,costs.getTransportTime("20,0", "0,0", 0.0, null, null),0.001);
+	}
+	
+	@Test
+	public void whenCalculatingLeg_itShouldConsiderVehicleCostParams(){
+		TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder.newInstance(vrpBuilder.getLocations(), rushHour).build();
+		Vehicle vehicle = vrpBuilder.getAddedVehicles().iterator().next();
+		TransportLeg leg = new TransportLeg();
+		costs.getTransportLeg("0,0", "20,0", 0.0, null, vehicle, leg);
+		assertEquals(15.,leg.getTime(),0.001);
+		assertEquals(20.,leg.getDistance(),0.001);
+		assertEquals(50.,leg.getCost(),0.001);
+		assertEquals(leg.getCost(),costs.getTransportCost("0,0", "20,0", 0.0, null, vehicle),0.001);
+	}
+	
+	@Test
+	public void indexedCostsShouldReturnSameValuesAsById(){
+		TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder.newInstance(vrpBuilder.getLocations(), rushHour)
+				.setArcProfile("0,0", "20,0", SpeedProfile.constant(10.)).build();
+		VehicleRoutingProblem vrp = vrpBuilder.setRoutingCost(costs).build();
+		IndexedTransportCosts indexed = vrp.getIndexedTransportCosts();
+		Vehicle vehicle = vrp.getVehicles().iterator().next();
+		String[] ids = new String[]{ "0,0", "20,0", "0,30" };
+		for(String from : ids){
+			for(String to : ids){
+				int fromIndex = vrp.getLocationIndex().getIndex(from);
+				int toIndex = vrp.getLocationIndex().getIndex(to);
+				assertEquals(costs.getTransportTime(from, to, 5., null, vehicle),indexed.getTransportTime(fromIndex, toIndex, 5., null, vehicle),0.001);
+				assertEquals(costs.getBackwardTransportTime(from, to, 50., null, vehicle),indexed.getBackwardTransportTime(fromIndex, toIndex, 50., null, vehicle),0.001);
+				assertEquals(costs.getTransportCost(from, to, 5., null, vehicle),indexed.getTransportCost(fromIndex, toIndex, 5., null, vehicle),0.001);
+			}
+		}
+	}
+	
+	@Test
+	public void breakpointsShouldBeTheSortedBinEndsOfAllProfiles(){
+		TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder.newInstance(vrpBuilder.getLocations(), rushHour)
+				.setArcProfile("0,0", "20,0", SpeedProfile.newInstance(new double[]{ 50., 100. }, new double[]{ 1., 2. })).build();
+		assertArrayEquals(new double[]{ 10., 50., 100., 200. },costs.getBreakpoints(),0.001);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenBinEndsAreNotIncreasing_itShouldThrowException(){
+		SpeedProfile.newInstance(new double[]{ 10., 5. }, new double[]{ 1., 2. });
+	}
+
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import basics.costs.TransportLeg;
+import basics.costs.TransportLegCosts;
+import basics.costs.TransportLegCostsAdapter;
+import basics.costs.VehicleRoutingTransportCosts;
+import basics.route.Driver;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+public class TransportLegCostsTest {
+	
+	private Locations locations;
+	
+	private Vehicle vehicle;
+	
+	@Before
+	public void doBefore(){
+		locations = new Locations() {
+			
+			@Override
+			public Coordinate getCoord(String id) {
+				if(id.equals("0,0")) return Coordinate.newInstance(0, 0);
+				if(id.equals("3,4")) return Coordinate.newInstance(3, 4);
+				return null;
+			}
+		};
+		vehicle = VehicleImpl.Builder.newInstance("v").setLocationId("0,0").setType(VehicleTypeImpl.Builder.newInstance("type", 10).setCostPerDistance(2.).build()).build();
+	}
+	
+	@Test
+	public void whenQueryingCrowFlyLeg_itShouldReturnSameValuesAsSeparateQueries(){
+		CrowFlyCosts crowFly = new CrowFlyCosts(locations);
+		crowFly.speed = 2;
+		TransportLeg leg = new TransportLeg();
+		crowFly.getTransportLeg("0,0", "3,4", 0.0, null, vehicle, leg);
+		assertEquals(crowFly.getTransportTime("0,0", "3,4", 0.0, null, vehicle),leg.getTime(),0.01);
+		assertEquals(5.,leg.getDistance(),0.01);
+		assertEquals(crowFly.getTransportCost("0,0", "3,4", 0.0, null, vehicle),leg.getCost(),0.01);
+	}
+	
+	@Test
+	public void whenAdaptingLegCosts_itShouldReturnThemAsTheyAre(){
+		CrowFlyCosts crowFly = new CrowFlyCosts(locations);
+		assertSame(crowFly,TransportLegCostsAdapter.adapt(crowFly));
+	}
+	
+	@Test
+	public void whenAdaptingCostsWithoutLegs_itShouldReturnTimeAndCostOfSeparateQueriesAndUnknownDistance(){
+		VehicleRoutingTransportCosts costs = new VehicleRoutingTransportCosts() {
+			
+			@Override
+			public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				return 7.;
+			}
+			
+			@Override
+			public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				return 11.;
+			}
+			
+			@Override
+			public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+				return 13.;
+			}
+			
+			@Override
+			public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+				return 17.;
+			}
+		};
+		TransportLegCosts legCosts = TransportLegCostsAdapter.adapt(costs);
+		TransportLeg leg = new TransportLeg();
+		legCosts.getTransportLeg("0,0", "3,4", 0.0, null, vehicle, leg);
+		assertEquals(7.,leg.getTime(),0.01);
+		assertEquals(11.,leg.getCost(),0.01);
+		assertTrue(Double.isNaN(leg.getDistance()));
+		assertEquals(13.,legCosts.getBackwardTransportTime("0,0", "3,4", 0.0, null, vehicle),0.01);
+		assertEquals(17.,legCosts.getBackwardTransportCost("0,0", "3,4", 0.0, null, vehicle),0.01);
+	}
+
+}
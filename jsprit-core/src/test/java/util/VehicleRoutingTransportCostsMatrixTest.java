@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import basics.costs.TransportLeg;
+import basics.route.Vehicle;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+public class VehicleRoutingTransportCostsMatrixTest {
+	
+	@Test
+	public void whenAddingDistanceToSymmetricMatrix_itShouldReturnItInBothDirections(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		matrixBuilder.addTransportDistance("2", "3", 4.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		assertEquals(2.,matrix.getTransportCost("1", "2", 0.0, null, null),0.1);
+		assertEquals(2.,matrix.getTransportCost("2", "1", 0.0, null, null),0.1);
+		assertEquals(4.,matrix.getTransportCost("3", "2", 0.0, null, null),0.1);
+	}
+	
+	@Test
+	public void whenAddingDistanceToSymmetricMatrixWithNonNumericIds_itShouldReturnIt(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("from", "to", 2.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		assertEquals(2.,matrix.getTransportCost("to", "from", 0.0, null, null),0.1);
+	}
+	
+	@Test
+	public void whenAddingDistanceToAsymmetricMatrix_itShouldDistinguishDirections(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		matrixBuilder.addTransportDistance("2", "1", 8.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		assertEquals(2.,matrix.getTransportCost("1", "2", 0.0, null, null),0.1);
+		assertEquals(8.,matrix.getTransportCost("2", "1", 0.0, null, null),0.1);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenRelationIsMissing_itShouldThrowException(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		matrix.getTransportCost("2", "1", 0.0, null, null);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenLocationIsUnknown_itShouldThrowException(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		matrix.getTransportCost("1", "3", 0.0, null, null);
+	}
+	
+	@Test
+	public void whenFromEqualsTo_itShouldReturnZero(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		assertEquals(0.,matrix.getTransportCost("1", "1", 0.0, null, null),0.1);
+	}
+	
+	@Test
+	public void whenAddingDistanceAndTime_itShouldCalculateCostsWithVehicleCostParams(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 20.);
+		matrixBuilder.addTransportTime("1", "2", 5.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		Vehicle vehicle = VehicleImpl.Builder.newInstance("v").setLocationId("1").setType(VehicleTypeImpl.Builder.newInstance("type", 10).setCostPerDistance(2.).setCostPerTime(3.).build()).build();
+		assertEquals(5.,matrix.getTransportTime("2", "1", 0.0, null, vehicle),0.1);
+		assertEquals(55.,matrix.getTransportCost("2", "1", 0.0, null, vehicle),0.1);
+	}
+	
+	@Test
+	public void whenQueryingByIndex_itShouldReturnSameValuesAsById(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+		matrixBuilder.addTransportDistance("a", "b", 3.);
+		matrixBuilder.addTransportTime("a", "b", 7.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		int a = matrix.getLocationIndex("a");
+		int b = matrix.getLocationIndex("b");
+		assertEquals(2,matrix.getNuOfLocations());
+		assertEquals(-1,matrix.getLocationIndex("c"));
+		assertEquals(3.,matrix.getDistance(a, b),0.1);
+		assertEquals(7.,matrix.getTime(a, b),0.1);
+	}
+	
+	@Test
+	public void whenQueryingLeg_itShouldReturnSameValuesAsSeparateQueries(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 20.);
+		matrixBuilder.addTransportTime("1", "2", 5.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		Vehicle vehicle = VehicleImpl.Builder.newInstance("v").setLocationId("1").setType(VehicleTypeImpl.Builder.newInstance("type", 10).setCostPerDistance(2.).setCostPerTime(3.).build()).build();
+		TransportLeg leg = new TransportLeg();
+		matrix.getTransportLeg("2", "1", 0.0, null, vehicle, leg);
+		assertEquals(matrix.getTransportTime("2", "1", 0.0, null, vehicle),leg.getTime(),0.01);
+		assertEquals(20.,leg.getDistance(),0.01);
+		assertEquals(matrix.getTransportCost("2", "1", 0.0, null, vehicle),leg.getCost(),0.01);
+		matrix.getTransportLeg("1", "1", 0.0, null, vehicle, leg);
+		assertEquals(0.,leg.getCost(),0.01);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenQueryingLegOfUnknownLocation_itShouldThrowException(){
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		matrixBuilder.addTransportDistance("1", "2", 2.);
+		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+		matrix.getTransportLeg("1", "3", 0.0, null, null, new TransportLeg());
+	}
+
+}
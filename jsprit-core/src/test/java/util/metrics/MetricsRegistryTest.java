@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.management.ObjectName;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.junit.After;
+import org.junit.Test;
+
+import util.Coordinate;
+import algorithms.VehicleRoutingAlgorithms;
+import basics.Service;
+import basics.VehicleRoutingAlgorithm;
+import basics.VehicleRoutingProblem;
+import basics.io.AlgorithmConfig;
+import basics.route.VehicleImpl;
+import basics.route.VehicleTypeImpl;
+
+public class MetricsRegistryTest {
+	
+	@After
+	public void doAfter(){
+		MetricsRegistry.getDefault().setEnabled(true);
+		MetricsRegistry.getDefault().reset();
+	}
+	
+	@Test
+	public void whenManyThreadsIncrement_counterShouldSumUpAllIncrements() throws InterruptedException{
+		final StripedCounter counter = new StripedCounter();
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t=0;t<4;t++){
+			threads.add(new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					for(int i=0;i<10000;i++) counter.increment();
+				}
+				
+			}));
+		}
+		for(Thread t : threads) t.start();
+		for(Thread t : threads) t.join();
+		assertEquals(40000, counter.sum());
+		counter.reset();
+		assertEquals(0, counter.sum());
+	}
+	
+	@Test
+	public void bucketsShouldCoverValuesWithoutGaps(){
+		for(long v=0;v<100000;v++){
+			int bucket = LatencyHistogram.bucketIndex(v);
+			assertTrue(LatencyHistogram.lowestValueOfBucket(bucket) <= v);
+			assertTrue(LatencyHistogram.highestValueOfBucket(bucket) >= v);
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOfBucket(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+	}
+	
+	@Test
+	public void percentilesShouldBeAccurateUpToOneEighth(){
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(long v=1;v<=1000;v++){
+			histogram.record(v*1000);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500500.0, histogram.getMean(), 0.01);
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(500000.0, histogram.getValueAtPercentile(50.0), 500000.0/8.0);
+		assertEquals(990000.0, histogram.getValueAtPercentile(99.0), 990000.0/8.0);
+		assertEquals(1000000, histogram.getValueAtPercentile(100.0));
+	}
+	
+	@Test
+	public void whenManyThreadsRecord_histogramShouldMergeAllStripes() throws InterruptedException{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t=0;t<4;t++){
+			final long latency = (t+1)*1000;
+			threads.add(new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					for(int i=0;i<10000;i++) histogram.record(latency);
+				}
+				
+			}));
+		}
+		for(Thread t : threads) t.start();
+		for(Thread t : threads) t.join();
+		assertEquals(40000, histogram.getCount());
+		assertEquals(2500.0, histogram.getMean(), 0.01);
+		assertEquals(4000, histogram.getValueAtPercentile(100.0));
+		assertEquals(1000.0, histogram.getValueAtPercentile(25.0), 1000.0/8.0);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+	}
+	
+	@Test
+	public void acceptanceRatioShouldBeAcceptedBySelected(){
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.getCounter("strategy.s.selected").add(4);
+		registry.getCounter("strategy.s.accepted").add(1);
+		assertEquals(0.25, registry.getAcceptanceRatios().get("strategy.s"), 0.001);
+	}
+	
+	@Test
+	public void whenRegisteredAsMBean_itShouldBeReadableViaJmx() throws Exception{
+		MetricsRegistry registry = MetricsRegistry.getDefault();
+		registry.getHistogram("test.time").record(5000);
+		ObjectName objectName = registry.registerMBean();
+		assertEquals(objectName, registry.registerMBean());
+		assertEquals(Boolean.TRUE, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Enabled"));
+		assertTrue(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "MeanLatencies") != null);
+	}
+	
+	@Test
+	public void whenAlgorithmRuns_itShouldRecordToDefaultRegistry(){
+		MetricsRegistry registry = MetricsRegistry.getDefault();
+		registry.reset();
+		VehicleRoutingAlgorithms.createAlgorithm(createProblem(), createConfig()).searchSolutions();
+		assertEquals(20, registry.getCounter("strategy.randomRuinAndRecreate.selected").sum());
+		assertEquals(20, registry.getHistogram("ruin.time").getCount());
+		assertEquals(20, registry.getHistogram("recreate.time").getCount());
+		assertTrue(registry.getHistogram("insertionCalculator.time").getCount() > 0);
+		assertTrue(registry.getHistogram("stateUpdate.time").getCount() > 0);
+		assertTrue(registry.getAcceptanceRatios().containsKey("strategy.randomRuinAndRecreate"));
+	}
+	
+	@Test
+	public void whenAlgorithmIsCreatedWithItsOwnRegistry_itShouldRecordOnlyToIt(){
+		MetricsRegistry registry = new MetricsRegistry();
+		MetricsRegistry.getDefault().reset();
+		VehicleRoutingAlgorithm algorithm = VehicleRoutingAlgorithms.createAlgorithm(createProblem(), createConfig(), registry);
+		assertSame(registry, algorithm.getMetricsRegistry());
+		algorithm.searchSolutions();
+		assertEquals(20, registry.getCounter("strategy.randomRuinAndRecreate.selected").sum());
+		assertTrue(registry.getHistogram("insertionCalculator.time").getCount() > 0);
+		assertTrue(registry.getHistogram("stateUpdate.time").getCount() > 0);
+		assertEquals(0, MetricsRegistry.getDefault().getCounter("strategy.randomRuinAndRecreate.selected").sum());
+		assertEquals(0, MetricsRegistry.getDefault().getHistogram("insertionCalculator.time").getCount());
+	}
+	
+	@Test
+	public void whenIslandsRun_eachShouldRecordToItsOwnScope(){
+		MetricsRegistry registry = new MetricsRegistry();
+		AlgorithmConfig config = createConfig();
+		config.getXMLConfiguration().addProperty("islands", "2");
+		VehicleRoutingAlgorithms.createAlgorithm(createProblem(), config, registry).searchSolutions();
+		assertEquals(20, registry.getCounter("island0.strategy.randomRuinAndRecreate.selected").sum());
+		assertEquals(20, registry.getCounter("island1.strategy.randomRuinAndRecreate.selected").sum());
+		assertEquals(20, registry.getHistogram("island1.ruin.time").getCount());
+		assertEquals(0, registry.getCounter("strategy.randomRuinAndRecreate.selected").sum());
+	}
+	
+	@Test
+	public void scopeShouldPrefixNamesAndShareEverythingElse(){
+		MetricsRegistry registry = new MetricsRegistry();
+		MetricsRegistry scope = registry.getScope("a").getScope("b");
+		scope.getCounter("c").increment();
+		assertEquals(1, registry.getCounter("a.b.c").sum());
+		assertEquals(Long.valueOf(1), scope.getCounts().get("a.b.c"));
+		registry.setEnabled(false);
+		assertTrue(!scope.isEnabled());
+		scope.reset();
+		assertEquals(0, registry.getCounter("a.b.c").sum());
+	}
+	
+	@Test
+	public void whenDisabled_algorithmShouldNotRecord(){
+		MetricsRegistry registry = MetricsRegistry.getDefault();
+		registry.reset();
+		registry.setEnabled(false);
+		VehicleRoutingAlgorithms.createAlgorithm(createProblem(), createConfig()).searchSolutions();
+		assertEquals(0, registry.getCounter("strategy.randomRuinAndRecreate.selected").sum());
+		assertEquals(0, registry.getHistogram("insertionCalculator.time").getCount());
+	}
+	
+	private AlgorithmConfig createConfig(){
+		AlgorithmConfig algorithmConfig = new AlgorithmConfig();
+		XMLConfiguration config = algorithmConfig.getXMLConfiguration();
+		config.addProperty("iterations", "20");
+		config.addProperty("construction.insertion[@name]", "bestInsertion");
+		config.addProperty("strategy.memory", "1");
+		config.addProperty("strategy.searchStrategies.searchStrategy[@name]", "randomRuinAndRecreate");
+		config.addProperty("strategy.searchStrategies.searchStrategy.selector[@name]", "selectBest");
+		config.addProperty("strategy.searchStrategies.searchStrategy.acceptor[@name]", "acceptNewRemoveWorst");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module[@name]", "ruin_and_recreate");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.ruin[@name]", "randomRuin");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.ruin.share", "0.5");
+		config.addProperty("strategy.searchStrategies.searchStrategy.modules.module.insertion[@name]", "bestInsertion");
+		config.addProperty("strategy.searchStrategies.searchStrategy.probability", "1.0");
+		return algorithmConfig;
+	}
+	
+	private VehicleRoutingProblem createProblem(){
+		Random random = new Random(4711);
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setLocationId("depot").setLocationCoord(Coordinate.newInstance(50, 50))
+				.setType(VehicleTypeImpl.Builder.newInstance("t", 5).build()).build());
+		for(int i=0;i<10;i++){
+			vrpBuilder.addService(Service.Builder.newInstance(""+i, 1).setLocationId("loc"+i)
+					.setCoord(Coordinate.newInstance(random.nextInt(100), random.nextInt(100))).build());
+		}
+		return vrpBuilder.build();
+	}
+
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.network;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import util.Coordinate;
+import util.VehicleRoutingTransportCostsMatrix;
+import basics.costs.TransportLeg;
+
+public class RoadNetworkMatrixBuilderTest {
+	
+	private static final String NETWORK = 
+			"# square with a fast diagonal from a to c\n" +
+			"n,a,0,0\n" +
+			"n,b,10,0\n" +
+			"n,c,10,10\n" +
+			"n,d,0,10\n" +
+			"n,x,100,100\n" +
+			"\n" +
+			"b,a,b,10,1\n" +
+			"b,b,c,10,1\n" +
+			"b,a,d,10,0.5\n" +
+			"b,d,c,10,0.5\n" +
+			"e,a,c,30,10\n";
+	
+	private RoadNetwork network;
+	
+	@Before
+	public void doBefore(){
+		RoadNetwork.Builder networkBuilder = RoadNetwork.Builder.newInstance();
+		new RoadNetworkReader(networkBuilder).read(new StringReader(NETWORK));
+		network = networkBuilder.build();
+	}
+	
+	private RoadNetworkMatrixBuilder createMatrixBuilder(){
+		return RoadNetworkMatrixBuilder.newInstance(network)
+				.addLocation("loc_a", Coordinate.newInstance(1, 1))
+				.addLocation("loc_c", Coordinate.newInstance(9, 11))
+				.addLocation("loc_a2", Coordinate.newInstance(0, -1))
+				.addLocation("loc_d", Coordinate.newInstance(-2, 12))
+				.addLocation("loc_x", Coordinate.newInstance(99, 99));
+	}
+	
+	@Test
+	public void whenReadingNetwork_itShouldHaveAllNodesAndEdges(){
+		assertEquals(5, network.getNuOfNodes());
+		assertEquals(9, network.getNuOfEdges());
+		assertEquals("c", network.getNodeId(network.getNodeIndex("c")));
+		assertEquals(-1, network.getNodeIndex("unknown"));
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenReadingMalformedLine_itShouldThrowException(){
+		new RoadNetworkReader(RoadNetwork.Builder.newInstance()).read(new StringReader("n,a,0,0\nn,b,zero,0\n"));
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenEdgeRefersToUnknownNode_itShouldThrowException(){
+		new RoadNetworkReader(RoadNetwork.Builder.newInstance()).read(new StringReader("n,a,0,0\ne,a,b,1,1\n"));
+	}
+	
+	@Test
+	public void whenSnappingCoordinates_itShouldReturnNearestNode(){
+		RoadNetwork.Builder networkBuilder = RoadNetwork.Builder.newInstance();
+		Random random = new Random(4711);
+		int nuOfNodes = 500;
+		double[] xs = new double[nuOfNodes];
+		double[] ys = new double[nuOfNodes];
+		for(int i=0;i<nuOfNodes;i++){
+			xs[i] = random.nextDouble()*1000;
+			ys[i] = random.nextDouble()*200;
+			networkBuilder.addNode("n" + i, Coordinate.newInstance(xs[i], ys[i]));
+		}
+		RoadNetwork randomNetwork = networkBuilder.build();
+		for(int k=0;k<200;k++){
+			double x = random.nextDouble()*1400 - 200;
+			double y = random.nextDouble()*600 - 200;
+			int nearest = 0;
+			for(int i=1;i<nuOfNodes;i++){
+				if(distance(xs[i], ys[i], x, y) < distance(xs[nearest], ys[nearest], x, y)) nearest = i;
+			}
+			assertEquals("n" + nearest, randomNetwork.getNodeId(randomNetwork.getNearestNode(Coordinate.newInstance(x, y))));
+		}
+	}
+	
+	private double distance(double x1, double y1, double x2, double y2){
+		return Math.sqrt((x1-x2)*(x1-x2) + (y1-y2)*(y1-y2));
+	}
+	
+	@Test
+	public void whenComputingMatrix_itShouldContainFastestPaths(){
+		VehicleRoutingTransportCostsMatrix matrix = createMatrixBuilder().build();
+		assertLeg(matrix, "loc_a", "loc_c", 3.0, 30.0);
+		assertLeg(matrix, "loc_c", "loc_a", 20.0, 20.0);
+		assertLeg(matrix, "loc_a", "loc_d", 20.0, 10.0);
+		assertLeg(matrix, "loc_c", "loc_d", 20.0, 10.0);
+		assertLeg(matrix, "loc_a2", "loc_c", 3.0, 30.0);
+	}
+	
+	@Test
+	public void whenLocationsSnapToSameNode_theyShouldBeZeroApart(){
+		VehicleRoutingTransportCostsMatrix matrix = createMatrixBuilder().build();
+		assertLeg(matrix, "loc_a", "loc_a2", 0.0, 0.0);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenRelationIsUnreachable_matrixShouldThrowException(){
+		VehicleRoutingTransportCostsMatrix matrix = createMatrixBuilder().build();
+		matrix.getTransportTime("loc_a", "loc_x", 0.0, null, null);
+	}
+	
+	@Test
+	public void whenComputingMatrixWithSeveralThreads_itShouldEqualSingleThreadedMatrix(){
+		VehicleRoutingTransportCostsMatrix single = createMatrixBuilder().build();
+		VehicleRoutingTransportCostsMatrix parallel = createMatrixBuilder().setNuOfThreads(3).build();
+		String[] ids = { "loc_a", "loc_c", "loc_a2", "loc_d" };
+		for(String from : ids){
+			for(String to : ids){
+				assertEquals(single.getTransportTime(from, to, 0.0, null, null), parallel.getTransportTime(from, to, 0.0, null, null), 0.0);
+			}
+		}
+	}
+	
+	private void assertLeg(VehicleRoutingTransportCostsMatrix matrix, String from, String to, double time, double distance){
+		TransportLeg leg = new TransportLeg();
+		matrix.getTransportLeg(from, to, 0.0, null, null, leg);
+		assertEquals(time, leg.getTime(), 0.01);
+		assertEquals(distance, leg.getDistance(), 0.01);
+	}
+
+}
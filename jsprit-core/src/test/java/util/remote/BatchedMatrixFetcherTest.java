@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contributors:
+ *     Stefan Schroeder - initial API and implementation
+ ******************************************************************************/
+package util.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import util.Coordinate;
+import util.VehicleRoutingTransportCostsMatrix;
+import basics.costs.TransportLeg;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class BatchedMatrixFetcherTest {
+	
+	/**
+	 * Stub of a table service. Distance is euclidean, time is half the distance, coordinates with negative x cannot be reached.
+	 */
+	static class StubTableHandler implements HttpHandler {
+		
+		final AtomicInteger nuOfRequests = new AtomicInteger(0);
+		
+		volatile int status = 200;
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			nuOfRequests.incrementAndGet();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), "UTF-8"));
+			String profile = reader.readLine().split("=")[1];
+			String[] sources = reader.readLine().split("=")[1].split(";");
+			String[] destinations = reader.readLine().split("=")[1].split(";");
+			double factor = profile.equals("truck") ? 2.0 : 1.0;
+			StringBuilder response = new StringBuilder();
+			for(String source : sources){
+				double[] from = parse(source);
+				for(int j=0;j<destinations.length;j++){
+					if(j > 0) response.append(";");
+					double[] to = parse(destinations[j]);
+					if(from[0] < 0 || to[0] < 0){
+						response.append("-");
+						continue;
+					}
+					double distance = Math.sqrt((from[0]-to[0])*(from[0]-to[0]) + (from[1]-to[1])*(from[1]-to[1]));
+					response.append(factor*distance/2.0).append(",").append(distance);
+				}
+				response.append("\n");
+			}
+			byte[] body = response.toString().getBytes("UTF-8");
+			exchange.sendResponseHeaders(status, body.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(body);
+			out.close();
+		}
+
+		private double[] parse(String coord) {
+			String[] xy = coord.split(",");
+			return new double[]{ Double.parseDouble(xy[0]), Double.parseDouble(xy[1]) };
+		}
+		
+	}
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private HttpServer server;
+	
+	private StubTableHandler handler;
+	
+	private HttpTableRequestClient client;
+	
+	@Before
+	public void doBefore() throws IOException{
+		handler = new StubTableHandler();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/table", handler);
+		server.start();
+		client = new HttpTableRequestClient("http://127.0.0.1:" + server.getAddress().getPort() + "/table");
+	}
+	
+	@After
+	public void doAfter(){
+		server.stop(0);
+	}
+	
+	private BatchedMatrixFetcher createFetcher(TransportTableCache cache){
+		return BatchedMatrixFetcher.newInstance(client, cache)
+				.addLocation("1", Coordinate.newInstance(0, 0))
+				.addLocation("2", Coordinate.newInstance(30, 40))
+				.addLocation("3", Coordinate.newInstance(60, 80))
+				.addLocation("3b", Coordinate.newInstance(60, 80))
+				.addLocation("4", Coordinate.newInstance(0, 10))
+				.addLocation("5", Coordinate.newInstance(10, 0));
+	}
+	
+	@Test
+	public void whenFetchingMatrix_itShouldContainServiceValues(){
+		VehicleRoutingTransportCostsMatrix matrix = createFetcher(TransportTableCache.newInMemoryInstance()).build();
+		assertLeg(matrix, "1", "2", 25.0, 50.0);
+		assertLeg(matrix, "3", "1", 50.0, 100.0);
+		assertLeg(matrix, "3", "3b", 0.0, 0.0);
+		assertLeg(matrix, "4", "5", Math.sqrt(200)/2.0, Math.sqrt(200));
+	}
+	
+	@Test
+	public void whenFetchingWithProfile_itShouldRequestProfile(){
+		VehicleRoutingTransportCostsMatrix matrix = createFetcher(TransportTableCache.newInMemoryInstance()).setProfile("truck").build();
+		assertLeg(matrix, "1", "2", 50.0, 50.0);
+	}
+	
+	@Test
+	public void whenBatchSizeIsSmallerThanNuOfCoordinates_itShouldRequestBlocks(){
+		BatchedMatrixFetcher fetcher = createFetcher(TransportTableCache.newInMemoryInstance()).setBatchSize(2).setNuOfThreads(3);
+		VehicleRoutingTransportCostsMatrix matrix = fetcher.build();
+		//5 distinct coordinates in 3 blocks, the block of the last coordinate to itself has no relation
+		assertEquals(8, fetcher.getNuOfRequests());
+		assertEquals(8, handler.nuOfRequests.get());
+		assertLeg(matrix, "1", "2", 25.0, 50.0);
+		assertLeg(matrix, "5", "3", Math.sqrt(50*50+80*80)/2.0, Math.sqrt(50*50+80*80));
+	}
+	
+	@Test
+	public void whenRestartingWithCacheFile_itShouldNotRequestAgain() throws IOException{
+		File file = new File(folder.getRoot(), "tables.cache");
+		createFetcher(TransportTableCache.newInstance(file)).build();
+		int requestsBefore = handler.nuOfRequests.get();
+		assertTrue(requestsBefore > 0);
+		
+		TransportTableCache cache = TransportTableCache.newInstance(file);
+		assertEquals(20, cache.size());
+		BatchedMatrixFetcher fetcher = createFetcher(cache);
+		VehicleRoutingTransportCostsMatrix matrix = fetcher.build();
+		assertEquals(0, fetcher.getNuOfRequests());
+		assertEquals(requestsBefore, handler.nuOfRequests.get());
+		assertLeg(matrix, "2", "1", 25.0, 50.0);
+	}
+	
+	@Test
+	public void whenLocationIsAdded_itShouldOnlyRequestBlocksWithMissingRelations(){
+		TransportTableCache cache = TransportTableCache.newInMemoryInstance();
+		createFetcher(cache).setBatchSize(5).build();
+		BatchedMatrixFetcher fetcher = createFetcher(cache).setBatchSize(5).addLocation("6", Coordinate.newInstance(5, 5));
+		VehicleRoutingTransportCostsMatrix matrix = fetcher.build();
+		//blocks {1,2,3,4,5}x{6}, {6}x{1,2,3,4,5}
+		assertEquals(2, fetcher.getNuOfRequests());
+		assertLeg(matrix, "6", "1", Math.sqrt(50)/2.0, Math.sqrt(50));
+	}
+	
+	@Test
+	public void whenCacheFileEndsWithIncompleteRecord_itShouldBeCutOff() throws IOException{
+		File file = new File(folder.getRoot(), "tables.cache");
+		createFetcher(TransportTableCache.newInstance(file)).build();
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		randomAccessFile.setLength(randomAccessFile.length()-3);
+		randomAccessFile.close();
+		
+		TransportTableCache cache = TransportTableCache.newInstance(file);
+		assertEquals(19, cache.size());
+		BatchedMatrixFetcher fetcher = createFetcher(cache);
+		fetcher.build();
+		assertEquals(1, fetcher.getNuOfRequests());
+		assertEquals(20, TransportTableCache.newInstance(file).size());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenRelationIsUnreachable_matrixShouldThrowException(){
+		VehicleRoutingTransportCostsMatrix matrix = createFetcher(TransportTableCache.newInMemoryInstance())
+				.addLocation("unreachable", Coordinate.newInstance(-10, 0)).build();
+		matrix.getTransportTime("1", "unreachable", 0.0, null, null);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenServiceAnswersWithError_itShouldThrowException(){
+		handler.status = 500;
+		createFetcher(TransportTableCache.newInMemoryInstance()).build();
+	}
+	
+	private void assertLeg(VehicleRoutingTransportCostsMatrix matrix, String from, String to, double time, double distance){
+		TransportLeg leg = new TransportLeg();
+		matrix.getTransportLeg(from, to, 0.0, null, null, leg);
+		assertEquals(time, leg.getTime(), 0.01);
+		assertEquals(distance, leg.getDistance(), 0.01);
+	}
+
+}
@@ -28,13 +28,14 @@ import util.CrowFlyCosts;
 import util.Locations;
 import basics.VehicleRoutingProblem;
 import basics.VehicleRoutingProblem.Builder;
-import basics.costs.VehicleRoutingTransportCosts;
+import basics.costs.TransportLeg;
+import basics.costs.TransportLegCosts;
 import basics.route.Driver;
 import basics.route.Vehicle;
 
 public class FigliozziReader {
 	
-	public static class TDCosts implements VehicleRoutingTransportCosts {
+	public static class TDCosts implements TransportLegCosts {
 		
 		private static Logger log = Logger.getLogger(TDCosts.class);
 		
@@ -72,8 +73,26 @@ public class FigliozziReader {
 			if(fromId.equals(toId)){
 				return 0.0;
 			}
+			return getTransportTime(crowFly.getTransportCost(fromId, toId, departureTime, null, null), departureTime);
+		}
+		
+		/**
+		 * Fills leg with time, distance and cost, whereby distance and the walk through the time bins are calculated once per leg.
+		 */
+		@Override
+		public void getTransportLeg(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle, TransportLeg leg) {
+			if(fromId.equals(toId)){
+				leg.set(0.0, 0.0, 0.0);
+				return;
+			}
+			double distance = crowFly.getTransportCost(fromId, toId, departureTime, null, null);
+			double time = getTransportTime(distance, departureTime);
+			leg.set(time, distance, 1.0*distance + 1.0*time);
+		}
+		
+		private double getTransportTime(double distance, double departureTime) {
 			double totalTravelTime = 0.0;
-			double distanceToTravel = crowFly.getTransportCost(fromId, toId, departureTime, null, null);
+			double distanceToTravel = distance;
 			double currentTime = departureTime;
 			for(int i=0;i<timeBins.size();i++){
 				double timeThreshold = timeBins.get(i);